@@ -0,0 +1,14 @@
+package com.github.polydome.journow.api;
+
+class ApiException extends RuntimeException {
+    private final int status;
+
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.polydome.journow.api;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+
+/**
+ * Lets through only requests a local client made on purpose. Binding to loopback alone is not enough: any web page
+ * can send simple cross-origin POSTs to localhost, and a rebound DNS name can read from it. So a request is rejected
+ * when a browser marked it with an {@code Origin}, when its {@code Host} is not the loopback address the server
+ * listens on, or when it lacks the install's bearer token.
+ */
+class ApiGuard extends Filter {
+    private final Set<String> hosts;
+    private final byte[] authorization;
+
+    ApiGuard(int port, String token) {
+        hosts = Set.of("localhost:" + port, "127.0.0.1:" + port, "[::1]:" + port);
+        authorization = ("Bearer " + token).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        String given = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (exchange.getRequestHeaders().containsKey("Origin"))
+            reject(exchange, 403, "Cross-origin requests are not allowed");
+        else if (host == null || !hosts.contains(host.toLowerCase()))
+            reject(exchange, 403, "Unexpected host");
+        else if (given == null || !MessageDigest.isEqual(authorization, given.getBytes(StandardCharsets.US_ASCII))) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            reject(exchange, 401, "Missing or wrong token");
+        } else
+            chain.doFilter(exchange);
+    }
+
+    private static void reject(HttpExchange exchange, int status, String message) throws IOException {
+        try {
+            ApiHandler.error(exchange, status, message);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Rejects cross-origin, foreign-host and unauthenticated requests";
+    }
+}
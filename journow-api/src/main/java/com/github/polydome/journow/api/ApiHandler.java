@@ -0,0 +1,149 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.exception.TrackedTaskDeletedException;
+import com.github.polydome.journow.domain.exception.TrackerNotRunningException;
+import com.github.polydome.journow.domain.exception.TrackerStateChangedException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+abstract class ApiHandler implements HttpHandler {
+    static final String JSON = "application/json";
+    static final String NDJSON = "application/x-ndjson";
+
+    private final Scheduler databaseScheduler;
+
+    ApiHandler(Scheduler databaseScheduler) {
+        this.databaseScheduler = databaseScheduler;
+    }
+
+    /**
+     * Handles a request whose path starts with the handler's context. Responses are sent through {@link #respond} or
+     * {@link #stream}; anything thrown before that becomes an error response.
+     */
+    protected abstract void handle(HttpExchange exchange, String path, Map<String, String> query) throws IOException;
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+            handle(exchange, path, parseQuery(exchange.getRequestURI()));
+        } catch (ApiException e) {
+            error(exchange, e.getStatus(), e.getMessage());
+        } catch (NoSuchTaskException e) {
+            error(exchange, 404, e.getMessage());
+        } catch (TrackerNotRunningException e) {
+            error(exchange, 409, "Not tracking");
+        } catch (TrackerStateChangedException | TrackedTaskDeletedException e) {
+            error(exchange, 409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            // Usually the client going away mid-stream; there is nobody left to answer
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            error(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Runs repository or tracker work on the database thread and waits for its result.
+     */
+    protected <T> T onDatabase(Callable<T> work) {
+        return Single.fromCallable(work).subscribeOn(databaseScheduler).blockingGet();
+    }
+
+    protected void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    protected void respondEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * Starts a chunked NDJSON response. Each flush of the returned writer goes out as a chunk.
+     */
+    protected Writer stream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", NDJSON);
+        exchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    protected static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method))
+            throw new ApiException(405, "Use " + method);
+    }
+
+    protected static long longParam(Map<String, String> query, String name, long defaultValue) {
+        String value = query.get(name);
+        if (value == null)
+            return defaultValue;
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    protected static long requiredLongParam(Map<String, String> query, String name) {
+        if (!query.containsKey(name))
+            throw new ApiException(400, "Missing parameter " + name);
+        return longParam(query, name, 0);
+    }
+
+    static void error(HttpExchange exchange, int status, String message) throws IOException {
+        // Once a response has started, its status can no longer change
+        if (exchange.getResponseCode() != -1)
+            return;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"error\":");
+        Json.appendString(json, message);
+        json.append('}');
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        if (uri.getRawQuery() == null)
+            return params;
+
+        for (String pair : uri.getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0)
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+
+        return params;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP API over the tracker and the repositories, bound to the loopback interface. Every request passes
+ * {@link ApiGuard} first and must carry the install's {@link ApiToken}.
+ * <p>
+ * Requests are handled by a small fixed pool with a bounded queue; once the queue is full further connections are
+ * closed unanswered instead of piling up. Handlers only parse and write: every repository and tracker call is run on
+ * the database scheduler, a page at a time for listings, so a slow client never holds the database thread.
+ */
+public class ApiServer implements AutoCloseable {
+    static final int WORKERS = 4;
+    static final int QUEUE_CAPACITY = 256;
+
+    static {
+        // The server writes a response's headers and body separately; with Nagle's algorithm on, the body then waits
+        // for the client's delayed ACK, about 40 ms per request. Read once, when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+
+    public ApiServer(int port, String token, Tracker tracker, TaskRepository taskRepository, ProjectRepository projectRepository,
+                     SessionRepository sessionRepository, Scheduler databaseScheduler) throws IOException {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "journow-api-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ApiGuard guard = new ApiGuard(server.getAddress().getPort(), token);
+        List<HttpContext> contexts = List.of(
+                server.createContext("/tracker", new TrackerHandler(databaseScheduler, tracker, taskRepository, projectRepository)),
+                server.createContext("/sessions", new SessionHandler(databaseScheduler, sessionRepository,
+                        new LogSessionUseCase(taskRepository, sessionRepository))),
+                server.createContext("/tasks", new TaskHandler(databaseScheduler, taskRepository)),
+                server.createContext("/projects", new ProjectHandler(databaseScheduler, projectRepository)));
+        for (HttpContext context : contexts)
+            context.getFilters().add(guard);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+}
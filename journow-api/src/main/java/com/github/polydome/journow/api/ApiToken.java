@@ -0,0 +1,46 @@
+package com.github.polydome.journow.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * The bearer token every API request must carry, generated once per install and kept in a file only the user can
+ * read. Clients read it from the same file.
+ */
+public final class ApiToken {
+    public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".journow", "api-token");
+
+    private ApiToken() {
+    }
+
+    /**
+     * Returns the token stored in {@code file}, first writing a new random one if there is none.
+     */
+    public static String readOrCreate(Path file) throws IOException {
+        if (Files.exists(file))
+            return Files.readString(file, StandardCharsets.US_ASCII).strip();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try {
+            if (file.getFileSystem().supportedFileAttributeViews().contains("posix"))
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            else
+                Files.createFile(file);
+        } catch (FileAlreadyExistsException e) {
+            // Another process created it first; use its token
+            return readOrCreate(file);
+        }
+        Files.writeString(file, token, StandardCharsets.US_ASCII);
+        return token;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+
+/**
+ * Writes the API's JSON by hand; the shapes are small and fixed. Times are epoch milliseconds.
+ */
+final class Json {
+    private Json() {
+    }
+
+    static void appendProject(StringBuilder json, Project project) {
+        json.append("{\"id\":").append(project.getId()).append(",\"name\":");
+        appendString(json, project.getName());
+        json.append('}');
+    }
+
+    static void appendTask(StringBuilder json, Task task) {
+        json.append("{\"id\":").append(task.getId()).append(",\"title\":");
+        appendString(json, task.getTitle());
+        json.append(",\"projectId\":");
+        if (task.getProject() != null)
+            json.append(task.getProject().getId());
+        else
+            json.append("null");
+        json.append('}');
+    }
+
+    static void appendSession(StringBuilder json, Session session) {
+        json.append("{\"id\":").append(session.getId())
+                .append(",\"taskId\":");
+        if (session.getTask() != null)
+            json.append(session.getTask().getId());
+        else
+            json.append("null");
+        json.append(",\"start\":").append(session.getStartedAt().toEpochMilli())
+                .append(",\"end\":").append(session.getEndedAt().toEpochMilli())
+                .append('}');
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        json.append(String.format("\\u%04x", (int) c));
+                    else
+                        json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.sun.net.httpserver.HttpExchange;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /projects} lists projects as NDJSON.
+ */
+class ProjectHandler extends ApiHandler {
+    private final ProjectRepository projectRepository;
+
+    ProjectHandler(Scheduler databaseScheduler, ProjectRepository projectRepository) {
+        super(databaseScheduler);
+        this.projectRepository = projectRepository;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        requireMethod(exchange, "GET");
+        if (!path.isEmpty() && !path.equals("/"))
+            throw new ApiException(404, "No such resource");
+
+        List<Project> projects = onDatabase(projectRepository::findAll);
+
+        StringBuilder line = new StringBuilder(64);
+        try (Writer out = stream(exchange)) {
+            for (Project project : projects) {
+                line.setLength(0);
+                Json.appendProject(line, project);
+                out.append(line).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
+import com.sun.net.httpserver.HttpExchange;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /sessions[?after=<id>][&limit=<n>]} streams sessions in id order as NDJSON, one keyset page per database
+ * round trip; a client resumes an interrupted stream with the last id it got. {@code POST /sessions?task=<id>&start=<ms>&end=<ms>}
+ * logs a finished session.
+ */
+class SessionHandler extends ApiHandler {
+    static final int PAGE_SIZE = 1000;
+
+    private final SessionRepository sessionRepository;
+    private final LogSessionUseCase logSessionUseCase;
+
+    SessionHandler(Scheduler databaseScheduler, SessionRepository sessionRepository, LogSessionUseCase logSessionUseCase) {
+        super(databaseScheduler);
+        this.sessionRepository = sessionRepository;
+        this.logSessionUseCase = logSessionUseCase;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        if (!path.isEmpty() && !path.equals("/"))
+            throw new ApiException(404, "No such resource");
+
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                list(exchange, longParam(query, "after", 0), longParam(query, "limit", Long.MAX_VALUE));
+                break;
+            case "POST":
+                Instant start = Instant.ofEpochMilli(requiredLongParam(query, "start"));
+                Instant end = Instant.ofEpochMilli(requiredLongParam(query, "end"));
+                long taskId = requiredLongParam(query, "task");
+
+                onDatabase(() -> {
+                    logSessionUseCase.execute(start, end, taskId);
+                    return taskId;
+                });
+                respondEmpty(exchange, 204);
+                break;
+            default:
+                throw new ApiException(405, "Use GET or POST");
+        }
+    }
+
+    private void list(HttpExchange exchange, long after, long limit) throws IOException {
+        // Fetch the first page before committing to a 200, so a database failure can still be reported
+        long remaining = limit;
+        List<Session> page = nextPage(after + 1, remaining);
+        StringBuilder line = new StringBuilder(128);
+
+        try (Writer out = stream(exchange)) {
+            while (!page.isEmpty()) {
+                for (Session session : page) {
+                    line.setLength(0);
+                    Json.appendSession(line, session);
+                    out.append(line).append('\n');
+                }
+                out.flush();
+
+                remaining -= page.size();
+                if (page.size() < PAGE_SIZE || remaining <= 0)
+                    break;
+                page = nextPage(page.get(page.size() - 1).getId() + 1, remaining);
+            }
+        }
+    }
+
+    private List<Session> nextPage(long firstId, long remaining) {
+        int size = (int) Math.min(PAGE_SIZE, remaining);
+        if (size <= 0)
+            return List.of();
+
+        return onDatabase(() -> sessionRepository.findPage(firstId, size));
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.sun.net.httpserver.HttpExchange;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /tasks[?project=<id>|none]} lists tasks as NDJSON; {@code GET /tasks/<id>} returns one task.
+ */
+class TaskHandler extends ApiHandler {
+    private final TaskRepository taskRepository;
+
+    TaskHandler(Scheduler databaseScheduler, TaskRepository taskRepository) {
+        super(databaseScheduler);
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        requireMethod(exchange, "GET");
+
+        if (path.isEmpty() || path.equals("/")) {
+            List<Task> tasks;
+            if ("none".equals(query.get("project")))
+                tasks = onDatabase(taskRepository::findWithoutProject);
+            else if (query.containsKey("project")) {
+                long projectId = longParam(query, "project", 0);
+                tasks = onDatabase(() -> taskRepository.findByProject(projectId));
+            } else
+                tasks = onDatabase(taskRepository::findAll);
+
+            StringBuilder line = new StringBuilder(128);
+            try (Writer out = stream(exchange)) {
+                for (Task task : tasks) {
+                    line.setLength(0);
+                    Json.appendTask(line, task);
+                    out.append(line).append('\n');
+                }
+            }
+        } else {
+            long taskId;
+            try {
+                taskId = Long.parseLong(path.substring(1));
+            } catch (NumberFormatException e) {
+                throw new ApiException(404, "No such resource");
+            }
+            Task task = onDatabase(() -> taskRepository.findById(taskId).orElseThrow(() -> new NoSuchTaskException(taskId)));
+
+            StringBuilder json = new StringBuilder();
+            Json.appendTask(json, task);
+            respond(exchange, 200, json.toString());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.sun.net.httpserver.HttpExchange;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@code GET /tracker}, {@code POST /tracker/start?task=<id>}, {@code POST /tracker/start?title=<title>[&project=<id>]}
+ * and {@code POST /tracker/stop}. Starting with a title creates the task, as the tracker panel does.
+ */
+class TrackerHandler extends ApiHandler {
+    private final Tracker tracker;
+    private final TaskRepository taskRepository;
+    private final ProjectRepository projectRepository;
+
+    TrackerHandler(Scheduler databaseScheduler, Tracker tracker, TaskRepository taskRepository, ProjectRepository projectRepository) {
+        super(databaseScheduler);
+        this.tracker = tracker;
+        this.taskRepository = taskRepository;
+        this.projectRepository = projectRepository;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        switch (path) {
+            case "":
+            case "/":
+                requireMethod(exchange, "GET");
+                respond(exchange, 200, onDatabase(this::state));
+                break;
+            case "/start":
+                requireMethod(exchange, "POST");
+                respond(exchange, 200, onDatabase(() -> start(query)));
+                break;
+            case "/stop":
+                requireMethod(exchange, "POST");
+                respond(exchange, 200, onDatabase(() -> {
+                    tracker.stop();
+                    return state();
+                }));
+                break;
+            default:
+                throw new ApiException(404, "No such resource");
+        }
+    }
+
+    // Runs on the database thread, so the check and the start cannot interleave with the UI starting a session
+    private String start(Map<String, String> query) {
+        if (tracker.getData().isPresent())
+            throw new ApiException(409, "Already tracking");
+
+        long taskId;
+        if (query.containsKey("task")) {
+            taskId = requiredLongParam(query, "task");
+        } else if (query.containsKey("title") && !query.get("title").isBlank()) {
+            Project project = null;
+            if (query.containsKey("project")) {
+                long projectId = requiredLongParam(query, "project");
+                List<Project> projects = projectRepository.findByIdRange(projectId, projectId);
+                if (projects.isEmpty())
+                    throw new ApiException(404, "Project identified with [id=" + projectId + "] does not exist");
+                project = projects.get(0);
+            }
+
+            taskId = taskRepository.insert(new Task(0, query.get("title"), project)).getId();
+        } else
+            throw new ApiException(400, "Missing parameter task or title");
+
+        tracker.start(taskId);
+        return state();
+    }
+
+    private String state() {
+        Optional<TrackerData> data = tracker.getData();
+        if (data.isEmpty())
+            return "{\"running\":false}";
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"running\":true,\"startedAt\":").append(data.get().getStartTime().toEpochMilli())
+                .append(",\"elapsed\":").append(tracker.millisElapsed())
+                .append(",\"task\":");
+
+        Optional<Task> task = taskRepository.findById(data.get().getTaskId());
+        if (task.isPresent())
+            Json.appendTask(json, task.get());
+        else
+            json.append("null");
+
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,334 @@
+package com.github.polydome.journow.api;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class ApiServerTest {
+    ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+    Scheduler databaseScheduler = Schedulers.from(databaseExecutor);
+    MemoryDatabase database = new MemoryDatabase();
+    DataEventBus dataEventBus = new DataEventBus();
+    TaskRepository taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+    ProjectRepository projectRepository = new ProjectRepositoryImpl(database, dataEventBus);
+    SessionRepository sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+    Tracker tracker = new Tracker(taskRepository, new StoredTrackerData(), Clock.systemUTC(), sessionRepository);
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    ApiServer SUT;
+
+    static final String TOKEN = "test-token";
+
+    ApiServerTest() throws Exception {
+        databaseExecutor.submit(database::init).get();
+        SUT = new ApiServer(0, TOKEN, tracker, taskRepository, projectRepository, sessionRepository, databaseScheduler);
+        SUT.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SUT.close();
+        databaseExecutor.shutdownNow();
+    }
+
+    @Test
+    void tracker_notStarted_reportsNotRunning() throws Exception {
+        HttpResponse<String> response = get("tracker");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body(), equalTo("{\"running\":false}"));
+    }
+
+    @Test
+    void trackerStart_titleAndProject_createsTaskAndStartsTracking() throws Exception {
+        onDatabase(() -> projectRepository.insert(new Project(0, "Journow")));
+
+        HttpResponse<String> response = post("tracker/start?project=1&title=" + URLEncoder.encode("Write \"report\"", StandardCharsets.UTF_8));
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body(), containsString("\"task\":{\"id\":1,\"title\":\"Write \\\"report\\\"\",\"projectId\":1}"));
+        assertThat(tracker.getData().get().getTaskId(), equalTo(1L));
+    }
+
+    @Test
+    void trackerStart_alreadyTracking_conflicts() throws Exception {
+        post("tracker/start?title=First");
+
+        HttpResponse<String> response = post("tracker/start?title=Second");
+
+        assertThat(response.statusCode(), equalTo(409));
+        assertThat(response.body(), equalTo("{\"error\":\"Already tracking\"}"));
+    }
+
+    @Test
+    void trackerStart_unknownTask_notFound() throws Exception {
+        HttpResponse<String> response = post("tracker/start?task=7");
+
+        assertThat(response.statusCode(), equalTo(404));
+    }
+
+    @Test
+    void trackerStop_tracking_savesSession() throws Exception {
+        post("tracker/start?title=First");
+
+        HttpResponse<String> response = post("tracker/stop");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body(), equalTo("{\"running\":false}"));
+        assertThat(onDatabase(sessionRepository::findAll).size(), equalTo(1));
+    }
+
+    @Test
+    void trackerStop_notTracking_conflicts() throws Exception {
+        HttpResponse<String> response = post("tracker/stop");
+
+        assertThat(response.statusCode(), equalTo(409));
+    }
+
+    @Test
+    void sessions_manyPages_streamsEverySessionAsNdjson() throws Exception {
+        insertSessions(SessionHandler.PAGE_SIZE * 2 + 500);
+
+        HttpResponse<String> response = get("sessions");
+
+        String[] lines = response.body().split("\n");
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.headers().firstValue("Content-Type").get(), equalTo(ApiHandler.NDJSON));
+        assertThat(response.headers().firstValue("Transfer-Encoding").get(), equalTo("chunked"));
+        assertThat(lines.length, equalTo(SessionHandler.PAGE_SIZE * 2 + 500));
+        assertThat(lines[0], equalTo("{\"id\":1,\"taskId\":1,\"start\":60000,\"end\":90000}"));
+        assertThat(lines[lines.length - 1], startsWith("{\"id\":2500,"));
+    }
+
+    @Test
+    void sessions_afterAndLimit_streamsThatWindow() throws Exception {
+        insertSessions(30);
+
+        String[] lines = get("sessions?after=10&limit=5").body().split("\n");
+
+        assertThat(lines.length, equalTo(5));
+        assertThat(lines[0], startsWith("{\"id\":11,"));
+        assertThat(lines[4], startsWith("{\"id\":15,"));
+    }
+
+    @Test
+    void sessionsPost_existingTask_logsSession() throws Exception {
+        onDatabase(() -> taskRepository.insert(new Task(0, "Review", null)));
+
+        HttpResponse<String> response = post("sessions?task=1&start=60000&end=120000");
+
+        assertThat(response.statusCode(), equalTo(204));
+        assertThat(onDatabase(sessionRepository::findAll).get(0).getEndedAt(), equalTo(Instant.ofEpochMilli(120000)));
+    }
+
+    @Test
+    void sessionsPost_missingParameter_badRequest() throws Exception {
+        HttpResponse<String> response = post("sessions?task=1&start=60000");
+
+        assertThat(response.statusCode(), equalTo(400));
+        assertThat(response.body(), equalTo("{\"error\":\"Missing parameter end\"}"));
+    }
+
+    @Test
+    void tasks_byProject_listsProjectTasks() throws Exception {
+        onDatabase(() -> {
+            Project project = projectRepository.insert(new Project(0, "Journow"));
+            taskRepository.insert(new Task(0, "Review", project));
+            return taskRepository.insert(new Task(0, "Unfiled", null));
+        });
+
+        assertThat(get("tasks?project=1").body(), equalTo("{\"id\":1,\"title\":\"Review\",\"projectId\":1}\n"));
+        assertThat(get("tasks?project=none").body(), equalTo("{\"id\":2,\"title\":\"Unfiled\",\"projectId\":null}\n"));
+        assertThat(get("tasks/2").body(), equalTo("{\"id\":2,\"title\":\"Unfiled\",\"projectId\":null}"));
+        assertThat(get("tasks/3").statusCode(), equalTo(404));
+    }
+
+    @Test
+    void projects_listsProjects() throws Exception {
+        onDatabase(() -> projectRepository.insert(new Project(0, "Journow")));
+
+        assertThat(get("projects").body(), equalTo("{\"id\":1,\"name\":\"Journow\"}\n"));
+    }
+
+    @Test
+    void concurrentClients_everyRequestAnswered() throws Exception {
+        insertSessions(50);
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> failures = new ArrayList<>();
+
+        try {
+            for (int c = 0; c < 16; c++)
+                failures.add(clients.submit(() -> {
+                    int failed = 0;
+                    for (int i = 0; i < 50; i++)
+                        if (get(i % 2 == 0 ? "tracker" : "sessions?limit=20").statusCode() != 200)
+                            failed++;
+                    return failed;
+                }));
+
+            for (Future<Integer> failed : failures)
+                assertThat(failed.get(), equalTo(0));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void request_withoutToken_unauthorized() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(SUT.getUri().resolve("tracker")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode(), equalTo(401));
+        assertThat(response.headers().firstValue("WWW-Authenticate"), equalTo(Optional.of("Bearer")));
+    }
+
+    @Test
+    void request_wrongToken_unauthorizedAndNothingStarted() throws Exception {
+        Task task = onDatabase(() -> taskRepository.insert(new Task(0, "Review", null)));
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(SUT.getUri().resolve("tracker/start?task=" + task.getId()))
+                .header("Authorization", "Bearer " + TOKEN + "x")
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode(), equalTo(401));
+        assertThat(onDatabase(tracker::getData), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void request_withOrigin_forbiddenEvenWithToken() throws Exception {
+        HttpResponse<String> response = client.send(request("tracker/stop").header("Origin", "https://example.com")
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode(), equalTo(403));
+    }
+
+    @Test
+    void request_foreignHost_forbiddenEvenWithToken() throws Exception {
+        String response = rawRequest("GET /projects HTTP/1.1\r\nHost: rebound.example.com:" + SUT.getUri().getPort() +
+                "\r\nAuthorization: Bearer " + TOKEN + "\r\nConnection: close\r\n\r\n");
+
+        assertThat(response, startsWith("HTTP/1.1 403"));
+    }
+
+    @Test
+    void request_loopbackHost_allowed() throws Exception {
+        String response = rawRequest("GET /projects HTTP/1.1\r\nHost: 127.0.0.1:" + SUT.getUri().getPort() +
+                "\r\nAuthorization: Bearer " + TOKEN + "\r\nConnection: close\r\n\r\n");
+
+        assertThat(response, startsWith("HTTP/1.1 200"));
+    }
+
+    @Test
+    void apiToken_createdOnce_readBackAfterwards() throws Exception {
+        Path directory = Files.createTempDirectory("journow-api");
+        Path file = directory.resolve("config").resolve("api-token");
+        try {
+            String created = ApiToken.readOrCreate(file);
+
+            assertThat(created.length(), greaterThanOrEqualTo(32));
+            assertThat(ApiToken.readOrCreate(file), equalTo(created));
+            if (Files.getFileStore(file).supportsFileAttributeView("posix"))
+                assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file)), equalTo("rw-------"));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.getParent());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private void insertSessions(int count) throws Exception {
+        onDatabase(() -> {
+            Task task = taskRepository.insert(new Task(0, "Review", null));
+            List<Session> sessions = new ArrayList<>();
+            for (int i = 1; i <= count; i++)
+                sessions.add(new Session(0, Instant.ofEpochMilli(i * 60000L), Instant.ofEpochMilli(i * 60000L + 30000), task));
+            sessionRepository.insertAll(sessions);
+            return task;
+        });
+    }
+
+    private <T> T onDatabase(Callable<T> work) throws Exception {
+        return databaseExecutor.submit(work).get();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path) throws IOException, InterruptedException {
+        return client.send(request(path).POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(SUT.getUri().resolve(path)).header("Authorization", "Bearer " + TOKEN);
+    }
+
+    // HttpClient will not send a Host header of the caller's choosing
+    private String rawRequest(String request) throws IOException {
+        try (Socket socket = new Socket(SUT.getUri().getHost(), SUT.getUri().getPort())) {
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static class StoredTrackerData implements TrackerDataStorage {
+        private TrackerData data;
+
+        @Override
+        public void save(TrackerData data) {
+            this.data = data;
+        }
+
+        @Override
+        public Optional<TrackerData> read() {
+            return Optional.ofNullable(data);
+        }
+
+        @Override
+        public void clear() {
+            data = null;
+        }
+    }
+}
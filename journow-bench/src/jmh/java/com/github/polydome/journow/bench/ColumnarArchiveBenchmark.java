@@ -0,0 +1,70 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.archive.ColumnarArchiveReader;
+import com.github.polydome.journow.data.archive.ColumnarArchiveWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ColumnarArchiveBenchmark {
+    private static final long SEED = 20201212;
+    private static final long HOUR = 3600000;
+    private static final Instant UNTIL = Instant.parse("2100-01-01T00:00:00Z");
+
+    @Param({"100000", "1000000"})
+    public int sessions;
+
+    private Path file;
+    private ColumnarArchiveReader reader;
+    private long fileBytes;
+    private long total;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("journow-bench", ".archive");
+
+        // Eight sessions a day, each starting up to an hour after the last one ended
+        Random random = new Random(SEED);
+        long end = Instant.parse("2010-01-01T00:00:00Z").toEpochMilli();
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+            for (int id = 1; id <= sessions; id++) {
+                long start = end + (long) (random.nextDouble() * HOUR);
+                end = start + (long) (random.nextDouble() * 2 * HOUR);
+                writer.append(id, 1 + random.nextInt(200), start, end);
+            }
+        }
+
+        reader = new ColumnarArchiveReader(file);
+        fileBytes = Files.size(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long scanAll(ArchiveSize size) throws IOException {
+        size.archiveBytes = fileBytes;
+        total = 0;
+        reader.scan(Instant.EPOCH, UNTIL, (id, taskId, start, end) -> total += end - start);
+        return total;
+    }
+
+    // Reported next to the scan time as the archiveBytes counter. JMH clears counters when an iteration starts, so
+    // every invocation sets it again
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ArchiveSize {
+        public long archiveBytes;
+    }
+}
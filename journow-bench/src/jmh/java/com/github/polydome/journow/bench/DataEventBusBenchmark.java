@@ -0,0 +1,37 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.data.event.DataEventBus;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DataEventBusBenchmark {
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    private final DataEventBus dataEventBus = new DataEventBus();
+    private final CompositeDisposable subscriptions = new CompositeDisposable();
+    private long id = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < subscribers; i++)
+            subscriptions.add(dataEventBus.sessionEvents().subscribe(blackhole::consume));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.dispose();
+    }
+
+    @Benchmark
+    public void pushSessionEvent() {
+        dataEventBus.pushSessionEvent(DataEvent.insertOne(++id));
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.generator.DatasetGenerator;
+import com.github.polydome.journow.data.generator.DatasetSpec;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+@State(Scope.Benchmark)
+public class DatabaseState {
+    private static final long SEED = 20201212;
+
+    @Param({"memory", "file"})
+    public String storage;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int sessions;
+
+    public Database database;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        if (storage.equals("file")) {
+            file = Files.createTempFile("journow-bench", ".db");
+            database = new FileDatabase(file);
+        } else {
+            database = new MemoryDatabase();
+        }
+
+        database.init();
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        database.getConnection().close();
+
+        if (file != null)
+            Files.deleteIfExists(file);
+    }
+
+    public int tasks() {
+        return Math.max(10, sessions / 100);
+    }
+
+    public int projects() {
+        return Math.max(1, tasks() / 20);
+    }
+
+    private void seed() {
+        DataEventBus dataEventBus = new DataEventBus();
+        DatasetSpec spec = DatasetSpec.builder()
+                .seed(SEED)
+                .projects(projects())
+                .tasks(tasks())
+                .sessions(sessions)
+                .sessionsPerDay(Math.max(8, sessions / 3650.0))
+                .build();
+
+        new DatasetGenerator(spec).generate(
+                new ProjectRepositoryImpl(database, dataEventBus),
+                new TaskRepositoryImpl(database, dataEventBus),
+                new SessionRepositoryImpl(database, dataEventBus)
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.generator.DatasetGenerator;
+import com.github.polydome.journow.data.generator.DatasetSpec;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.listmodel.SessionTableModel;
+import com.github.polydome.journow.ui.listmodel.TaskListModel;
+import com.github.polydome.journow.ui.startup.DataPreloader;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one repository write as seen by the list models subscribed to it: the write, its data event and the
+ * model update. With delta updates it must not grow with the number of rows already loaded. Jumping around the
+ * session table measures a page load, which must not grow with the table either. Repainting rows that are already
+ * loaded must not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ListModelBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private MemoryDatabase database;
+    private SessionRepository sessionRepository;
+    private TaskRepository taskRepository;
+    private SessionTableModel sessionTableModel;
+    private TaskListModel taskListModel;
+    private Session session;
+    private Task renamedTask;
+    private int renames = 0;
+    private int scrolledRow = 0;
+
+    // A viewport straddling the first page boundary
+    private static final int PAINTED_FIRST_ROW = 90;
+    private static final int PAINTED_ROWS = 20;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new MemoryDatabase();
+        database.init();
+
+        DataEventBus dataEventBus = new DataEventBus();
+        var projectRepository = new ProjectRepositoryImpl(database, dataEventBus);
+        taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+        sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+
+        DatasetSpec spec = DatasetSpec.builder()
+                .seed(20201212)
+                .projects(Math.max(1, rows / 1000))
+                .tasks(rows)
+                .sessions(rows)
+                .sessionsPerDay(Math.max(8, rows / 3650.0))
+                .build();
+        new DatasetGenerator(spec).generate(projectRepository, taskRepository, sessionRepository);
+
+        var dataPreloader = new DataPreloader(Completable.complete(), Schedulers.trampoline(), taskRepository, projectRepository, dataEventBus);
+        sessionTableModel = new SessionTableModel(sessionRepository, Completable.complete(), Schedulers.trampoline(), Schedulers.trampoline(), dataEventBus.sessionEvents());
+        taskListModel = new TaskListModel(taskRepository, dataPreloader, Schedulers.trampoline(), Schedulers.trampoline(), dataEventBus.taskEvents());
+
+        if (sessionTableModel.getRowCount() != rows || taskListModel.getSize() != rows)
+            throw new IllegalStateException("Models were not preloaded");
+
+        // Loads the painted pages; with inline schedulers they are cached before the first iteration
+        for (int row = PAINTED_FIRST_ROW; row < PAINTED_FIRST_ROW + PAINTED_ROWS; row++)
+            sessionTableModel.getValueAt(row, 0);
+
+        Task task = taskListModel.getElementAt(rows / 2);
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+        session = new Session(0, start, start.plusSeconds(1800), task);
+        renamedTask = task;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.getConnection().close();
+    }
+
+    @Benchmark
+    public int sessionInserted() {
+        sessionRepository.insert(session);
+        return sessionTableModel.getRowCount();
+    }
+
+    @Benchmark
+    public Task taskChanged() {
+        taskRepository.update(new Task(renamedTask.getId(), "Renamed " + renames++, renamedTask.getProject()));
+        return taskListModel.getElementAt(rows / 2);
+    }
+
+    @Benchmark
+    public Object sessionTableScrolled() {
+        scrolledRow = (scrolledRow + 7919) % sessionTableModel.getRowCount();
+        return sessionTableModel.getValueAt(scrolledRow, 3);
+    }
+
+    @Benchmark
+    public void repaintSessionTable(Blackhole blackhole) {
+        for (int row = PAINTED_FIRST_ROW; row < PAINTED_FIRST_ROW + PAINTED_ROWS; row++)
+            for (int column = 0; column < sessionTableModel.getColumnCount(); column++)
+                blackhole.consume(sessionTableModel.getValueAt(row, column));
+    }
+}
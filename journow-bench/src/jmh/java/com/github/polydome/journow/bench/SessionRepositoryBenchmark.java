@@ -0,0 +1,49 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.domain.model.GroupBy;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.SessionAggregate;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SessionRepositoryBenchmark {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    private static final Instant UNTIL = Instant.parse("2100-01-01T00:00:00Z");
+
+    private SessionRepository sessionRepository;
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setUp(DatabaseState state) {
+        sessionRepository = new SessionRepositoryImpl(state.database, new DataEventBus());
+
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+        session = new Session(0, start, start.plusSeconds(1800), new Task(1, "Task 1", new Project(1, "Project 1")));
+    }
+
+    @Benchmark
+    public void insert() {
+        sessionRepository.insert(session);
+    }
+
+    @Benchmark
+    public SessionAggregate aggregateByDay() {
+        return sessionRepository.aggregate(GroupBy.DAY, Instant.EPOCH, UNTIL, ZONE);
+    }
+
+    @Benchmark
+    public SessionAggregate aggregateByTask() {
+        return sessionRepository.aggregate(GroupBy.TASK, Instant.EPOCH, UNTIL, ZONE);
+    }
+}
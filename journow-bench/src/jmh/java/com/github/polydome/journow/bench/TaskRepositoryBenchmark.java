@@ -0,0 +1,27 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TaskRepositoryBenchmark {
+    private TaskRepository taskRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(DatabaseState state) {
+        taskRepository = new TaskRepositoryImpl(state.database, new DataEventBus());
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return taskRepository.findAll();
+    }
+}
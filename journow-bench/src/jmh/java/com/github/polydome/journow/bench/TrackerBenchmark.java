@@ -0,0 +1,117 @@
+package com.github.polydome.journow.bench;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.preferences.PreferencesTrackerDataStorage;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.viewmodel.TrackerViewModel;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Measures one timer tick. {@code timerTick} runs the label's whole pipeline with a clock advancing 100 ms per tick,
+ * so a new string is formatted every tenth tick; with {@code clockStep} 0 every tick falls within the same second,
+ * which must not allocate at all. The tracker runs on the real repositories over an in-memory database, which a tick
+ * never queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class TrackerBenchmark {
+    private static final Long TICK = 0L;
+
+    @Param({"100", "0"})
+    public long clockStep;
+
+    private final PublishSubject<Long> ticks = PublishSubject.create();
+    private Preferences preferences;
+    private MemoryDatabase database;
+    private Tracker tracker;
+    private Disposable subscription;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        preferences = Preferences.userRoot().node("/JournowBench");
+        database = new MemoryDatabase();
+        database.init();
+
+        DataEventBus dataEventBus = new DataEventBus();
+        var projectRepository = new ProjectRepositoryImpl(database, dataEventBus);
+        var taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+        Project project = projectRepository.insert(new Project(0, "Project 1"));
+        Task task = taskRepository.insert(new Task(0, "Task 1", project));
+
+        SteppingClock clock = new SteppingClock(clockStep, ZoneOffset.UTC, 1_600_000_000_000L);
+        tracker = new Tracker(taskRepository, new PreferencesTrackerDataStorage(preferences), clock, new SessionRepositoryImpl(database, dataEventBus));
+        tracker.start(task.getId());
+
+        subscription = new TrackerViewModel(tracker, ticks, taskRepository, projectRepository, Schedulers.trampoline()).getTimer().subscribe(blackhole::consume);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws BackingStoreException, SQLException {
+        subscription.dispose();
+        preferences.removeNode();
+        database.getConnection().close();
+    }
+
+    @Benchmark
+    public long millisElapsed() {
+        return tracker.millisElapsed();
+    }
+
+    @Benchmark
+    public void timerTick() {
+        ticks.onNext(TICK);
+    }
+
+    // Advances by the step on every read; a copy in another zone steps on from the time it was made at
+    private static class SteppingClock extends Clock {
+        private final long step;
+        private final ZoneId zone;
+        private long millis;
+
+        SteppingClock(long step, ZoneId zone, long millis) {
+            this.step = step;
+            this.zone = zone;
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis += step;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new SteppingClock(step, zone, millis);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.github.polydome.journow.cli;
+
+import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.exception.TrackedTaskDeletedException;
+import com.github.polydome.journow.domain.exception.TrackerNotRunningException;
+import com.github.polydome.journow.domain.model.GroupBy;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.SessionAggregate;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The headless commands. Everything is built on first use, so a command only pays for what it touches: {@code status}
+ * reads the tracker storage and opens the database just to look up the task title.
+ */
+public class JournowCli {
+    static final String USAGE = "usage: journow [--db <database file>] <command>\n" +
+            "  start <title> [--project <id>]   track a new task\n" +
+            "  start --task <id>                track an existing task\n" +
+            "  stop                             end the running session\n" +
+            "  status                           show what is being tracked\n" +
+            "  log --task <id> <start> <end>    add a session, e.g. 09:00 10:30 or 2021-01-04T09:00 2021-01-04T10:30\n" +
+            "  report [--from <date>] [--to <date>]  time per task, the last 7 days by default\n" +
+            "  export <file>                    copy the archived sessions into a compact columnar file";
+
+    private final Database database;
+    private final TrackerDataStorage trackerDataStorage;
+    private final Clock clock;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private DataEventBus dataEventBus;
+    private TaskRepository taskRepository;
+    private SessionRepository sessionRepository;
+    private ProjectRepository projectRepository;
+    private Tracker tracker;
+
+    public JournowCli(Database database, TrackerDataStorage trackerDataStorage, Clock clock, PrintStream out, PrintStream err) {
+        this.database = database;
+        this.trackerDataStorage = trackerDataStorage;
+        this.clock = clock;
+        this.out = out;
+        this.err = err;
+    }
+
+    public int run(List<String> args) {
+        if (args.isEmpty())
+            return usage();
+
+        List<String> options = args.subList(1, args.size());
+        try {
+            switch (args.get(0)) {
+                case "start": return start(options);
+                case "stop": return stop(options);
+                case "status": return status(options);
+                case "log": return log(options);
+                case "report": return report(options);
+                case "export": return export(options);
+                default: return usage();
+            }
+        } catch (NoSuchTaskException | IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 1;
+        } catch (DateTimeException e) {
+            err.println("Unrecognized date or time: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private int start(List<String> options) {
+        if (trackerDataStorage.read().isPresent()) {
+            err.println("Already tracking; stop the running session first");
+            return 1;
+        }
+
+        long taskId;
+        if (options.size() == 2 && options.get(0).equals("--task")) {
+            taskId = parseId(options.get(1));
+        } else if (options.size() == 1 || options.size() == 3 && options.get(1).equals("--project")) {
+            Project project = null;
+            if (options.size() == 3) {
+                long projectId = parseId(options.get(2));
+                List<Project> projects = projectRepository().findByIdRange(projectId, projectId);
+                if (projects.isEmpty()) {
+                    err.println("Project identified with [id=" + projectId + "] does not exist");
+                    return 1;
+                }
+                project = projects.get(0);
+            }
+
+            taskId = taskRepository().insert(new Task(0, options.get(0), project)).getId();
+        } else
+            return usage();
+
+        tracker().start(taskId);
+        out.println("Started #" + taskId);
+        return 0;
+    }
+
+    private int stop(List<String> options) {
+        if (!options.isEmpty())
+            return usage();
+
+        long elapsed;
+        try {
+            elapsed = tracker().millisElapsed();
+            tracker().stop();
+        } catch (TrackerNotRunningException e) {
+            err.println("Not tracking");
+            return 1;
+        } catch (TrackedTaskDeletedException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+
+        out.println("Stopped after " + formatDuration(elapsed));
+        return 0;
+    }
+
+    private int status(List<String> options) {
+        if (!options.isEmpty())
+            return usage();
+
+        Optional<TrackerData> data = trackerDataStorage.read();
+        if (data.isEmpty()) {
+            out.println("Not tracking");
+            return 0;
+        }
+
+        long taskId = data.get().getTaskId();
+        long elapsed = Math.abs(clock.millis() - data.get().getStartTime().toEpochMilli());
+        Optional<Task> task = taskRepository().findSurvivor(taskId);
+
+        out.println("Tracking #" + taskId + " " + (task.isPresent() ? task.get().getTitle() : "<deleted task>") +
+                " for " + formatDuration(elapsed));
+        return 0;
+    }
+
+    private int log(List<String> options) {
+        if (options.size() != 4 || !options.get(0).equals("--task"))
+            return usage();
+
+        ZoneId zone = clock.getZone();
+        LocalDate today = LocalDate.now(clock);
+        Instant start = parseDateTime(options.get(2), today).atZone(zone).toInstant();
+        Instant end = parseDateTime(options.get(3), today).atZone(zone).toInstant();
+
+        new LogSessionUseCase(taskRepository(), sessionRepository()).execute(start, end, parseId(options.get(1)));
+        out.println("Logged " + formatDuration(end.toEpochMilli() - start.toEpochMilli()));
+        return 0;
+    }
+
+    private int report(List<String> options) {
+        LocalDate to = LocalDate.now(clock);
+        LocalDate from = to.minusDays(6);
+
+        if (options.size() % 2 != 0)
+            return usage();
+        for (int i = 0; i < options.size(); i += 2) {
+            switch (options.get(i)) {
+                case "--from": from = LocalDate.parse(options.get(i + 1)); break;
+                case "--to": to = LocalDate.parse(options.get(i + 1)); break;
+                default: return usage();
+            }
+        }
+
+        Instant fromInstant = from.atStartOfDay(clock.getZone()).toInstant();
+        Instant toInstant = to.plusDays(1).atStartOfDay(clock.getZone()).toInstant();
+        SessionAggregate totals = sessionRepository().aggregate(GroupBy.TASK, fromInstant, toInstant, clock.getZone());
+
+        List<Integer> rows = new ArrayList<>(totals.size());
+        for (int i = 0; i < totals.size(); i++)
+            rows.add(i);
+        rows.sort(new TotalDescending(totals));
+
+        out.println("From " + from + " to " + to);
+        for (int row : rows) {
+            Optional<Task> task = taskRepository().findById(totals.getKey(row));
+            if (task.isEmpty())
+                continue;
+            Project project = task.get().getProject();
+
+            out.println(String.format("%10s  %4d  %s%s", formatDuration(totals.getTotalMillis(row)), totals.getSessionCount(row),
+                    task.get().getTitle(), project != null ? " (" + project.getName() + ")" : ""));
+        }
+        out.println(String.format("%10s  total", formatDuration(totals.sumTotalMillis())));
+        return 0;
+    }
+
+    // The exported file is a copy for keeping or analysis; the application still reads the archive database
+    private int export(List<String> options) {
+        if (options.size() != 1)
+            return usage();
+
+        long exported;
+        try {
+            exported = new SessionArchiver(database()).export(Path.of(options.get(0)));
+        } catch (IOException e) {
+            err.println("Export failed: " + e.getMessage());
+            return 1;
+        }
+
+        out.println("Exported " + exported + " sessions");
+        return 0;
+    }
+
+    private int usage() {
+        err.println(USAGE);
+        return 2;
+    }
+
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an id: " + value);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value, LocalDate today) {
+        return value.indexOf('T') >= 0 ? LocalDateTime.parse(value) : today.atTime(LocalTime.parse(value));
+    }
+
+    static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        long minutes = seconds / 60 % 60;
+        long secondsOfMinute = seconds % 60;
+
+        return (seconds / 3600) + (minutes < 10 ? ":0" : ":") + minutes + (secondsOfMinute < 10 ? ":0" : ":") + secondsOfMinute;
+    }
+
+    private DataEventBus dataEventBus() {
+        if (dataEventBus == null)
+            dataEventBus = new DataEventBus();
+        return dataEventBus;
+    }
+
+    private Database database() {
+        if (!database.isReady())
+            database.init();
+        return database;
+    }
+
+    private TaskRepository taskRepository() {
+        if (taskRepository == null)
+            taskRepository = new TaskRepositoryImpl(database(), dataEventBus());
+        return taskRepository;
+    }
+
+    private SessionRepository sessionRepository() {
+        if (sessionRepository == null)
+            sessionRepository = new SessionRepositoryImpl(database(), dataEventBus());
+        return sessionRepository;
+    }
+
+    private ProjectRepository projectRepository() {
+        if (projectRepository == null)
+            projectRepository = new ProjectRepositoryImpl(database(), dataEventBus());
+        return projectRepository;
+    }
+
+    private Tracker tracker() {
+        if (tracker == null)
+            tracker = new Tracker(taskRepository(), trackerDataStorage, clock, sessionRepository());
+        return tracker;
+    }
+
+    private static class TotalDescending implements Comparator<Integer> {
+        private final SessionAggregate totals;
+
+        TotalDescending(SessionAggregate totals) {
+            this.totals = totals;
+        }
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            return Long.compare(totals.getTotalMillis(b), totals.getTotalMillis(a));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.polydome.journow.cli;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.preferences.PreferencesTrackerDataStorage;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Arrays;
+
+public class Main {
+    public static void main(String[] args) {
+        Path path = Path.of("local.db");
+
+        if (args.length >= 2 && args[0].equals("--db")) {
+            path = Path.of(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+
+        FileDatabase database = new FileDatabase(path, FileDatabase.archivePathOf(path)) {
+            @Override
+            public void init() {
+                SqliteNativeLibrary.useCache(Path.of(System.getProperty("user.home"), ".journow", "native"));
+                super.init();
+            }
+        };
+
+        JournowCli cli = new JournowCli(database, new PreferencesTrackerDataStorage(),
+                Clock.systemDefaultZone(), System.out, System.err);
+
+        System.exit(cli.run(Arrays.asList(args)));
+    }
+}
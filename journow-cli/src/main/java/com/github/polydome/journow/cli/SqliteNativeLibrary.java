@@ -0,0 +1,53 @@
+package com.github.polydome.journow.cli;
+
+import org.sqlite.SQLiteJDBCLoader;
+import org.sqlite.util.OSInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the sqlite-jdbc native library in a per-user cache. The driver otherwise copies it out of its jar and checksums
+ * it on every launch, which is a good part of a short command's run time.
+ */
+class SqliteNativeLibrary {
+    private static final String PATH_PROPERTY = "org.sqlite.lib.path";
+    private static final String NAME_PROPERTY = "org.sqlite.lib.name";
+
+    static void useCache(Path cacheRoot) {
+        if (System.getProperty(PATH_PROPERTY) != null)
+            return;
+
+        String name = System.mapLibraryName("sqlitejdbc");
+        if (name.endsWith(".dylib"))
+            name = name.replace(".dylib", ".jnilib");
+
+        String folder = OSInfo.getNativeLibFolderPathForCurrentOS();
+        Path directory = cacheRoot.resolve("sqlite-jdbc-" + SQLiteJDBCLoader.getVersion()).resolve(folder);
+        Path library = directory.resolve(name);
+
+        try {
+            if (!Files.exists(library)) {
+                try (InputStream resource = SQLiteJDBCLoader.class.getResourceAsStream("/org/sqlite/native/" + folder + "/" + name)) {
+                    if (resource == null)
+                        return;
+
+                    Files.createDirectories(directory);
+                    Path partial = Files.createTempFile(directory, name, ".partial");
+                    Files.copy(resource, partial, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(partial, library, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        } catch (IOException e) {
+            // The driver falls back to extracting the library itself
+            e.printStackTrace();
+            return;
+        }
+
+        System.setProperty(PATH_PROPERTY, directory.toString());
+        System.setProperty(NAME_PROPERTY, name);
+    }
+}
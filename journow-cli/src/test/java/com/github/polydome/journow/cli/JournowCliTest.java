@@ -0,0 +1,210 @@
+package com.github.polydome.journow.cli;
+
+import com.github.polydome.journow.data.archive.ColumnarArchiveReader;
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class JournowCliTest {
+    static final Instant NOW = Instant.parse("2021-01-06T12:00:00Z");
+
+    MemoryDatabase database = new MemoryDatabase();
+    StoredTrackerData trackerDataStorage = new StoredTrackerData();
+    Clock clock = Mockito.mock(Clock.class);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    JournowCli SUT = new JournowCli(database, trackerDataStorage, clock, new PrintStream(out, true), new PrintStream(err, true));
+
+    JournowCliTest() {
+        setTime(NOW);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+    }
+
+    @Test
+    void status_notTracking_doesNotOpenDatabase() {
+        int status = SUT.run(List.of("status"));
+
+        assertThat(status, equalTo(0));
+        assertThat(out.toString(), containsString("Not tracking"));
+        assertThat(database.isReady(), equalTo(false));
+    }
+
+    @Test
+    void status_tracking_printsTaskAndElapsedTime() {
+        database.init();
+        new TaskRepositoryImpl(database, new DataEventBus()).insert(new Task(0, "Write report", null));
+        trackerDataStorage.save(new TrackerData(1, NOW.minusSeconds(3725)));
+
+        SUT.run(List.of("status"));
+
+        assertThat(out.toString(), containsString("Tracking #1 Write report for 1:02:05"));
+    }
+
+    @Test
+    void startThenStop_newTitle_insertsTaskAndSession() {
+        SUT.run(List.of("start", "Write report"));
+        setTime(NOW.plusSeconds(90));
+        int status = SUT.run(List.of("stop"));
+
+        List<Session> sessions = new SessionRepositoryImpl(database, new DataEventBus()).findAll();
+        assertThat(status, equalTo(0));
+        assertThat(sessions.size(), equalTo(1));
+        assertThat(sessions.get(0).getTask().getTitle(), equalTo("Write report"));
+        assertThat(sessions.get(0).getEndedAt(), equalTo(NOW.plusSeconds(90)));
+        assertThat(trackerDataStorage.read().isPresent(), equalTo(false));
+        assertThat(out.toString(), containsString("Stopped after 0:01:30"));
+    }
+
+    @Test
+    void start_withProject_assignsTaskToProject() {
+        database.init();
+        new ProjectRepositoryImpl(database, new DataEventBus()).insert(new Project(0, "Journow"));
+
+        SUT.run(List.of("start", "Write report", "--project", "1"));
+
+        Optional<Task> task = new TaskRepositoryImpl(database, new DataEventBus()).findById(1);
+        assertThat(task.get().getProject().getName(), equalTo("Journow"));
+    }
+
+    @Test
+    void start_alreadyTracking_fails() {
+        trackerDataStorage.save(new TrackerData(1, NOW));
+
+        int status = SUT.run(List.of("start", "Write report"));
+
+        assertThat(status, equalTo(1));
+        assertThat(err.toString(), containsString("Already tracking"));
+    }
+
+    @Test
+    void stop_notTracking_fails() {
+        int status = SUT.run(List.of("stop"));
+
+        assertThat(status, equalTo(1));
+        assertThat(err.toString(), containsString("Not tracking"));
+    }
+
+    @Test
+    void log_timesOfDay_logsSessionToday() {
+        database.init();
+        new TaskRepositoryImpl(database, new DataEventBus()).insert(new Task(0, "Write report", null));
+
+        SUT.run(List.of("log", "--task", "1", "09:00", "10:30"));
+
+        List<Session> sessions = new SessionRepositoryImpl(database, new DataEventBus()).findAll();
+        assertThat(sessions.get(0).getStartedAt(), equalTo(Instant.parse("2021-01-06T09:00:00Z")));
+        assertThat(sessions.get(0).getEndedAt(), equalTo(Instant.parse("2021-01-06T10:30:00Z")));
+    }
+
+    @Test
+    void log_unknownTask_fails() {
+        int status = SUT.run(List.of("log", "--task", "7", "09:00", "10:30"));
+
+        assertThat(status, equalTo(1));
+        assertThat(err.toString(), containsString("[id=7] does not exist"));
+    }
+
+    @Test
+    void report_sessionsInAndOutOfRange_sumsRangePerTask() {
+        database.init();
+        var tasks = new TaskRepositoryImpl(database, new DataEventBus());
+        Task first = tasks.insert(new Task(0, "Write report", null));
+        Task second = tasks.insert(new Task(0, "Review", null));
+        new SessionRepositoryImpl(database, new DataEventBus()).insertAll(List.of(
+                new Session(0, Instant.parse("2021-01-04T09:00:00Z"), Instant.parse("2021-01-04T10:00:00Z"), first),
+                new Session(0, Instant.parse("2021-01-05T09:00:00Z"), Instant.parse("2021-01-05T09:30:00Z"), first),
+                new Session(0, Instant.parse("2021-01-05T11:00:00Z"), Instant.parse("2021-01-05T13:00:00Z"), second),
+                new Session(0, Instant.parse("2020-12-01T09:00:00Z"), Instant.parse("2020-12-01T17:00:00Z"), second)
+        ));
+
+        SUT.run(List.of("report", "--from", "2021-01-01"));
+
+        String[] lines = out.toString().split("\\R");
+        assertThat(lines[0], equalTo("From 2021-01-01 to 2021-01-06"));
+        assertThat(lines[1], equalTo("   2:00:00     1  Review"));
+        assertThat(lines[2], equalTo("   1:30:00     2  Write report"));
+        assertThat(lines[3], equalTo("   3:30:00  total"));
+    }
+
+    @Test
+    void export_archivedSessions_writesReadableFile() throws Exception {
+        database.init();
+        Task task = new TaskRepositoryImpl(database, new DataEventBus()).insert(new Task(0, "Write report", null));
+        new SessionRepositoryImpl(database, new DataEventBus()).insertAll(List.of(
+                new Session(0, NOW.minusSeconds(7200), NOW.minusSeconds(3600), task),
+                new Session(0, NOW.minusSeconds(1800), NOW.minusSeconds(600), task)));
+        new SessionArchiver(database).archive(NOW, 100);
+        Path file = Files.createTempFile("journow-export", ".archive");
+
+        try {
+            int status = SUT.run(List.of("export", file.toString()));
+
+            assertThat(status, equalTo(0));
+            assertThat(out.toString(), containsString("Exported 2 sessions"));
+            try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+                assertThat(reader.getSessionCount(), equalTo(2L));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void run_unknownCommand_printsUsage() {
+        int status = SUT.run(List.of("pause"));
+
+        assertThat(status, equalTo(2));
+        assertThat(err.toString(), containsString("usage: journow"));
+    }
+
+    void setTime(Instant instant) {
+        when(clock.instant()).thenReturn(instant);
+        when(clock.millis()).thenReturn(instant.toEpochMilli());
+    }
+
+    static class StoredTrackerData implements TrackerDataStorage {
+        private TrackerData data;
+
+        @Override
+        public void save(TrackerData data) {
+            this.data = data;
+        }
+
+        @Override
+        public Optional<TrackerData> read() {
+            return Optional.ofNullable(data);
+        }
+
+        @Override
+        public void clear() {
+            data = null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.polydome.journow.data.archive;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * A compact file of archived sessions, written by {@link ColumnarArchiveWriter} and read by
+ * {@link ColumnarArchiveReader}. Sessions are kept in blocks of one UTC month each, column by column:
+ * <pre>
+ * file:   MAGIC, blocks, index, index offset (long), block count (int), MAGIC
+ * index:  per block its month, offset (long), length (int), sessions (int), first and last start (long)
+ * block:  sessions, dictionary size, time unit, gap and duration base, then the byte length and the varints of
+ *         each column:
+ *         dictionary  the distinct task ids, ascending, each as the difference from the one before
+ *         task        the dictionary index of the session's task
+ *         id          runs of equal differences from the id before, as the difference and the run length
+ *         start       the start minus the end of the session before, in time units, above the gap base
+ *         duration    the end minus the start, in time units, above the duration base
+ * </pre>
+ * Ids of a month are mostly consecutive and take no space, and sessions in start order mostly start shortly after the
+ * last one ended, so a session timed to the millisecond takes 8 to 9 bytes against about 60 as a row and index
+ * entries in SQLite. The time unit is the largest that divides every time in the block, which makes times logged to
+ * the second or the minute smaller still. The index lets a scan skip the blocks that started outside its range
+ * without reading them.
+ */
+public final class ColumnarArchive {
+    static final int MAGIC = 0x4A4E4101;
+    static final int FOOTER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 36;
+    static final int COLUMNS = 5;
+
+    private ColumnarArchive() {
+    }
+
+    // Months since 1970-01, the key of a block
+    static int monthOf(long millis) {
+        ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC);
+        return (time.getYear() - 1970) * 12 + time.getMonthValue() - 1;
+    }
+
+    static long monthStart(int month) {
+        return ZonedDateTime.of(1970 + Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                .toInstant().toEpochMilli();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long bits) {
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.polydome.journow.data.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Reads a {@link ColumnarArchive}. Only the index is read on opening; a scan reads each block it needs with one
+ * positional read and decodes it a column at a time.
+ */
+public class ColumnarArchiveReader implements Closeable {
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] counts;
+    private final long[] minStarts;
+    private final long[] maxStarts;
+
+    private ByteBuffer block = ByteBuffer.allocate(0);
+    private long[] taskIds = new long[0];
+    private long[] ids = new long[0];
+    private long[] starts = new long[0];
+    private long[] ends = new long[0];
+
+    public interface Visitor {
+        void visit(long sessionId, long taskId, long startMillis, long endMillis);
+    }
+
+    public ColumnarArchiveReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer footer = read(channel.size() - ColumnarArchive.FOOTER_BYTES, ColumnarArchive.FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            int blockCount = footer.getInt();
+            if (footer.getInt() != ColumnarArchive.MAGIC || read(0, 4).getInt() != ColumnarArchive.MAGIC)
+                throw new IOException("Not a session archive");
+
+            offsets = new long[blockCount];
+            lengths = new int[blockCount];
+            counts = new int[blockCount];
+            minStarts = new long[blockCount];
+            maxStarts = new long[blockCount];
+
+            ByteBuffer index = read(indexOffset, blockCount * ColumnarArchive.INDEX_ENTRY_BYTES);
+            for (int i = 0; i < blockCount; i++) {
+                index.getInt();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                counts[i] = index.getInt();
+                minStarts[i] = index.getLong();
+                maxStarts[i] = index.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt session archive", e);
+        }
+    }
+
+    public int getBlockCount() {
+        return counts.length;
+    }
+
+    public long getSessionCount() {
+        long sessions = 0;
+        for (int count : counts)
+            sessions += count;
+        return sessions;
+    }
+
+    /**
+     * Visits every session that started in {@code [from, to)}, in the order they were written. Returns how many
+     * blocks were read; the others were skipped by their first and last start.
+     */
+    public int scan(Instant from, Instant to, Visitor visitor) throws IOException {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        int blocksRead = 0;
+
+        for (int b = 0; b < counts.length; b++) {
+            if (maxStarts[b] < fromMillis || minStarts[b] >= toMillis)
+                continue;
+
+            int count = decode(b);
+            blocksRead++;
+
+            boolean whole = minStarts[b] >= fromMillis && maxStarts[b] < toMillis;
+            for (int i = 0; i < count; i++)
+                if (whole || starts[i] >= fromMillis && starts[i] < toMillis)
+                    visitor.visit(ids[i], taskIds[i], starts[i], ends[i]);
+        }
+
+        return blocksRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Decodes block b into the column arrays and returns its session count
+    private int decode(int b) throws IOException {
+        if (block.capacity() < lengths[b])
+            block = ByteBuffer.allocate(lengths[b]);
+        block.clear().limit(lengths[b]);
+        readFully(block, offsets[b]);
+
+        Decoder in = new Decoder(block.array(), 0);
+        int count = (int) in.next();
+        int dictionarySize = (int) in.next();
+        long unit = in.next();
+        long gapBase = ColumnarArchive.unZigZag(in.next());
+        long durationBase = ColumnarArchive.unZigZag(in.next());
+        int durationOffset = 0;
+        for (int i = 0; i < ColumnarArchive.COLUMNS - 1; i++)
+            durationOffset += (int) in.next();
+        in.next();
+        durationOffset += in.position;
+
+        if (ids.length < count) {
+            taskIds = new long[count];
+            ids = new long[count];
+            starts = new long[count];
+            ends = new long[count];
+        }
+
+        // The dictionary is decoded into the id column, which is written over last
+        long previous = 0;
+        for (int i = 0; i < dictionarySize; i++)
+            ids[i] = previous += ColumnarArchive.unZigZag(in.next());
+        for (int i = 0; i < count; i++)
+            taskIds[i] = ids[(int) in.next()];
+
+        previous = 0;
+        for (int i = 0; i < count; ) {
+            long step = ColumnarArchive.unZigZag(in.next());
+            for (long run = in.next(); run > 0; run--)
+                ids[i++] = previous += step;
+        }
+
+        // A start is relative to the end before it, so both time columns are decoded together
+        Decoder durations = new Decoder(block.array(), durationOffset);
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            starts[i] = previous + (gapBase + in.next()) * unit;
+            ends[i] = starts[i] + (durationBase + durations.next()) * unit;
+            previous = ends[i];
+        }
+
+        return count;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, position);
+        return buffer.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Truncated session archive");
+    }
+
+    private static class Decoder {
+        private final byte[] bytes;
+        private int position;
+
+        Decoder(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        long next() {
+            long bits = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                bits |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.polydome.journow.data.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link ColumnarArchive}. Sessions are buffered until their month ends, then encoded and written as a
+ * block, so appending them in start order gives one block per month and the smallest file.
+ */
+public class ColumnarArchiveWriter implements Closeable {
+    // Bounds the memory of a month with very many sessions; the rest of it goes into another block
+    static final int MAX_BLOCK_SESSIONS = 1 << 16;
+
+    private final FileChannel channel;
+    private final Encoder index = new Encoder(1024);
+    private final Encoder block = new Encoder(4096);
+    private final Encoder[] columns = new Encoder[ColumnarArchive.COLUMNS];
+
+    private long[] ids = new long[1024];
+    private long[] taskIds = new long[1024];
+    private long[] starts = new long[1024];
+    private long[] ends = new long[1024];
+    private int count;
+    private int month;
+    private long monthStart;
+    private long monthEnd;
+    private int blockCount;
+
+    public ColumnarArchiveWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        for (int i = 0; i < columns.length; i++)
+            columns[i] = new Encoder(4096);
+
+        block.putInt(ColumnarArchive.MAGIC);
+        write(block);
+    }
+
+    public void append(long sessionId, long taskId, long startMillis, long endMillis) throws IOException {
+        if (count > 0 && (startMillis < monthStart || startMillis >= monthEnd || count == MAX_BLOCK_SESSIONS))
+            flush();
+        if (count == 0) {
+            month = ColumnarArchive.monthOf(startMillis);
+            monthStart = ColumnarArchive.monthStart(month);
+            monthEnd = ColumnarArchive.monthStart(month + 1);
+        }
+
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            taskIds = Arrays.copyOf(taskIds, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+
+        ids[count] = sessionId;
+        taskIds[count] = taskId;
+        starts[count] = startMillis;
+        ends[count] = endMillis;
+        count++;
+    }
+
+    /**
+     * Writes the last block and the index.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            long indexOffset = channel.position();
+            index.putLong(indexOffset);
+            index.putInt(blockCount);
+            index.putInt(ColumnarArchive.MAGIC);
+            write(index);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (count == 0)
+            return;
+
+        long[] dictionary = Arrays.copyOf(taskIds, count);
+        Arrays.sort(dictionary);
+        int dictionarySize = 0;
+        for (int i = 0; i < count; i++)
+            if (dictionarySize == 0 || dictionary[i] != dictionary[dictionarySize - 1])
+                dictionary[dictionarySize++] = dictionary[i];
+
+        long unit = 0;
+        long minStart = Long.MAX_VALUE, maxStart = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            unit = gcd(gcd(unit, starts[i]), ends[i]);
+            minStart = Math.min(minStart, starts[i]);
+            maxStart = Math.max(maxStart, starts[i]);
+        }
+        if (unit == 0)
+            unit = 1;
+
+        for (Encoder column : columns)
+            column.clear();
+
+        long previous = 0;
+        for (int i = 0; i < dictionarySize; i++) {
+            columns[0].putVarLong(ColumnarArchive.zigZag(dictionary[i] - previous));
+            previous = dictionary[i];
+        }
+
+        long gapBase = Long.MAX_VALUE, durationBase = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            gapBase = Math.min(gapBase, (starts[i] - (i > 0 ? ends[i - 1] : 0)) / unit);
+            durationBase = Math.min(durationBase, (ends[i] - starts[i]) / unit);
+        }
+
+        long previousId = 0, previousEnd = 0, step = 0;
+        int run = 0;
+        for (int i = 0; i < count; i++) {
+            columns[1].putVarLong(Arrays.binarySearch(dictionary, 0, dictionarySize, taskIds[i]));
+            columns[3].putVarLong((starts[i] - previousEnd) / unit - gapBase);
+            columns[4].putVarLong((ends[i] - starts[i]) / unit - durationBase);
+
+            if (run > 0 && ids[i] - previousId != step) {
+                columns[2].putVarLong(ColumnarArchive.zigZag(step));
+                columns[2].putVarLong(run);
+                run = 0;
+            }
+            step = ids[i] - previousId;
+            run++;
+            previousId = ids[i];
+            previousEnd = ends[i];
+        }
+        columns[2].putVarLong(ColumnarArchive.zigZag(step));
+        columns[2].putVarLong(run);
+
+        block.clear();
+        block.putVarLong(count);
+        block.putVarLong(dictionarySize);
+        block.putVarLong(unit);
+        block.putVarLong(ColumnarArchive.zigZag(gapBase));
+        block.putVarLong(ColumnarArchive.zigZag(durationBase));
+        for (Encoder column : columns)
+            block.putVarLong(column.length);
+        for (Encoder column : columns)
+            block.put(column);
+
+        index.putInt(month);
+        index.putLong(channel.position());
+        index.putInt(block.length);
+        index.putInt(count);
+        index.putLong(minStart);
+        index.putLong(maxStart);
+
+        write(block);
+        blockCount++;
+        count = 0;
+    }
+
+    private void write(Encoder encoder) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.bytes, 0, encoder.length);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        encoder.clear();
+    }
+
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+
+    // A growable byte array; big-endian like ByteBuffer, which reads the index back
+    private static class Encoder {
+        byte[] bytes;
+        int length;
+
+        Encoder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        void putVarLong(long bits) {
+            ensure(10);
+            while ((bits & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((bits & 0x7F) | 0x80);
+                bits >>>= 7;
+            }
+            bytes[length++] = (byte) bits;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8)
+                bytes[length++] = (byte) (value >>> shift);
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void put(Encoder other) {
+            ensure(other.length);
+            System.arraycopy(other.bytes, 0, bytes, length, other.length);
+            length += other.length;
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+        }
+    }
+}
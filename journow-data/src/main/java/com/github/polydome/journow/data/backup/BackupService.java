@@ -0,0 +1,412 @@
+package com.github.polydome.journow.data.backup;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Online backups of a database file and its session archive, taken on a background thread while the application keeps
+ * writing. Each backup is a new generation of files in the backup directory, {@code local-<time>.db} and
+ * {@code local-<time>.archive.db}, of which the newest few are kept.
+ * <p>
+ * The rows are copied through a separate connection a step of {@link #STEP_ROWS} at a time, each step a short read
+ * transaction followed by a pause, so the application's writes wait at most for one step. A write committed meanwhile
+ * shows up in {@code PRAGMA data_version} and restarts the copy, which is then a consistent snapshot once it gets
+ * through. Restarts back off, and after {@link #MAX_ATTEMPTS} the backup is given up until the next one rather than
+ * copied in a single step that would hold up the writers. A backup is checked with {@code PRAGMA integrity_check}
+ * before it replaces its partial file, and none is taken when nothing changed since the last one.
+ * <p>
+ * Generations are incremental per file: the session archive only changes when sessions are archived, so while its
+ * data version is that of the previous backup, the new generation links to the previous archive file instead of
+ * copying it again. The database file itself is always copied whole, as SQLite keeps no record of which rows changed.
+ */
+public class BackupService implements AutoCloseable {
+    static final int STEP_ROWS = 1000;
+    static final long YIELD_MILLIS = 5;
+    static final int MAX_ATTEMPTS = 5;
+    static final long RETRY_MILLIS = 250;
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final Path database;
+    private final Path directory;
+    private final int keep;
+    private final Clock clock;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journow-backup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Kept open between backups, as data_version only compares commits seen by one connection
+    private Connection source;
+    private long[] lastVersions;
+    private List<Path> lastTargets;
+
+    public BackupService(Path database, Path directory, int keep) {
+        this(database, directory, keep, Clock.systemUTC());
+    }
+
+    public BackupService(Path database, Path directory, int keep, Clock clock) {
+        this.database = database;
+        this.directory = directory;
+        this.keep = keep;
+        this.clock = clock;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("backup")) {
+            try (BackupService service = new BackupService(Path.of(args[1]), Path.of(args[2]), Integer.MAX_VALUE)) {
+                System.err.println("Backed up to " + service.backup());
+            }
+        } else if (args.length == 3 && args[0].equals("restore")) {
+            restore(Path.of(args[1]), Path.of(args[2]));
+            System.err.println("Restored " + args[2] + " from " + args[1]);
+        } else {
+            System.err.println("usage: backup <database> <directory> | restore <backup> <database>; restore with Journow closed");
+        }
+    }
+
+    /**
+     * Takes a backup right away and then every {@code period}, on the backup thread.
+     */
+    public void schedule(Duration period) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                backup();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a backup on the calling thread. Returns the new database file, or null if nothing changed since the last
+     * backup.
+     *
+     * @throws IOException also when writes kept interrupting the copy; nothing is kept then, and the next call tries
+     *                     again
+     */
+    public synchronized Path backup() throws IOException, SQLException {
+        Connection source = source();
+        List<String> schemas = schemas(source);
+        long[] versions = dataVersions(source, schemas);
+        if (Arrays.equals(versions, lastVersions) && !list().isEmpty())
+            return null;
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(prefix() + "-" + STAMP.format(clock.instant()) + ".db");
+        List<Path> targets = List.of(file, FileDatabase.archivePathOf(file)).subList(0, schemas.size());
+        List<Path> partials = targets.stream().map(BackupService::partialOf).collect(Collectors.toList());
+
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) {
+                pause(RETRY_MILLIS << (attempt - 1));
+                versions = dataVersions(source, schemas);
+            }
+            deleteAll(partials);
+            if (copyInSteps(source, schemas, partials, versions, unchanged(schemas, versions)))
+                break;
+
+            if (attempt == MAX_ATTEMPTS - 1) {
+                deleteAll(partials);
+                throw new IOException("Writes interrupted the backup " + MAX_ATTEMPTS + " times; the next backup tries again");
+            }
+        }
+
+        for (Path partial : partials)
+            if (!verify(partial)) {
+                deleteAll(partials);
+                throw new IOException("Backup " + partial + " failed verification");
+            }
+
+        // The database file last, as it marks the generation complete
+        for (int i = partials.size() - 1; i >= 0; i--)
+            Files.move(partials.get(i), targets.get(i), StandardCopyOption.ATOMIC_MOVE);
+
+        lastVersions = versions;
+        lastTargets = targets;
+        rotate();
+        return file;
+    }
+
+    /**
+     * The backups in the directory, newest first.
+     */
+    public List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory))
+            return List.of();
+
+        String prefix = prefix() + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(".db") && !name.endsWith(".archive.db");
+            }).sorted((a, b) -> b.getFileName().compareTo(a.getFileName())).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Replaces the database at {@code target}, and its archive, with a backup, once both pass
+     * {@code PRAGMA integrity_check}. Only for a database no application has open.
+     */
+    public static void restore(Path backup, Path target) throws IOException, SQLException {
+        List<Path> sources = new ArrayList<>(List.of(backup));
+        List<Path> targets = new ArrayList<>(List.of(target));
+        if (Files.exists(FileDatabase.archivePathOf(backup))) {
+            sources.add(FileDatabase.archivePathOf(backup));
+            targets.add(FileDatabase.archivePathOf(target));
+        }
+
+        for (Path source : sources)
+            if (!verify(source))
+                throw new IOException("Backup " + source + " failed verification");
+
+        List<Path> restoring = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            Path copy = targets.get(i).resolveSibling(targets.get(i).getFileName() + ".restoring");
+            restoring.add(copy);
+            Files.deleteIfExists(copy);
+
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy)) {
+                ((SQLiteConnection) connection).getDatabase().restore("main", sources.get(i).toString(), null);
+            }
+            if (!verify(copy)) {
+                deleteAll(restoring);
+                throw new IOException("Restored copy " + copy + " failed verification");
+            }
+        }
+
+        for (int i = 0; i < targets.size(); i++) {
+            // A journal left behind would be rolled back into the restored file
+            Files.deleteIfExists(targets.get(i).resolveSibling(targets.get(i).getFileName() + "-journal"));
+            Files.move(restoring.get(i), targets.get(i), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    public static boolean verify(Path file) {
+        if (!Files.isRegularFile(file))
+            return false;
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             var statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA integrity_check")) {
+            return rs.next() && rs.getString(1).equals("ok");
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        executor.shutdownNow();
+        if (source != null)
+            source.close();
+    }
+
+    // Copies every schema into its partial file, or returns false once another connection committed meanwhile. A
+    // schema with a file in unchanged is linked to that file instead
+    private boolean copyInSteps(Connection source, List<String> schemas, List<Path> partials, long[] versions,
+                                List<Path> unchanged) throws SQLException, IOException {
+        for (int i = 0; i < schemas.size(); i++) {
+            if (unchanged.get(i) != null) {
+                link(partials.get(i), unchanged.get(i));
+                continue;
+            }
+
+            List<String[]> objects = schemaObjects(source, schemas.get(i));
+
+            // Indexes and triggers come after the rows, which is faster and keeps the sync triggers from firing
+            execute(partials.get(i), objects, true);
+
+            try (var statement = source.prepareStatement("ATTACH DATABASE ? AS backup")) {
+                statement.setString(1, partials.get(i).toString());
+                statement.execute();
+            }
+            try {
+                for (String[] object : objects)
+                    if (object[0].equals("table") && !copyTable(source, schemas, schemas.get(i), object[1], versions))
+                        return false;
+            } finally {
+                try (var statement = source.createStatement()) {
+                    statement.execute("DETACH DATABASE backup");
+                }
+            }
+
+            execute(partials.get(i), objects, false);
+        }
+
+        return true;
+    }
+
+    private boolean copyTable(Connection source, List<String> schemas, String schema, String table, long[] versions) throws SQLException, IOException {
+        String from = schema + ".\"" + table + "\"";
+
+        // Inserting rows with their ids filled the copy's sequences already
+        if (table.equals("sqlite_sequence")) {
+            try (var statement = source.createStatement()) {
+                statement.execute("delete from backup.sqlite_sequence");
+                statement.execute("insert into backup.sqlite_sequence select * from " + from);
+            }
+            return Arrays.equals(dataVersions(source, schemas), versions);
+        }
+
+        try (PreparedStatement findStepEnd = source.prepareStatement("select max(rowid) from (select rowid from " + from + " where rowid > ? order by rowid limit ?)");
+             PreparedStatement copyStep = source.prepareStatement("insert into backup.\"" + table + "\" select * from " + from + " where rowid > ? and rowid <= ?")) {
+            long after = Long.MIN_VALUE;
+            while (true) {
+                findStepEnd.setLong(1, after);
+                findStepEnd.setInt(2, STEP_ROWS);
+                long last;
+                try (ResultSet rs = findStepEnd.executeQuery()) {
+                    if (!rs.next() || rs.getObject(1) == null)
+                        return true;
+                    last = rs.getLong(1);
+                }
+
+                copyStep.setLong(1, after);
+                copyStep.setLong(2, last);
+                copyStep.executeUpdate();
+                if (!Arrays.equals(dataVersions(source, schemas), versions))
+                    return false;
+
+                after = last;
+                pause(YIELD_MILLIS);
+            }
+        }
+    }
+
+    // Per schema, the previous backup's file when the archive has not changed since, otherwise null. The database
+    // itself changes with every session, so it is always copied
+    private List<Path> unchanged(List<String> schemas, long[] versions) {
+        List<Path> unchanged = new ArrayList<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            boolean same = schemas.get(i).equals("archive") && lastTargets != null && lastTargets.size() == schemas.size() &&
+                    lastVersions[i] == versions[i] && Files.isRegularFile(lastTargets.get(i));
+            unchanged.add(same ? lastTargets.get(i) : null);
+        }
+        return unchanged;
+    }
+
+    // Backups are never written to, so generations can share a file; rotation deletes one name at a time
+    private static void link(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(existing, link);
+        }
+    }
+
+    private static void pause(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrupted");
+        }
+    }
+
+    // Type, name and SQL of every object of the schema, tables first
+    private static List<String[]> schemaObjects(Connection source, String schema) throws SQLException {
+        List<String[]> objects = new ArrayList<>();
+        try (var statement = source.createStatement();
+             ResultSet rs = statement.executeQuery("select type, name, sql from " + schema + ".sqlite_master\n" +
+                     "where sql is not null and (name not like 'sqlite_%' or name = 'sqlite_sequence')\n" +
+                     "order by type <> 'table', rowid")) {
+            while (rs.next())
+                objects.add(new String[]{rs.getString(1), rs.getString(2), rs.getString(3)});
+        }
+        return objects;
+    }
+
+    private static void execute(Path file, List<String[]> objects, boolean tables) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             var statement = connection.createStatement()) {
+            for (String[] object : objects)
+                if (object[0].equals("table") == tables && !object[1].equals("sqlite_sequence"))
+                    statement.execute(object[2]);
+        }
+    }
+
+    private Connection source() throws SQLException, IOException {
+        if (source != null)
+            return source;
+        if (!Files.exists(database))
+            throw new NoSuchFileException(database.toString());
+
+        source = DriverManager.getConnection("jdbc:sqlite:" + database);
+        Path archive = FileDatabase.archivePathOf(database);
+        if (Files.exists(archive))
+            try (var statement = source.prepareStatement("ATTACH DATABASE ? AS archive")) {
+                statement.setString(1, archive.toString());
+                statement.execute();
+            }
+        return source;
+    }
+
+    private static List<String> schemas(Connection source) throws SQLException {
+        List<String> schemas = new ArrayList<>();
+        try (var statement = source.createStatement();
+             ResultSet rs = statement.executeQuery("select name from pragma_database_list where name in ('main', 'archive') order by seq")) {
+            while (rs.next())
+                schemas.add(rs.getString(1));
+        }
+        return schemas;
+    }
+
+    private static long[] dataVersions(Connection source, List<String> schemas) throws SQLException {
+        long[] versions = new long[schemas.size()];
+        try (var statement = source.createStatement()) {
+            for (int i = 0; i < versions.length; i++)
+                try (ResultSet rs = statement.executeQuery("PRAGMA " + schemas.get(i) + ".data_version")) {
+                    versions[i] = rs.next() ? rs.getLong(1) : 0;
+                }
+        }
+        return versions;
+    }
+
+    private void rotate() throws IOException {
+        List<Path> backups = list();
+        for (Path old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            Files.deleteIfExists(old);
+            Files.deleteIfExists(FileDatabase.archivePathOf(old));
+        }
+    }
+
+    private String prefix() {
+        String name = database.getFileName().toString();
+        return name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    private static Path partialOf(Path target) {
+        return target.resolveSibling(target.getFileName() + ".partial");
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files)
+            Files.deleteIfExists(file);
+    }
+}
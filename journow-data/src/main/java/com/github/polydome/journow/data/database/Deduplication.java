@@ -0,0 +1,205 @@
+package com.github.polydome.journow.data.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps project names, and task titles within a project, unique once trimmed and lower-cased. Unique indexes on
+ * {@link #PROJECT_KEY} and {@link #TASK_KEY} enforce it; inserts name them as their conflict target.
+ * <p>
+ * Both keys end with {@code name_clash}, which is 0 for every row written locally. Sync sets it to the row's own id
+ * when another replica created or renamed a row to a name this one already has: merging there would depend on the
+ * order changes arrive in, so both rows are kept until the synced one is edited locally, which merges it. A buried
+ * task gets minus its id, see {@link Tombstones}.
+ * <p>
+ * Every merged task leaves a row in {@code task_merge} pointing at the task it went into, so an id kept outside the
+ * database, like the running tracker's, still leads to the task its sessions belong to.
+ */
+public final class Deduplication {
+    public static final String PROJECT_KEY = "lower(trim(project_name)), name_clash";
+    public static final String TASK_KEY = "lower(trim(title)), ifnull(project_id, 0), name_clash";
+
+    private Deduplication() {
+    }
+
+    /**
+     * Merges duplicates written before the unique indexes existed, then creates the indexes. Runs once: later opens
+     * find the indexes and skip the scan. The survivor of each group is the row with the lowest sync UUID, so
+     * replicas holding the same duplicates keep the same row and merely agree on the deletes they sync.
+     */
+    static void create(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS task_merge (" +
+                    "task_id INTEGER PRIMARY KEY," +
+                    "into_id INTEGER NOT NULL" +
+                    ");");
+        }
+
+        try (var statement = connection.prepareStatement("select count(*) from sqlite_master where type = 'index' and name in ('project_name_unique', 'task_title_unique')");
+             ResultSet rs = statement.executeQuery()) {
+            if (rs.next() && rs.getInt(1) == 2)
+                return;
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            for (String table : new String[]{"project", "task"})
+                addNameClash(connection, table);
+
+            // Projects first: moving their tasks can turn two tasks into duplicates
+            for (long[] duplicate : findDuplicates(connection, "project", "project_id", "lower(trim(project_name))"))
+                mergeProject(connection, duplicate[0], duplicate[1]);
+
+            for (long[] duplicate : findDuplicates(connection, "task", "task_id", "lower(trim(title)), ifnull(project_id, 0)"))
+                mergeTask(connection, duplicate[0], duplicate[1]);
+
+            try (var statement = connection.createStatement()) {
+                statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS project_name_unique ON project (" + PROJECT_KEY + ");");
+                statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS task_title_unique ON task (" + TASK_KEY + ");");
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Id of the locally written project named {@code name} once normalized, or 0 if there is none.
+     */
+    public static long findProject(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select project_id from project where lower(trim(project_name)) = lower(trim(?)) and name_clash = 0")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Id of the locally written task titled {@code title} once normalized, in the project or without one for id 0;
+     * 0 if there is none.
+     */
+    public static long findTask(Connection connection, String title, long projectId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select task_id from task where lower(trim(title)) = lower(trim(?)) and ifnull(project_id, 0) = ? and name_clash = 0")) {
+            statement.setString(1, title);
+            statement.setLong(2, projectId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Id of the task that the deleted task {@code taskId} was merged into, following later merges of that one, or 0
+     * if it was not merged.
+     */
+    public static long findMergedInto(Connection connection, long taskId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select into_id from task_merge where task_id = ?")) {
+            statement.setLong(1, taskId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Moves the sessions of task {@code from} to task {@code into} and deletes {@code from}. Returns the lowest and the
+     * highest id of the moved sessions, or null if it had none.
+     */
+    public static long[] mergeTask(Connection connection, long from, long into) throws SQLException {
+        long[] moved = SessionArchive.findTaskBounds(connection, from);
+
+        // Archived sessions are moved in the hot table, where the sync triggers see it
+        SessionArchive.thawTask(connection, from, -1);
+        execute(connection, "update session set task_id = ? where task_id = ?", into, from);
+        execute(connection, "delete from task where task_id = ?", from);
+
+        // Tasks merged into from earlier now lead straight to into
+        execute(connection, "update task_merge set into_id = ? where into_id = ?", into, from);
+        execute(connection, "insert or replace into task_merge (task_id, into_id) values (?, ?)", from, into);
+        return moved;
+    }
+
+    /**
+     * Moves the tasks of project {@code from} to project {@code into}, merging those whose title {@code into} already
+     * has, and deletes {@code from}. Returns the lowest and the highest id of the moved or merged tasks, or null if it
+     * had none.
+     */
+    public static long[] mergeProject(Connection connection, long from, long into) throws SQLException {
+        long[] moved = null;
+        try (PreparedStatement statement = connection.prepareStatement("select min(task_id), max(task_id) from task where project_id = ?")) {
+            statement.setLong(1, from);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next() && rs.getObject(1) != null)
+                    moved = new long[]{rs.getLong(1), rs.getLong(2)};
+            }
+        }
+
+        List<long[]> clashes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("select t.task_id, s.task_id\n" +
+                "from task t\n" +
+                "         inner join task s on s.project_id = ? and lower(trim(s.title)) = lower(trim(t.title)) and s.name_clash = t.name_clash\n" +
+                "where t.project_id = ?")) {
+            statement.setLong(1, into);
+            statement.setLong(2, from);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next())
+                    clashes.add(new long[]{rs.getLong(1), rs.getLong(2)});
+            }
+        }
+        for (long[] clash : clashes)
+            mergeTask(connection, clash[0], clash[1]);
+
+        execute(connection, "update task set project_id = ? where project_id = ?", into, from);
+        execute(connection, "delete from project where project_id = ?", from);
+        return moved;
+    }
+
+    private static void addNameClash(Connection connection, String table) throws SQLException {
+        try (var statement = connection.prepareStatement("select count(*) from pragma_table_info(?) where name = 'name_clash'")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0)
+                    return;
+            }
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " ADD COLUMN name_clash INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    // Pairs of duplicate and survivor ids
+    private static List<long[]> findDuplicates(Connection connection, String table, String id, String key) throws SQLException {
+        String sql = "select " + id + ", survivor\n" +
+                "from (select " + id + ", first_value(" + id + ") over (\n" +
+                "          partition by " + key + "\n" +
+                "          order by (select min(uuid) from sync_row where entity = '" + table + "' and local_id = t." + id + " and deleted = 0), " + id + ") as survivor\n" +
+                "      from " + table + " t)\n" +
+                "where " + id + " <> survivor";
+
+        List<long[]> duplicates = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next())
+                duplicates.add(new long[]{rs.getLong(1), rs.getLong(2)});
+        }
+        return duplicates;
+    }
+
+    private static void execute(Connection connection, String sql, long... ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ids.length; i++)
+                statement.setLong(i + 1, ids[i]);
+            statement.executeUpdate();
+        }
+    }
+}
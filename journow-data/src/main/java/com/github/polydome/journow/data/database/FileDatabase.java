@@ -0,0 +1,43 @@
+package com.github.polydome.journow.data.database;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+public class FileDatabase extends SingleConnectionDatabase {
+    private final Path path;
+    private final Path archivePath;
+
+    public FileDatabase(Path path) {
+        this(path, null);
+    }
+
+    public FileDatabase(Path path, Path archivePath) {
+        this.path = path;
+        this.archivePath = archivePath;
+    }
+
+    /**
+     * Where the sessions archived out of the database at {@code path} are kept: beside it, {@code local.db} archiving
+     * to {@code local.archive.db}.
+     */
+    public static Path archivePathOf(Path path) {
+        String name = path.getFileName().toString();
+        return path.resolveSibling((name.endsWith(".db") ? name.substring(0, name.length() - 3) : name) + ".archive.db");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    protected Path getArchivePath() {
+        return archivePath;
+    }
+
+    @Override
+    protected Connection newConnection() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + path);
+    }
+}
@@ -1,12 +1,11 @@
 package com.github.polydome.journow.data.database;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.nio.file.Path;
 
-public class LocalDatabase extends SingleConnectionDatabase {
-    @Override
-    protected Connection newConnection() throws SQLException {
-        return DriverManager.getConnection("jdbc:sqlite:local.db");
+public class LocalDatabase extends FileDatabase {
+    public static final Path PATH = Path.of("local.db");
+
+    public LocalDatabase() {
+        super(PATH, archivePathOf(PATH));
     }
 }
@@ -0,0 +1,143 @@
+package com.github.polydome.journow.data.database;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The cold tier: sessions older than the archiving horizon live in {@code archive.session}, a table of the same shape
+ * in a separate file attached to the connection, so the hot {@code session} table and its indexes stay small.
+ * {@link SessionArchiver} moves them there.
+ * <p>
+ * {@link #HISTORY} is a view over both tables for reads that need all of history. Archived rows are never written in
+ * place: anything that changes a session thaws it back into the hot table first, where the sync triggers see the
+ * change. Moving rows between the tables is not a change and is hidden from sync.
+ * <p>
+ * A database without an archive file gets an empty one in memory, so every query can name both tables.
+ */
+public final class SessionArchive {
+    public static final String HISTORY = "session_history";
+
+    private SessionArchive() {
+    }
+
+    static void attach(Connection connection, Path file) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("ATTACH DATABASE ? AS archive")) {
+            statement.setString(1, file == null ? ":memory:" : file.toString());
+            statement.execute();
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS archive.session (" +
+                    "session_id INTEGER PRIMARY KEY," +
+                    "task_id INTEGER NOT NULL," +
+                    "start_date TIMESTAMP NOT NULL," +
+                    "end_date TIMESTAMP NOT NULL" +
+                    ");");
+            statement.execute("CREATE INDEX IF NOT EXISTS archive.session_start_date ON session (start_date, task_id, end_date);");
+            statement.execute("CREATE INDEX IF NOT EXISTS archive.session_task_id ON session (task_id);");
+            statement.execute("CREATE TEMP VIEW IF NOT EXISTS " + HISTORY + " AS\n" +
+                    "select session_id, task_id, start_date, end_date from main.session\n" +
+                    "union all\n" +
+                    "select session_id, task_id, start_date, end_date from archive.session");
+        }
+    }
+
+    /**
+     * Returns the lowest and the highest id of the sessions of the task in either table, or null if it has none. Four
+     * lookups in the {@code session_task_id} indexes, so the cost does not grow with the sessions.
+     */
+    static long[] findTaskBounds(Connection connection, long taskId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select (select min(session_id) from main.session where task_id = ?1),\n" +
+                "       (select max(session_id) from main.session where task_id = ?1),\n" +
+                "       (select min(session_id) from archive.session where task_id = ?1),\n" +
+                "       (select max(session_id) from archive.session where task_id = ?1)")) {
+            statement.setLong(1, taskId);
+            try (ResultSet rs = statement.executeQuery()) {
+                long[] bounds = null;
+                for (int column = 1; rs.next() && column <= 3; column += 2) {
+                    if (rs.getObject(column) == null)
+                        continue;
+                    long min = rs.getLong(column), max = rs.getLong(column + 1);
+                    bounds = bounds == null ? new long[]{min, max} : new long[]{Math.min(bounds[0], min), Math.max(bounds[1], max)};
+                }
+                return bounds;
+            }
+        }
+    }
+
+    /**
+     * Moves the archived session back into the hot table. Returns whether it was archived.
+     */
+    public static boolean thawSession(Connection connection, long sessionId) throws SQLException {
+        return thaw(connection, "session_id", sessionId, 1) > 0;
+    }
+
+    /**
+     * Moves up to {@code limit} archived sessions of the task back into the hot table, all of them for a negative
+     * limit. Returns how many were moved.
+     */
+    public static int thawTask(Connection connection, long taskId, int limit) throws SQLException {
+        return thaw(connection, "task_id", taskId, limit);
+    }
+
+    // Copy and delete commit together, like an archiving batch; a caller's transaction covers both when there is one
+    private static int thaw(Connection connection, String column, long value, int limit) throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction)
+            connection.setAutoCommit(false);
+
+        try {
+            int thawed = move(connection, column, value, limit);
+            if (ownTransaction)
+                connection.commit();
+            return thawed;
+        } catch (SQLException e) {
+            if (ownTransaction)
+                connection.rollback();
+            throw e;
+        } finally {
+            if (ownTransaction)
+                connection.setAutoCommit(true);
+        }
+    }
+
+    private static int move(Connection connection, String column, long value, int limit) throws SQLException {
+        int thawed;
+
+        hideFromSync(connection, true);
+        try {
+            try (PreparedStatement statement = connection.prepareStatement("insert into main.session (session_id, task_id, start_date, end_date)\n" +
+                    "select session_id, task_id, start_date, end_date from archive.session where " + column + " = ?1 limit ?2")) {
+                statement.setLong(1, value);
+                statement.setInt(2, limit);
+                thawed = statement.executeUpdate();
+            }
+
+            // Ids are unique across both tables, so the archived rows now in the hot one are exactly the moved ones
+            if (thawed > 0)
+                try (PreparedStatement statement = connection.prepareStatement("delete from archive.session\n" +
+                        "where " + column + " = ?1 and session_id in (select session_id from main.session where " + column + " = ?1)")) {
+                    statement.setLong(1, value);
+                    statement.executeUpdate();
+                }
+        } finally {
+            hideFromSync(connection, false);
+        }
+
+        return thawed;
+    }
+
+    /**
+     * Turns the sync triggers off until the matching call with {@code false}. Calls nest, so this also works while
+     * remote changes are being applied.
+     */
+    static void hideFromSync(Connection connection, boolean hide) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("update sync_state set value = value + ? where key = 'applying'")) {
+            statement.setInt(1, hide ? 1 : -1);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.polydome.journow.data.database;
+
+import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.archive.ColumnarArchive;
+import com.github.polydome.journow.data.archive.ColumnarArchiveReader;
+import com.github.polydome.journow.data.archive.ColumnarArchiveWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Moves sessions that started before a horizon from the hot table to the archive, a bounded batch per transaction.
+ * Reads see the same sessions before and after a move, so no data events are pushed, and sync does not see it.
+ */
+public class SessionArchiver {
+    private final Database database;
+
+    private PreparedStatement selectOld;
+    private PreparedStatement copySession;
+    private PreparedStatement deleteSession;
+
+    public SessionArchiver(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Archives up to {@code maxRows} sessions that started before {@code horizon}. Returns the number moved, which is 0
+     * once none are left.
+     */
+    public int archive(Instant horizon, int maxRows) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            Connection connection = database.getConnection();
+
+            if (selectOld == null)
+                selectOld = connection.prepareStatement("select session_id from main.session where start_date < ? limit ?");
+            if (copySession == null)
+                copySession = connection.prepareStatement("insert into archive.session (session_id, task_id, start_date, end_date)\n" +
+                        "select session_id, task_id, start_date, end_date from main.session where session_id = ?");
+            if (deleteSession == null)
+                deleteSession = connection.prepareStatement("delete from main.session where session_id = ?");
+
+            // A range scan of the start date index
+            selectOld.setLong(1, horizon.toEpochMilli());
+            selectOld.setInt(2, maxRows);
+            long[] ids = new long[maxRows];
+            int count = 0;
+            try (ResultSet rows = selectOld.executeQuery()) {
+                while (rows.next())
+                    ids[count++] = rows.getLong(1);
+            }
+            if (count == 0)
+                return 0;
+
+            connection.setAutoCommit(false);
+            try {
+                SessionArchive.hideFromSync(connection, true);
+
+                for (long id : Arrays.copyOf(ids, count)) {
+                    copySession.setLong(1, id);
+                    copySession.addBatch();
+                    deleteSession.setLong(1, id);
+                    deleteSession.addBatch();
+                }
+                copySession.executeBatch();
+                deleteSession.executeBatch();
+
+                SessionArchive.hideFromSync(connection, false);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            return count;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Writes every archived session to a {@link ColumnarArchive} file, in start order, reads the file back to check
+     * that it holds the same sessions and time, and returns how many were written. The archive is left as it is. On
+     * any failure the file is deleted, so a file that exists is always complete.
+     */
+    public long export(Path file) throws IOException {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        long written = 0;
+        long writtenMillis = 0;
+
+        try {
+            // The start date index covers every column, so this reads no table pages
+            try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file);
+                 var statement = database.getConnection().prepareStatement("select session_id, task_id, start_date, end_date from archive.session order by start_date");
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    writer.append(rows.getLong(1), rows.getLong(2), rows.getLong(3), rows.getLong(4));
+                    written++;
+                    writtenMillis += rows.getLong(4) - rows.getLong(3);
+                }
+            }
+
+            long[] read = new long[2];
+            try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+                reader.scan(Instant.ofEpochMilli(Long.MIN_VALUE), Instant.ofEpochMilli(Long.MAX_VALUE), (id, taskId, start, end) -> {
+                    read[0]++;
+                    read[1] += end - start;
+                });
+            }
+            if (read[0] != written || read[1] != writtenMillis)
+                throw new IOException("Exported archive reads back " + read[0] + " sessions instead of " + written);
+        } catch (SQLException e) {
+            Files.deleteIfExists(file);
+            throw new IOException("Could not read the archived sessions", e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        return written;
+    }
+}
@@ -1,7 +1,9 @@
 package com.github.polydome.journow.data.database;
 
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.sync.SyncSchema;
 
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 
@@ -21,6 +23,11 @@ abstract public class SingleConnectionDatabase implements Database {
 
     protected abstract Connection newConnection() throws SQLException;
 
+    // File holding archived sessions, or null to keep the archive in memory
+    protected Path getArchivePath() {
+        return null;
+    }
+
     @Override
     public void init() {
         try {
@@ -51,6 +58,12 @@ abstract public class SingleConnectionDatabase implements Database {
             e.printStackTrace();
         }
 
+        try (var statement = connection.prepareStatement("CREATE INDEX IF NOT EXISTS task_project_id ON task (project_id);")) {
+            statement.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
         try (var statement = connection.prepareStatement("CREATE TABLE IF NOT EXISTS session (" +
                 "session_id INTEGER PRIMARY KEY AUTOINCREMENT," +
                 "task_id INTEGER NOT NULL," +
@@ -64,6 +77,41 @@ abstract public class SingleConnectionDatabase implements Database {
             e.printStackTrace();
         }
 
+        // Covers the aggregates: range scans by start date read task and duration from the index alone
+        try (var statement = connection.prepareStatement("CREATE INDEX IF NOT EXISTS session_start_date ON session (start_date, task_id, end_date);")) {
+            statement.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            SessionArchive.attach(connection, getArchivePath());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        // Finds the sessions of a task to merge, hide or purge without a scan
+        try (var statement = connection.prepareStatement("CREATE INDEX IF NOT EXISTS session_task_id ON session (task_id);")) {
+            statement.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            Tombstones.create(connection);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        SyncSchema.create(connection);
+
+        // After the sync schema, so merged duplicates can hand their sync UUIDs to the survivors
+        try {
+            Deduplication.create(connection);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
         initialized = true;
     }
 }
@@ -0,0 +1,86 @@
+package com.github.polydome.journow.data.database;
+
+import com.github.polydome.journow.data.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Deletes buried tasks for good, oldest first, in transactions of a bounded number of rows. The rows are hidden
+ * already, so nothing visible changes and no data events are pushed; the sync triggers record the deletes.
+ */
+public class TaskCompactor {
+    private final Database database;
+
+    private PreparedStatement selectOldest;
+    private PreparedStatement deleteSessions;
+    private PreparedStatement deleteTask;
+    private PreparedStatement deleteTombstone;
+
+    public TaskCompactor(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Deletes about {@code maxRows} rows of buried tasks: the sessions of a task first, then the task and its tombstone.
+     * Returns the number deleted, which is 0 once nothing is left.
+     */
+    public int compact(int maxRows) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        int deleted = 0;
+
+        try {
+            Connection connection = database.getConnection();
+
+            if (selectOldest == null)
+                selectOldest = connection.prepareStatement("select task_id from task_tombstone order by deleted_at, task_id limit 1");
+            if (deleteSessions == null)
+                deleteSessions = connection.prepareStatement("delete from session where session_id in (select session_id from session where task_id = ? limit ?)");
+            if (deleteTask == null)
+                deleteTask = connection.prepareStatement("delete from task where task_id = ?");
+            if (deleteTombstone == null)
+                deleteTombstone = connection.prepareStatement("delete from task_tombstone where task_id = ?");
+
+            connection.setAutoCommit(false);
+            try {
+                while (deleted < maxRows) {
+                    long taskId;
+                    try (ResultSet rs = selectOldest.executeQuery()) {
+                        if (!rs.next())
+                            break;
+                        taskId = rs.getLong(1);
+                    }
+
+                    // Deleted from the hot table, where the sync triggers see it
+                    SessionArchive.thawTask(connection, taskId, maxRows - deleted);
+                    deleteSessions.setLong(1, taskId);
+                    deleteSessions.setInt(2, maxRows - deleted);
+                    deleted += deleteSessions.executeUpdate();
+                    if (deleted == maxRows)
+                        break;
+
+                    deleteTask.setLong(1, taskId);
+                    deleted += deleteTask.executeUpdate();
+                    deleteTombstone.setLong(1, taskId);
+                    deleted += deleteTombstone.executeUpdate();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        return deleted;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.polydome.journow.data.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Deleted tasks are buried first and removed later. Burying a task writes one row to {@code task_tombstone}, which
+ * hides the task and all of its sessions at once: every read excludes {@link #HIDDEN_TASKS}. {@link TaskCompactor}
+ * then deletes the sessions, the task and the tombstone a batch at a time. For sync, burying is the delete.
+ * <p>
+ * A buried task also gets a negative {@code name_clash}, which frees its title for new tasks before it is purged.
+ */
+public final class Tombstones {
+    public static final String HIDDEN_TASKS = "(select task_id from task_tombstone)";
+
+    private Tombstones() {
+    }
+
+    /**
+     * Creates the tombstone table. The first time, sessions left behind by tasks deleted before tombstones existed are
+     * buried with their task, so the compactor clears them as well.
+     */
+    static void create(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("select count(*) from sqlite_master where type = 'table' and name = 'task_tombstone'");
+             ResultSet rs = statement.executeQuery()) {
+            if (rs.next() && rs.getInt(1) > 0)
+                return;
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE task_tombstone (" +
+                    "task_id INTEGER PRIMARY KEY," +
+                    "deleted_at INTEGER NOT NULL" +
+                    ");");
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("insert into task_tombstone (task_id, deleted_at)\n" +
+                "select distinct task_id, ? from session where task_id not in (select task_id from task)")) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Hides the task and its sessions. Returns the lowest and the highest id of the hidden sessions, or null if it had
+     * none, archived or not.
+     */
+    public static long[] bury(Connection connection, long taskId) throws SQLException {
+        long[] hidden = SessionArchive.findTaskBounds(connection, taskId);
+
+        // The tombstone first: its sync trigger marks the task deleted, so the rename below is not synced as an edit
+        try (PreparedStatement statement = connection.prepareStatement("insert or ignore into task_tombstone (task_id, deleted_at) values (?, ?)")) {
+            statement.setLong(1, taskId);
+            statement.setLong(2, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("update task set name_clash = -task_id where task_id = ?")) {
+            statement.setLong(1, taskId);
+            statement.executeUpdate();
+        }
+
+        return hidden;
+    }
+
+    /**
+     * Removes a buried task and its tombstone, leaving its sessions, so the task can be inserted again under its id.
+     * Does nothing for a task that is not buried.
+     */
+    public static void unbury(Connection connection, long taskId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("delete from task_tombstone where task_id = ?")) {
+            statement.setLong(1, taskId);
+            if (statement.executeUpdate() == 0)
+                return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("delete from task where task_id = ?")) {
+            statement.setLong(1, taskId);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -27,14 +27,26 @@ public class DataEvent {
         return new DataEvent(Type.INSERT, id, id);
     }
 
+    public static DataEvent insertRange(long idStart, long idStop) {
+        return new DataEvent(Type.INSERT, idStart, idStop);
+    }
+
     public static DataEvent updateOne(long id) {
         return new DataEvent(Type.CHANGE, id, id);
     }
 
+    public static DataEvent updateRange(long idStart, long idStop) {
+        return new DataEvent(Type.CHANGE, idStart, idStop);
+    }
+
     public static DataEvent deleteOne(long id) {
         return new DataEvent(Type.REMOVE, id, id);
     }
 
+    public static DataEvent deleteRange(long idStart, long idStop) {
+        return new DataEvent(Type.REMOVE, idStart, idStop);
+    }
+
     public enum Type {
         INSERT,
         REMOVE,
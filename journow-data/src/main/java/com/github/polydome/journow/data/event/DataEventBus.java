@@ -1,35 +1,144 @@
 package com.github.polydome.journow.data.event;
 
+import com.github.polydome.journow.data.jfr.DataEventDelivery;
+import com.github.polydome.journow.data.jfr.DataEventEmission;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableOperator;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
 import io.reactivex.rxjava3.subjects.Subject;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class DataEventBus {
-    private final Subject<DataEvent> taskSubject = PublishSubject.create();
-    private final Subject<DataEvent> sessionSubject = PublishSubject.create();
-    private final Subject<DataEvent> projectSubject = PublishSubject.create();
+    private final Channel taskChannel = new Channel("task");
+    private final Channel sessionChannel = new Channel("session");
+    private final Channel projectChannel = new Channel("project");
+
+    private final ThreadLocal<DataEventEmission> currentEmission = new ThreadLocal<>();
 
     public void pushTaskEvent(DataEvent event) {
-        taskSubject.onNext(event);
+        push(taskChannel, event);
     }
 
     public void pushSessionEvent(DataEvent event) {
-        sessionSubject.onNext(event);
+        push(sessionChannel, event);
     }
 
     public void pushProjectEvent(DataEvent event) {
-        projectSubject.onNext(event);
+        push(projectChannel, event);
     }
 
     public Observable<DataEvent> taskEvents() {
-        return taskSubject.toSerialized();
+        return taskChannel.events();
     }
 
     public Observable<DataEvent> sessionEvents() {
-        return sessionSubject.toSerialized();
+        return sessionChannel.events();
     }
 
     public Observable<DataEvent> projectEvents() {
-        return projectSubject.toSerialized();
+        return projectChannel.events();
+    }
+
+    private void push(Channel channel, DataEvent event) {
+        var emission = new DataEventEmission();
+        if (!emission.isEnabled()) {
+            channel.subject.onNext(event);
+            return;
+        }
+
+        var previous = currentEmission.get();
+        currentEmission.set(emission);
+        emission.begin();
+        try {
+            channel.subject.onNext(event);
+        } finally {
+            emission.end();
+            currentEmission.set(previous);
+        }
+
+        if (emission.shouldCommit()) {
+            emission.channel = channel.name;
+            emission.type = event.getType().name();
+            emission.idStart = event.getIdStart();
+            emission.idStop = event.getIdStop();
+            emission.commit();
+        }
+    }
+
+    private class Channel implements ObservableOperator<DataEvent, DataEvent> {
+        private final String name;
+        private final Subject<DataEvent> subject = PublishSubject.create();
+        private final AtomicInteger subscribers = new AtomicInteger();
+
+        Channel(String name) {
+            this.name = name;
+        }
+
+        Observable<DataEvent> events() {
+            return subject.toSerialized().lift(this);
+        }
+
+        @Override
+        public Observer<? super DataEvent> apply(Observer<? super DataEvent> observer) {
+            return new DeliveryObserver(this, subscribers.incrementAndGet(), observer);
+        }
+    }
+
+    private class DeliveryObserver implements Observer<DataEvent> {
+        private final Channel channel;
+        private final int subscriber;
+        private final Observer<? super DataEvent> downstream;
+
+        DeliveryObserver(Channel channel, int subscriber, Observer<? super DataEvent> downstream) {
+            this.channel = channel;
+            this.subscriber = subscriber;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            downstream.onSubscribe(d);
+        }
+
+        @Override
+        public void onNext(DataEvent event) {
+            var delivery = new DataEventDelivery();
+            if (!delivery.isEnabled()) {
+                downstream.onNext(event);
+                return;
+            }
+
+            var emission = currentEmission.get();
+            if (emission != null)
+                emission.deliveries++;
+
+            delivery.begin();
+            try {
+                downstream.onNext(event);
+            } finally {
+                delivery.end();
+            }
+
+            if (delivery.shouldCommit()) {
+                delivery.channel = channel.name;
+                delivery.type = event.getType().name();
+                delivery.idStart = event.getIdStart();
+                delivery.subscriber = subscriber;
+                delivery.commit();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
     }
 }
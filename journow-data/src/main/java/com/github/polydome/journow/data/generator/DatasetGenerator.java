@@ -0,0 +1,197 @@
+package com.github.polydome.journow.data.generator;
+
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class DatasetGenerator {
+    private static final int BATCH_SIZE = 10_000;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final long MIN_SESSION_MILLIS = 60_000;
+    private static final long MAX_SESSION_MILLIS = 10 * HOUR_MILLIS;
+    private static final long MAX_BREAK_MILLIS = 15 * 60_000;
+
+    private static final String[] CODENAMES = {
+            "Atlas", "Borealis", "Cobalt", "Delta", "Ember", "Fjord", "Granite", "Helix", "Indigo", "Juniper"
+    };
+    private static final String[] VERBS = {
+            "Review", "Implement", "Fix", "Refactor", "Test", "Document", "Design", "Plan", "Debug", "Deploy"
+    };
+    private static final String[] SUBJECTS = {
+            "login form", "billing report", "search index", "sync client", "settings page",
+            "export job", "API docs", "onboarding flow", "cache layer", "release notes"
+    };
+
+    private final DatasetSpec spec;
+
+    public DatasetGenerator(DatasetSpec spec) {
+        this.spec = spec;
+    }
+
+    public void generate(ProjectRepository projectRepository, TaskRepository taskRepository, SessionRepository sessionRepository) {
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        // Independent streams keep tasks stable when only the session count changes
+        SplittableRandom taskRandom = random.split();
+        SplittableRandom sessionRandom = random.split();
+
+        List<Project> projects = generateProjects();
+        projectRepository.insertAll(projects);
+
+        List<Task> tasks = generateTasks(projects, taskRandom);
+        for (int i = 0; i < tasks.size(); i += BATCH_SIZE)
+            taskRepository.insertAll(tasks.subList(i, Math.min(tasks.size(), i + BATCH_SIZE)));
+
+        generateSessions(tasks, sessionRandom, sessionRepository);
+    }
+
+    private List<Project> generateProjects() {
+        List<Project> projects = new ArrayList<>(spec.getProjects());
+
+        for (int id = 1; id <= spec.getProjects(); id++)
+            projects.add(new Project(id, CODENAMES[(id - 1) % CODENAMES.length] + " " + id));
+
+        return projects;
+    }
+
+    private List<Task> generateTasks(List<Project> projects, SplittableRandom random) {
+        double[] projectPopularity = cumulative(zipfWeights(projects.size(), spec.getProjectSkew()));
+        List<Task> tasks = new ArrayList<>(spec.getTasks());
+
+        for (int id = 1; id <= spec.getTasks(); id++) {
+            Project project = null;
+            if (random.nextDouble() >= spec.getOrphanTaskRatio())
+                project = projects.get(pick(projectPopularity, random));
+
+            String title = VERBS[random.nextInt(VERBS.length)] + " " + SUBJECTS[random.nextInt(SUBJECTS.length)] + " #" + id;
+            tasks.add(new Task(id, title, project));
+        }
+
+        return tasks;
+    }
+
+    private void generateSessions(List<Task> tasks, SplittableRandom random, SessionRepository sessionRepository) {
+        double[] taskPopularity = cumulative(taskWeights(tasks));
+        double[] hourPopularity = cumulative(spec.getHourlyActivity());
+        List<Session> batch = new ArrayList<>(BATCH_SIZE);
+
+        long dayStart = spec.getStart().toEpochMilli();
+        long cursor = dayStart;
+        long id = 1;
+
+        while (id <= spec.getSessions()) {
+            DayOfWeek day = Instant.ofEpochMilli(dayStart).atOffset(ZoneOffset.UTC).getDayOfWeek();
+            double rate = spec.getSessionsPerDay();
+            if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY)
+                rate *= spec.getWeekendActivity();
+
+            int count = (int) Math.min(poisson(rate, random), spec.getSessions() - id + 1);
+            long[] starts = new long[count];
+            for (int i = 0; i < count; i++)
+                starts[i] = dayStart + pick(hourPopularity, random) * HOUR_MILLIS + random.nextLong(HOUR_MILLIS);
+            Arrays.sort(starts);
+
+            for (long start : starts) {
+                start = Math.max(start, cursor);
+                long end = start + sessionLength(random);
+                Task task = tasks.get(pick(taskPopularity, random));
+
+                batch.add(new Session(id++, Instant.ofEpochMilli(start), Instant.ofEpochMilli(end), task));
+                cursor = end + random.nextLong(MAX_BREAK_MILLIS);
+
+                if (batch.size() == BATCH_SIZE) {
+                    sessionRepository.insertAll(batch);
+                    batch.clear();
+                }
+            }
+
+            dayStart += DAY_MILLIS;
+        }
+
+        sessionRepository.insertAll(batch);
+    }
+
+    private double[] taskWeights(List<Task> tasks) {
+        // Every project carries its Zipf weight, split evenly between its tasks
+        double[] projectWeights = zipfWeights(spec.getProjects(), spec.getProjectSkew());
+        int[] tasksPerProject = new int[spec.getProjects() + 1];
+        for (Task task : tasks)
+            tasksPerProject[projectIndex(task)]++;
+
+        double orphanWeight = Arrays.stream(projectWeights).average().orElse(1);
+        double[] weights = new double[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            int index = projectIndex(tasks.get(i));
+            double weight = index == 0 ? orphanWeight : projectWeights[index - 1];
+            weights[i] = weight / tasksPerProject[index];
+        }
+
+        return weights;
+    }
+
+    private int projectIndex(Task task) {
+        return task.getProject() == null ? 0 : (int) task.getProject().getId();
+    }
+
+    private long sessionLength(SplittableRandom random) {
+        double minutes = spec.getMedianSessionMinutes() * Math.exp(spec.getSessionLengthSpread() * gaussian(random));
+        return Math.max(MIN_SESSION_MILLIS, Math.min(MAX_SESSION_MILLIS, (long) (minutes * 60_000)));
+    }
+
+    private static double[] zipfWeights(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int rank = 1; rank <= n; rank++)
+            weights[rank - 1] = 1 / Math.pow(rank, exponent);
+        return weights;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, SplittableRandom random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        if (index < 0)
+            index = -index - 1;
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 11
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static long poisson(double lambda, SplittableRandom random) {
+        if (lambda > 30)
+            return Math.max(0, Math.round(lambda + Math.sqrt(lambda) * gaussian(random)));
+
+        double limit = Math.exp(-lambda);
+        double product = random.nextDouble();
+        long count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.polydome.journow.data.generator;
+
+import java.time.Instant;
+
+public class DatasetSpec {
+    private final long seed;
+    private final int projects;
+    private final int tasks;
+    private final int sessions;
+    private final Instant start;
+    private final double medianSessionMinutes;
+    private final double sessionLengthSpread;
+    private final double sessionsPerDay;
+    private final double[] hourlyActivity;
+    private final double weekendActivity;
+    private final double projectSkew;
+    private final double orphanTaskRatio;
+
+    private DatasetSpec(Builder builder) {
+        this.seed = builder.seed;
+        this.projects = builder.projects;
+        this.tasks = builder.tasks;
+        this.sessions = builder.sessions;
+        this.start = builder.start;
+        this.medianSessionMinutes = builder.medianSessionMinutes;
+        this.sessionLengthSpread = builder.sessionLengthSpread;
+        this.sessionsPerDay = builder.sessionsPerDay;
+        this.hourlyActivity = builder.hourlyActivity.clone();
+        this.weekendActivity = builder.weekendActivity;
+        this.projectSkew = builder.projectSkew;
+        this.orphanTaskRatio = builder.orphanTaskRatio;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getProjects() {
+        return projects;
+    }
+
+    public int getTasks() {
+        return tasks;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public double getMedianSessionMinutes() {
+        return medianSessionMinutes;
+    }
+
+    public double getSessionLengthSpread() {
+        return sessionLengthSpread;
+    }
+
+    public double getSessionsPerDay() {
+        return sessionsPerDay;
+    }
+
+    public double[] getHourlyActivity() {
+        return hourlyActivity.clone();
+    }
+
+    public double getWeekendActivity() {
+        return weekendActivity;
+    }
+
+    public double getProjectSkew() {
+        return projectSkew;
+    }
+
+    public double getOrphanTaskRatio() {
+        return orphanTaskRatio;
+    }
+
+    @Override
+    public String toString() {
+        return "DatasetSpec{" +
+                "seed=" + seed +
+                ", projects=" + projects +
+                ", tasks=" + tasks +
+                ", sessions=" + sessions +
+                ", start=" + start +
+                ", medianSessionMinutes=" + medianSessionMinutes +
+                ", sessionLengthSpread=" + sessionLengthSpread +
+                ", sessionsPerDay=" + sessionsPerDay +
+                ", weekendActivity=" + weekendActivity +
+                ", projectSkew=" + projectSkew +
+                ", orphanTaskRatio=" + orphanTaskRatio +
+                '}';
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        // Office hours with a lunch dip
+        private static final double[] WORKDAY = {
+                0, 0, 0, 0, 0, 0, 0.1, 0.3, 0.8, 1, 1, 0.9,
+                0.4, 0.8, 1, 1, 0.9, 0.6, 0.3, 0.2, 0.2, 0.1, 0.05, 0
+        };
+
+        private long seed = 0;
+        private int projects = 10;
+        private int tasks = 100;
+        private int sessions = 1000;
+        private Instant start = Instant.parse("2018-01-01T00:00:00Z");
+        private double medianSessionMinutes = 40;
+        private double sessionLengthSpread = 0.7;
+        private double sessionsPerDay = 8;
+        private double[] hourlyActivity = WORKDAY;
+        private double weekendActivity = 0.15;
+        private double projectSkew = 1.1;
+        private double orphanTaskRatio = 0.05;
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder projects(int projects) {
+            this.projects = projects;
+            return this;
+        }
+
+        public Builder tasks(int tasks) {
+            this.tasks = tasks;
+            return this;
+        }
+
+        public Builder sessions(int sessions) {
+            this.sessions = sessions;
+            return this;
+        }
+
+        public Builder start(Instant start) {
+            this.start = start;
+            return this;
+        }
+
+        public Builder medianSessionMinutes(double medianSessionMinutes) {
+            this.medianSessionMinutes = medianSessionMinutes;
+            return this;
+        }
+
+        public Builder sessionLengthSpread(double sessionLengthSpread) {
+            this.sessionLengthSpread = sessionLengthSpread;
+            return this;
+        }
+
+        public Builder sessionsPerDay(double sessionsPerDay) {
+            this.sessionsPerDay = sessionsPerDay;
+            return this;
+        }
+
+        public Builder hourlyActivity(double[] hourlyActivity) {
+            this.hourlyActivity = hourlyActivity;
+            return this;
+        }
+
+        public Builder weekendActivity(double weekendActivity) {
+            this.weekendActivity = weekendActivity;
+            return this;
+        }
+
+        public Builder projectSkew(double projectSkew) {
+            this.projectSkew = projectSkew;
+            return this;
+        }
+
+        public Builder orphanTaskRatio(double orphanTaskRatio) {
+            this.orphanTaskRatio = orphanTaskRatio;
+            return this;
+        }
+
+        public DatasetSpec build() {
+            if (projects < 1 || tasks < 1 || sessions < 0)
+                throw new IllegalArgumentException("Dataset needs at least one project and one task");
+            if (hourlyActivity.length != 24)
+                throw new IllegalArgumentException("Hourly activity must have 24 weights");
+            if (sessionsPerDay <= 0 || medianSessionMinutes <= 0)
+                throw new IllegalArgumentException("Session rate and length must be positive");
+
+            return new DatasetSpec(this);
+        }
+    }
+}
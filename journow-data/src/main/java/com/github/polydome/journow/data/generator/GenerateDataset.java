@@ -0,0 +1,68 @@
+package com.github.polydome.journow.data.generator;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+public class GenerateDataset {
+    private static final String USAGE = "usage: GenerateDataset <database file> [--seed n] [--projects n] [--tasks n] [--sessions n]\n" +
+            "       [--start yyyy-mm-dd] [--session-minutes median] [--session-spread sigma]\n" +
+            "       [--sessions-per-day n] [--weekend-activity ratio] [--project-skew exponent] [--orphan-tasks ratio]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args.length % 2 == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Path path = Path.of(args[0]);
+        DatasetSpec.Builder builder = DatasetSpec.builder();
+
+        for (int i = 1; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed": builder.seed(Long.parseLong(value)); break;
+                case "--projects": builder.projects(Integer.parseInt(value)); break;
+                case "--tasks": builder.tasks(Integer.parseInt(value)); break;
+                case "--sessions": builder.sessions(Integer.parseInt(value)); break;
+                case "--start": builder.start(LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC)); break;
+                case "--session-minutes": builder.medianSessionMinutes(Double.parseDouble(value)); break;
+                case "--session-spread": builder.sessionLengthSpread(Double.parseDouble(value)); break;
+                case "--sessions-per-day": builder.sessionsPerDay(Double.parseDouble(value)); break;
+                case "--weekend-activity": builder.weekendActivity(Double.parseDouble(value)); break;
+                case "--project-skew": builder.projectSkew(Double.parseDouble(value)); break;
+                case "--orphan-tasks": builder.orphanTaskRatio(Double.parseDouble(value)); break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+
+        if (Files.exists(path)) {
+            System.err.println(path + " already exists; datasets are only reproducible in an empty database");
+            System.exit(1);
+        }
+
+        DatasetSpec spec = builder.build();
+        FileDatabase database = new FileDatabase(path);
+        DataEventBus dataEventBus = new DataEventBus();
+        database.init();
+
+        long start = System.nanoTime();
+        new DatasetGenerator(spec).generate(
+                new ProjectRepositoryImpl(database, dataEventBus),
+                new TaskRepositoryImpl(database, dataEventBus),
+                new SessionRepositoryImpl(database, dataEventBus)
+        );
+        database.getConnection().close();
+
+        System.out.printf("Generated %s into %s in %d ms%n", spec, path, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.polydome.journow.data.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.github.polydome.journow.DataEventDelivery")
+@Label("Data Event Delivery")
+@Category({"Journow", "Data Events"})
+@Description("Handling of a data event by a single subscriber")
+@StackTrace(false)
+public class DataEventDelivery extends Event {
+    @Label("Channel")
+    public String channel;
+
+    @Label("Type")
+    public String type;
+
+    @Label("First Id")
+    public long idStart;
+
+    @Label("Subscriber")
+    @Description("Order in which the subscriber was registered on its channel")
+    public int subscriber;
+}
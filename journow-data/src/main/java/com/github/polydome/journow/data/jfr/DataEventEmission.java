@@ -0,0 +1,24 @@
+package com.github.polydome.journow.data.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.github.polydome.journow.DataEventEmission")
+@Label("Data Event Emission")
+@Category({"Journow", "Data Events"})
+@Description("Publication of a data event, spanning its delivery to every subscriber")
+public class DataEventEmission extends Event {
+    @Label("Channel")
+    public String channel;
+
+    @Label("Type")
+    public String type;
+
+    @Label("First Id")
+    public long idStart;
+
+    @Label("Last Id")
+    public long idStop;
+
+    @Label("Deliveries")
+    public int deliveries;
+}
@@ -0,0 +1,29 @@
+package com.github.polydome.journow.data.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.github.polydome.journow.SqlStatement")
+@Label("SQL Statement")
+@Category({"Journow", "Database"})
+@Description("Execution of a single SQL statement, from execute until its last row is fetched")
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+    @Label("SQL Id")
+    @Description("Stable hash of the statement text, for grouping executions of the same statement")
+    public String sqlId;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Operation")
+    @Description("Repository operation that executed the statement")
+    public String operation;
+
+    @Label("Rows")
+    @Description("Rows fetched by a query or changed by an update")
+    public long rows;
+
+    public static String sqlId(String sql) {
+        return sql == null ? null : String.format("%08x", sql.hashCode());
+    }
+}
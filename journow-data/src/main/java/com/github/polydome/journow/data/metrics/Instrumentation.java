@@ -0,0 +1,49 @@
+package com.github.polydome.journow.data.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Instrumentation {
+    @SuppressWarnings("unchecked")
+    public static <T> T instrument(Class<T> type, T target, RepositoryMetrics metrics) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new TimingHandler(type, target, metrics));
+    }
+
+    private static class TimingHandler implements InvocationHandler {
+        private final Class<?> type;
+        private final Object target;
+        private final RepositoryMetrics metrics;
+        private final Map<Method, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+        TimingHandler(Class<?> type, Object target, RepositoryMetrics metrics) {
+            this.type = type;
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(target, args);
+
+            OperationMetrics operation = operations.computeIfAbsent(method, m -> metrics.operation(type.getSimpleName() + "." + m.getName()));
+            OperationMetrics previous = metrics.enter(operation);
+            long start = System.nanoTime();
+            boolean failed = false;
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                failed = true;
+                throw e.getCause();
+            } finally {
+                operation.record(System.nanoTime() - start, failed);
+                metrics.exit(previous);
+            }
+        }
+    }
+}
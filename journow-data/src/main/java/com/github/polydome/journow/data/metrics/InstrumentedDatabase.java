@@ -0,0 +1,209 @@
+package com.github.polydome.journow.data.metrics;
+
+import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.jfr.SqlStatementEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts statement executions and SQL errors against the repository operation running on the calling thread,
+ * since repositories report their own SQL failures only through printStackTrace. Each execution is also emitted as
+ * a {@link SqlStatementEvent} when Flight Recorder is recording.
+ */
+public class InstrumentedDatabase implements Database {
+    private final Database database;
+    private final RepositoryMetrics metrics;
+
+    private Connection connection;
+    private Connection instrumentedConnection;
+
+    public InstrumentedDatabase(Database database, RepositoryMetrics metrics) {
+        this.database = database;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized Connection getConnection() throws SQLException {
+        Connection current = database.getConnection();
+
+        if (current == null)
+            return null;
+
+        if (current != connection) {
+            connection = current;
+            instrumentedConnection = proxy(Connection.class, current);
+        }
+
+        return instrumentedConnection;
+    }
+
+    @Override
+    public void init() {
+        database.init();
+    }
+
+    @Override
+    public boolean isReady() {
+        return database.isReady();
+    }
+
+    public Database getDelegate() {
+        return database;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        return proxy(type, new JdbcHandler(target, null));
+    }
+
+    private class JdbcHandler implements InvocationHandler {
+        private final Object target;
+        private final String sqlId;
+        private final String sql;
+        private RowCounter pendingQuery;
+
+        JdbcHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+            this.sqlId = SqlStatementEvent.sqlId(sql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean execution = target instanceof Statement && method.getName().startsWith("execute");
+            if (execution || (target instanceof Statement && method.getName().equals("close")))
+                finishPendingQuery();
+
+            if (!execution)
+                return wrap(method, args, forward(method, args));
+
+            var operation = metrics.current();
+            operation.recordStatement();
+
+            var event = new SqlStatementEvent();
+            event.begin();
+            Object result = forward(method, args);
+            event.end();
+
+            if (!event.isEnabled())
+                return result;
+
+            event.sql = sql;
+            event.sqlId = sqlId;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                event.sql = (String) args[0];
+                event.sqlId = SqlStatementEvent.sqlId(event.sql);
+            }
+            event.operation = operation.getOperation();
+
+            if (result instanceof ResultSet) {
+                pendingQuery = new RowCounter((ResultSet) result, event);
+                return proxy(ResultSet.class, pendingQuery);
+            }
+
+            if (result instanceof Integer)
+                event.rows = (Integer) result;
+            else if (result instanceof Long)
+                event.rows = (Long) result;
+            else if (result instanceof int[])
+                for (int count : (int[]) result)
+                    event.rows += Math.max(count, 0);
+            else if (Boolean.FALSE.equals(result))
+                event.rows = Math.max(((Statement) target).getUpdateCount(), 0);
+
+            if (event.shouldCommit())
+                event.commit();
+
+            return result;
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException)
+                    metrics.current().recordError();
+                throw e.getCause();
+            }
+        }
+
+        private Object wrap(Method method, Object[] args, Object result) {
+            if (result instanceof PreparedStatement) {
+                String statementSql = method.getName().equals("prepareStatement") ? (String) args[0] : null;
+                return proxy(PreparedStatement.class, new JdbcHandler(result, statementSql));
+            } else if (result instanceof Statement) {
+                return proxy(Statement.class, (Statement) result);
+            } else {
+                return result;
+            }
+        }
+
+        private void finishPendingQuery() {
+            if (pendingQuery != null) {
+                pendingQuery.finish();
+                pendingQuery = null;
+            }
+        }
+    }
+
+    /**
+     * Keeps a query's event open while its rows are fetched, since SQLite evaluates a query step by step in
+     * {@code next()}. The event is committed once the rows run out, or when the result set or its statement is
+     * closed or re-executed, whichever comes first.
+     */
+    private class RowCounter implements InvocationHandler {
+        private final ResultSet target;
+        private final SqlStatementEvent event;
+        private boolean finished = false;
+
+        RowCounter(ResultSet target, SqlStatementEvent event) {
+            this.target = target;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException)
+                    metrics.current().recordError();
+                throw e.getCause();
+            }
+
+            if (method.getName().equals("next") && !finished) {
+                event.end();
+                if ((Boolean) result)
+                    event.rows++;
+                else
+                    finish();
+            } else if (method.getName().equals("close")) {
+                finish();
+            }
+
+            return result;
+        }
+
+        void finish() {
+            if (finished)
+                return;
+
+            finished = true;
+            if (event.shouldCommit())
+                event.commit();
+        }
+    }
+}
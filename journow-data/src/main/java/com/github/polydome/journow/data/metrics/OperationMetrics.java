@@ -0,0 +1,79 @@
+package com.github.polydome.journow.data.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationMetrics implements OperationMetricsMXBean {
+    private final String operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    public void record(long elapsedNanos, boolean failed) {
+        calls.increment();
+        if (failed)
+            errors.increment();
+        latency.record(elapsedNanos);
+    }
+
+    public void recordStatement() {
+        statements.increment();
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getStatementCount() {
+        return statements.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latency.mean() / 1000;
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.percentile(50));
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.percentile(99));
+    }
+
+    @Override
+    public long getLatencyMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.max());
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        statements.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.polydome.journow.data.metrics;
+
+public interface OperationMetricsMXBean {
+    String getOperation();
+    long getCallCount();
+    long getErrorCount();
+    long getStatementCount();
+    double getLatencyMeanMicros();
+    long getLatencyP50Micros();
+    long getLatencyP99Micros();
+    long getLatencyMaxMicros();
+    void reset();
+}
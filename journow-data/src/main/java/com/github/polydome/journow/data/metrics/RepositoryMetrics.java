@@ -0,0 +1,71 @@
+package com.github.polydome.journow.data.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RepositoryMetrics {
+    public static final String DOMAIN = "com.github.polydome.journow";
+    public static final String UNATTRIBUTED = "Database.unattributed";
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final ThreadLocal<OperationMetrics> current = new ThreadLocal<>();
+    private final MBeanServer mBeanServer;
+
+    public RepositoryMetrics() {
+        this(null);
+    }
+
+    public RepositoryMetrics(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, this::register);
+    }
+
+    public Collection<OperationMetrics> operations() {
+        return Collections.unmodifiableCollection(operations.values());
+    }
+
+    OperationMetrics enter(OperationMetrics operation) {
+        OperationMetrics previous = current.get();
+        current.set(operation);
+        return previous;
+    }
+
+    void exit(OperationMetrics previous) {
+        if (previous == null)
+            current.remove();
+        else
+            current.set(previous);
+    }
+
+    OperationMetrics current() {
+        OperationMetrics operation = current.get();
+        return operation != null ? operation : operation(UNATTRIBUTED);
+    }
+
+    private OperationMetrics register(String name) {
+        OperationMetrics metrics = new OperationMetrics(name);
+
+        if (mBeanServer != null) {
+            try {
+                mBeanServer.registerMBean(metrics, objectName(name));
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return metrics;
+    }
+
+    public static ObjectName objectName(String operation) throws JMException {
+        int separator = operation.indexOf('.');
+        return new ObjectName(DOMAIN + ":type=" + operation.substring(0, separator) + ",name=" + operation.substring(separator + 1));
+    }
+}
@@ -8,11 +8,19 @@ import java.util.Optional;
 import java.util.prefs.Preferences;
 
 public class PreferencesTrackerDataStorage implements TrackerDataStorage {
-    private final Preferences storage = Preferences.userRoot().node("/Tracker");
+    private final Preferences storage;
 
     private final String STORAGE_KEY_CURRENT_TASK = "CurrentTask";
     private final String STORAGE_KEY_START_DATE = "EpochStart";
 
+    public PreferencesTrackerDataStorage() {
+        this(Preferences.userRoot().node("/Tracker"));
+    }
+
+    public PreferencesTrackerDataStorage(Preferences storage) {
+        this.storage = storage;
+    }
+
     @Override
     public void save(TrackerData data) {
         storage.putLong(STORAGE_KEY_CURRENT_TASK, data.getTaskId());
@@ -1,17 +1,26 @@
 package com.github.polydome.journow.data.repository;
 
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.Deduplication;
+import com.github.polydome.journow.data.database.SessionArchive;
+import com.github.polydome.journow.data.database.Tombstones;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
 import com.github.polydome.journow.domain.exception.NoSuchTaskException;
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
 import com.github.polydome.journow.domain.repository.ProjectRepository;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.disposables.Disposable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,12 +31,20 @@ public class ProjectRepositoryImpl implements ProjectRepository {
     private final DataEventBus dataEventBus;
 
     private PreparedStatement selectAll;
+    private PreparedStatement selectByIdRange;
     private PreparedStatement insertWithId;
     private PreparedStatement insertNew;
     private PreparedStatement findById;
     private PreparedStatement update;
     private PreparedStatement findTrackedTime;
     private PreparedStatement findOne;
+    private PreparedStatement insertBatch;
+    private PreparedStatement findMaxId;
+    private PreparedStatement selectSummaries;
+
+    // Dropped on any project, task or session event; those are pushed on the database thread right after the write
+    private volatile List<ProjectSummary> summaries;
+    private Disposable summaryInvalidation;
 
     public ProjectRepositoryImpl(Database database, DataEventBus dataEventBus) {
         this.database = database;
@@ -43,7 +60,7 @@ public class ProjectRepositoryImpl implements ProjectRepository {
 
         try {
             if (selectAll == null)
-                selectAll = database.getConnection().prepareStatement("select * from project");
+                selectAll = database.getConnection().prepareStatement("select * from project order by project_id");
 
             try (ResultSet rows = selectAll.executeQuery()) {
                 while (rows.next()) {
@@ -57,6 +74,36 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return projects;
     }
 
+    @Override
+    public List<Project> findByIdRange(long idStart, long idStop) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        ArrayList<Project> projects = new ArrayList<>();
+
+        try {
+            if (selectByIdRange == null)
+                selectByIdRange = database.getConnection().prepareStatement("select * from project where project_id between ? and ? order by project_id");
+
+            selectByIdRange.setLong(1, idStart);
+            selectByIdRange.setLong(2, idStop);
+
+            try (ResultSet rows = selectByIdRange.executeQuery()) {
+                while (rows.next()) {
+                    projects.add(parseProject(rows));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return projects;
+    }
+
+    /**
+     * Inserts the project unless one with the same name, ignoring case and surrounding blanks, exists; returns the
+     * stored project either way.
+     */
     @Override
     public Project insert(Project project) {
         if (!database.isReady())
@@ -65,11 +112,13 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         try {
             if (project.getId() > 0) {
                 if (insertWithId == null)
-                    insertWithId = getConnection().prepareStatement("insert into project (project_id, project_name) values (?, ?)");
+                    insertWithId = getConnection().prepareStatement("insert into project (project_id, project_name) values (?, ?)\n" +
+                            "on conflict (" + Deduplication.PROJECT_KEY + ") do nothing");
 
                 insertWithId.setLong(1, project.getId());
                 insertWithId.setString(2, project.getName());
-                insertWithId.execute();
+                if (insertWithId.executeUpdate() == 0)
+                    return findById(Deduplication.findProject(getConnection(), project.getName())).orElse(null);
 
                 Optional<Project> insertedProject = findById(project.getId());
                 if (insertedProject.isPresent()) {
@@ -78,10 +127,12 @@ public class ProjectRepositoryImpl implements ProjectRepository {
                 }
             } else {
                 if (insertNew == null)
-                    insertNew = getConnection().prepareStatement("insert into project (project_name) values (?)");
+                    insertNew = getConnection().prepareStatement("insert into project (project_name) values (?)\n" +
+                            "on conflict (" + Deduplication.PROJECT_KEY + ") do nothing");
 
                 insertNew.setString(1, project.getName());
-                insertNew.execute();
+                if (insertNew.executeUpdate() == 0)
+                    return findById(Deduplication.findProject(getConnection(), project.getName())).orElse(null);
 
                 try (ResultSet generatedKeys = insertNew.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
@@ -102,6 +153,52 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return null;
     }
 
+    @Override
+    public void insertAll(List<Project> projects) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (projects.isEmpty())
+            return;
+
+        try {
+            Connection connection = getConnection();
+            long maxIdBefore = findMaxId();
+
+            if (insertBatch == null)
+                insertBatch = connection.prepareStatement("insert into project (project_id, project_name) values (?, ?)\n" +
+                        "on conflict (" + Deduplication.PROJECT_KEY + ") do nothing");
+
+            long minId = maxIdBefore + 1;
+            connection.setAutoCommit(false);
+            try {
+                for (Project project : projects) {
+                    if (project.getId() == 0)
+                        insertBatch.setNull(1, Types.INTEGER);
+                    else {
+                        insertBatch.setLong(1, project.getId());
+                        minId = Math.min(minId, project.getId());
+                    }
+
+                    insertBatch.setString(2, project.getName());
+                    insertBatch.addBatch();
+                }
+
+                insertBatch.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            dataEventBus.pushProjectEvent(DataEvent.insertRange(minId, findMaxId()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private Optional<Project> findById(long id) {
         if (!database.isReady())
             throw new IllegalStateException("Database is not ready");
@@ -126,26 +223,54 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return Optional.empty();
     }
 
+    /**
+     * Renaming a project to the name of another merges it, and its tasks, into that project.
+     */
     @Override
     public void update(Project project) {
         if (!database.isReady())
             throw new IllegalStateException("Database is not ready");
 
-        if (update == null) {
-            try {
-                update = getConnection().prepareStatement("update project set project_name = ? where project_id = ?");
+        try {
+            long existing = Deduplication.findProject(getConnection(), project.getName());
+            if (existing > 0 && existing != project.getId()) {
+                merge(project.getId(), existing);
+                return;
+            }
 
-                update.setString(1, project.getName());
-                update.setLong(2, project.getId());
+            if (update == null)
+                update = getConnection().prepareStatement("update project set project_name = ?, name_clash = 0 where project_id = ?");
 
-                if (update.executeUpdate() > 0)
-                    dataEventBus.pushProjectEvent(DataEvent.updateOne(project.getId()));
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            update.setString(1, project.getName());
+            update.setLong(2, project.getId());
+
+            if (update.executeUpdate() > 0)
+                dataEventBus.pushProjectEvent(DataEvent.updateOne(project.getId()));
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
     }
 
+    private void merge(long from, long into) throws SQLException {
+        Connection connection = getConnection();
+        long[] movedTasks;
+
+        connection.setAutoCommit(false);
+        try {
+            movedTasks = Deduplication.mergeProject(connection, from, into);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        dataEventBus.pushProjectEvent(DataEvent.deleteOne(from));
+        if (movedTasks != null)
+            dataEventBus.pushTaskEvent(DataEvent.updateRange(movedTasks[0], movedTasks[1]));
+    }
+
     @Override
     public long findTotalTrackedMillis(long projectId) {
         if (!database.isReady())
@@ -157,11 +282,8 @@ public class ProjectRepositoryImpl implements ProjectRepository {
 
             if (findTrackedTime == null)
                 findTrackedTime = getConnection().prepareStatement("select sum(end_date - start_date)\n" +
-                        "from session\n" +
-                        "         inner join task t on session.task_id = t.task_id\n" +
-                        "         " +
-                        "     inner join project p on t.project_id = p.project_id\n" +
-                        "where p.project_id = ?");
+                        "from " + SessionArchive.HISTORY + "\n" +
+                        "where task_id in (select t.task_id from task t where t.project_id = ? and t.task_id not in " + Tombstones.HIDDEN_TASKS + ")");
 
             findTrackedTime.setLong(1, projectId);
 
@@ -176,6 +298,62 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return 0;
     }
 
+    @Override
+    public List<ProjectSummary> findAllWithSummaries() {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (summaryInvalidation == null)
+            summaryInvalidation = Observable.merge(dataEventBus.projectEvents(), dataEventBus.taskEvents(), dataEventBus.sessionEvents())
+                    .subscribe(event -> summaries = null);
+
+        List<ProjectSummary> cached = summaries;
+        if (cached != null)
+            return cached;
+
+        ArrayList<ProjectSummary> result = new ArrayList<>();
+
+        try {
+            // Sessions are folded per task first, so the join to tasks and projects sees one row per task
+            if (selectSummaries == null)
+                selectSummaries = getConnection().prepareStatement("select p.project_id, p.project_name, ifnull(sum(s.total), 0), ifnull(sum(s.sessions), 0),\n" +
+                        "       count(t.task_id), min(s.first_start), max(s.last_end)\n" +
+                        "from project p\n" +
+                        "         left join task t on t.project_id = p.project_id and t.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                        "         left join (select task_id, sum(end_date - start_date) as total, count(*) as sessions,\n" +
+                        "                           min(start_date) as first_start, max(end_date) as last_end\n" +
+                        "                    from " + SessionArchive.HISTORY + "\n" +
+                        "                    group by task_id) s on s.task_id = t.task_id\n" +
+                        "group by p.project_id\n" +
+                        "order by p.project_id");
+
+            try (ResultSet rows = selectSummaries.executeQuery()) {
+                while (rows.next()) {
+                    result.add(new ProjectSummary(
+                            new Project(rows.getLong(1), rows.getString(2)),
+                            rows.getLong(3),
+                            rows.getInt(4),
+                            rows.getInt(5),
+                            parseInstant(rows, 6),
+                            parseInstant(rows, 7)
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return result;
+        }
+
+        cached = Collections.unmodifiableList(result);
+        summaries = cached;
+        return cached;
+    }
+
+    private static Instant parseInstant(ResultSet rows, int column) throws SQLException {
+        long millis = rows.getLong(column);
+        return rows.wasNull() ? null : Instant.ofEpochMilli(millis);
+    }
+
     private boolean projectExists(long projectId) throws SQLException {
         if (findOne == null)
             findOne = getConnection().prepareStatement("select * from project where project_id = ?");
@@ -187,6 +365,15 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         }
     }
 
+    private long findMaxId() throws SQLException {
+        if (findMaxId == null)
+            findMaxId = getConnection().prepareStatement("select ifnull(max(project_id), 0) from project");
+
+        try (var rs = findMaxId.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
     private Connection getConnection() throws SQLException {
         return database.getConnection();
     }
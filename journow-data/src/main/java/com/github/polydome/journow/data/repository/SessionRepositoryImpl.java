@@ -1,16 +1,22 @@
 package com.github.polydome.journow.data.repository;
 
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.SessionArchive;
+import com.github.polydome.journow.data.database.Tombstones;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.domain.model.GroupBy;
 import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.SessionAggregate;
 import com.github.polydome.journow.domain.repository.SessionRepository;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Timestamp;
+import java.sql.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.github.polydome.journow.data.repository.ResultSetUtil.parseSession;
@@ -22,6 +28,18 @@ public class SessionRepositoryImpl implements SessionRepository {
     private PreparedStatement insertSession;
     private PreparedStatement insertNewSession;
     private PreparedStatement selectAll;
+    private PreparedStatement insertSessionBatch;
+    private PreparedStatement findMaxId;
+    private PreparedStatement findArchiveBounds;
+
+    // Index 0 reads the hot table alone, index 1 the hot and the archived sessions together
+    private final PreparedStatement[] selectByIdRange = new PreparedStatement[2];
+    private final PreparedStatement[] countSessions = new PreparedStatement[2];
+    private final PreparedStatement[] selectPageStartIds = new PreparedStatement[2];
+    private final PreparedStatement[] selectPage = new PreparedStatement[2];
+    private final PreparedStatement[] aggregateByTask = new PreparedStatement[2];
+    private final PreparedStatement[] aggregateByProject = new PreparedStatement[2];
+    private final PreparedStatement[] findStartRange = new PreparedStatement[2];
 
     public SessionRepositoryImpl(Database database, DataEventBus dataEventBus) {
         this.database = database;
@@ -53,6 +71,8 @@ public class SessionRepositoryImpl implements SessionRepository {
                 if (insertSession == null)
                     insertSession = database.getConnection().prepareStatement("insert into session (session_id, task_id, start_date, end_date) values (?, ?, ?, ?)");
 
+                // An archived id is in use like any other, so the insert fails the same way
+                SessionArchive.thawSession(database.getConnection(), session.getId());
                 insertSession.setLong(1, session.getId());
                 insertSession.setLong(2, session.getTask().getId());
                 insertSession.setTimestamp(3, Timestamp.from(session.getStartedAt()));
@@ -71,6 +91,53 @@ public class SessionRepositoryImpl implements SessionRepository {
         }
     }
 
+    @Override
+    public void insertAll(List<Session> sessions) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (sessions.isEmpty())
+            return;
+
+        try {
+            Connection connection = database.getConnection();
+            long maxIdBefore = findMaxId();
+
+            if (insertSessionBatch == null)
+                insertSessionBatch = connection.prepareStatement("insert into session (session_id, task_id, start_date, end_date) values (?, ?, ?, ?)");
+
+            long minId = maxIdBefore + 1;
+            connection.setAutoCommit(false);
+            try {
+                for (Session session : sessions) {
+                    if (session.getId() == 0)
+                        insertSessionBatch.setNull(1, Types.INTEGER);
+                    else {
+                        insertSessionBatch.setLong(1, session.getId());
+                        minId = Math.min(minId, session.getId());
+                    }
+
+                    insertSessionBatch.setLong(2, session.getTask().getId());
+                    insertSessionBatch.setTimestamp(3, Timestamp.from(session.getStartedAt()));
+                    insertSessionBatch.setTimestamp(4, Timestamp.from(session.getEndedAt()));
+                    insertSessionBatch.addBatch();
+                }
+
+                insertSessionBatch.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            dataEventBus.pushSessionEvent(DataEvent.insertRange(minId, findMaxId()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public List<Session> findAll() {
         if (!database.isReady())
@@ -79,9 +146,11 @@ public class SessionRepositoryImpl implements SessionRepository {
         try {
             if (selectAll == null)
                 selectAll = database.getConnection().prepareStatement("select *" +
-                        "from session\n" +
+                        "from " + sessions(true) + "\n" +
                         "         left join task on session.task_id = task.task_id\n" +
-                        "         left join project p on task.project_id = p.project_id");
+                        "         left join project p on task.project_id = p.project_id\n" +
+                        "where session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                        "order by session.session_id");
 
             try (ResultSet rows = selectAll.executeQuery()) {
                 ArrayList<Session> sessions = new ArrayList<>();
@@ -98,4 +167,282 @@ public class SessionRepositoryImpl implements SessionRepository {
 
         return null;
     }
+
+    @Override
+    public List<Session> findByIdRange(long idStart, long idStop) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            boolean archived = archiveHoldsIds(idStart, idStop);
+            PreparedStatement selectByIdRange = prepare(this.selectByIdRange, archived, "select *" +
+                    "from " + sessions(archived) + "\n" +
+                    "         left join task on session.task_id = task.task_id\n" +
+                    "         left join project p on task.project_id = p.project_id\n" +
+                    "where session.session_id between ? and ? and session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                    "order by session.session_id");
+
+            selectByIdRange.setLong(1, idStart);
+            selectByIdRange.setLong(2, idStop);
+
+            try (ResultSet rows = selectByIdRange.executeQuery()) {
+                ArrayList<Session> sessions = new ArrayList<>();
+
+                while (rows.next()) {
+                    sessions.add(parseSession(rows));
+                }
+
+                return sessions;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public int countFrom(long firstId) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            boolean archived = archiveHoldsIds(firstId, Long.MAX_VALUE);
+            PreparedStatement countSessions = prepare(this.countSessions, archived,
+                    "select count(*) from " + sessions(archived) + " where session_id >= ? and task_id not in " + Tombstones.HIDDEN_TASKS);
+
+            countSessions.setLong(1, firstId);
+
+            try (ResultSet rs = countSessions.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    @Override
+    public long[] findPageStartIds(long firstId, int pageSize) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            boolean archived = archiveHoldsIds(firstId, Long.MAX_VALUE);
+            PreparedStatement selectPageStartIds = prepare(this.selectPageStartIds, archived, "select session_id\n" +
+                    "from (select session_id, row_number() over (order by session_id) as position\n" +
+                    "      from " + sessions(archived) + " where session_id >= ? and task_id not in " + Tombstones.HIDDEN_TASKS + ")\n" +
+                    "where (position - 1) % ? = 0\n" +
+                    "order by session_id");
+
+            selectPageStartIds.setLong(1, firstId);
+            selectPageStartIds.setInt(2, pageSize);
+
+            try (ResultSet rows = selectPageStartIds.executeQuery()) {
+                long[] ids = new long[16];
+                int count = 0;
+
+                while (rows.next()) {
+                    if (count == ids.length)
+                        ids = Arrays.copyOf(ids, count * 2);
+                    ids[count++] = rows.getLong(1);
+                }
+
+                return Arrays.copyOf(ids, count);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new long[0];
+    }
+
+    @Override
+    public List<Session> findPage(long firstId, int pageSize) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            // Each table is cut to a page before the two are merged, so a page of history costs no more than a hot one
+            boolean archived = archiveHoldsIds(firstId, Long.MAX_VALUE);
+            PreparedStatement selectPage = prepare(this.selectPage, archived, "select *" +
+                    "from " + (archived ? "(" + pageOf("main.session") + "\n      union all\n      " + pageOf("archive.session") + ") session" : "session") + "\n" +
+                    "         left join task on session.task_id = task.task_id\n" +
+                    "         left join project p on task.project_id = p.project_id\n" +
+                    "where session.session_id >= ?1 and session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                    "order by session.session_id\n" +
+                    "limit ?2");
+
+            selectPage.setLong(1, firstId);
+            selectPage.setInt(2, pageSize);
+
+            try (ResultSet rows = selectPage.executeQuery()) {
+                ArrayList<Session> sessions = new ArrayList<>(pageSize);
+
+                while (rows.next()) {
+                    sessions.add(parseSession(rows));
+                }
+
+                return sessions;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public SessionAggregate aggregate(GroupBy groupBy, Instant from, Instant to, ZoneId zone) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            boolean archived = archiveHoldsStarts(from, to);
+
+            switch (groupBy) {
+                case TASK:
+                    return aggregate(groupBy, prepare(aggregateByTask, archived, "select task_id, sum(end_date - start_date), count(*)\n" +
+                            "from " + sessions(archived) + "\n" +
+                            "where start_date >= ? and start_date < ? and session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                            "group by task_id\n" +
+                            "order by task_id"), from, to);
+                case PROJECT:
+                    return aggregate(groupBy, prepare(aggregateByProject, archived, "select ifnull(task.project_id, 0) as project, sum(end_date - start_date), count(*)\n" +
+                            "from " + sessions(archived) + "\n" +
+                            "         left join task on session.task_id = task.task_id\n" +
+                            "where start_date >= ? and start_date < ? and session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                            "group by project\n" +
+                            "order by project"), from, to);
+                case DAY:
+                    long[] startRange = findStartRange(from, to, archived);
+                    if (startRange == null)
+                        return new SessionAggregate(groupBy, new long[0], new long[0], new int[0]);
+
+                    try (PreparedStatement aggregateByDay = database.getConnection().prepareStatement("select " + localMillis(startRange, zone) + " / 86400000 as day, sum(end_date - start_date), count(*)\n" +
+                            "from " + sessions(archived) + "\n" +
+                            "where start_date >= ? and start_date < ? and session.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                            "group by day\n" +
+                            "order by day")) {
+                        return aggregate(groupBy, aggregateByDay, from, to);
+                    }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new SessionAggregate(groupBy, new long[0], new long[0], new int[0]);
+    }
+
+    private SessionAggregate aggregate(GroupBy groupBy, PreparedStatement statement, Instant from, Instant to) throws SQLException {
+        statement.setLong(1, from.toEpochMilli());
+        statement.setLong(2, to.toEpochMilli());
+
+        try (ResultSet rows = statement.executeQuery()) {
+            long[] keys = new long[16];
+            long[] totals = new long[16];
+            int[] counts = new int[16];
+            int size = 0;
+
+            while (rows.next()) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    totals = Arrays.copyOf(totals, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                keys[size] = rows.getLong(1);
+                totals[size] = rows.getLong(2);
+                counts[size] = rows.getInt(3);
+                size++;
+            }
+
+            return new SessionAggregate(groupBy, Arrays.copyOf(keys, size), Arrays.copyOf(totals, size), Arrays.copyOf(counts, size));
+        }
+    }
+
+    // First and last start in the range, or null if nothing started in it; read from the covering index
+    private long[] findStartRange(Instant from, Instant to, boolean archived) throws SQLException {
+        PreparedStatement findStartRange = prepare(this.findStartRange, archived,
+                "select min(start_date), max(start_date) from " + sessions(archived) + " where start_date >= ? and start_date < ? and task_id not in " + Tombstones.HIDDEN_TASKS);
+
+        findStartRange.setLong(1, from.toEpochMilli());
+        findStartRange.setLong(2, to.toEpochMilli());
+
+        try (ResultSet rs = findStartRange.executeQuery()) {
+            if (!rs.next() || rs.getObject(1) == null)
+                return null;
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+
+    // Shifts start_date into local time with one CASE arm per offset change between the first and the last start,
+    // so days follow daylight saving time and the query stays a single GROUP BY
+    private static String localMillis(long[] startRange, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        Instant at = Instant.ofEpochMilli(startRange[0]);
+        Instant last = Instant.ofEpochMilli(startRange[1]);
+
+        StringBuilder sql = new StringBuilder("(start_date + case");
+        ZoneOffsetTransition transition = rules.nextTransition(at);
+        while (transition != null && !transition.getInstant().isAfter(last)) {
+            sql.append(" when start_date < ").append(transition.getInstant().toEpochMilli())
+                    .append(" then ").append(rules.getOffset(at).getTotalSeconds() * 1000L);
+            at = transition.getInstant();
+            transition = rules.nextTransition(at);
+        }
+
+        return sql.append(" else ").append(rules.getOffset(at).getTotalSeconds() * 1000L).append(" end)").toString();
+    }
+
+    private boolean archiveHoldsIds(long firstId, long lastId) throws SQLException {
+        long[] bounds = findArchiveBounds();
+        return bounds != null && firstId <= bounds[1] && lastId >= bounds[0];
+    }
+
+    private boolean archiveHoldsStarts(Instant from, Instant to) throws SQLException {
+        long[] bounds = findArchiveBounds();
+        return bounds != null && from.toEpochMilli() <= bounds[3] && to.toEpochMilli() > bounds[2];
+    }
+
+    // First and last id and start in the archive, or null if it is empty. Four index lookups: min() and max() only
+    // read the end of an index when each is alone in its select
+    private long[] findArchiveBounds() throws SQLException {
+        if (findArchiveBounds == null)
+            findArchiveBounds = database.getConnection().prepareStatement("select (select min(session_id) from archive.session), (select max(session_id) from archive.session),\n" +
+                    "       (select min(start_date) from archive.session), (select max(start_date) from archive.session)");
+
+        try (ResultSet rs = findArchiveBounds.executeQuery()) {
+            if (!rs.next() || rs.getObject(1) == null)
+                return null;
+            return new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)};
+        }
+    }
+
+    private PreparedStatement prepare(PreparedStatement[] statements, boolean archived, String sql) throws SQLException {
+        int tier = archived ? 1 : 0;
+        if (statements[tier] == null)
+            statements[tier] = database.getConnection().prepareStatement(sql);
+        return statements[tier];
+    }
+
+    // The sessions to read from, named session either way
+    private static String sessions(boolean archived) {
+        return archived ? SessionArchive.HISTORY + " session" : "session";
+    }
+
+    // A page of one table, for merging with the page of the other
+    private static String pageOf(String table) {
+        return "select * from (select session_id, task_id, start_date, end_date from " + table + "\n" +
+                "                     where session_id >= ?1 and task_id not in " + Tombstones.HIDDEN_TASKS + " order by session_id limit ?2)";
+    }
+
+    private long findMaxId() throws SQLException {
+        if (findMaxId == null)
+            findMaxId = database.getConnection().prepareStatement("select ifnull(max(session_id), 0) from session");
+
+        try (ResultSet rs = findMaxId.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
 }
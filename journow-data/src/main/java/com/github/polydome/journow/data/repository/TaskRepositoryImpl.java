@@ -1,6 +1,9 @@
 package com.github.polydome.journow.data.repository;
 
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.Deduplication;
+import com.github.polydome.journow.data.database.SessionArchive;
+import com.github.polydome.journow.data.database.Tombstones;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
 import com.github.polydome.journow.domain.exception.NoSuchTaskException;
@@ -9,7 +12,9 @@ import com.github.polydome.journow.domain.repository.TaskRepository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.github.polydome.journow.data.repository.ResultSetUtil.parseTask;
@@ -22,10 +27,16 @@ public class TaskRepositoryImpl implements TaskRepository {
     private PreparedStatement insertTask;
     private PreparedStatement countTasks;
     private PreparedStatement findAll;
+    private PreparedStatement findByIdRange;
+    private PreparedStatement findByProject;
+    private PreparedStatement findWithoutProject;
+    private PreparedStatement countByProject;
+    private PreparedStatement countByProjectRange;
     private PreparedStatement findOne;
     private PreparedStatement updateTask;
-    private PreparedStatement deleteTask;
     private PreparedStatement findTrackedTime;
+    private PreparedStatement insertTaskBatch;
+    private PreparedStatement findMaxId;
 
     public TaskRepositoryImpl(Database database, DataEventBus dataEventBus) {
         this.database = database;
@@ -38,7 +49,7 @@ public class TaskRepositoryImpl implements TaskRepository {
             throw new IllegalStateException("Database is not ready");
 
         try (final var getTaskById =
-                getConnection().prepareStatement("select * from task left join project p on p.project_id = task.project_id where task_id = ?")) {
+                getConnection().prepareStatement("select * from task left join project p on p.project_id = task.project_id where task_id = ? and task_id not in " + Tombstones.HIDDEN_TASKS)) {
             getTaskById.setLong(1, taskId);
 
             try (final var rs = getTaskById.executeQuery()) {
@@ -53,15 +64,37 @@ public class TaskRepositoryImpl implements TaskRepository {
         }
     }
 
+    @Override
+    public Optional<Task> findSurvivor(long taskId) {
+        Optional<Task> task = findById(taskId);
+        if (task.isPresent())
+            return task;
+
+        try {
+            long into = Deduplication.findMergedInto(getConnection(), taskId);
+            return into > 0 ? findById(into) : Optional.empty();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Inserts the task unless one with the same title, ignoring case and surrounding blanks, is already in its project;
+     * returns the stored task either way.
+     */
     @Override
     public Task insert(Task task) {
         if (!database.isReady())
             throw new IllegalStateException("Database is not ready");
 
+        long projectId = task.getProject() == null ? 0 : task.getProject().getId();
+
         try {
             if (task.getId() == 0) {
                 if (insertNewTask == null)
-                    insertNewTask = getConnection().prepareStatement("insert into task (title, project_id) values (?, ?)");
+                    insertNewTask = getConnection().prepareStatement("insert into task (title, project_id) values (?, ?)\n" +
+                            "on conflict (" + Deduplication.TASK_KEY + ") do nothing");
 
                 insertNewTask.setString(1, task.getTitle());
                 if (task.getProject() == null)
@@ -69,7 +102,8 @@ public class TaskRepositoryImpl implements TaskRepository {
                 else
                     insertNewTask.setLong(2, task.getProject().getId());
 
-                insertNewTask.execute();
+                if (insertNewTask.executeUpdate() == 0)
+                    return findById(Deduplication.findTask(getConnection(), task.getTitle(), projectId)).orElse(null);
 
                 try (ResultSet generatedKeys = insertNewTask.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
@@ -82,7 +116,8 @@ public class TaskRepositoryImpl implements TaskRepository {
                 }
             } else {
                 if (insertTask == null)
-                    insertTask = getConnection().prepareStatement("insert into task (task_id, title, project_id) values (?, ?, ?)");
+                    insertTask = getConnection().prepareStatement("insert into task (task_id, title, project_id) values (?, ?, ?)\n" +
+                            "on conflict (" + Deduplication.TASK_KEY + ") do nothing");
 
                 insertTask.setLong(1, task.getId());
                 insertTask.setString(2, task.getTitle());
@@ -91,10 +126,10 @@ public class TaskRepositoryImpl implements TaskRepository {
                 else
                     insertTask.setLong(3, task.getProject().getId());
 
-                if (insertTask.executeUpdate() > 0) {
-                    dataEventBus.pushTaskEvent(DataEvent.insertOne(task.getId()));
-                }
+                if (insertTask.executeUpdate() == 0)
+                    return findById(Deduplication.findTask(getConnection(), task.getTitle(), projectId)).orElse(null);
 
+                dataEventBus.pushTaskEvent(DataEvent.insertOne(task.getId()));
                 return task;
             }
         } catch (SQLException e) {
@@ -104,6 +139,56 @@ public class TaskRepositoryImpl implements TaskRepository {
         return null;
     }
 
+    @Override
+    public void insertAll(List<Task> tasks) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (tasks.isEmpty())
+            return;
+
+        try {
+            Connection connection = getConnection();
+            long maxIdBefore = findMaxId();
+
+            if (insertTaskBatch == null)
+                insertTaskBatch = connection.prepareStatement("insert into task (task_id, title, project_id) values (?, ?, ?)\n" +
+                        "on conflict (" + Deduplication.TASK_KEY + ") do nothing");
+
+            long minId = maxIdBefore + 1;
+            connection.setAutoCommit(false);
+            try {
+                for (Task task : tasks) {
+                    if (task.getId() == 0)
+                        insertTaskBatch.setNull(1, Types.INTEGER);
+                    else {
+                        insertTaskBatch.setLong(1, task.getId());
+                        minId = Math.min(minId, task.getId());
+                    }
+
+                    insertTaskBatch.setString(2, task.getTitle());
+                    if (task.getProject() == null)
+                        insertTaskBatch.setNull(3, Types.NULL);
+                    else
+                        insertTaskBatch.setLong(3, task.getProject().getId());
+                    insertTaskBatch.addBatch();
+                }
+
+                insertTaskBatch.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            dataEventBus.pushTaskEvent(DataEvent.insertRange(minId, findMaxId()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public int count() {
         if (!database.isReady())
@@ -111,7 +196,7 @@ public class TaskRepositoryImpl implements TaskRepository {
 
         try {
             if (countTasks == null)
-                countTasks = getConnection().prepareStatement("select count(*) from task");
+                countTasks = getConnection().prepareStatement("select count(*) from task where task_id not in " + Tombstones.HIDDEN_TASKS);
 
             try (ResultSet rs = countTasks.executeQuery()) {
                 if (rs.next())
@@ -133,7 +218,7 @@ public class TaskRepositoryImpl implements TaskRepository {
 
         try {
             if (findAll == null)
-                findAll = getConnection().prepareStatement("select * from task left join project p on task.project_id = p.project_id");
+                findAll = getConnection().prepareStatement("select * from task left join project p on task.project_id = p.project_id where task.task_id not in " + Tombstones.HIDDEN_TASKS + " order by task.task_id");
 
             try (var rs = findAll.executeQuery()) {
                 ArrayList<Task> tasks = new ArrayList<>();
@@ -151,34 +236,199 @@ public class TaskRepositoryImpl implements TaskRepository {
         return List.of();
     }
 
+    @Override
+    public List<Task> findByIdRange(long idStart, long idStop) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            if (findByIdRange == null)
+                findByIdRange = getConnection().prepareStatement("select * from task left join project p on task.project_id = p.project_id where task.task_id between ? and ? and task.task_id not in " + Tombstones.HIDDEN_TASKS + " order by task.task_id");
+
+            findByIdRange.setLong(1, idStart);
+            findByIdRange.setLong(2, idStop);
+
+            try (var rs = findByIdRange.executeQuery()) {
+                ArrayList<Task> tasks = new ArrayList<>();
+
+                while (rs.next()) {
+                    tasks.add(parseTask(rs));
+                }
+
+                return tasks;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public List<Task> findByProject(long projectId) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            if (findByProject == null)
+                findByProject = getConnection().prepareStatement("select * from task left join project p on task.project_id = p.project_id where task.project_id = ? and task.task_id not in " + Tombstones.HIDDEN_TASKS + " order by task.task_id");
+
+            findByProject.setLong(1, projectId);
+
+            try (var rs = findByProject.executeQuery()) {
+                ArrayList<Task> tasks = new ArrayList<>();
+
+                while (rs.next()) {
+                    tasks.add(parseTask(rs));
+                }
+
+                return tasks;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public List<Task> findWithoutProject() {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            if (findWithoutProject == null)
+                findWithoutProject = getConnection().prepareStatement("select * from task left join project p on task.project_id = p.project_id where task.project_id is null and task.task_id not in " + Tombstones.HIDDEN_TASKS + " order by task.task_id");
+
+            try (var rs = findWithoutProject.executeQuery()) {
+                ArrayList<Task> tasks = new ArrayList<>();
+
+                while (rs.next()) {
+                    tasks.add(parseTask(rs));
+                }
+
+                return tasks;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public Map<Long, Integer> countByProject() {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            // Answered from the project_id index alone
+            if (countByProject == null)
+                countByProject = getConnection().prepareStatement("select project_id, count(*) from task where project_id is not null and task_id not in " + Tombstones.HIDDEN_TASKS + " group by project_id");
+
+            try (var rs = countByProject.executeQuery()) {
+                HashMap<Long, Integer> counts = new HashMap<>();
+
+                while (rs.next()) {
+                    counts.put(rs.getLong(1), rs.getInt(2));
+                }
+
+                return counts;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return Map.of();
+    }
+
+    @Override
+    public Map<Long, Integer> countByProjectRange(long projectIdStart, long projectIdStop) {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        try {
+            // A range scan of the project_id index, touching only the rows of the projects counted
+            if (countByProjectRange == null)
+                countByProjectRange = getConnection().prepareStatement("select project_id, count(*) from task where project_id between ? and ? and task_id not in " + Tombstones.HIDDEN_TASKS + " group by project_id");
+
+            countByProjectRange.setLong(1, projectIdStart);
+            countByProjectRange.setLong(2, projectIdStop);
+            try (var rs = countByProjectRange.executeQuery()) {
+                HashMap<Long, Integer> counts = new HashMap<>();
+
+                while (rs.next()) {
+                    counts.put(rs.getLong(1), rs.getInt(2));
+                }
+
+                return counts;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return Map.of();
+    }
+
+    /**
+     * Renaming or moving a task onto the title of another task in the same project merges it into that task.
+     */
     @Override
     public void update(Task task) {
         try {
             if (!taskExists(task.getId()))
                 throw new NoSuchTaskException(task.getId());
-            else {
-                if (updateTask == null)
-                    updateTask = getConnection().prepareStatement("update task set title = ?, project_id = ? where task_id = ?");
 
-                updateTask.setString(1, task.getTitle());
+            long projectId = task.getProject() == null ? 0 : task.getProject().getId();
+            long existing = Deduplication.findTask(getConnection(), task.getTitle(), projectId);
+            if (existing > 0 && existing != task.getId()) {
+                merge(task.getId(), existing);
+                return;
+            }
 
-                if (task.getProject() != null)
-                    updateTask.setLong(2, task.getProject().getId());
-                else
-                    updateTask.setString(2, "null");
+            if (updateTask == null)
+                updateTask = getConnection().prepareStatement("update task set title = ?, project_id = ?, name_clash = 0 where task_id = ?");
 
-                updateTask.setLong(3, task.getId());
+            updateTask.setString(1, task.getTitle());
 
-                if (updateTask.executeUpdate() > 0)
-                    dataEventBus.pushTaskEvent(DataEvent.updateOne(task.getId()));
-            }
+            if (task.getProject() != null)
+                updateTask.setLong(2, task.getProject().getId());
+            else
+                updateTask.setNull(2, Types.NULL);
+
+            updateTask.setLong(3, task.getId());
+
+            if (updateTask.executeUpdate() > 0)
+                dataEventBus.pushTaskEvent(DataEvent.updateOne(task.getId()));
         } catch (SQLException e) {
             e.printStackTrace();
         }
+    }
 
+    private void merge(long from, long into) throws SQLException {
+        Connection connection = getConnection();
+        long[] movedSessions;
 
+        connection.setAutoCommit(false);
+        try {
+            movedSessions = Deduplication.mergeTask(connection, from, into);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        dataEventBus.pushTaskEvent(DataEvent.deleteOne(from));
+        if (movedSessions != null)
+            dataEventBus.pushSessionEvent(DataEvent.updateRange(movedSessions[0], movedSessions[1]));
     }
 
+    /**
+     * Hides the task and its sessions right away, in a constant number of index lookups however much was tracked on
+     * it. {@link com.github.polydome.journow.data.database.TaskCompactor} deletes the rows later.
+     */
     @Override
     public void delete(Task task) {
         if (!database.isReady())
@@ -188,13 +438,23 @@ public class TaskRepositoryImpl implements TaskRepository {
             if (!taskExists(task.getId()))
                 throw new NoSuchTaskException(task.getId());
 
-            if (deleteTask == null)
-                deleteTask = getConnection().prepareStatement("delete from task where task_id = ?");
-
-            deleteTask.setLong(1, task.getId());
-            deleteTask.execute();
+            Connection connection = getConnection();
+            long[] hiddenSessions;
+
+            connection.setAutoCommit(false);
+            try {
+                hiddenSessions = Tombstones.bury(connection, task.getId());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
 
             dataEventBus.pushTaskEvent(DataEvent.deleteOne(task.getId()));
+            if (hiddenSessions != null)
+                dataEventBus.pushSessionEvent(DataEvent.deleteRange(hiddenSessions[0], hiddenSessions[1]));
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -210,7 +470,7 @@ public class TaskRepositoryImpl implements TaskRepository {
                 throw new NoSuchTaskException(taskId);
 
             if (findTrackedTime == null)
-                findTrackedTime = getConnection().prepareStatement("select sum(end_date - start_date) from session where task_id = ?");
+                findTrackedTime = getConnection().prepareStatement("select sum(end_date - start_date) from " + SessionArchive.HISTORY + " where task_id = ?");
 
             findTrackedTime.setLong(1, taskId);
 
@@ -227,7 +487,7 @@ public class TaskRepositoryImpl implements TaskRepository {
 
     private boolean taskExists(long id) throws SQLException {
         if (findOne == null)
-            findOne = getConnection().prepareStatement("select * from task where task_id = ?");
+            findOne = getConnection().prepareStatement("select * from task where task_id = ? and task_id not in " + Tombstones.HIDDEN_TASKS);
 
         findOne.setLong(1, id);
 
@@ -236,6 +496,15 @@ public class TaskRepositoryImpl implements TaskRepository {
         }
     }
 
+    private long findMaxId() throws SQLException {
+        if (findMaxId == null)
+            findMaxId = getConnection().prepareStatement("select ifnull(max(task_id), 0) from task");
+
+        try (var rs = findMaxId.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
     private Connection getConnection() throws SQLException {
         return database.getConnection();
     }
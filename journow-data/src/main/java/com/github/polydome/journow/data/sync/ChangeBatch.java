@@ -0,0 +1,173 @@
+package com.github.polydome.journow.data.sync;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A batch of changes as exchanged with the sync server: a fixed header followed by a deflated body of records.
+ * UUIDs travel as 16 raw bytes and times and clocks as varints, a session being its start and duration, so a typical
+ * record takes about 55 bytes before compression.
+ * <p>
+ * The watermark is the server's change sequence the batch brings the receiver up to; pushes leave it at 0.
+ */
+public class ChangeBatch {
+    private static final int MAGIC = 0x4A4E5302;
+    private static final int DELETED = 0x80;
+    private static final int HAS_PARENT = 0x40;
+    private static final int ENTITY_MASK = 0x0F;
+
+    private final long replicaId;
+    private final long watermark;
+    private final List<ChangeRecord> records;
+
+    public ChangeBatch(long replicaId, long watermark, List<ChangeRecord> records) {
+        this.replicaId = replicaId;
+        this.watermark = watermark;
+        this.records = records;
+    }
+
+    public long getReplicaId() {
+        return replicaId;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public List<ChangeRecord> getRecords() {
+        return records;
+    }
+
+    public byte[] encode() {
+        var bytes = new ByteArrayOutputStream(64 + records.size() * 24);
+
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeLong(replicaId);
+            out.writeLong(watermark);
+
+            var body = new DataOutputStream(new DeflaterOutputStream(out));
+            writeVarLong(body, records.size());
+            for (ChangeRecord record : records)
+                writeRecord(body, record);
+            body.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static ChangeBatch decode(byte[] bytes) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a change batch");
+
+            long replicaId = in.readLong();
+            long watermark = in.readLong();
+
+            var body = new DataInputStream(new InflaterInputStream(in));
+            int count = (int) readVarLong(body);
+            List<ChangeRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                records.add(readRecord(body));
+
+            return new ChangeBatch(replicaId, watermark, records);
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated change batch", e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, ChangeRecord record) throws IOException {
+        int header = record.getEntity().ordinal();
+        if (record.isDeleted())
+            header |= DELETED;
+        else if (record.getParent() != null)
+            header |= HAS_PARENT;
+
+        out.writeByte(header);
+        writeUuid(out, record.getUuid());
+        writeVarLong(out, record.getRemovedClock());
+
+        if (record.isDeleted())
+            return;
+
+        writeVarLong(out, record.getClock());
+
+        if (record.getParent() != null)
+            writeUuid(out, record.getParent());
+
+        switch (record.getEntity()) {
+            case PROJECT:
+            case TASK:
+                out.writeUTF(record.getText());
+                break;
+            case SESSION:
+                writeVarLong(out, record.getStartMillis());
+                writeVarLong(out, record.getEndMillis() - record.getStartMillis());
+                break;
+        }
+    }
+
+    private static ChangeRecord readRecord(DataInputStream in) throws IOException {
+        int header = in.readUnsignedByte();
+        SyncEntity entity = SyncEntity.values()[header & ENTITY_MASK];
+        UUID uuid = readUuid(in);
+        long removedClock = readVarLong(in);
+
+        if ((header & DELETED) != 0)
+            return ChangeRecord.tombstone(entity, uuid, removedClock);
+
+        long clock = readVarLong(in);
+        UUID parent = (header & HAS_PARENT) != 0 ? readUuid(in) : null;
+
+        ChangeRecord record;
+        switch (entity) {
+            case PROJECT:
+                record = ChangeRecord.project(uuid, in.readUTF(), clock);
+                break;
+            case TASK:
+                record = ChangeRecord.task(uuid, in.readUTF(), parent, clock);
+                break;
+            default:
+                long start = readVarLong(in);
+                record = ChangeRecord.session(uuid, parent, start, start + readVarLong(in), clock);
+        }
+
+        return record.withRemovedClock(removedClock);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    // Zig-zag varint, so the rare negative duration still fits in a few bytes
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long bits = (value << 1) ^ (value >> 63);
+        while ((bits & ~0x7FL) != 0) {
+            out.writeByte((int) (bits & 0x7F) | 0x80);
+            bits >>>= 7;
+        }
+        out.writeByte((int) bits);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long bits = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            bits |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (bits >>> 1) ^ -(bits & 1);
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.polydome.journow.data.sync;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The sync state of one row, addressed by its stable UUID rather than its local id. {@code parent} is the project
+ * of a task or the task of a session.
+ * <p>
+ * Records are state-based CRDTs: the value is a last-writer-wins register ordered by its hybrid logical
+ * {@code clock}, and presence is an add-wins set. A delete records the clock of the value it removed, so it only
+ * hides values it has seen; an edit made concurrently with the delete keeps the row alive. {@link #merge} is
+ * commutative, associative and idempotent, so replicas converge whatever order change sets arrive in.
+ */
+public class ChangeRecord {
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<UUID> UUIDS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final SyncEntity entity;
+    private final UUID uuid;
+    private final long clock;
+    private final long removedClock;
+    private final String text;
+    private final UUID parent;
+    private final long startMillis;
+    private final long endMillis;
+
+    private ChangeRecord(SyncEntity entity, UUID uuid, long clock, long removedClock, String text, UUID parent, long startMillis, long endMillis) {
+        this.entity = entity;
+        this.uuid = uuid;
+        this.clock = clock;
+        this.removedClock = removedClock;
+        this.text = text;
+        this.parent = parent;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+    }
+
+    public static ChangeRecord project(UUID uuid, String name, long clock) {
+        return new ChangeRecord(SyncEntity.PROJECT, uuid, clock, 0, name, null, 0, 0);
+    }
+
+    public static ChangeRecord task(UUID uuid, String title, UUID project, long clock) {
+        return new ChangeRecord(SyncEntity.TASK, uuid, clock, 0, title, project, 0, 0);
+    }
+
+    public static ChangeRecord session(UUID uuid, UUID task, long startMillis, long endMillis, long clock) {
+        return new ChangeRecord(SyncEntity.SESSION, uuid, clock, 0, null, task, startMillis, endMillis);
+    }
+
+    /**
+     * A deleted row; {@code removedClock} is the clock of the newest value the delete observed.
+     */
+    public static ChangeRecord tombstone(SyncEntity entity, UUID uuid, long removedClock) {
+        return new ChangeRecord(entity, uuid, 0, removedClock, null, null, 0, 0);
+    }
+
+    public ChangeRecord withRemovedClock(long removedClock) {
+        if (removedClock >= clock)
+            return tombstone(entity, uuid, removedClock);
+
+        return new ChangeRecord(entity, uuid, clock, removedClock, text, parent, startMillis, endMillis);
+    }
+
+    /**
+     * Joins two states of the same row. Equal clocks from different replicas are ordered by value, so the result
+     * never depends on argument order.
+     */
+    public static ChangeRecord merge(ChangeRecord a, ChangeRecord b) {
+        if (!a.uuid.equals(b.uuid) || a.entity != b.entity)
+            throw new IllegalArgumentException("Cannot merge " + a.uuid + " with " + b.uuid);
+
+        ChangeRecord winner = compareValues(a, b) >= 0 ? a : b;
+        return winner.withRemovedClock(Math.max(a.removedClock, b.removedClock));
+    }
+
+    /**
+     * Orders the values of two states of one row: by clock, then by content.
+     */
+    public static int compareValues(ChangeRecord a, ChangeRecord b) {
+        int result = Long.compare(a.clock, b.clock);
+        if (result == 0)
+            result = NULLS_FIRST.compare(a.text, b.text);
+        if (result == 0)
+            result = UUIDS_FIRST.compare(a.parent, b.parent);
+        if (result == 0)
+            result = Long.compare(a.startMillis, b.startMillis);
+        if (result == 0)
+            result = Long.compare(a.endMillis, b.endMillis);
+        return result;
+    }
+
+    public SyncEntity getEntity() {
+        return entity;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public boolean isDeleted() {
+        return clock <= removedClock;
+    }
+
+    public long getClock() {
+        return clock;
+    }
+
+    public long getRemovedClock() {
+        return removedClock;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public UUID getParent() {
+        return parent;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeRecord that = (ChangeRecord) o;
+        return clock == that.clock &&
+                removedClock == that.removedClock &&
+                startMillis == that.startMillis &&
+                endMillis == that.endMillis &&
+                entity == that.entity &&
+                uuid.equals(that.uuid) &&
+                Objects.equals(text, that.text) &&
+                Objects.equals(parent, that.parent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entity, uuid, clock, removedClock, text, parent, startMillis, endMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeRecord{" +
+                "entity=" + entity +
+                ", uuid=" + uuid +
+                ", clock=" + clock +
+                ", removedClock=" + removedClock +
+                ", text='" + text + '\'' +
+                ", parent=" + parent +
+                ", startMillis=" + startMillis +
+                ", endMillis=" + endMillis +
+                '}';
+    }
+}
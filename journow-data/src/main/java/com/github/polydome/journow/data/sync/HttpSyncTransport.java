@@ -0,0 +1,52 @@
+package com.github.polydome.journow.data.sync;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Talks to a sync server over HTTP: batches are POSTed to and fetched from {@code <server>/changes}.
+ */
+public class HttpSyncTransport implements SyncTransport {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    private final URI changes;
+
+    public HttpSyncTransport(URI server) {
+        this.changes = server.resolve("/changes");
+    }
+
+    @Override
+    public void push(byte[] batch) throws IOException {
+        send(HttpRequest.newBuilder(changes)
+                .timeout(TIMEOUT)
+                .header("Content-Type", LocalSyncServer.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(batch))
+                .build());
+    }
+
+    @Override
+    public byte[] pull(long watermark, long replicaId) throws IOException {
+        return send(HttpRequest.newBuilder(URI.create(changes + "?since=" + watermark + "&replica=" + replicaId))
+                .timeout(TIMEOUT)
+                .GET()
+                .build());
+    }
+
+    private byte[] send(HttpRequest request) throws IOException {
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200)
+                throw new IOException("Sync server answered " + response.statusCode() + " to " + request.method() + " " + request.uri());
+
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while syncing", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.polydome.journow.data.sync;
+
+/**
+ * Hybrid logical clock timestamps packed into a long: wall-clock millis in the high 48 bits and a counter in the
+ * low 16. They follow wall-clock time while it moves forward but never go backwards, and a replica that has seen a
+ * remote timestamp only issues larger ones afterwards, so an edit made after observing another always wins over it.
+ * <p>
+ * Local writes are stamped by the sync triggers: the next timestamp is the larger of the last one plus one and the
+ * current time with a zero counter. Applying remote changes raises the last timestamp to the largest one received.
+ */
+public class HybridLogicalClock {
+    static final int COUNTER_BITS = 16;
+
+    /**
+     * SQL expression for the current wall-clock time already shifted into clock position.
+     */
+    static final String SQL_NOW = "(CAST((julianday('now') - 2440587.5) * 86400000.0 AS INTEGER) << " + COUNTER_BITS + ")";
+
+    public static long pack(long millis, int counter) {
+        return millis << COUNTER_BITS | counter;
+    }
+
+    public static long millis(long clock) {
+        return clock >>> COUNTER_BITS;
+    }
+}
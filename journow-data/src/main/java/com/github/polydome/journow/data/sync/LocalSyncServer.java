@@ -0,0 +1,159 @@
+package com.github.polydome.journow.data.sync;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reference sync server keeping the merged state of every row in memory. Each record that changes a row's state
+ * gets the next server sequence, replacing the entry it supersedes, so a pull after a watermark sends each changed
+ * row once no matter how often it changed, and a replayed push changes nothing.
+ * <p>
+ * Binds to the loopback interface; meant for tests and for trying sync between instances on one machine.
+ */
+public class LocalSyncServer implements AutoCloseable {
+    static final String CONTENT_TYPE = "application/x-journow-changes";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journow-sync-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<UUID, Entry> latest = new HashMap<>();
+    private final TreeMap<Long, Entry> log = new TreeMap<>();
+    private long seq;
+
+    public LocalSyncServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/changes", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8765;
+        LocalSyncServer server = new LocalSyncServer(port);
+        server.start();
+        System.err.println("Sync server listening on " + server.getUri() + "; run Journow with -Djournow.sync.url=" + server.getUri());
+
+        // The handler thread is a daemon, so keep the JVM alive until killed
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+
+    public synchronized int size() {
+        return latest.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] response;
+
+            switch (exchange.getRequestMethod()) {
+                case "POST":
+                    ChangeBatch batch = ChangeBatch.decode(exchange.getRequestBody().readAllBytes());
+                    accept(batch);
+                    response = new byte[0];
+                    break;
+                case "GET":
+                    Map<String, Long> query = parseQuery(exchange.getRequestURI());
+                    response = changesSince(query.getOrDefault("since", 0L), query.getOrDefault("replica", 0L)).encode();
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, response.length == 0 ? -1 : response.length);
+            if (response.length > 0) {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(response);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            exchange.sendResponseHeaders(400, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized void accept(ChangeBatch batch) {
+        for (ChangeRecord record : batch.getRecords()) {
+            Entry current = latest.get(record.getUuid());
+            ChangeRecord merged = current == null ? record : ChangeRecord.merge(current.record, record);
+            if (current != null && merged.equals(current.record))
+                continue;
+
+            // The sender already has the merged state only if it is exactly what it sent
+            Entry entry = new Entry(++seq, merged.equals(record) ? batch.getReplicaId() : 0, merged);
+            latest.put(record.getUuid(), entry);
+            if (current != null)
+                log.remove(current.seq);
+            log.put(entry.seq, entry);
+        }
+    }
+
+    private synchronized ChangeBatch changesSince(long watermark, long replicaId) {
+        List<ChangeRecord> records = new ArrayList<>();
+        for (Entry entry : log.tailMap(watermark, false).values())
+            if (entry.origin != replicaId)
+                records.add(entry.record);
+
+        return new ChangeBatch(0, seq, records);
+    }
+
+    private static Map<String, Long> parseQuery(URI uri) {
+        Map<String, Long> params = new HashMap<>();
+        if (uri.getRawQuery() == null)
+            return params;
+
+        for (String pair : uri.getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0)
+                params.put(pair.substring(0, eq), Long.parseLong(pair.substring(eq + 1)));
+        }
+
+        return params;
+    }
+
+    private static class Entry {
+        final long seq;
+        final long origin;
+        final ChangeRecord record;
+
+        Entry(long seq, long origin, ChangeRecord record) {
+            this.seq = seq;
+            this.origin = origin;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.polydome.journow.data.sync;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs one sync round: pushes the local changes made since the last push, then pulls and applies what other
+ * replicas pushed since the last pull. Both directions only carry rows changed after their watermark.
+ * <p>
+ * A round has three steps, so the network can be waited on away from the database: {@link #begin()} and
+ * {@link #finish(Round)} must be called on the thread that owns the database connection, {@link #exchange(Round)}
+ * on any other. Rounds must not overlap.
+ */
+public class SyncEngine {
+    private final SyncStore store;
+    private final SyncTransport transport;
+
+    public SyncEngine(SyncStore store, SyncTransport transport) {
+        this.store = store;
+        this.transport = transport;
+    }
+
+    /**
+     * Runs all three steps on the calling thread.
+     */
+    public Result sync() throws IOException, SQLException {
+        return finish(exchange(begin()));
+    }
+
+    /**
+     * Reads the local changes to push and the watermark to pull from.
+     */
+    public Round begin() throws SQLException {
+        long replicaId = store.replicaId();
+        long seq = store.currentSeq();
+        List<ChangeRecord> outgoing = store.changesSince(store.pushedSeq());
+
+        return new Round(replicaId, seq, outgoing, store.pulledWatermark());
+    }
+
+    /**
+     * Pushes and pulls without touching the database.
+     */
+    public Round exchange(Round round) throws IOException {
+        if (!round.outgoing.isEmpty()) {
+            byte[] batch = new ChangeBatch(round.replicaId, 0, round.outgoing).encode();
+            transport.push(batch);
+            round.bytesSent = batch.length;
+        }
+
+        byte[] response = transport.pull(round.watermark, round.replicaId);
+        round.incoming = ChangeBatch.decode(response);
+        round.bytesReceived = response.length;
+        return round;
+    }
+
+    /**
+     * Moves the push mark past what was pushed and applies what was pulled. Rows written locally since
+     * {@link #begin()} are past the mark and go out with the next round.
+     */
+    public Result finish(Round round) throws SQLException {
+        store.markPushed(round.seq);
+        int applied = store.apply(round.incoming.getRecords(), round.incoming.getWatermark());
+
+        return new Result(round.outgoing.size(), applied, round.bytesSent, round.bytesReceived);
+    }
+
+    public static class Round {
+        private final long replicaId;
+        private final long seq;
+        private final List<ChangeRecord> outgoing;
+        private final long watermark;
+
+        private ChangeBatch incoming;
+        private int bytesSent;
+        private int bytesReceived;
+
+        Round(long replicaId, long seq, List<ChangeRecord> outgoing, long watermark) {
+            this.replicaId = replicaId;
+            this.seq = seq;
+            this.outgoing = outgoing;
+            this.watermark = watermark;
+        }
+    }
+
+    public static class Result {
+        private final int pushed;
+        private final int pulled;
+        private final int bytesSent;
+        private final int bytesReceived;
+
+        Result(int pushed, int pulled, int bytesSent, int bytesReceived) {
+            this.pushed = pushed;
+            this.pulled = pulled;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+
+        public int getPushed() {
+            return pushed;
+        }
+
+        public int getPulled() {
+            return pulled;
+        }
+
+        public int getBytesSent() {
+            return bytesSent;
+        }
+
+        public int getBytesReceived() {
+            return bytesReceived;
+        }
+
+        @Override
+        public String toString() {
+            return "pushed " + pushed + " rows (" + bytesSent + " B), pulled " + pulled + " rows (" + bytesReceived + " B)";
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.polydome.journow.data.sync;
+
+/**
+ * Tables taking part in sync, in the order their upserts have to be applied so references resolve.
+ */
+public enum SyncEntity {
+    PROJECT("project", "project_id"),
+    TASK("task", "task_id"),
+    SESSION("session", "session_id");
+
+    private final String table;
+    private final String idColumn;
+
+    SyncEntity(String table, String idColumn) {
+        this.table = table;
+        this.idColumn = idColumn;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+}
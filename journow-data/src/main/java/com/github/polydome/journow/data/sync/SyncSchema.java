@@ -0,0 +1,126 @@
+package com.github.polydome.journow.data.sync;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change tracking for sync. Every project, task and session row gets a {@code sync_row} carrying a random UUID, the
+ * local change sequence of its last write and the hybrid logical clocks of its value and of the last delete that
+ * observed it. Triggers keep these current and leave a tombstone behind on delete; the tombstone keeps the local id,
+ * so rows still referring to it resolve, and the row gets it back if it is revived.
+ * Rows written while applying remote changes are recorded with sequence 0, so they are never echoed back.
+ */
+public class SyncSchema {
+    private static final String NEXT_SEQ = "UPDATE sync_state SET value = value + 1 WHERE key = 'change_seq';";
+    private static final String CURRENT_SEQ = "(SELECT value FROM sync_state WHERE key = 'change_seq')";
+    private static final String TICK = "UPDATE sync_state SET value = max(value + 1, " + HybridLogicalClock.SQL_NOW + ") WHERE key = 'hlc';";
+    private static final String CURRENT_CLOCK = "(SELECT value FROM sync_state WHERE key = 'hlc')";
+    private static final String NOT_APPLYING = "WHEN (SELECT value FROM sync_state WHERE key = 'applying') = 0";
+
+    public static void create(Connection connection) {
+        List<String> statements = new ArrayList<>();
+
+        statements.add("CREATE TABLE IF NOT EXISTS sync_state (" +
+                "key VARCHAR(40) PRIMARY KEY," +
+                "value INTEGER NOT NULL" +
+                ");");
+        statements.add("INSERT OR IGNORE INTO sync_state (key, value) VALUES " +
+                "('replica_id', abs(random())), ('change_seq', 0), ('pushed_seq', 0), ('pulled_watermark', 0), ('applying', 0), ('hlc', 0), ('backfilled', 0);");
+        statements.add("UPDATE sync_state SET value = 0 WHERE key = 'applying' AND value <> 0;");
+
+        statements.add("CREATE TABLE IF NOT EXISTS sync_row (" +
+                "uuid CHAR(32) PRIMARY KEY," +
+                "entity VARCHAR(20) NOT NULL," +
+                "local_id INTEGER NOT NULL," +
+                "change_seq INTEGER NOT NULL," +
+                "deleted INTEGER NOT NULL DEFAULT 0," +
+                "value_clock INTEGER NOT NULL DEFAULT 0," +
+                "removed_clock INTEGER NOT NULL DEFAULT 0" +
+                ");");
+        statements.add("CREATE INDEX IF NOT EXISTS sync_row_local_id ON sync_row (entity, local_id);");
+        statements.add("CREATE INDEX IF NOT EXISTS sync_row_change_seq ON sync_row (change_seq);");
+
+        // Rows written before change tracking existed are all due for the first push. This scans every table, so it
+        // runs once; the triggers keep sync_row complete from then on
+        String notBackfilled = "(SELECT value FROM sync_state WHERE key = 'backfilled') = 0";
+        statements.add(NEXT_SEQ.replace(";", " AND " + notBackfilled + ";"));
+        statements.add(TICK.replace(";", " AND " + notBackfilled + ";"));
+        for (SyncEntity entity : SyncEntity.values()) {
+            String table = entity.getTable();
+            String id = entity.getIdColumn();
+
+            statements.add("INSERT INTO sync_row (uuid, entity, local_id, change_seq, value_clock) " +
+                    "SELECT lower(hex(randomblob(16))), '" + table + "', " + id + ", " + CURRENT_SEQ + ", " + CURRENT_CLOCK + " FROM " + table + " " +
+                    "WHERE " + notBackfilled + " AND NOT EXISTS (SELECT 1 FROM sync_row WHERE entity = '" + table + "' AND local_id = " + id + " AND deleted = 0);");
+
+            statements.add("CREATE TRIGGER IF NOT EXISTS sync_" + table + "_insert AFTER INSERT ON " + table + " " + NOT_APPLYING + " BEGIN " +
+                    NEXT_SEQ + TICK +
+                    "INSERT INTO sync_row (uuid, entity, local_id, change_seq, value_clock) " +
+                    "VALUES (lower(hex(randomblob(16))), '" + table + "', NEW." + id + ", " + CURRENT_SEQ + ", " + CURRENT_CLOCK + "); " +
+                    "END;");
+
+            statements.add("CREATE TRIGGER IF NOT EXISTS sync_" + table + "_update AFTER UPDATE ON " + table + " " + NOT_APPLYING + " BEGIN " +
+                    NEXT_SEQ + TICK +
+                    "UPDATE sync_row SET change_seq = " + CURRENT_SEQ + ", value_clock = " + CURRENT_CLOCK + " " +
+                    "WHERE entity = '" + table + "' AND local_id = NEW." + id + " AND deleted = 0; " +
+                    "END;");
+
+            // A delete only covers the value it has seen, so a concurrent remote edit survives it
+            statements.add("CREATE TRIGGER IF NOT EXISTS sync_" + table + "_delete AFTER DELETE ON " + table + " " + NOT_APPLYING + " BEGIN " +
+                    NEXT_SEQ +
+                    "UPDATE sync_row SET change_seq = " + CURRENT_SEQ + ", deleted = 1, removed_clock = value_clock " +
+                    "WHERE entity = '" + table + "' AND local_id = OLD." + id + " AND deleted = 0; " +
+                    "END;");
+        }
+
+        // Burying a task is its delete as far as sync is concerned; when the compactor removes the row later, the delete
+        // trigger finds the tombstone already recorded
+        statements.add("CREATE TRIGGER IF NOT EXISTS sync_task_bury AFTER INSERT ON task_tombstone " + NOT_APPLYING + " BEGIN " +
+                NEXT_SEQ +
+                "UPDATE sync_row SET change_seq = " + CURRENT_SEQ + ", deleted = 1, removed_clock = value_clock " +
+                "WHERE entity = 'task' AND local_id = NEW.task_id AND deleted = 0; " +
+                "END;");
+
+        statements.add("UPDATE sync_state SET value = 1 WHERE key = 'backfilled' AND value = 0;");
+
+        try {
+            migrate(connection);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        for (String sql : statements) {
+            try (var statement = connection.prepareStatement(sql)) {
+                statement.execute();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Tracking created before clocks existed: add the columns, replace the triggers that do not stamp them
+    // and push everything again
+    private static void migrate(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT count(*), ifnull(sum(name = 'value_clock'), 0) FROM pragma_table_info('sync_row')");
+             ResultSet rs = statement.executeQuery()) {
+            if (!rs.next() || rs.getInt(1) == 0 || rs.getInt(2) > 0)
+                return;
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE sync_row ADD COLUMN value_clock INTEGER NOT NULL DEFAULT 0");
+            statement.execute("ALTER TABLE sync_row ADD COLUMN removed_clock INTEGER NOT NULL DEFAULT 0");
+            statement.execute("UPDATE sync_row SET value_clock = 1, removed_clock = deleted, change_seq = 1");
+            // The old batch format is gone from the server too, so start over from both watermarks
+            statement.execute("UPDATE sync_state SET value = 0 WHERE key IN ('pushed_seq', 'pulled_watermark')");
+            // Tombstones keep their local id for references to resolve, so the index covers them too
+            statement.execute("DROP INDEX IF EXISTS sync_row_local_id");
+            for (SyncEntity entity : SyncEntity.values())
+                for (String event : new String[]{"insert", "update", "delete"})
+                    statement.execute("DROP TRIGGER IF EXISTS sync_" + entity.getTable() + "_" + event);
+        }
+    }
+}
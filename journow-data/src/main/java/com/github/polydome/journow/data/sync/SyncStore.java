@@ -0,0 +1,464 @@
+package com.github.polydome.journow.data.sync;
+
+import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.database.Deduplication;
+import com.github.polydome.journow.data.database.SessionArchive;
+import com.github.polydome.journow.data.database.Tombstones;
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.data.event.DataEventBus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads local changes since a watermark and merges remote ones, keyed by the UUIDs kept in {@code sync_row}.
+ * Every incoming record is merged with the local state of its row through {@link ChangeRecord#merge} and only
+ * the difference is written, so applying the same change set twice, or change sets in any order, ends in the
+ * same rows.
+ */
+public class SyncStore {
+    // Parents before children, deleted or not, so every reference resolves to a local id
+    private static final Comparator<ChangeRecord> APPLY_ORDER = Comparator.comparing(ChangeRecord::getEntity);
+
+    private final Database database;
+    private final DataEventBus dataEventBus;
+
+    private PreparedStatement selectState;
+    private PreparedStatement updateState;
+    private PreparedStatement receiveClock;
+    private final Map<SyncEntity, PreparedStatement> selectChanges = new EnumMap<>(SyncEntity.class);
+    private final Map<SyncEntity, PreparedStatement> selectRecord = new EnumMap<>(SyncEntity.class);
+    private final Map<SyncEntity, PreparedStatement> deleteRow = new EnumMap<>(SyncEntity.class);
+    private PreparedStatement upsertRow;
+    private PreparedStatement insertProject;
+    private PreparedStatement updateProject;
+    private PreparedStatement insertTask;
+    private PreparedStatement updateTask;
+    private PreparedStatement insertSession;
+    private PreparedStatement updateSession;
+    private PreparedStatement selectLocalId;
+    private PreparedStatement reserveId;
+    private PreparedStatement selectReservedId;
+
+    public SyncStore(Database database, DataEventBus dataEventBus) {
+        this.database = database;
+        this.dataEventBus = dataEventBus;
+    }
+
+    public long replicaId() throws SQLException {
+        return readState("replica_id");
+    }
+
+    public long currentSeq() throws SQLException {
+        return readState("change_seq");
+    }
+
+    public long pushedSeq() throws SQLException {
+        return readState("pushed_seq");
+    }
+
+    public void markPushed(long seq) throws SQLException {
+        writeState("pushed_seq", seq);
+    }
+
+    public long pulledWatermark() throws SQLException {
+        return readState("pulled_watermark");
+    }
+
+    /**
+     * Returns the current state of every row written locally after {@code seq}, projects first and sessions last.
+     */
+    public List<ChangeRecord> changesSince(long seq) throws SQLException {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        List<ChangeRecord> changes = new ArrayList<>();
+
+        for (SyncEntity entity : SyncEntity.values()) {
+            PreparedStatement select = selectChanges.get(entity);
+            if (select == null) {
+                select = database.getConnection().prepareStatement(selectRecords(entity, "r.change_seq > ?") + "\norder by r.change_seq");
+                selectChanges.put(entity, select);
+            }
+
+            select.setLong(1, seq);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    ChangeRecord record = parseRecord(entity, rows);
+                    if (record != null)
+                        changes.add(record);
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Merges remote changes into the local rows and advances the pull watermark in one transaction, without
+     * recording them as local changes. Returns the number of records that changed a row.
+     */
+    public int apply(List<ChangeRecord> records, long watermark) throws SQLException {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        List<ChangeRecord> ordered = new ArrayList<>(records);
+        ordered.sort(APPLY_ORDER);
+
+        Map<SyncEntity, long[]> touched = new EnumMap<>(SyncEntity.class);
+        Connection connection = database.getConnection();
+        long maxClock = 0;
+        int applied = 0;
+
+        connection.setAutoCommit(false);
+        try {
+            writeState("applying", 1);
+
+            for (ChangeRecord record : ordered) {
+                maxClock = Math.max(maxClock, Math.max(record.getClock(), record.getRemovedClock()));
+
+                long localId = merge(record);
+                if (localId > 0) {
+                    touched.merge(record.getEntity(), new long[]{localId, localId},
+                            (range, id) -> new long[]{Math.min(range[0], id[0]), Math.max(range[1], id[1])});
+                    applied++;
+                }
+            }
+
+            if (receiveClock == null)
+                receiveClock = connection.prepareStatement("update sync_state set value = max(value, ?) where key = 'hlc'");
+
+            receiveClock.setLong(1, maxClock);
+            receiveClock.executeUpdate();
+
+            writeState("applying", 0);
+            writeState("pulled_watermark", watermark);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        touched.forEach((entity, range) -> {
+            DataEvent event = DataEvent.updateRange(range[0], range[1]);
+            switch (entity) {
+                case PROJECT: dataEventBus.pushProjectEvent(event); break;
+                case TASK: dataEventBus.pushTaskEvent(event); break;
+                case SESSION: dataEventBus.pushSessionEvent(event); break;
+            }
+        });
+
+        return applied;
+    }
+
+    // Returns the local id of the row the merge wrote to, or 0 when no row changed
+    private long merge(ChangeRecord incoming) throws SQLException {
+        SyncEntity entity = incoming.getEntity();
+        PreparedStatement select = selectRecord.get(entity);
+        if (select == null) {
+            select = database.getConnection().prepareStatement(selectRecords(entity, "r.uuid = ?"));
+            selectRecord.put(entity, select);
+        }
+
+        long localId = 0;
+        boolean live = false;
+        ChangeRecord current = null;
+        select.setString(1, formatUuid(incoming.getUuid()));
+        try (ResultSet rows = select.executeQuery()) {
+            if (rows.next()) {
+                localId = rows.getLong("local_id");
+                live = !rows.getBoolean("deleted");
+                current = parseRecord(entity, rows);
+            }
+        }
+
+        ChangeRecord merged = current == null ? incoming : ChangeRecord.merge(current, incoming);
+        if (merged.equals(current))
+            return 0;
+
+        long changedId = 0;
+        if (merged.isDeleted()) {
+            if (live) {
+                deleteValue(entity, localId);
+                changedId = localId;
+            } else if (localId == 0) {
+                // Children may still arrive for a row this replica only knows deleted; give it an id to refer to
+                localId = reserveId(entity);
+            }
+        } else if (!live || ChangeRecord.compareValues(merged, current) != 0) {
+            localId = writeValue(merged, localId, live);
+            if (localId == 0)
+                return 0;
+            changedId = localId;
+        }
+
+        if (upsertRow == null)
+            upsertRow = database.getConnection().prepareStatement("insert into sync_row (uuid, entity, local_id, change_seq, deleted, value_clock, removed_clock)\n" +
+                    "values (?, ?, ?, 0, ?, ?, ?)\n" +
+                    "on conflict (uuid) do update set local_id = excluded.local_id, change_seq = 0, deleted = excluded.deleted,\n" +
+                    "                                 value_clock = excluded.value_clock, removed_clock = excluded.removed_clock");
+
+        upsertRow.setString(1, formatUuid(merged.getUuid()));
+        upsertRow.setString(2, entity.getTable());
+        upsertRow.setLong(3, localId);
+        upsertRow.setBoolean(4, merged.isDeleted());
+        upsertRow.setLong(5, merged.getClock());
+        upsertRow.setLong(6, merged.getRemovedClock());
+        upsertRow.executeUpdate();
+
+        return changedId;
+    }
+
+    // Updates the live row, or inserts it under its previous local id if it had one; returns the local id,
+    // 0 if it cannot be stored. A project or task named like a locally written one is kept beside it under its own
+    // name_clash, see Deduplication
+    private long writeValue(ChangeRecord record, long localId, boolean exists) throws SQLException {
+        Connection connection = database.getConnection();
+        PreparedStatement statement;
+
+        switch (record.getEntity()) {
+            case PROJECT:
+                long sameName = Deduplication.findProject(connection, record.getText());
+                if (sameName > 0 && localId == 0)
+                    localId = reserveId(SyncEntity.PROJECT);
+
+                if (exists) {
+                    if (updateProject == null)
+                        updateProject = connection.prepareStatement("update project set project_name = ?, name_clash = ? where project_id = ?");
+                    statement = updateProject;
+                    statement.setLong(3, localId);
+                } else {
+                    if (insertProject == null)
+                        insertProject = connection.prepareStatement("insert into project (project_name, name_clash, project_id) values (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+                    statement = insertProject;
+                    setId(statement, 3, localId);
+                }
+
+                statement.setString(1, record.getText());
+                statement.setLong(2, sameName > 0 && sameName != localId ? localId : 0);
+                break;
+            case TASK:
+                // A task revived before the compactor got to it is written again, and its remaining sessions with it
+                if (!exists && localId > 0)
+                    Tombstones.unbury(connection, localId);
+
+                long projectId = record.getParent() == null ? 0 : findLocalId(SyncEntity.PROJECT, record.getParent());
+                long sameTitle = Deduplication.findTask(connection, record.getText(), projectId);
+                if (sameTitle > 0 && localId == 0)
+                    localId = reserveId(SyncEntity.TASK);
+
+                if (exists) {
+                    if (updateTask == null)
+                        updateTask = connection.prepareStatement("update task set title = ?, project_id = ?, name_clash = ? where task_id = ?");
+                    statement = updateTask;
+                    statement.setLong(4, localId);
+                } else {
+                    if (insertTask == null)
+                        insertTask = connection.prepareStatement("insert into task (title, project_id, name_clash, task_id) values (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+                    statement = insertTask;
+                    setId(statement, 4, localId);
+                }
+
+                statement.setString(1, record.getText());
+                statement.setLong(3, sameTitle > 0 && sameTitle != localId ? localId : 0);
+                if (projectId > 0)
+                    statement.setLong(2, projectId);
+                else
+                    statement.setNull(2, Types.INTEGER);
+                break;
+            default:
+                // A session whose task never reached this replica has nowhere to go
+                long taskId = findLocalId(SyncEntity.TASK, record.getParent());
+                if (taskId == 0)
+                    return 0;
+
+                if (exists) {
+                    SessionArchive.thawSession(connection, localId);
+                    if (updateSession == null)
+                        updateSession = connection.prepareStatement("update session set task_id = ?, start_date = ?, end_date = ? where session_id = ?");
+                    statement = updateSession;
+                    statement.setLong(4, localId);
+                } else {
+                    if (insertSession == null)
+                        insertSession = connection.prepareStatement("insert into session (task_id, start_date, end_date, session_id) values (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+                    statement = insertSession;
+                    setId(statement, 4, localId);
+                }
+
+                statement.setLong(1, taskId);
+                statement.setLong(2, record.getStartMillis());
+                statement.setLong(3, record.getEndMillis());
+        }
+
+        statement.executeUpdate();
+        if (localId > 0)
+            return localId;
+
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            return generatedKeys.next() ? generatedKeys.getLong(1) : 0;
+        }
+    }
+
+    // A task is buried like a local delete, so its sessions go with it
+    private void deleteValue(SyncEntity entity, long localId) throws SQLException {
+        if (entity == SyncEntity.TASK) {
+            Tombstones.bury(database.getConnection(), localId);
+            return;
+        }
+        if (entity == SyncEntity.SESSION)
+            SessionArchive.thawSession(database.getConnection(), localId);
+
+        PreparedStatement delete = deleteRow.get(entity);
+        if (delete == null) {
+            delete = database.getConnection().prepareStatement("delete from " + entity.getTable() + " where " + entity.getIdColumn() + " = ?");
+            deleteRow.put(entity, delete);
+        }
+
+        delete.setLong(1, localId);
+        delete.executeUpdate();
+    }
+
+    // Local id of a row with this UUID, deleted or not, or 0 when it is unknown
+    private long findLocalId(SyncEntity entity, UUID uuid) throws SQLException {
+        if (selectLocalId == null)
+            selectLocalId = database.getConnection().prepareStatement("select local_id from sync_row where uuid = ? and entity = ?");
+
+        selectLocalId.setString(1, formatUuid(uuid));
+        selectLocalId.setString(2, entity.getTable());
+        try (ResultSet rs = selectLocalId.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Takes the next AUTOINCREMENT id without inserting, so it is never handed out to a new local row
+    private long reserveId(SyncEntity entity) throws SQLException {
+        Connection connection = database.getConnection();
+        if (reserveId == null) {
+            reserveId = connection.prepareStatement("insert or replace into sqlite_sequence (rowid, name, seq)\n" +
+                    "values ((select rowid from sqlite_sequence where name = ?1), ?1,\n" +
+                    "        (select ifnull(max(seq), 0) + 1 from sqlite_sequence where name = ?1))");
+            selectReservedId = connection.prepareStatement("select seq from sqlite_sequence where name = ?");
+        }
+
+        reserveId.setString(1, entity.getTable());
+        reserveId.executeUpdate();
+
+        selectReservedId.setString(1, entity.getTable());
+        try (ResultSet rs = selectReservedId.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void setId(PreparedStatement statement, int index, long id) throws SQLException {
+        if (id > 0)
+            statement.setLong(index, id);
+        else
+            statement.setNull(index, Types.INTEGER);
+    }
+
+    // One shape for every entity: sync columns, then text, parent UUID and session times
+    private static String selectRecords(SyncEntity entity, String condition) {
+        String columns = "select r.uuid, r.local_id, r.deleted, r.value_clock, r.removed_clock, ";
+        switch (entity) {
+            case PROJECT:
+                return columns + "p.project_name as text, null as parent, 0 as start_date, 0 as end_date\n" +
+                        "from sync_row r\n" +
+                        "         left join project p on r.deleted = 0 and p.project_id = r.local_id\n" +
+                        "where r.entity = 'project' and " + condition;
+            case TASK:
+                return columns + "t.title as text, " + parentUuid("project", "t.project_id") + " as parent, 0 as start_date, 0 as end_date\n" +
+                        "from sync_row r\n" +
+                        "         left join task t on r.deleted = 0 and t.task_id = r.local_id\n" +
+                        "where r.entity = 'task' and " + condition;
+            default:
+                // Archived sessions are exported as they are; a key lookup in each table beats joining the history view
+                return columns + "null as text, " + parentUuid("task", "ifnull(s.task_id, a.task_id)") + " as parent,\n" +
+                        "       ifnull(s.start_date, a.start_date) as start_date, ifnull(s.end_date, a.end_date) as end_date\n" +
+                        "from sync_row r\n" +
+                        "         left join main.session s on r.deleted = 0 and s.session_id = r.local_id\n" +
+                        "         left join archive.session a on r.deleted = 0 and a.session_id = r.local_id\n" +
+                        "where r.entity = 'session' and " + condition;
+        }
+    }
+
+    // References to deleted rows are kept too, so a revived row finds its children again
+    private static String parentUuid(String entity, String localId) {
+        return "(select uuid from sync_row where entity = '" + entity + "' and local_id = " + localId + " order by deleted limit 1)";
+    }
+
+    private static ChangeRecord parseRecord(SyncEntity entity, ResultSet rows) throws SQLException {
+        UUID uuid = parseUuid(rows.getString("uuid"));
+        long removedClock = rows.getLong("removed_clock");
+
+        if (rows.getBoolean("deleted"))
+            return ChangeRecord.tombstone(entity, uuid, removedClock);
+
+        long clock = rows.getLong("value_clock");
+        UUID parent = parseUuid(rows.getString("parent"));
+        ChangeRecord record;
+
+        switch (entity) {
+            case PROJECT:
+                record = ChangeRecord.project(uuid, rows.getString("text"), clock);
+                break;
+            case TASK:
+                record = ChangeRecord.task(uuid, rows.getString("text"), parent, clock);
+                break;
+            default:
+                // A session whose task was never tracked cannot be rebuilt elsewhere
+                if (parent == null)
+                    return null;
+                record = ChangeRecord.session(uuid, parent, rows.getLong("start_date"), rows.getLong("end_date"), clock);
+        }
+
+        return record.withRemovedClock(removedClock);
+    }
+
+    private long readState(String key) throws SQLException {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (selectState == null)
+            selectState = database.getConnection().prepareStatement("select value from sync_state where key = ?");
+
+        selectState.setString(1, key);
+        try (ResultSet rs = selectState.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void writeState(String key, long value) throws SQLException {
+        if (!database.isReady())
+            throw new IllegalStateException("Database is not ready");
+
+        if (updateState == null)
+            updateState = database.getConnection().prepareStatement("update sync_state set value = ? where key = ?");
+
+        updateState.setLong(1, value);
+        updateState.setString(2, key);
+        updateState.executeUpdate();
+    }
+
+    static UUID parseUuid(String hex) {
+        if (hex == null)
+            return null;
+
+        return new UUID(Long.parseUnsignedLong(hex.substring(0, 16), 16), Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    static String formatUuid(UUID uuid) {
+        return String.format("%016x%016x", uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.polydome.journow.data.sync;
+
+import java.io.IOException;
+
+/**
+ * Moves encoded {@link ChangeBatch}es between a replica and the sync server.
+ */
+public interface SyncTransport {
+    void push(byte[] batch) throws IOException;
+
+    /**
+     * Returns the changes the server received after {@code watermark} from replicas other than {@code replicaId}.
+     */
+    byte[] pull(long watermark, long replicaId) throws IOException;
+}
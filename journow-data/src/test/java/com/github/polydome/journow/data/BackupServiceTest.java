@@ -0,0 +1,254 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.backup.BackupService;
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class BackupServiceTest {
+    static final long MINUTE = 60000;
+
+    Path directory = Files.createTempDirectory("journow-backup");
+    Path file = directory.resolve("local.db");
+    FileDatabase database = new FileDatabase(file, FileDatabase.archivePathOf(file));
+    DataEventBus dataEventBus = new DataEventBus();
+    TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+    SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+    BackupService SUT = new BackupService(file, directory.resolve("backups"), 2, new CountingClock());
+
+    BackupServiceTest() throws IOException {
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SUT.close();
+        if (database.getConnection() != null)
+            database.getConnection().close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    @Test
+    void backup_databaseWithArchive_copiesBothAndVerifies() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 0, 2500);
+        new SessionArchiver(database).archive(Instant.ofEpochMilli(1000 * MINUTE), 5000);
+
+        Path backup = SUT.backup();
+
+        assertThat(BackupService.verify(backup), equalTo(true));
+        assertThat(count(backup, "select count(*) from session"), equalTo(1500));
+        assertThat(count(FileDatabase.archivePathOf(backup), "select count(*) from session"), equalTo(1000));
+        assertThat(count(backup, "select count(*) from sync_row where entity = 'session'"), equalTo(2500));
+        assertThat(count(backup, "select count(*) from sqlite_master where type = 'trigger'"),
+                equalTo(count(file, "select count(*) from sqlite_master where type = 'trigger'")));
+        assertThat(count(backup, "select seq from sqlite_sequence where name = 'session'"), equalTo(2500));
+    }
+
+    @Test
+    void backup_nothingChanged_keepsNewestGenerations() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+
+        Path first = SUT.backup();
+        Path unchanged = SUT.backup();
+        insertSessions(task, 0, 1);
+        Path second = SUT.backup();
+        insertSessions(task, 1, 1);
+        Path third = SUT.backup();
+
+        assertThat(unchanged, nullValue());
+        assertThat(SUT.list(), contains(third, second));
+        assertThat(Files.exists(first), equalTo(false));
+        assertThat(Files.exists(FileDatabase.archivePathOf(first)), equalTo(false));
+    }
+
+    @Test
+    void backup_concurrentWrites_copiesConsistentSnapshotWithoutStallingWriter() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 0, 5000);
+
+        // A copy takes about 150 ms; a write every half second interrupts some attempts but not all
+        Writer writer = new Writer(task, 500);
+        Path backup;
+        try {
+            backup = SUT.backup();
+        } finally {
+            writer.stop();
+        }
+
+        // The trigger writes a sync row in the same transaction as its session, so a torn copy would differ
+        assertThat(BackupService.verify(backup), equalTo(true));
+        assertThat(count(backup, "select count(*) from session"), equalTo(count(backup, "select count(*) from sync_row where entity = 'session'")));
+        assertThat(writer.slowestWriteNanos.get() / 1000000, lessThan(500L));
+    }
+
+    @Test
+    void backup_writesNeverPause_givesUpWithoutStallingWriter() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 0, 20000);
+
+        Writer writer = new Writer(task, 1);
+        try {
+            assertThrows(IOException.class, SUT::backup);
+        } finally {
+            writer.stop();
+        }
+
+        assertThat(SUT.list(), empty());
+        try (Stream<Path> files = Files.list(directory.resolve("backups"))) {
+            assertThat(files.count(), equalTo(0L));
+        }
+        assertThat(writer.slowestWriteNanos.get() / 1000000, lessThan(500L));
+    }
+
+    @Test
+    void backup_archiveUnchanged_sharesPreviousArchiveFile() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 0, 100);
+        SessionArchiver archiver = new SessionArchiver(database);
+        archiver.archive(Instant.ofEpochMilli(50 * MINUTE), 1000);
+        Path first = SUT.backup();
+
+        insertSessions(task, 100, 1);
+        Path second = SUT.backup();
+        boolean shared = Files.isSameFile(FileDatabase.archivePathOf(second), FileDatabase.archivePathOf(first));
+        archiver.archive(Instant.ofEpochMilli(60 * MINUTE), 1000);
+        Path third = SUT.backup();
+
+        assertThat(shared, equalTo(true));
+        assertThat(Files.isSameFile(FileDatabase.archivePathOf(third), FileDatabase.archivePathOf(second)), equalTo(false));
+        assertThat(BackupService.verify(FileDatabase.archivePathOf(second)), equalTo(true));
+        assertThat(count(second, "select count(*) from session"), equalTo(51));
+        assertThat(count(third, "select count(*) from session"), equalTo(41));
+        assertThat(count(FileDatabase.archivePathOf(third), "select count(*) from session"), equalTo(60));
+    }
+
+    @Test
+    void restore_backup_replacesDatabaseWithVerifiedCopy() throws Exception {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 0, 10);
+        new SessionArchiver(database).archive(Instant.ofEpochMilli(4 * MINUTE), 100);
+        Path backup = SUT.backup();
+        Path target = directory.resolve("restored.db");
+
+        BackupService.restore(backup, target);
+
+        FileDatabase restored = new FileDatabase(target, FileDatabase.archivePathOf(target));
+        restored.init();
+        List<Session> sessions = new SessionRepositoryImpl(restored, dataEventBus).findAll();
+        restored.getConnection().close();
+        assertThat(sessions, equalTo(sessionRepository.findAll()));
+    }
+
+    @Test
+    void restore_corruptBackup_throwsAndLeavesTarget() throws Exception {
+        database.init();
+        Path backup = SUT.backup();
+        Files.write(backup, new byte[8192]);
+        Path target = directory.resolve("restored.db");
+        Files.write(target, new byte[]{1, 2, 3});
+
+        assertThrows(IOException.class, () -> BackupService.restore(backup, target));
+        assertThat(Files.readAllBytes(target), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    // Inserts a session every pauseMillis on its own connection until stopped, timing each insert
+    class Writer {
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicLong slowestWriteNanos = new AtomicLong();
+        final Thread thread;
+
+        Writer(Task task, long pauseMillis) {
+            thread = new Thread(() -> {
+                for (int i = 20000; writing.get(); i++) {
+                    long start = System.nanoTime();
+                    insertSessions(task, i, 1);
+                    slowestWriteNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+                    try {
+                        Thread.sleep(pauseMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            writing.set(false);
+            thread.join();
+        }
+    }
+
+    private void insertSessions(Task task, int first, int count) {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = first; i < first + count; i++)
+            sessions.add(new Session(0, Instant.ofEpochMilli(i * MINUTE), Instant.ofEpochMilli(i * MINUTE + MINUTE / 2), task));
+        sessionRepository.insertAll(sessions);
+    }
+
+    private static int count(Path file, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             var statement = connection.prepareStatement(sql);
+             var rs = statement.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // A second later on every call, so each backup gets its own name
+    static class CountingClock extends Clock {
+        private long seconds = 1_600_000_000;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public synchronized Instant instant() {
+            return Instant.ofEpochSecond(seconds++);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.archive.ColumnarArchiveReader;
+import com.github.polydome.journow.data.archive.ColumnarArchiveWriter;
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.generator.DatasetGenerator;
+import com.github.polydome.journow.data.generator.DatasetSpec;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class ColumnarArchiveTest {
+    static final long HOUR = 3600000;
+    static final Instant JANUARY = Instant.parse("2020-01-01T00:00:00Z");
+    static final Instant FEBRUARY = Instant.parse("2020-02-01T00:00:00Z");
+    static final Instant MARCH = Instant.parse("2020-03-01T00:00:00Z");
+
+    Path file;
+
+    ColumnarArchiveTest() throws IOException {
+        file = Files.createTempFile("journow-columnar", ".archive");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void write_sessionsOverYears_readsThemBackInMonthlyBlocks() throws IOException {
+        List<long[]> written = randomSessions(3000, 3 * 365 * 24 * HOUR / 3000);
+        write(written);
+
+        List<long[]> read = new ArrayList<>();
+        try (ColumnarArchiveReader SUT = new ColumnarArchiveReader(file)) {
+            SUT.scan(Instant.EPOCH, Instant.parse("2100-01-01T00:00:00Z"), (id, taskId, start, end) -> read.add(new long[]{id, taskId, start, end}));
+
+            assertThat(SUT.getBlockCount(), equalTo((int) written.stream()
+                    .map(session -> YearMonth.from(Instant.ofEpochMilli(session[2]).atZone(ZoneOffset.UTC))).distinct().count()));
+            assertThat(SUT.getSessionCount(), equalTo(3000L));
+        }
+        assertThat(read, hasSize(written.size()));
+        for (int i = 0; i < read.size(); i++)
+            assertThat(read.get(i), equalTo(written.get(i)));
+    }
+
+    @Test
+    void scan_range_readsOnlyBlocksItOverlaps() throws IOException {
+        write(List.of(
+                new long[]{1, 7, JANUARY.toEpochMilli(), JANUARY.toEpochMilli() + HOUR},
+                new long[]{2, 7, FEBRUARY.toEpochMilli(), FEBRUARY.toEpochMilli() + HOUR},
+                new long[]{3, 9, FEBRUARY.toEpochMilli() + 2 * HOUR, FEBRUARY.toEpochMilli() + 3 * HOUR},
+                new long[]{4, 7, MARCH.toEpochMilli(), MARCH.toEpochMilli() + HOUR}
+        ));
+
+        List<Long> ids = new ArrayList<>();
+        int blocksRead;
+        try (ColumnarArchiveReader SUT = new ColumnarArchiveReader(file)) {
+            blocksRead = SUT.scan(FEBRUARY.plusMillis(HOUR), MARCH, (id, taskId, start, end) -> ids.add(id));
+        }
+
+        assertThat(blocksRead, equalTo(1));
+        assertThat(ids, contains(3L));
+    }
+
+    @Test
+    void open_notAnArchive_throws() throws IOException {
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> new ColumnarArchiveReader(file));
+    }
+
+    @Test
+    void export_generatedHistory_takesUnderNineBytesPerSession() throws IOException {
+        MemoryDatabase database = new MemoryDatabase();
+        DataEventBus dataEventBus = new DataEventBus();
+        database.init();
+        new DatasetGenerator(DatasetSpec.builder().seed(7).projects(5).tasks(100).sessions(20000).build()).generate(
+                new ProjectRepositoryImpl(database, dataEventBus),
+                new TaskRepositoryImpl(database, dataEventBus),
+                new SessionRepositoryImpl(database, dataEventBus));
+        SessionArchiver archiver = new SessionArchiver(database);
+        while (archiver.archive(Instant.parse("2100-01-01T00:00:00Z"), 5000) > 0) ;
+
+        long exported = archiver.export(file);
+
+        assertThat(exported, equalTo(20000L));
+        assertThat(Files.size(file) / (double) exported, lessThan(9.0));
+        long[] total = new long[1];
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            reader.scan(Instant.EPOCH, Instant.parse("2100-01-01T00:00:00Z"), (id, taskId, start, end) -> total[0] += end - start);
+        }
+        assertThat(total[0], equalTo(new TaskRepositoryImpl(database, dataEventBus).findAll().stream()
+                .mapToLong(task -> new TaskRepositoryImpl(database, dataEventBus).findTotalTrackedMillis(task.getId())).sum()));
+    }
+
+    @Test
+    void export_readFailsHalfway_throwsAndDeletesPartialFile() throws Exception {
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.next()).thenReturn(true, true).thenThrow(new SQLException("disk I/O error"));
+        when(rows.getLong(anyInt())).thenReturn(1L);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(rows);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        Database database = mock(Database.class);
+        when(database.isReady()).thenReturn(true);
+        when(database.getConnection()).thenReturn(connection);
+
+        assertThrows(IOException.class, () -> new SessionArchiver(database).export(file));
+        assertThat(Files.exists(file), equalTo(false));
+    }
+
+    private void write(List<long[]> sessions) throws IOException {
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+            for (long[] session : sessions)
+                writer.append(session[0], session[1], session[2], session[3]);
+        }
+    }
+
+    // Sessions in start order, some overlapping the one before, over tasks with scattered ids
+    private static List<long[]> randomSessions(int count, long meanGap) {
+        Random random = new Random(42);
+        List<long[]> sessions = new ArrayList<>();
+        long start = JANUARY.toEpochMilli();
+        for (int i = 0; i < count; i++) {
+            start += (long) (random.nextDouble() * 2 * meanGap);
+            sessions.add(new long[]{i * 3 + random.nextInt(3), 1 + random.nextInt(40) * 1000L, start, start + random.nextInt((int) (4 * HOUR))});
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.generator.DatasetGenerator;
+import com.github.polydome.journow.data.generator.DatasetSpec;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class DatasetGeneratorTest {
+    DatasetSpec spec = DatasetSpec.builder()
+            .seed(42)
+            .projects(5)
+            .tasks(40)
+            .sessions(2500)
+            .build();
+
+    @Test
+    void generate_emptyDatabase_insertsRequestedCounts() {
+        Generated generated = generate(spec);
+
+        assertThat(generated.projects.findAll(), hasSize(5));
+        assertThat(generated.tasks.count(), equalTo(40));
+        assertThat(generated.sessions.findAll(), hasSize(2500));
+    }
+
+    @Test
+    void generate_sameSeed_producesIdenticalDatasets() {
+        List<Session> first = generate(spec).sessions.findAll();
+        List<Session> second = generate(spec).sessions.findAll();
+
+        assertThat(first, equalTo(second));
+    }
+
+    @Test
+    void generate_differentSeed_producesDifferentDatasets() {
+        DatasetSpec otherSpec = DatasetSpec.builder()
+                .seed(43)
+                .projects(5)
+                .tasks(40)
+                .sessions(2500)
+                .build();
+
+        List<Session> first = generate(spec).sessions.findAll();
+        List<Session> second = generate(otherSpec).sessions.findAll();
+
+        assertThat(first, not(equalTo(second)));
+    }
+
+    @Test
+    void generate_sessionsDoNotOverlap() {
+        List<Session> sessions = generate(spec).sessions.findAll();
+
+        for (int i = 1; i < sessions.size(); i++) {
+            assertThat(sessions.get(i).getStartedAt(), greaterThanOrEqualTo(sessions.get(i - 1).getEndedAt()));
+            assertThat(sessions.get(i).getEndedAt(), greaterThan(sessions.get(i).getStartedAt()));
+        }
+    }
+
+    Generated generate(DatasetSpec spec) {
+        MemoryDatabase database = new MemoryDatabase();
+        DataEventBus dataEventBus = new DataEventBus();
+        database.init();
+
+        Generated generated = new Generated(
+                new ProjectRepositoryImpl(database, dataEventBus),
+                new TaskRepositoryImpl(database, dataEventBus),
+                new SessionRepositoryImpl(database, dataEventBus)
+        );
+        new DatasetGenerator(spec).generate(generated.projects, generated.tasks, generated.sessions);
+
+        return generated;
+    }
+
+    static class Generated {
+        final ProjectRepositoryImpl projects;
+        final TaskRepositoryImpl tasks;
+        final SessionRepositoryImpl sessions;
+
+        Generated(ProjectRepositoryImpl projects, TaskRepositoryImpl tasks, SessionRepositoryImpl sessions) {
+            this.projects = projects;
+            this.tasks = tasks;
+            this.sessions = sessions;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class DeduplicationTest {
+    Path file = Files.createTempFile("journow-dedup", ".db");
+
+    DeduplicationTest() throws IOException {
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void init_duplicatesFromBeforeUniqueIndexes_mergesThemKeepingSessions() throws SQLException {
+        FileDatabase before = new FileDatabase(file);
+        before.init();
+        try (var statement = before.getConnection().createStatement()) {
+            statement.execute("drop index project_name_unique");
+            statement.execute("drop index task_title_unique");
+            statement.execute("insert into project (project_name) values ('Journow'), ('journow')");
+            statement.execute("insert into task (title, project_id) values ('Review', 1), ('Review', 2), ('review ', 1), ('Release', 2)");
+            statement.execute("insert into session (task_id, start_date, end_date) values (1, 0, 1000), (2, 1000, 3000), (3, 3000, 6000), (4, 6000, 10000)");
+        }
+        before.getConnection().close();
+
+        FileDatabase SUT = new FileDatabase(file);
+        SUT.init();
+
+        DataEventBus dataEventBus = new DataEventBus();
+        List<Project> projects = new ProjectRepositoryImpl(SUT, dataEventBus).findAll();
+        List<Task> tasks = new TaskRepositoryImpl(SUT, dataEventBus).findAll();
+        List<Session> sessions = new SessionRepositoryImpl(SUT, dataEventBus).findAll();
+        SUT.getConnection().close();
+
+        assertThat(projects, hasSize(1));
+        assertThat(tasks, hasSize(2));
+        assertThat(sessions, hasSize(4));
+        long reviewSessions = sessions.stream().filter(session -> session.getTask().getTitle().trim().equalsIgnoreCase("review")).count();
+        assertThat(reviewSessions, equalTo(3L));
+        assertThat(sessions.stream().map(session -> session.getTask().getProject()).distinct().count(), equalTo(1L));
+    }
+
+    @Test
+    void update_renamedOntoExistingTaskWhileTracked_stopLogsOnSurvivor() throws SQLException {
+        FileDatabase SUT = new FileDatabase(file);
+        SUT.init();
+        DataEventBus dataEventBus = new DataEventBus();
+        TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(SUT, dataEventBus);
+        SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(SUT, dataEventBus);
+        Task survivor = taskRepository.insert(new Task(0, "code review", null));
+        Task tracked = taskRepository.insert(new Task(0, "Review", null));
+        StoredTrackerData storage = new StoredTrackerData();
+        Tracker tracker = new Tracker(taskRepository, storage, Clock.fixed(Instant.ofEpochMilli(60000), ZoneOffset.UTC), sessionRepository);
+        tracker.start(tracked.getId());
+
+        taskRepository.update(new Task(tracked.getId(), "Code review", null));
+        tracker.stop();
+
+        List<Session> sessions = sessionRepository.findAll();
+        SUT.getConnection().close();
+        assertThat(sessions, hasSize(1));
+        assertThat(sessions.get(0).getTask(), equalTo(survivor));
+        assertThat(storage.read(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void init_trackedTaskMergedAway_stopLogsOnSurvivor() throws SQLException {
+        FileDatabase before = new FileDatabase(file);
+        before.init();
+        try (var statement = before.getConnection().createStatement()) {
+            statement.execute("drop index task_title_unique");
+            statement.execute("insert into task (title) values ('Code review'), ('code review ')");
+        }
+        before.getConnection().close();
+
+        FileDatabase SUT = new FileDatabase(file);
+        SUT.init();
+        DataEventBus dataEventBus = new DataEventBus();
+        TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(SUT, dataEventBus);
+        SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(SUT, dataEventBus);
+        // The survivor follows the sync UUIDs, so track whichever one the merge removed
+        Task survivor = taskRepository.findAll().get(0);
+        long mergedAway = survivor.getId() == 1 ? 2 : 1;
+        StoredTrackerData storage = new StoredTrackerData();
+        storage.save(new TrackerData(mergedAway, Instant.ofEpochMilli(0)));
+        Tracker tracker = new Tracker(taskRepository, storage, Clock.fixed(Instant.ofEpochMilli(60000), ZoneOffset.UTC), sessionRepository);
+
+        tracker.refresh();
+        tracker.stop();
+
+        List<Session> sessions = sessionRepository.findAll();
+        SUT.getConnection().close();
+        tracker.currentTask().test().assertValue(survivor);
+        assertThat(sessions, hasSize(1));
+        assertThat(sessions.get(0).getTask(), equalTo(survivor));
+    }
+
+    static class StoredTrackerData implements TrackerDataStorage {
+        private TrackerData data;
+
+        @Override
+        public void save(TrackerData data) {
+            this.data = data;
+        }
+
+        @Override
+        public Optional<TrackerData> read() {
+            return Optional.ofNullable(data);
+        }
+
+        @Override
+        public void clear() {
+            data = null;
+        }
+    }
+}
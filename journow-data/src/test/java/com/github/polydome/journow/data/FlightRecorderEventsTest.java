@@ -0,0 +1,117 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.jfr.DataEventDelivery;
+import com.github.polydome.journow.data.jfr.DataEventEmission;
+import com.github.polydome.journow.data.jfr.SqlStatementEvent;
+import com.github.polydome.journow.data.metrics.Instrumentation;
+import com.github.polydome.journow.data.metrics.InstrumentedDatabase;
+import com.github.polydome.journow.data.metrics.RepositoryMetrics;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.github.polydome.journow.data.test.TaskFactory.createTask;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class FlightRecorderEventsTest {
+    Recording recording = new Recording();
+    List<RecordedEvent> recorded;
+    RepositoryMetrics metrics = new RepositoryMetrics();
+    DataEventBus dataEventBus = new DataEventBus();
+    Database database = new InstrumentedDatabase(new MemoryDatabase(), metrics);
+    TaskRepository SUT = Instrumentation.instrument(TaskRepository.class, new TaskRepositoryImpl(database, dataEventBus), metrics);
+
+    @BeforeEach
+    void setUp() {
+        recording.enable(SqlStatementEvent.class);
+        recording.enable(DataEventEmission.class);
+        recording.enable(DataEventDelivery.class);
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.close();
+    }
+
+    @Test
+    void query_emitsSqlStatementWithFetchedRows() throws IOException {
+        database.init();
+        SUT.insert(createTask(0, "first"));
+        SUT.insert(createTask(0, "second"));
+
+        SUT.findAll();
+
+        var queries = events("com.github.polydome.journow.SqlStatement").stream()
+                .filter(event -> "TaskRepository.findAll".equals(event.getString("operation")))
+                .collect(Collectors.toList());
+        assertThat(queries, hasSize(1));
+        assertThat(queries.get(0).getLong("rows"), equalTo(2L));
+        assertThat(queries.get(0).getString("sql").toLowerCase(), startsWith("select"));
+        assertThat(queries.get(0).getString("sqlId"), equalTo(SqlStatementEvent.sqlId(queries.get(0).getString("sql"))));
+    }
+
+    @Test
+    void update_emitsSqlStatementWithChangedRows() throws IOException {
+        database.init();
+
+        SUT.insert(createTask(0));
+
+        var inserts = events("com.github.polydome.journow.SqlStatement").stream()
+                .filter(event -> "TaskRepository.insert".equals(event.getString("operation")))
+                .filter(event -> event.getString("sql").toLowerCase().startsWith("insert"))
+                .collect(Collectors.toList());
+        assertThat(inserts, hasSize(1));
+        assertThat(inserts.get(0).getLong("rows"), equalTo(1L));
+    }
+
+    @Test
+    void push_emitsEmissionAndDeliveryPerSubscriber() throws IOException {
+        dataEventBus.taskEvents().subscribe(event -> {});
+        dataEventBus.taskEvents().subscribe(event -> {});
+
+        dataEventBus.pushTaskEvent(DataEvent.insertRange(3, 7));
+
+        var emissions = events("com.github.polydome.journow.DataEventEmission");
+        assertThat(emissions, hasSize(1));
+        assertThat(emissions.get(0).getString("channel"), equalTo("task"));
+        assertThat(emissions.get(0).getString("type"), equalTo("INSERT"));
+        assertThat(emissions.get(0).getLong("idStop"), equalTo(7L));
+        assertThat(emissions.get(0).getInt("deliveries"), equalTo(2));
+        assertThat(events("com.github.polydome.journow.DataEventDelivery"), hasSize(2));
+    }
+
+    private List<RecordedEvent> events(String name) throws IOException {
+        if (recorded == null) {
+            recording.stop();
+            Path file = Files.createTempFile("journow", ".jfr");
+            try {
+                recording.dump(file);
+                recorded = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        return recorded.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
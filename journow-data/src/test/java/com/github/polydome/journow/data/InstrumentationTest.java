@@ -0,0 +1,74 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.metrics.Instrumentation;
+import com.github.polydome.journow.data.metrics.InstrumentedDatabase;
+import com.github.polydome.journow.data.metrics.OperationMetrics;
+import com.github.polydome.journow.data.metrics.RepositoryMetrics;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.sql.SQLException;
+
+import static com.github.polydome.journow.data.test.TaskFactory.createTask;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class InstrumentationTest {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    RepositoryMetrics metrics = new RepositoryMetrics(mBeanServer);
+    Database database = new InstrumentedDatabase(new MemoryDatabase(), metrics);
+    TaskRepository SUT = Instrumentation.instrument(TaskRepository.class, new TaskRepositoryImpl(database, mock(DataEventBus.class)), metrics);
+
+    @Test
+    void call_recordsCallAndStatementCounts() {
+        database.init();
+
+        SUT.insert(createTask(0));
+        SUT.findAll();
+        SUT.findAll();
+
+        OperationMetrics findAll = metrics.operation("TaskRepository.findAll");
+        assertThat(findAll.getCallCount(), equalTo(2L));
+        assertThat(findAll.getStatementCount(), equalTo(2L));
+        assertThat(findAll.getErrorCount(), equalTo(0L));
+        assertThat(metrics.operation("TaskRepository.insert").getCallCount(), equalTo(1L));
+    }
+
+    @Test
+    void call_swallowedSqlException_recordsErrorForOperation() throws SQLException {
+        database.init();
+        database.getConnection().createStatement().execute("drop table task");
+
+        SUT.findAll();
+
+        assertThat(metrics.operation("TaskRepository.findAll").getErrorCount(), equalTo(1L));
+        assertThat(metrics.operation(RepositoryMetrics.UNATTRIBUTED).getErrorCount(), equalTo(0L));
+    }
+
+    @Test
+    void call_throwingOperation_recordsErrorAndRethrows() {
+        assertThrows(IllegalStateException.class, () -> SUT.findAll());
+
+        assertThat(metrics.operation("TaskRepository.findAll").getCallCount(), equalTo(1L));
+        assertThat(metrics.operation("TaskRepository.findAll").getErrorCount(), equalTo(1L));
+    }
+
+    @Test
+    void operation_registersMXBean() throws Exception {
+        database.init();
+        SUT.count();
+
+        Object calls = mBeanServer.getAttribute(RepositoryMetrics.objectName("TaskRepository.count"), "CallCount");
+
+        assertThat(calls, equalTo(1L));
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class LatencyHistogramTest {
+    LatencyHistogram SUT = new LatencyHistogram();
+
+    @Test
+    void percentile_empty_returns0() {
+        assertThat(SUT.percentile(50), equalTo(0L));
+        assertThat(SUT.max(), equalTo(0L));
+    }
+
+    @Test
+    void percentile_uniformValues_returnsValueWithinBucketPrecision() {
+        for (long value = 1; value <= 100_000; value++)
+            SUT.record(value * 1000);
+
+        assertThat((double) SUT.percentile(50), closeTo(50_000_000, 50_000_000 * 0.125));
+        assertThat((double) SUT.percentile(99), closeTo(99_000_000, 99_000_000 * 0.125));
+        assertThat(SUT.max(), equalTo(100_000_000L));
+        assertThat(SUT.count(), equalTo(100_000L));
+    }
+
+    @Test
+    void percentile_neverExceedsMax() {
+        SUT.record(1_000_001);
+
+        assertThat(SUT.percentile(99), equalTo(1_000_001L));
+    }
+
+    @Test
+    void reset_clearsRecordedValues() {
+        SUT.record(500);
+        SUT.reset();
+
+        assertThat(SUT.count(), equalTo(0L));
+        assertThat(SUT.max(), equalTo(0L));
+    }
+}
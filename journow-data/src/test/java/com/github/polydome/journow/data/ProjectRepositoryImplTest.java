@@ -3,12 +3,19 @@ package com.github.polydome.journow.data;
 import com.github.polydome.journow.data.database.MemoryDatabase;
 import com.github.polydome.journow.data.event.DataEventBus;
 import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.repository.ProjectRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -70,18 +77,30 @@ class ProjectRepositoryImplTest {
 
     @Test
     void findAll_projectsInDB_returnsAllProjects() {
-        Project project1 = createProject(0);
-        Project project2 = createProject(0);
-
         database.init();
-        SUT.insert(project1);
-        SUT.insert(project2);
+        SUT.insert(new Project(0, "first"));
+        SUT.insert(new Project(0, "second"));
 
         var projects = SUT.findAll();
 
         assertThat(projects, hasItems(
-                createProject(1),
-                createProject(2)
+                new Project(1, "first"),
+                new Project(2, "second")
+        ));
+    }
+
+    @Test
+    void findByIdRange_projectsInDB_returnsProjectsInRange() {
+        database.init();
+        SUT.insert(new Project(3, "third"));
+        SUT.insert(new Project(5, "fifth"));
+        SUT.insert(new Project(9, "ninth"));
+
+        var projects = SUT.findByIdRange(4, 9);
+
+        assertThat(projects, contains(
+                new Project(5, "fifth"),
+                new Project(9, "ninth")
         ));
     }
 
@@ -107,6 +126,96 @@ class ProjectRepositoryImplTest {
         assertThat(createdProject, equalTo(new Project(1, project.getName())));
     }
 
+    @Test
+    void findAllWithSummaries_projectsWithAndWithoutSessions_summarizesEveryProject() {
+        database.init();
+        DataEventBus realEventBus = new DataEventBus();
+        ProjectRepository repository = new ProjectRepositoryImpl(database, realEventBus);
+        Project tracked = repository.insert(new Project(0, "tracked"));
+        Project idle = repository.insert(new Project(0, "idle"));
+        TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(database, realEventBus);
+        Task first = taskRepository.insert(new Task(0, "first", tracked));
+        Task second = taskRepository.insert(new Task(0, "second", tracked));
+        taskRepository.insert(new Task(0, "untracked", tracked));
+        taskRepository.insert(new Task(0, "idle task", idle));
+        new SessionRepositoryImpl(database, realEventBus).insertAll(List.of(
+                new Session(0, Instant.ofEpochMilli(1_000), Instant.ofEpochMilli(4_000), first),
+                new Session(0, Instant.ofEpochMilli(10_000), Instant.ofEpochMilli(11_000), first),
+                new Session(0, Instant.ofEpochMilli(5_000), Instant.ofEpochMilli(7_000), second)
+        ));
+
+        var summaries = repository.findAllWithSummaries();
+
+        assertThat(summaries, contains(
+                new ProjectSummary(tracked, 6_000, 3, 3, Instant.ofEpochMilli(1_000), Instant.ofEpochMilli(11_000)),
+                new ProjectSummary(idle, 0, 0, 1, null, null)
+        ));
+        assertThat(summaries.get(0).getAverageSessionMillis(), equalTo(2_000L));
+    }
+
+    @Test
+    void findAllWithSummaries_unchangedData_returnsCachedSummaries() {
+        database.init();
+        ProjectRepository repository = new ProjectRepositoryImpl(database, new DataEventBus());
+        repository.insert(new Project(0, "tracked"));
+
+        var first = repository.findAllWithSummaries();
+
+        assertThat(repository.findAllWithSummaries(), sameInstance(first));
+    }
+
+    @Test
+    void findAllWithSummaries_sessionInserted_recomputesSummaries() {
+        database.init();
+        DataEventBus realEventBus = new DataEventBus();
+        ProjectRepository repository = new ProjectRepositoryImpl(database, realEventBus);
+        Project project = repository.insert(new Project(0, "tracked"));
+        Task task = new TaskRepositoryImpl(database, realEventBus).insert(new Task(0, "task", project));
+        repository.findAllWithSummaries();
+
+        new SessionRepositoryImpl(database, realEventBus).insert(new Session(0, Instant.ofEpochMilli(0), Instant.ofEpochMilli(500), task));
+
+        assertThat(repository.findAllWithSummaries().get(0).getTotalMillis(), equalTo(500L));
+    }
+
+    @Test
+    void insert_nameTakenIgnoringCase_returnsExistingProject() {
+        database.init();
+        Project existing = SUT.insert(new Project(0, "Journow"));
+
+        Project inserted = SUT.insert(new Project(0, "journow "));
+
+        assertThat(inserted, equalTo(existing));
+        assertThat(SUT.findAll(), hasSize(1));
+    }
+
+    @Test
+    void update_nameOfAnotherProject_mergesTasksIntoIt() {
+        database.init();
+        TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+        Project kept = SUT.insert(new Project(0, "Journow"));
+        Project renamed = SUT.insert(new Project(0, "Journow app"));
+        Task review = taskRepository.insert(new Task(0, "Review", kept));
+        taskRepository.insert(new Task(0, "review", renamed));
+        Task release = taskRepository.insert(new Task(0, "Release", renamed));
+
+        SUT.update(new Project(renamed.getId(), "JOURNOW"));
+
+        assertThat(SUT.findAll(), contains(kept));
+        assertThat(taskRepository.findAll(), contains(review, new Task(release.getId(), "Release", kept)));
+    }
+
+    @Test
+    void update_existingProject_renamesIt() {
+        database.init();
+        Project project = SUT.insert(new Project(0, "Journow"));
+
+        SUT.update(new Project(project.getId(), "Journow 2"));
+        SUT.update(new Project(project.getId(), "Journow 3"));
+
+        assertThat(SUT.findAll(), contains(new Project(project.getId(), "Journow 3")));
+    }
+
     Project createProject() {
         return createProject(72);
     }
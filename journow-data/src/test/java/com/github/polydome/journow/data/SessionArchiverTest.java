@@ -0,0 +1,137 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.database.SessionArchive;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.GroupBy;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.SessionAggregate;
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class SessionArchiverTest {
+    static final long MINUTE = 60000;
+
+    Path file = createTempFile(".db");
+    Path archiveFile = createTempFile(".archive.db");
+    FileDatabase database = new FileDatabase(file, archiveFile);
+    DataEventBus dataEventBus = new DataEventBus();
+    TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+    SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+    SessionArchiver SUT = new SessionArchiver(database);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.getConnection().close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(archiveFile);
+    }
+
+    @Test
+    void archive_sessionsBeforeHorizon_movesThemInBoundedBatches() throws SQLException {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 10);
+
+        int first = SUT.archive(Instant.ofEpochMilli(7 * MINUTE), 4);
+        int second = SUT.archive(Instant.ofEpochMilli(7 * MINUTE), 4);
+        int third = SUT.archive(Instant.ofEpochMilli(7 * MINUTE), 4);
+
+        assertThat(List.of(first, second, third), contains(4, 3, 0));
+        assertThat(count("select count(*) from main.session"), equalTo(3));
+        assertThat(count("select count(*) from archive.session"), equalTo(7));
+        assertThat(count("select count(*) from sync_row where entity = 'session' and deleted = 1"), equalTo(0));
+    }
+
+    @Test
+    void reads_archivedSessions_seeAllOfHistory() {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 10);
+        List<Session> before = sessionRepository.findAll();
+
+        SUT.archive(Instant.ofEpochMilli(7 * MINUTE), 100);
+
+        assertThat(sessionRepository.findAll(), equalTo(before));
+        assertThat(sessionRepository.findPage(1, 5), equalTo(before.subList(0, 5)));
+        assertThat(sessionRepository.findByIdRange(6, 9), equalTo(before.subList(5, 9)));
+        assertThat(sessionRepository.countFrom(5), equalTo(6));
+        assertThat(taskRepository.findTotalTrackedMillis(task.getId()), equalTo(10 * MINUTE / 2));
+
+        SessionAggregate aggregate = sessionRepository.aggregate(GroupBy.TASK, Instant.EPOCH, Instant.ofEpochMilli(10 * MINUTE), ZoneOffset.UTC);
+        assertThat(aggregate.getSessionCount(0), equalTo(10));
+    }
+
+    @Test
+    void update_renamedOntoTaskWithArchivedSessions_thawsAndMovesThem() throws SQLException {
+        database.init();
+        Task kept = taskRepository.insert(new Task(0, "Release", null));
+        Task merged = taskRepository.insert(new Task(0, "Deploy", null));
+        insertSessions(merged, 4);
+        SUT.archive(Instant.ofEpochMilli(4 * MINUTE), 100);
+
+        taskRepository.update(new Task(merged.getId(), "Release", null));
+
+        assertThat(count("select count(*) from archive.session"), equalTo(0));
+        assertThat(count("select count(*) from main.session where task_id = " + kept.getId()), equalTo(4));
+    }
+
+    @Test
+    void thawTask_deleteFails_leavesSessionsArchived() throws SQLException {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 4);
+        SUT.archive(Instant.ofEpochMilli(4 * MINUTE), 100);
+        try (var statement = database.getConnection().createStatement()) {
+            statement.execute("create trigger archive.keep_sessions before delete on session begin select raise(abort, 'kept'); end");
+        }
+
+        assertThrows(SQLException.class, () -> SessionArchive.thawTask(database.getConnection(), task.getId(), -1));
+
+        assertThat(count("select count(*) from archive.session"), equalTo(4));
+        assertThat(count("select count(*) from main.session"), equalTo(0));
+        assertThat(count("select value from sync_state where key = 'applying'"), equalTo(0));
+        assertThat(database.getConnection().getAutoCommit(), equalTo(true));
+    }
+
+    private void insertSessions(Task task, int count) {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            sessions.add(new Session(0, Instant.ofEpochMilli(i * MINUTE), Instant.ofEpochMilli(i * MINUTE + MINUTE / 2), task));
+        sessionRepository.insertAll(sessions);
+    }
+
+    private int count(String sql) throws SQLException {
+        try (var statement = database.getConnection().prepareStatement(sql);
+             var rs = statement.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static Path createTempFile(String suffix) {
+        try {
+            return Files.createTempFile("journow-archive", suffix);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,8 +4,10 @@ import com.github.polydome.journow.data.database.MemoryDatabase;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
 import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.domain.model.GroupBy;
 import com.github.polydome.journow.domain.model.Project;
 import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.SessionAggregate;
 import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.repository.SessionRepository;
 import org.junit.jupiter.api.Test;
@@ -17,6 +19,10 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -152,6 +158,34 @@ class SessionRepositoryImplTest {
         assertThat(actual.getIdStop(), equalTo(48L));
     }
 
+    @Test
+    void insertAll_sessionsWithoutIds_insertsSessionsAndDispatchesRangeEvent() throws SQLException {
+        database.init();
+        var task = createTask();
+        var start = Instant.ofEpochMilli(8300000);
+
+        insertTask(task);
+
+        SUT.insertAll(List.of(
+                new Session(0, start, start.plusMillis(7000), task),
+                new Session(0, start.plusMillis(8000), start.plusMillis(9000), task),
+                new Session(0, start.plusMillis(9000), start.plusMillis(12000), task)
+        ));
+
+        assertThat(SUT.findAll(), hasItems(
+                new Session(1, start, start.plusMillis(7000), task),
+                new Session(3, start.plusMillis(9000), start.plusMillis(12000), task)
+        ));
+
+        ArgumentCaptor<DataEvent> eventCpt = ArgumentCaptor.forClass(DataEvent.class);
+        verify(dataEventBus, Mockito.times(1)).pushSessionEvent(eventCpt.capture());
+
+        DataEvent actual = eventCpt.getValue();
+        assertThat(actual.getType(), equalTo(DataEvent.Type.INSERT));
+        assertThat(actual.getIdStart(), equalTo(1L));
+        assertThat(actual.getIdStop(), equalTo(3L));
+    }
+
     private void insertTask(Task task) throws SQLException {
         var stmt = database.getConnection().prepareStatement("insert into task (task_id, title) values (?, ?)");
         stmt.setLong(1, task.getId());
@@ -163,6 +197,129 @@ class SessionRepositoryImplTest {
         return new Task(2, "Test task", new Project(18, "test project"));
     }
 
+    @Test
+    void findByIdRange_sessionsInDatabase_returnsSessionsInRange() {
+        database.init();
+        SUT.insertAll(List.of(createSession(0), createSession(0), createSession(0)));
+
+        List<Session> sessions = SUT.findByIdRange(2, 2);
+
+        assertThat(sessions.size(), equalTo(1));
+        assertThat(sessions.get(0).getId(), equalTo(2L));
+    }
+
+    @Test
+    void countFrom_sessionsInDatabase_returnsNumberOfSessionsFromId() {
+        database.init();
+        SUT.insertAll(List.of(createSession(3), createSession(5), createSession(8)));
+
+        assertThat(SUT.countFrom(0), equalTo(3));
+        assertThat(SUT.countFrom(4), equalTo(2));
+    }
+
+    @Test
+    void findPageStartIds_sessionsWithGapsInIds_returnsFirstIdOfEveryPage() {
+        database.init();
+        SUT.insertAll(List.of(createSession(3), createSession(5), createSession(8), createSession(13), createSession(21)));
+
+        assertThat(SUT.findPageStartIds(0, 2), equalTo(new long[]{3, 8, 21}));
+        assertThat(SUT.findPageStartIds(5, 2), equalTo(new long[]{5, 13}));
+    }
+
+    @Test
+    void findPage_firstIdOfPage_returnsPageSizeSessionsFromThatId() {
+        database.init();
+        SUT.insertAll(List.of(createSession(3), createSession(5), createSession(8), createSession(13), createSession(21)));
+
+        List<Session> page = SUT.findPage(8, 2);
+
+        assertThat(page.size(), equalTo(2));
+        assertThat(page.get(0).getId(), equalTo(8L));
+        assertThat(page.get(1).getId(), equalTo(13L));
+    }
+
+    @Test
+    void aggregate_byTask_sumsSessionsStartedInRange() throws SQLException {
+        database.init();
+        Task first = new Task(1, "first", null);
+        Task second = new Task(2, "second", null);
+        insertTask(first);
+        insertTask(second);
+        Instant from = Instant.parse("2021-01-04T00:00:00Z");
+        SUT.insertAll(List.of(
+                new Session(0, from.minusSeconds(60), from.plusSeconds(600), first),
+                new Session(0, from, from.plusSeconds(600), first),
+                new Session(0, from.plusSeconds(3600), from.plusSeconds(4500), first),
+                new Session(0, from.plusSeconds(7200), from.plusSeconds(7230), second),
+                new Session(0, from.plusSeconds(86400), from.plusSeconds(90000), second)
+        ));
+
+        SessionAggregate aggregate = SUT.aggregate(GroupBy.TASK, from, from.plusSeconds(86400), ZoneOffset.UTC);
+
+        assertThat(aggregate, equalTo(new SessionAggregate(GroupBy.TASK,
+                new long[]{1, 2}, new long[]{1_500_000, 30_000}, new int[]{2, 1})));
+    }
+
+    @Test
+    void aggregate_byProject_collectsTasksWithoutProjectUnderZero() throws SQLException {
+        database.init();
+        try (var stmt = database.getConnection().prepareStatement("insert into project (project_id, project_name) values (18, 'test project')")) {
+            stmt.execute();
+        }
+        Task inProject = createTask();
+        Task unfiled = new Task(3, "unfiled", null);
+        insertTask(inProject);
+        insertTask(unfiled);
+        try (var stmt = database.getConnection().prepareStatement("update task set project_id = 18 where task_id = 2")) {
+            stmt.execute();
+        }
+        Instant start = Instant.parse("2021-01-04T09:00:00Z");
+        SUT.insertAll(List.of(
+                new Session(0, start, start.plusSeconds(60), inProject),
+                new Session(0, start, start.plusSeconds(120), inProject),
+                new Session(0, start, start.plusSeconds(10), unfiled)
+        ));
+
+        SessionAggregate aggregate = SUT.aggregate(GroupBy.PROJECT, Instant.EPOCH, start.plusSeconds(1), ZoneOffset.UTC);
+
+        assertThat(aggregate, equalTo(new SessionAggregate(GroupBy.PROJECT,
+                new long[]{0, 18}, new long[]{10_000, 180_000}, new int[]{1, 2})));
+    }
+
+    @Test
+    void aggregate_byDayAcrossDaylightSavingChange_groupsByLocalDate() throws SQLException {
+        database.init();
+        Task task = createTask();
+        insertTask(task);
+        ZoneId warsaw = ZoneId.of("Europe/Warsaw");
+        // 00:30 local time on either side of the switch to summer time on 2021-03-28, and one in the winter after
+        Instant winter = LocalDateTime.parse("2021-03-27T00:30").atZone(warsaw).toInstant();
+        Instant summer = LocalDateTime.parse("2021-03-29T00:30").atZone(warsaw).toInstant();
+        Instant nextWinter = LocalDateTime.parse("2021-11-02T00:30").atZone(warsaw).toInstant();
+        SUT.insertAll(List.of(
+                new Session(0, winter, winter.plusSeconds(60), task),
+                new Session(0, summer, summer.plusSeconds(120), task),
+                new Session(0, summer.plusSeconds(3600), summer.plusSeconds(3660), task),
+                new Session(0, nextWinter, nextWinter.plusSeconds(30), task)
+        ));
+
+        SessionAggregate aggregate = SUT.aggregate(GroupBy.DAY, Instant.EPOCH, Instant.parse("2030-01-01T00:00:00Z"), warsaw);
+
+        assertThat(aggregate, equalTo(new SessionAggregate(GroupBy.DAY,
+                new long[]{LocalDate.parse("2021-03-27").toEpochDay(), LocalDate.parse("2021-03-29").toEpochDay(), LocalDate.parse("2021-11-02").toEpochDay()},
+                new long[]{60_000, 180_000, 30_000},
+                new int[]{1, 2, 1})));
+    }
+
+    @Test
+    void aggregate_noSessionsInRange_returnsEmptyAggregate() {
+        database.init();
+
+        SessionAggregate aggregate = SUT.aggregate(GroupBy.DAY, Instant.EPOCH, Instant.now(), ZoneOffset.UTC);
+
+        assertThat(aggregate.size(), equalTo(0));
+    }
+
     Session createSession() {
         return createSession(12);
     }
@@ -0,0 +1,188 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.database.TaskCompactor;
+import com.github.polydome.journow.data.database.Tombstones;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.data.sync.ChangeRecord;
+import com.github.polydome.journow.data.sync.HttpSyncTransport;
+import com.github.polydome.journow.data.sync.LocalSyncServer;
+import com.github.polydome.journow.data.sync.SyncEngine;
+import com.github.polydome.journow.data.sync.SyncEntity;
+import com.github.polydome.journow.data.sync.SyncStore;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Seeded property tests: every seed generates a different history, and a failure names the seed that reproduces it.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class SyncConvergenceTest {
+    private static final int MERGE_SEEDS = 500;
+    private static final int REPLICA_SEEDS = 20;
+
+    @Test
+    void merge_anyOrderGroupingOrDuplication_convergesToSameState() {
+        for (int seed = 0; seed < MERGE_SEEDS; seed++) {
+            Random random = new Random(seed);
+            UUID uuid = new UUID(seed, 1);
+            List<ChangeRecord> history = new ArrayList<>();
+            for (int i = 1 + random.nextInt(12); i > 0; i--)
+                history.add(randomState(random, uuid));
+
+            ChangeRecord expected = foldMerge(history);
+
+            List<ChangeRecord> shuffled = new ArrayList<>(history);
+            Collections.shuffle(shuffled, random);
+            shuffled.add(shuffled.get(random.nextInt(shuffled.size())));
+            int split = random.nextInt(shuffled.size());
+            ChangeRecord grouped = ChangeRecord.merge(
+                    foldMerge(shuffled.subList(split, shuffled.size())),
+                    split == 0 ? shuffled.get(0) : foldMerge(shuffled.subList(0, split))
+            );
+
+            assertThat("seed " + seed, foldMerge(shuffled), equalTo(expected));
+            assertThat("seed " + seed, grouped, equalTo(expected));
+            assertThat("seed " + seed, ChangeRecord.merge(expected, expected), equalTo(expected));
+        }
+    }
+
+    @Test
+    void merge_editConcurrentWithDelete_editWins() {
+        UUID uuid = UUID.randomUUID();
+        ChangeRecord original = ChangeRecord.task(uuid, "Draft", null, 10);
+        ChangeRecord deleted = ChangeRecord.tombstone(SyncEntity.TASK, uuid, original.getClock());
+        ChangeRecord edited = ChangeRecord.task(uuid, "Final", null, 11);
+
+        assertThat(ChangeRecord.merge(deleted, edited), equalTo(edited.withRemovedClock(10)));
+        assertThat(ChangeRecord.merge(deleted, original).isDeleted(), equalTo(true));
+    }
+
+    @Test
+    void sync_randomOfflineEditsOnThreeReplicas_converge() throws Exception {
+        for (int seed = 0; seed < REPLICA_SEEDS; seed++) {
+            Random random = new Random(seed);
+
+            try (LocalSyncServer server = new LocalSyncServer(0)) {
+                server.start();
+                List<Replica> replicas = List.of(new Replica(server), new Replica(server), new Replica(server));
+
+                for (int step = 0; step < 60; step++) {
+                    Replica replica = replicas.get(random.nextInt(replicas.size()));
+                    if (random.nextInt(5) == 0)
+                        replica.engine.sync();
+                    else if (random.nextInt(6) == 0)
+                        replica.compactor.compact(1 + random.nextInt(3));
+                    else
+                        replica.randomEdit(random);
+                }
+
+                for (int round = 0; round < 2; round++)
+                    for (Replica replica : replicas)
+                        replica.engine.sync();
+
+                List<String> expected = replicas.get(0).snapshot();
+                for (Replica replica : replicas)
+                    assertThat("seed " + seed, replica.snapshot(), equalTo(expected));
+            }
+        }
+    }
+
+    // Clocks come from a narrow range so ties between different values get exercised too
+    private static ChangeRecord randomState(Random random, UUID uuid) {
+        long clock = 1 + random.nextInt(8);
+        switch (random.nextInt(3)) {
+            case 0:
+                return ChangeRecord.tombstone(SyncEntity.TASK, uuid, clock);
+            case 1:
+                return ChangeRecord.task(uuid, "title " + random.nextInt(3), null, clock)
+                        .withRemovedClock(random.nextInt((int) clock));
+            default:
+                return ChangeRecord.task(uuid, "title " + random.nextInt(3), new UUID(0, random.nextInt(2)), clock);
+        }
+    }
+
+    private static ChangeRecord foldMerge(List<ChangeRecord> records) {
+        ChangeRecord state = records.get(0);
+        for (ChangeRecord record : records.subList(1, records.size()))
+            state = ChangeRecord.merge(state, record);
+        return state;
+    }
+
+    private static class Replica {
+        final MemoryDatabase database = new MemoryDatabase();
+        final DataEventBus dataEventBus = new DataEventBus();
+        final ProjectRepositoryImpl projects = new ProjectRepositoryImpl(database, dataEventBus);
+        final TaskRepositoryImpl tasks = new TaskRepositoryImpl(database, dataEventBus);
+        final SessionRepositoryImpl sessions = new SessionRepositoryImpl(database, dataEventBus);
+        final TaskCompactor compactor = new TaskCompactor(database);
+        final SyncEngine engine;
+
+        Replica(LocalSyncServer server) {
+            database.init();
+            engine = new SyncEngine(new SyncStore(database, dataEventBus), new HttpSyncTransport(server.getUri()));
+        }
+
+        void randomEdit(Random random) {
+            List<Task> known = tasks.findAll();
+            List<Project> knownProjects = projects.findAll();
+            Task task = known.isEmpty() ? null : known.get(random.nextInt(known.size()));
+            Project project = knownProjects.isEmpty() || random.nextBoolean() ? null : knownProjects.get(random.nextInt(knownProjects.size()));
+
+            switch (task == null ? 0 : random.nextInt(5)) {
+                case 0:
+                    if (random.nextInt(3) == 0)
+                        projects.insert(new Project(0, "Project " + random.nextInt(100)));
+                    else
+                        tasks.insert(new Task(0, "Task " + random.nextInt(100), project));
+                    break;
+                case 1:
+                    tasks.update(new Task(task.getId(), "Renamed " + random.nextInt(100), project));
+                    break;
+                case 2:
+                    tasks.delete(task);
+                    break;
+                default:
+                    Instant start = Instant.ofEpochMilli(1_600_000_000_000L + random.nextInt(1_000_000) * 1000L);
+                    sessions.insert(new Session(0, start, start.plusSeconds(60 + random.nextInt(3600)), task));
+            }
+        }
+
+        // Everything a user can see, independent of local ids
+        List<String> snapshot() throws SQLException {
+            List<String> rows = new ArrayList<>();
+            try (var statement = database.getConnection().prepareStatement(
+                    "select 'project ' || project_name from project\n" +
+                    "union all\n" +
+                    "select 'task ' || t.title || ' in ' || ifnull(p.project_name, '-') from task t left join project p on p.project_id = t.project_id\n" +
+                    "where t.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                    "union all\n" +
+                    "select 'session ' || t.title || ' ' || s.start_date || '-' || s.end_date from session s join task t on t.task_id = s.task_id\n" +
+                    "where t.task_id not in " + Tombstones.HIDDEN_TASKS + "\n" +
+                    "order by 1");
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next())
+                    rows.add(rs.getString(1));
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.data.sync.ChangeBatch;
+import com.github.polydome.journow.data.sync.ChangeRecord;
+import com.github.polydome.journow.data.sync.HttpSyncTransport;
+import com.github.polydome.journow.data.sync.HybridLogicalClock;
+import com.github.polydome.journow.data.sync.LocalSyncServer;
+import com.github.polydome.journow.data.sync.SyncEntity;
+import com.github.polydome.journow.data.sync.SyncEngine;
+import com.github.polydome.journow.data.sync.SyncStore;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class SyncEngineTest {
+    LocalSyncServer server = startServer();
+    Replica laptop = new Replica(server);
+    Replica desktop = new Replica(server);
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void sync_rowsCreatedOnOneReplica_appearOnTheOther() throws Exception {
+        Project project = laptop.projects.insert(new Project(0, "Journow"));
+        Task task = laptop.tasks.insert(new Task(0, "Sync", project));
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+        laptop.sessions.insert(new Session(0, start, start.plusSeconds(1500), task));
+
+        laptop.SUT.sync();
+        SyncEngine.Result result = desktop.SUT.sync();
+
+        assertThat(result.getPulled(), equalTo(3));
+        assertThat(desktop.projects.findAll(), contains(new Project(1, "Journow")));
+        assertThat(desktop.tasks.findAll().get(0).getProject(), equalTo(new Project(1, "Journow")));
+
+        List<Session> sessions = desktop.sessions.findAll();
+        assertThat(sessions.size(), equalTo(1));
+        assertThat(sessions.get(0).getTask().getTitle(), equalTo("Sync"));
+        assertThat(sessions.get(0).getStartedAt(), equalTo(start));
+        assertThat(sessions.get(0).getEndedAt(), equalTo(start.plusSeconds(1500)));
+    }
+
+    @Test
+    void sync_rowsUpdatedAndDeleted_propagateByUuid() throws Exception {
+        // Occupy ids on the desktop so the synced rows get different local ids there
+        desktop.tasks.insert(new Task(0, "Local only", null));
+        laptop.tasks.insert(new Task(0, "Draft", null));
+        laptop.tasks.insert(new Task(0, "Doomed", null));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        Task draft = desktop.tasks.findAll().get(1);
+        desktop.tasks.update(new Task(draft.getId(), "Final", null));
+        desktop.SUT.sync();
+        laptop.tasks.delete(laptop.tasks.findById(2).orElseThrow());
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        assertThat(titles(laptop.tasks.findAll()), contains("Final", "Local only"));
+        assertThat(titles(desktop.tasks.findAll()), contains("Local only", "Final"));
+    }
+
+    @Test
+    void sync_sameTitleCreatedOnBothReplicas_keepsBothUntilEditedLocally() throws Exception {
+        laptop.tasks.insert(new Task(0, "Review", null));
+        desktop.tasks.insert(new Task(0, "review ", null));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+        laptop.SUT.sync();
+
+        assertThat(titles(laptop.tasks.findAll()), contains("Review", "review "));
+        assertThat(titles(desktop.tasks.findAll()), contains("review ", "Review"));
+
+        Task synced = desktop.tasks.findAll().get(1);
+        desktop.tasks.update(new Task(synced.getId(), "Review", null));
+        desktop.SUT.sync();
+        laptop.SUT.sync();
+
+        assertThat(titles(laptop.tasks.findAll()), contains("review "));
+        assertThat(titles(desktop.tasks.findAll()), contains("review "));
+        assertThat(desktop.tasks.insert(new Task(0, "REVIEW", null)).getId(), equalTo(1L));
+    }
+
+    @Test
+    void sync_taskEditedWhileDeletedElsewhere_editWins() throws Exception {
+        laptop.tasks.insert(new Task(0, "Draft", null));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        laptop.tasks.delete(laptop.tasks.findById(1).orElseThrow());
+        desktop.tasks.update(new Task(1, "Final", null));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+        laptop.SUT.sync();
+
+        assertThat(titles(laptop.tasks.findAll()), contains("Final"));
+        assertThat(titles(desktop.tasks.findAll()), contains("Final"));
+    }
+
+    @Test
+    void sync_taskDeletedAfterSeeingEdit_staysDeleted() throws Exception {
+        laptop.tasks.insert(new Task(0, "Draft", null));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+        desktop.tasks.update(new Task(1, "Final", null));
+        desktop.SUT.sync();
+        laptop.SUT.sync();
+
+        laptop.tasks.delete(laptop.tasks.findById(1).orElseThrow());
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        assertThat(laptop.tasks.findAll(), empty());
+        assertThat(desktop.tasks.findAll(), empty());
+    }
+
+    @Test
+    void sync_appliedRemoteChanges_areNotPushedBack() throws Exception {
+        laptop.projects.insert(new Project(0, "Journow"));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        SyncEngine.Result result = desktop.SUT.sync();
+
+        assertThat(result.getPushed(), equalTo(0));
+        assertThat(result.getPulled(), equalTo(0));
+    }
+
+    @Test
+    void apply_sameBatchTwice_isIdempotent() throws Exception {
+        UUID projectUuid = UUID.randomUUID();
+        UUID taskUuid = UUID.randomUUID();
+        List<ChangeRecord> records = List.of(
+                ChangeRecord.session(UUID.randomUUID(), taskUuid, 1000, 2000, 7),
+                ChangeRecord.task(taskUuid, "Review", projectUuid, 6),
+                ChangeRecord.project(projectUuid, "Journow", 5)
+        );
+
+        desktop.store.apply(records, 3);
+        desktop.store.apply(records, 3);
+
+        assertThat(desktop.projects.findAll().size(), equalTo(1));
+        assertThat(desktop.tasks.findAll(), contains(new Task(1, "Review", new Project(1, "Journow"))));
+        assertThat(desktop.sessions.findAll().size(), equalTo(1));
+        assertThat(desktop.store.changesSince(0), empty());
+    }
+
+    @Test
+    void sync_afterADayOffline_transfersOnlyTheDelta() throws Exception {
+        Task task = laptop.tasks.insert(new Task(0, "Code review", laptop.projects.insert(new Project(0, "Journow"))));
+        laptop.sessions.insertAll(sessions(task, 0, 20_000));
+        laptop.SUT.sync();
+        desktop.SUT.sync();
+
+        laptop.sessions.insertAll(sessions(task, 20_000, 40));
+        SyncEngine.Result pushed = laptop.SUT.sync();
+        SyncEngine.Result pulled = desktop.SUT.sync();
+
+        assertThat(desktop.sessions.countFrom(0), equalTo(20_040));
+        assertThat(pushed.getPushed(), equalTo(40));
+        assertThat(pushed.getBytesSent(), lessThan(4096));
+        assertThat(pulled.getPulled(), equalTo(40));
+        assertThat(pulled.getBytesReceived(), lessThan(4096));
+    }
+
+    @Test
+    void changeBatch_encoded_decodesToSameRecords() throws Exception {
+        List<ChangeRecord> records = List.of(
+                ChangeRecord.project(UUID.randomUUID(), "\u017b\u00f3\u0142w", HybridLogicalClock.pack(1_600_000_000_000L, 3)),
+                ChangeRecord.task(UUID.randomUUID(), "Orphan", null, 12).withRemovedClock(11),
+                ChangeRecord.session(UUID.randomUUID(), UUID.randomUUID(), 1_600_000_000_000L, 1_600_000_000_000L - 5, 1),
+                ChangeRecord.tombstone(SyncEntity.TASK, UUID.randomUUID(), 40)
+        );
+
+        ChangeBatch decoded = ChangeBatch.decode(new ChangeBatch(42, 7, records).encode());
+
+        assertThat(decoded.getReplicaId(), equalTo(42L));
+        assertThat(decoded.getWatermark(), equalTo(7L));
+        assertThat(decoded.getRecords(), equalTo(records));
+    }
+
+    private static List<Session> sessions(Task task, int from, int count) {
+        List<Session> sessions = new ArrayList<>(count);
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+        for (int i = from; i < from + count; i++)
+            sessions.add(new Session(0, start.plusSeconds(3600L * i), start.plusSeconds(3600L * i + 1800), task));
+        return sessions;
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks)
+            titles.add(task.getTitle());
+        return titles;
+    }
+
+    private static LocalSyncServer startServer() {
+        try {
+            LocalSyncServer server = new LocalSyncServer(0);
+            server.start();
+            return server;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Replica {
+        final MemoryDatabase database = new MemoryDatabase();
+        final DataEventBus dataEventBus = new DataEventBus();
+        final ProjectRepositoryImpl projects = new ProjectRepositoryImpl(database, dataEventBus);
+        final TaskRepositoryImpl tasks = new TaskRepositoryImpl(database, dataEventBus);
+        final SessionRepositoryImpl sessions = new SessionRepositoryImpl(database, dataEventBus);
+        final SyncStore store = new SyncStore(database, dataEventBus);
+        final SyncEngine SUT;
+
+        Replica(LocalSyncServer server) {
+            SUT = new SyncEngine(store, new HttpSyncTransport(server.getUri()));
+            database.init();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.polydome.journow.data;
+
+import com.github.polydome.journow.data.database.FileDatabase;
+import com.github.polydome.journow.data.database.MemoryDatabase;
+import com.github.polydome.journow.data.database.TaskCompactor;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
+import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class TaskCompactorTest {
+    MemoryDatabase database = new MemoryDatabase();
+    DataEventBus dataEventBus = new DataEventBus();
+    TaskRepositoryImpl taskRepository = new TaskRepositoryImpl(database, dataEventBus);
+    SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+    TaskCompactor SUT = new TaskCompactor(database);
+
+    @Test
+    void compact_deletedTaskWithManySessions_purgesInBoundedBatches() throws SQLException {
+        database.init();
+        Task deleted = taskRepository.insert(new Task(0, "Code review", null));
+        Task kept = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(deleted, 1200);
+        insertSessions(kept, 2);
+        taskRepository.delete(deleted);
+
+        List<Integer> batches = new ArrayList<>();
+        for (int deletedRows = SUT.compact(500); deletedRows > 0; deletedRows = SUT.compact(500))
+            batches.add(deletedRows);
+
+        assertThat(batches, contains(500, 500, 202));
+        assertThat(count("select count(*) from session"), equalTo(2));
+        assertThat(count("select count(*) from task"), equalTo(1));
+        assertThat(count("select count(*) from task_tombstone"), equalTo(0));
+        assertThat(count("select count(*) from sync_row where entity = 'session' and deleted = 1"), equalTo(1200));
+        assertThat(sessionRepository.findAll(), hasSize(2));
+    }
+
+    @Test
+    void compact_nothingDeleted_returns0() {
+        database.init();
+        Task task = taskRepository.insert(new Task(0, "Release", null));
+        insertSessions(task, 3);
+
+        assertThat(SUT.compact(500), equalTo(0));
+        assertThat(sessionRepository.findAll(), hasSize(3));
+    }
+
+    @Test
+    void init_sessionsOfTaskDeletedBeforeTombstones_hidesAndPurgesThem() throws Exception {
+        Path file = Files.createTempFile("journow-tombstones", ".db");
+        try {
+            FileDatabase before = new FileDatabase(file);
+            before.init();
+            try (var statement = before.getConnection().createStatement()) {
+                statement.execute("drop table task_tombstone");
+                statement.execute("insert into task (title) values ('Release')");
+                statement.execute("insert into session (task_id, start_date, end_date) values (1, 0, 1000), (7, 1000, 3000)");
+            }
+            before.getConnection().close();
+
+            FileDatabase reopened = new FileDatabase(file);
+            reopened.init();
+            List<Session> visible = new SessionRepositoryImpl(reopened, dataEventBus).findAll();
+            int purged = new TaskCompactor(reopened).compact(500);
+            reopened.getConnection().close();
+
+            assertThat(visible, hasSize(1));
+            assertThat(visible.get(0).getTask().getTitle(), equalTo("Release"));
+            assertThat(purged, equalTo(2));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void insertSessions(Task task, int count) {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            sessions.add(new Session(0, Instant.ofEpochMilli(i * 60000L), Instant.ofEpochMilli(i * 60000L + 30000), task));
+        sessionRepository.insertAll(sessions);
+    }
+
+    private int count(String sql) throws SQLException {
+        try (var statement = database.getConnection().prepareStatement(sql);
+             var rs = statement.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
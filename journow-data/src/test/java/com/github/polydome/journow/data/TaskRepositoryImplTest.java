@@ -3,8 +3,10 @@ package com.github.polydome.journow.data;
 import com.github.polydome.journow.data.database.MemoryDatabase;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
 import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
 import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.model.Project;
 import com.github.polydome.journow.domain.model.Task;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -13,12 +15,15 @@ import org.mockito.Mockito;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.github.polydome.journow.data.test.TaskFactory.createTask;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -120,12 +125,97 @@ public class TaskRepositoryImplTest {
         assertThat(count, equalTo(0));
     }
 
+    @Test
+    void insert_titleTakenInProjectIgnoringCaseAndBlanks_returnsExistingTask() {
+        database.init();
+        Task existing = SUT.insert(createTask(0, "Code review"));
+
+        Task inserted = SUT.insert(createTask(0, " code REVIEW"));
+
+        assertThat(inserted, equalTo(existing));
+        assertThat(SUT.count(), equalTo(1));
+        verify(dataEventBus, Mockito.times(1)).pushTaskEvent(any());
+    }
+
+    @Test
+    void insert_titleTakenInOtherProject_insertsTask() {
+        database.init();
+        SUT.insert(new Task(0, "Code review", null));
+
+        Task inserted = SUT.insert(createTask(0, "Code review"));
+
+        assertThat(inserted.getId(), equalTo(2L));
+    }
+
+    @Test
+    void update_titleOfAnotherTask_mergesSessionsIntoIt() throws SQLException {
+        database.init();
+        Task kept = SUT.insert(createTask(0, "Code review"));
+        Task renamed = SUT.insert(createTask(0, "Reviewing"));
+        try (var stmt = database.getConnection().prepareStatement("insert into session (task_id, start_date, end_date) values (2, 0, 1000)")) {
+            stmt.execute();
+        }
+
+        SUT.update(new Task(renamed.getId(), "code review", renamed.getProject()));
+
+        assertThat(SUT.findAll(), contains(kept));
+        assertThat(SUT.findTotalTrackedMillis(kept.getId()), equalTo(1000L));
+        verify(dataEventBus).pushTaskEvent(argThat(event -> event.getType() == DataEvent.Type.REMOVE && event.getIdStart() == 2));
+    }
+
+    @Test
+    void delete_taskWithSessions_hidesTaskAndItsSessions() throws SQLException {
+        database.init();
+        Task deleted = SUT.insert(createTask(0, "Code review"));
+        Task kept = SUT.insert(createTask(0, "Release"));
+        try (var stmt = database.getConnection().prepareStatement("insert into session (task_id, start_date, end_date) values (1, 0, 1000), (2, 1000, 3000), (1, 3000, 6000)")) {
+            stmt.execute();
+        }
+        SessionRepositoryImpl sessionRepository = new SessionRepositoryImpl(database, dataEventBus);
+
+        SUT.delete(deleted);
+
+        assertThat(SUT.findAll(), contains(kept));
+        assertThat(SUT.findById(deleted.getId()), equalTo(Optional.empty()));
+        assertThat(SUT.count(), equalTo(1));
+        assertThat(sessionRepository.findAll(), hasSize(1));
+        assertThat(sessionRepository.countFrom(0), equalTo(1));
+        assertThrows(NoSuchTaskException.class, () -> SUT.delete(deleted));
+    }
+
+    @Test
+    void delete_taskWithSessions_emitsTaskAndSessionRemoveEvents() throws SQLException {
+        database.init();
+        Task task = SUT.insert(createTask(0, "Code review"));
+        try (var stmt = database.getConnection().prepareStatement("insert into session (task_id, start_date, end_date) values (1, 0, 1000), (1, 1000, 3000)")) {
+            stmt.execute();
+        }
+
+        SUT.delete(task);
+
+        verify(dataEventBus).pushTaskEvent(argThat(event -> event.getType() == DataEvent.Type.REMOVE && event.getIdStart() == 1));
+        verify(dataEventBus).pushSessionEvent(argThat(event -> event.getType() == DataEvent.Type.REMOVE &&
+                event.getIdStart() == 1 && event.getIdStop() == 2));
+    }
+
+    @Test
+    void insert_titleOfDeletedTask_insertsNewTask() {
+        database.init();
+        Task deleted = SUT.insert(createTask(0, "Code review"));
+        SUT.delete(deleted);
+
+        Task inserted = SUT.insert(createTask(0, "Code review"));
+
+        assertThat(inserted.getId(), equalTo(2L));
+        assertThat(SUT.findAll(), contains(inserted));
+    }
+
     @Test
     void count_tasksInDatabase_returnsTasksCount() {
         database.init();
 
-        SUT.insert(createTask(0));
-        SUT.insert(createTask(0));
+        SUT.insert(createTask(0, "first"));
+        SUT.insert(createTask(0, "second"));
 
         int count = SUT.count();
 
@@ -155,6 +245,23 @@ public class TaskRepositoryImplTest {
         ));
     }
 
+    @Test
+    void findByIdRange_tasksInDatabase_returnsTasksInRangeSortedById() {
+        database.init();
+
+        SUT.insert(createTask(0, "test task 1"));
+        SUT.insert(createTask(0, "test task 2"));
+        SUT.insert(createTask(0, "test task 3"));
+        SUT.insert(createTask(0, "test task 4"));
+
+        List<Task> tasks = SUT.findByIdRange(2, 3);
+
+        assertThat(tasks, contains(
+                createTask(2, "test task 2"),
+                createTask(3, "test task 3")
+        ));
+    }
+
     @Test
     void insert_taskWithoutIdInserted_dispatchesEvent() {
         database.init();
@@ -228,4 +335,60 @@ public class TaskRepositoryImplTest {
         assertThat(event.getIdStart(), equalTo(event.getIdStop()));
         assertThat(event.getIdStart(), equalTo(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByProject_tasksOfSeveralProjects_returnsTasksOfProjectSortedById() {
+        database.init();
+
+        SUT.insert(new Task(0, "test task 1", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 2", new Project(13, "other project")));
+        SUT.insert(new Task(0, "test task 3", new Project(12, "test project")));
+
+        List<Task> tasks = SUT.findByProject(12);
+
+        assertThat(tasks.size(), equalTo(2));
+        assertThat(tasks.get(0).getId(), equalTo(1L));
+        assertThat(tasks.get(1).getId(), equalTo(3L));
+    }
+
+    @Test
+    void findWithoutProject_taskProjectCleared_returnsTask() {
+        database.init();
+
+        SUT.insert(new Task(0, "test task 1", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 2", null));
+        SUT.insert(new Task(0, "test task 3", new Project(12, "test project")));
+        SUT.update(new Task(3, "test task 3", null));
+
+        List<Task> tasks = SUT.findWithoutProject();
+
+        assertThat(tasks.size(), equalTo(2));
+        assertThat(tasks.get(0).getId(), equalTo(2L));
+        assertThat(tasks.get(1).getId(), equalTo(3L));
+    }
+
+    @Test
+    void countByProject_tasksOfSeveralProjects_returnsTaskCountOfEveryProject() {
+        database.init();
+
+        SUT.insert(new Task(0, "test task 1", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 2", new Project(13, "other project")));
+        SUT.insert(new Task(0, "test task 3", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 4", null));
+
+        assertThat(SUT.countByProject(), equalTo(Map.of(12L, 2, 13L, 1)));
+    }
+
+    @Test
+    void countByProjectRange_tasksOfSeveralProjects_countsOnlyProjectsInRange() {
+        database.init();
+
+        SUT.insert(new Task(0, "test task 1", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 2", new Project(13, "other project")));
+        SUT.insert(new Task(0, "test task 3", new Project(12, "test project")));
+        SUT.insert(new Task(0, "test task 4", new Project(14, "third project")));
+
+        assertThat(SUT.countByProjectRange(12, 12), equalTo(Map.of(12L, 2)));
+        assertThat(SUT.countByProjectRange(13, 20), equalTo(Map.of(13L, 1, 14L, 1)));
+    }
+}
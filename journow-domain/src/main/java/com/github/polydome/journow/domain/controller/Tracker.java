@@ -1,7 +1,9 @@
 package com.github.polydome.journow.domain.controller;
 
 import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.exception.TrackedTaskDeletedException;
 import com.github.polydome.journow.domain.exception.TrackerNotRunningException;
+import com.github.polydome.journow.domain.exception.TrackerStateChangedException;
 import com.github.polydome.journow.domain.model.Session;
 import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.model.TrackerData;
@@ -9,12 +11,11 @@ import com.github.polydome.journow.domain.repository.SessionRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.domain.service.TrackerDataStorage;
 import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
 import io.reactivex.rxjava3.subjects.Subject;
 
 import java.time.Clock;
-import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
 
 public class Tracker {
@@ -25,16 +26,26 @@ public class Tracker {
     private final Subject<Task> _currentTask = BehaviorSubject.create();
     private final Subject<Boolean> _isRunning = BehaviorSubject.createDefault(false);
 
+    // In-memory copy of the stored data, so ticks never touch the storage. Start and stop check it against the
+    // storage first, which the command line shares with the window
+    private volatile TrackerData data;
+
     public Tracker(TaskRepository taskRepository, TrackerDataStorage dataStorage, Clock clock, SessionRepository sessionRepository) {
         this.taskRepository = taskRepository;
         this.dataStorage = dataStorage;
         this.clock = clock;
         this.sessionRepository = sessionRepository;
 
-        refresh();
+        data = dataStorage.read().orElse(null);
     }
 
+    /**
+     * @throws TrackerStateChangedException if a session was started or stopped elsewhere since this tracker last
+     * looked; the tracker then shows the stored state instead and starts nothing
+     */
     public void start(long taskId) {
+        checkStored();
+
         Optional<Task> task = taskRepository.findById(taskId);
 
         if (task.isEmpty())
@@ -42,23 +53,39 @@ public class Tracker {
 
         _currentTask.onNext(task.get());
 
-        dataStorage.save(new TrackerData(taskId, clock.instant()));
+        TrackerData data = new TrackerData(taskId, clock.instant());
+        dataStorage.save(data);
+        this.data = data;
 
         _isRunning.onNext(true);
     }
 
+    /**
+     * Logs the running session on its task, or on the task it was merged into while it ran.
+     *
+     * @throws TrackerStateChangedException if a session was started or stopped elsewhere since this tracker last
+     * looked; the tracker then shows the stored state instead and logs nothing
+     * @throws TrackedTaskDeletedException if the task was deleted while it ran; the session went with the task's
+     * others, so the tracker stops without logging it
+     */
     public void stop() {
-        Optional<TrackerData> data = dataStorage.read();
+        checkStored();
+        TrackerData data = this.data;
 
-        if (data.isEmpty())
+        if (data == null)
             throw new TrackerNotRunningException();
         else {
-            Optional<Task> task = taskRepository.findById(data.get().getTaskId());
+            Optional<Task> task = taskRepository.findSurvivor(data.getTaskId());
 
-            sessionRepository.insert(new Session(0, data.get().getStartTime(), clock.instant(), task.orElse(null)));
+            if (task.isPresent())
+                sessionRepository.insert(new Session(0, data.getStartTime(), clock.instant(), task.get()));
             dataStorage.clear();
+            this.data = null;
 
             _isRunning.onNext(false);
+
+            if (task.isEmpty())
+                throw new TrackedTaskDeletedException(data.getTaskId());
         }
     }
 
@@ -71,33 +98,44 @@ public class Tracker {
     }
 
     public Observable<Long> timeElapsed(Observable<Long> interval) {
-        return interval
-                .flatMapSingle(tick -> calculateTimeElapsed())
-                .map(Duration::toMillis);
+        return interval.map(tick -> millisElapsed());
     }
 
-    private Single<Duration> calculateTimeElapsed() {
-        return Single.create(emitter -> {
-            Optional<TrackerData> data = dataStorage.read();
-            if (data.isPresent()) {
-                emitter.onSuccess(Duration.between(clock.instant(), data.get().getStartTime()).abs());
-            } else {
-                emitter.onError(new TrackerNotRunningException());
-            }
-        });
+    public Optional<TrackerData> getData() {
+        return Optional.ofNullable(data);
     }
 
-    private void refresh() {
-        Optional<TrackerData> maybeData = dataStorage.read();
+    public long millisElapsed() {
+        TrackerData data = this.data;
+        if (data == null)
+            throw new TrackerNotRunningException();
+
+        return Math.abs(clock.millis() - data.getStartTime().toEpochMilli());
+    }
 
-        if (maybeData.isPresent()) {
-            TrackerData data = maybeData.get();
-            Optional<Task> task = taskRepository.findById(data.getTaskId());
+    public void refresh() {
+        show(dataStorage.read().orElse(null));
+    }
+
+    private void checkStored() {
+        TrackerData stored = dataStorage.read().orElse(null);
+        if (!Objects.equals(stored, data)) {
+            show(stored);
+            throw new TrackerStateChangedException();
+        }
+    }
+
+    private void show(TrackerData stored) {
+        data = stored;
+
+        if (stored != null) {
+            Optional<Task> task = taskRepository.findSurvivor(stored.getTaskId());
 
             if (task.isPresent()) {
                 _currentTask.onNext(task.get());
                 _isRunning.onNext(true);
             }
-        }
+        } else
+            _isRunning.onNext(false);
     }
 }
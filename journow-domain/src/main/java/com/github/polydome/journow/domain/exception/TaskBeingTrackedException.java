@@ -0,0 +1,7 @@
+package com.github.polydome.journow.domain.exception;
+
+public class TaskBeingTrackedException extends IllegalStateException {
+    public TaskBeingTrackedException(long taskId) {
+        super(String.format("Task identified with [id=%d] is being tracked; stop tracking it first", taskId));
+    }
+}
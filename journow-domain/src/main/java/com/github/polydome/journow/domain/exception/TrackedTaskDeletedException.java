@@ -0,0 +1,7 @@
+package com.github.polydome.journow.domain.exception;
+
+public class TrackedTaskDeletedException extends IllegalStateException {
+    public TrackedTaskDeletedException(long taskId) {
+        super(String.format("The tracked task [id=%d] was deleted; its running session was discarded", taskId));
+    }
+}
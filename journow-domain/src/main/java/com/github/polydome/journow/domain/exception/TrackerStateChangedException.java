@@ -0,0 +1,7 @@
+package com.github.polydome.journow.domain.exception;
+
+public class TrackerStateChangedException extends IllegalStateException {
+    public TrackerStateChangedException() {
+        super("The running session was started or stopped elsewhere");
+    }
+}
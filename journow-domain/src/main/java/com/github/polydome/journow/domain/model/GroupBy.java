@@ -0,0 +1,10 @@
+package com.github.polydome.journow.domain.model;
+
+public enum GroupBy {
+    /** Keyed by the local date's epoch day. */
+    DAY,
+    /** Keyed by task id. */
+    TASK,
+    /** Keyed by project id; 0 collects sessions of tasks without a project. */
+    PROJECT
+}
@@ -0,0 +1,84 @@
+package com.github.polydome.journow.domain.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A project with its tracked time, counts and the span of its sessions. The activity bounds are null for a project
+ * without sessions.
+ */
+public class ProjectSummary {
+    private final Project project;
+    private final long totalMillis;
+    private final int sessionCount;
+    private final int taskCount;
+    private final Instant firstActivity;
+    private final Instant lastActivity;
+
+    public ProjectSummary(Project project, long totalMillis, int sessionCount, int taskCount, Instant firstActivity, Instant lastActivity) {
+        this.project = project;
+        this.totalMillis = totalMillis;
+        this.sessionCount = sessionCount;
+        this.taskCount = taskCount;
+        this.firstActivity = firstActivity;
+        this.lastActivity = lastActivity;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public long getAverageSessionMillis() {
+        return sessionCount == 0 ? 0 : totalMillis / sessionCount;
+    }
+
+    public Instant getFirstActivity() {
+        return firstActivity;
+    }
+
+    public Instant getLastActivity() {
+        return lastActivity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProjectSummary that = (ProjectSummary) o;
+        return totalMillis == that.totalMillis &&
+                sessionCount == that.sessionCount &&
+                taskCount == that.taskCount &&
+                project.equals(that.project) &&
+                Objects.equals(firstActivity, that.firstActivity) &&
+                Objects.equals(lastActivity, that.lastActivity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(project, totalMillis, sessionCount, taskCount, firstActivity, lastActivity);
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectSummary{" +
+                "project=" + project +
+                ", totalMillis=" + totalMillis +
+                ", sessionCount=" + sessionCount +
+                ", taskCount=" + taskCount +
+                ", firstActivity=" + firstActivity +
+                ", lastActivity=" + lastActivity +
+                '}';
+    }
+}
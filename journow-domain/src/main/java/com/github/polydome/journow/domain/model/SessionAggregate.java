@@ -0,0 +1,78 @@
+package com.github.polydome.journow.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * Tracked time per group, in ascending key order. Backed by parallel primitive arrays, so years of days cost a few
+ * kilobytes.
+ */
+public class SessionAggregate {
+    private final GroupBy groupBy;
+    private final long[] keys;
+    private final long[] totalMillis;
+    private final int[] sessionCounts;
+
+    public SessionAggregate(GroupBy groupBy, long[] keys, long[] totalMillis, int[] sessionCounts) {
+        if (keys.length != totalMillis.length || keys.length != sessionCounts.length)
+            throw new IllegalArgumentException("Aggregate columns differ in length");
+
+        this.groupBy = groupBy;
+        this.keys = keys;
+        this.totalMillis = totalMillis;
+        this.sessionCounts = sessionCounts;
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    public long getTotalMillis(int index) {
+        return totalMillis[index];
+    }
+
+    public int getSessionCount(int index) {
+        return sessionCounts[index];
+    }
+
+    /**
+     * Position of the group with the given key, or a negative number if no session fell into it.
+     */
+    public int indexOf(long key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -1;
+    }
+
+    public long sumTotalMillis() {
+        long sum = 0;
+        for (long millis : totalMillis)
+            sum += millis;
+        return sum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SessionAggregate that = (SessionAggregate) o;
+        return groupBy == that.groupBy &&
+                Arrays.equals(keys, that.keys) &&
+                Arrays.equals(totalMillis, that.totalMillis) &&
+                Arrays.equals(sessionCounts, that.sessionCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = groupBy.hashCode();
+        result = 31 * result + Arrays.hashCode(keys);
+        result = 31 * result + Arrays.hashCode(totalMillis);
+        return 31 * result + Arrays.hashCode(sessionCounts);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.polydome.journow.domain.model;
 
 import java.time.Instant;
+import java.util.Objects;
 
 public class TrackerData {
     private final long taskId;
@@ -18,4 +19,18 @@ public class TrackerData {
     public Instant getStartTime() {
         return startTime;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TrackerData that = (TrackerData) o;
+        return taskId == that.taskId &&
+                startTime.equals(that.startTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(taskId, startTime);
+    }
 }
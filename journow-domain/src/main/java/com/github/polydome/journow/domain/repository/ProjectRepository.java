@@ -1,12 +1,21 @@
 package com.github.polydome.journow.domain.repository;
 
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
 
 import java.util.List;
 
 public interface ProjectRepository {
     List<Project> findAll();
+    List<Project> findByIdRange(long idStart, long idStop);
     Project insert(Project project);
+    void insertAll(List<Project> projects);
     void update(Project project);
     long findTotalTrackedMillis(long projectId);
+
+    /**
+     * Every project with its stats, in id order. Computed in one query and kept until a project, task or session
+     * changes.
+     */
+    List<ProjectSummary> findAllWithSummaries();
 }
@@ -1,10 +1,25 @@
 package com.github.polydome.journow.domain.repository;
 
+import com.github.polydome.journow.domain.model.GroupBy;
 import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.SessionAggregate;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
 
 public interface SessionRepository {
     void insert(Session session);
+    void insertAll(List<Session> sessions);
     List<Session> findAll();
+    List<Session> findByIdRange(long idStart, long idStop);
+    int countFrom(long firstId);
+    long[] findPageStartIds(long firstId, int pageSize);
+    List<Session> findPage(long firstId, int pageSize);
+
+    /**
+     * Sums the sessions started in {@code [from, to)} per group. Days are dates in {@code zone}, which the other
+     * groupings ignore.
+     */
+    SessionAggregate aggregate(GroupBy groupBy, Instant from, Instant to, ZoneId zone);
 }
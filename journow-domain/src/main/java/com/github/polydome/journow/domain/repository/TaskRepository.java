@@ -3,14 +3,27 @@ package com.github.polydome.journow.domain.repository;
 import com.github.polydome.journow.domain.model.Task;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TaskRepository {
     Optional<Task> findById(long taskId);
+
+    /**
+     * The task, or the task it was merged into when it was renamed onto another one's title; empty if it was deleted.
+     */
+    Optional<Task> findSurvivor(long taskId);
+
     Task insert(Task task);
+    void insertAll(List<Task> tasks);
     void update(Task task);
     int count();
     List<Task> findAll();
+    List<Task> findByIdRange(long idStart, long idStop);
+    List<Task> findByProject(long projectId);
+    List<Task> findWithoutProject();
+    Map<Long, Integer> countByProject();
+    Map<Long, Integer> countByProjectRange(long projectIdStart, long projectIdStop);
     void delete(Task task);
     long findTotalTrackedMillis(long taskId);
 }
@@ -0,0 +1,37 @@
+package com.github.polydome.journow.domain.usecase;
+
+import com.github.polydome.journow.domain.exception.TaskBeingTrackedException;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.domain.service.TrackerDataStorage;
+
+import java.util.Optional;
+
+public class DeleteTaskUseCase {
+    private final TaskRepository taskRepository;
+    private final TrackerDataStorage trackerDataStorage;
+
+    public DeleteTaskUseCase(TaskRepository taskRepository, TrackerDataStorage trackerDataStorage) {
+        this.taskRepository = taskRepository;
+        this.trackerDataStorage = trackerDataStorage;
+    }
+
+    /**
+     * Deletes the task unless a session is running on it, in this process or any other sharing the storage, since
+     * the session would be left with no task to be logged on.
+     *
+     * @throws TaskBeingTrackedException if the task is being tracked
+     */
+    public void execute(Task task) {
+        Optional<TrackerData> tracked = trackerDataStorage.read();
+
+        if (tracked.isPresent()) {
+            Optional<Task> trackedTask = taskRepository.findSurvivor(tracked.get().getTaskId());
+            if (trackedTask.isPresent() && trackedTask.get().getId() == task.getId())
+                throw new TaskBeingTrackedException(task.getId());
+        }
+
+        taskRepository.delete(task);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.polydome.journow.domain.usecase;
+
+import com.github.polydome.journow.domain.exception.TaskBeingTrackedException;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static com.github.polydome.journow.test.TaskFactory.createTask;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+public class DeleteTaskUseCaseTest {
+    TaskRepository taskRepository = Mockito.mock(TaskRepository.class);
+    MemoryTrackerDataStorage trackerDataStorage = new MemoryTrackerDataStorage();
+    DeleteTaskUseCase SUT = new DeleteTaskUseCase(taskRepository, trackerDataStorage);
+
+    @Test
+    public void execute_notTracking_deletesTask() {
+        Task task = createTask(15, "test task");
+
+        SUT.execute(task);
+
+        verify(taskRepository).delete(task);
+    }
+
+    @Test
+    public void execute_otherTaskTracked_deletesTask() {
+        Task task = createTask(15, "test task");
+        Task tracked = createTask(16, "tracked task");
+        trackerDataStorage.save(new TrackerData(tracked.getId(), Instant.ofEpochMilli(600000)));
+        when(taskRepository.findSurvivor(tracked.getId())).thenReturn(Optional.of(tracked));
+
+        SUT.execute(task);
+
+        verify(taskRepository).delete(task);
+    }
+
+    @Test
+    public void execute_taskTracked_refusesAndKeepsSession() {
+        Task task = createTask(15, "test task");
+        TrackerData running = new TrackerData(task.getId(), Instant.ofEpochMilli(600000));
+        trackerDataStorage.save(running);
+        when(taskRepository.findSurvivor(task.getId())).thenReturn(Optional.of(task));
+
+        assertThrows(TaskBeingTrackedException.class, () -> SUT.execute(task));
+
+        verify(taskRepository, never()).delete(Mockito.any());
+        assertThat(trackerDataStorage.read(), equalTo(Optional.of(running)));
+    }
+
+    @Test
+    public void execute_taskTrackedUnderMergedId_refuses() {
+        Task task = createTask(15, "code review");
+        trackerDataStorage.save(new TrackerData(14, Instant.ofEpochMilli(600000)));
+        when(taskRepository.findSurvivor(14)).thenReturn(Optional.of(task));
+
+        assertThrows(TaskBeingTrackedException.class, () -> SUT.execute(task));
+
+        verify(taskRepository, never()).delete(Mockito.any());
+    }
+}
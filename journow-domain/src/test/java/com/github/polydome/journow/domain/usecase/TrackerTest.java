@@ -2,7 +2,9 @@ package com.github.polydome.journow.domain.usecase;
 
 import com.github.polydome.journow.domain.controller.Tracker;
 import com.github.polydome.journow.domain.exception.NoSuchTaskException;
+import com.github.polydome.journow.domain.exception.TrackedTaskDeletedException;
 import com.github.polydome.journow.domain.exception.TrackerNotRunningException;
+import com.github.polydome.journow.domain.exception.TrackerStateChangedException;
 import com.github.polydome.journow.domain.model.Session;
 import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.model.TrackerData;
@@ -23,6 +25,8 @@ import static com.github.polydome.journow.test.TaskFactory.createTask;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +38,11 @@ public class TrackerTest {
     SessionRepository sessionRepository = Mockito.mock(SessionRepository.class);
     Tracker SUT = new Tracker(taskRepository, trackerDataStorage, clock, sessionRepository);
 
+    TrackerTest() {
+        // Nothing is merged unless a test says so
+        when(taskRepository.findSurvivor(Mockito.anyLong())).thenAnswer(invocation -> taskRepository.findById(invocation.getArgument(0)));
+    }
+
     @Test
     public void start_taskNotExists_throwsNoSuchTaskException() {
         long TASK_ID = 15;
@@ -63,6 +72,28 @@ public class TrackerTest {
         assertThat(actual.getTaskId(), equalTo(TASK_ID));
     }
 
+    @Test
+    public void getData_trackerStarted_returnsStartedData() {
+        // given
+        Instant now = Instant.ofEpochMilli(12000000);
+        long TASK_ID = 15;
+        when(clock.instant()).thenReturn(now);
+        when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(createTask(TASK_ID, "test task")));
+
+        // when
+        SUT.start(TASK_ID);
+
+        // then
+        TrackerData actual = SUT.getData().get();
+        assertThat(actual.getStartTime(), equalTo(now));
+        assertThat(actual.getTaskId(), equalTo(TASK_ID));
+    }
+
+    @Test
+    public void getData_trackerNotStarted_returnsEmpty() {
+        assertThat(SUT.getData().isPresent(), equalTo(false));
+    }
+
     @Test
     public void stop_trackerRunning_savesSession() {
         // given
@@ -99,33 +130,41 @@ public class TrackerTest {
     }
 
     @Test
-    public void stop_storedTaskNotExists_saveAnonymousSession() {
-        // given
-        Instant start = Instant.ofEpochMilli(600000);
-        Instant now = Instant.ofEpochMilli(12000000);
+    public void stop_storedTaskDeleted_stopsWithoutLoggingAndThrows() {
         long TASK_ID = 15;
-        when(clock.instant()).thenReturn(start, now);
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(600000));
         when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(createTask(TASK_ID, "test task")));
-
-        // when
         SUT.start(TASK_ID);
+
         when(taskRepository.findById(TASK_ID)).thenReturn(Optional.empty());
+
+        assertThrows(TrackedTaskDeletedException.class, () -> SUT.stop());
+        verify(sessionRepository, never()).insert(Mockito.any());
+        assertThat(trackerDataStorage.read(), equalTo(Optional.empty()));
+        assertThat(SUT.getData(), equalTo(Optional.empty()));
+        SUT.isRunning().test().assertValue(false);
+    }
+
+    @Test
+    public void stop_storedTaskMerged_logsSessionOnSurvivor() {
+        Task tracked = createTask(15, "Review");
+        Task survivor = createTask(16, "code review");
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(600000), Instant.ofEpochMilli(1200000));
+        when(taskRepository.findById(tracked.getId())).thenReturn(Optional.of(tracked));
+        SUT.start(tracked.getId());
+
+        when(taskRepository.findById(tracked.getId())).thenReturn(Optional.empty());
+        when(taskRepository.findSurvivor(tracked.getId())).thenReturn(Optional.of(survivor));
         SUT.stop();
 
-        // then
         ArgumentCaptor<Session> sessionCpt = ArgumentCaptor.forClass(Session.class);
-
         verify(sessionRepository).insert(sessionCpt.capture());
-
-        Session actual = sessionCpt.getValue();
-        assertThat(actual.getStartedAt(), equalTo(start));
-        assertThat(actual.getEndedAt(), equalTo(now));
-        assertThat(actual.getTask(), equalTo(null));
+        assertThat(sessionCpt.getValue().getTask(), equalTo(survivor));
+        assertThat(trackerDataStorage.read(), equalTo(Optional.empty()));
     }
 
     @Test
     public void stop_dataEmpty_throwsTrackerNotRunningException() {
-        when(trackerDataStorage.read()).thenReturn(Optional.empty());
 
         assertThrows(TrackerNotRunningException.class, () -> SUT.stop());
     }
@@ -158,7 +197,8 @@ public class TrackerTest {
         Instant secondTick = start.plusMillis(700);
         Task task = createTask(15, "test task");
 
-        when(clock.instant()).thenReturn(start, firstTick, secondTick, start.plusMillis(800));
+        when(clock.instant()).thenReturn(start);
+        when(clock.millis()).thenReturn(firstTick.toEpochMilli(), secondTick.toEpochMilli(), start.plusMillis(800).toEpochMilli());
         when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
 
         // when
@@ -169,6 +209,35 @@ public class TrackerTest {
         elapsedTime.assertValues(600L, 700L, 800L);
     }
 
+    @Test
+    void timeElapsed_trackerStarted_doesNotReadStorage() {
+        Instant start = Instant.ofEpochMilli(12000000);
+        Task task = createTask(15, "test task");
+        when(clock.instant()).thenReturn(start);
+        when(clock.millis()).thenReturn(start.toEpochMilli() + 1500);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+
+        SUT.start(task.getId());
+        trackerDataStorage.clear();
+
+        SUT.timeElapsed(Observable.just(0L)).test().assertValues(1500L);
+    }
+
+    @Test
+    void timeElapsed_trackerNotStarted_emitsTrackerNotRunningException() {
+        SUT.timeElapsed(Observable.just(0L)).test().assertError(TrackerNotRunningException.class);
+    }
+
+    @Test
+    void constructor_trackerDataStored_resumesElapsedTime() {
+        trackerDataStorage.save(new TrackerData(15, Instant.ofEpochMilli(12000000)));
+        when(clock.millis()).thenReturn(12000000L + 2000);
+
+        Tracker tracker = new Tracker(taskRepository, trackerDataStorage, clock, sessionRepository);
+
+        assertThat(tracker.millisElapsed(), equalTo(2000L));
+    }
+
     @Test
     void isRunning_timerNotStarted_emitsFalse() {
         SUT.isRunning().test().assertValue(false);
@@ -196,4 +265,76 @@ public class TrackerTest {
         SUT.stop();
         SUT.isRunning().test().assertValue(false);
     }
-}
\ No newline at end of file
+
+    @Test
+    void refresh_trackerDataStored_emitsStoredTask() {
+        Task task = createTask(15, "test task");
+        trackerDataStorage.save(new TrackerData(task.getId(), Instant.ofEpochMilli(12000000)));
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+
+        SUT.refresh();
+
+        SUT.currentTask().test().assertValue(task);
+        SUT.isRunning().test().assertValue(true);
+    }
+
+    @Test
+    void refresh_trackerDataStoredTaskNotExists_emitsNotRunning() {
+        trackerDataStorage.save(new TrackerData(15, Instant.ofEpochMilli(12000000)));
+        when(taskRepository.findById(15)).thenReturn(Optional.empty());
+
+        SUT.refresh();
+
+        SUT.currentTask().test().assertEmpty();
+        SUT.isRunning().test().assertValue(false);
+    }
+
+    @Test
+    void stop_sessionStoppedByAnotherTracker_refusesAndShowsNotRunning() {
+        Task task = createTask(15, "test task");
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(600000));
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        SUT.start(task.getId());
+
+        Tracker other = new Tracker(taskRepository, trackerDataStorage, clock, sessionRepository);
+        other.stop();
+
+        assertThrows(TrackerStateChangedException.class, () -> SUT.stop());
+        verify(sessionRepository, times(1)).insert(Mockito.any());
+        assertThat(SUT.getData(), equalTo(Optional.empty()));
+        SUT.isRunning().test().assertValue(false);
+    }
+
+    @Test
+    void start_sessionStartedByAnotherTracker_refusesAndShowsIt() {
+        Task theirs = createTask(15, "their task");
+        Task ours = createTask(16, "our task");
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(600000));
+        when(taskRepository.findById(theirs.getId())).thenReturn(Optional.of(theirs));
+        when(taskRepository.findById(ours.getId())).thenReturn(Optional.of(ours));
+
+        Tracker other = new Tracker(taskRepository, trackerDataStorage, clock, sessionRepository);
+        other.start(theirs.getId());
+
+        assertThrows(TrackerStateChangedException.class, () -> SUT.start(ours.getId()));
+        assertThat(trackerDataStorage.read().get().getTaskId(), equalTo(theirs.getId()));
+        assertThat(SUT.getData(), equalTo(trackerDataStorage.read()));
+        SUT.currentTask().test().assertValue(theirs);
+        SUT.isRunning().test().assertValue(true);
+    }
+
+    @Test
+    void stop_afterRefusal_stopsTheStoredSession() {
+        Task task = createTask(15, "test task");
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(600000));
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        Tracker other = new Tracker(taskRepository, trackerDataStorage, clock, sessionRepository);
+        other.start(task.getId());
+        assertThrows(TrackerStateChangedException.class, () -> SUT.start(task.getId()));
+
+        SUT.stop();
+
+        verify(sessionRepository, times(1)).insert(Mockito.any());
+        assertThat(trackerDataStorage.read(), equalTo(Optional.empty()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.polydome.journow.common;
+
+/**
+ * Formats elapsed milliseconds like {@link FormatUtils#millisToReadableDuration(long)}, but reuses the previous
+ * string while the whole second is unchanged, so repeated ticks within a second allocate nothing.
+ * Not thread-safe; use one instance per subscriber.
+ */
+public class ElapsedTimeFormatter {
+    private final char[] buffer = new char[8];
+    private long cachedSecond = -1;
+    private String cachedText;
+
+    public String format(long millis) {
+        long second = millis / 1000;
+        if (second == cachedSecond)
+            return cachedText;
+
+        int hours = (int) (second / 3600 % 24);
+        int minutes = (int) (second / 60 % 60);
+        int seconds = (int) (second % 60);
+
+        writeTwoDigits(0, hours);
+        buffer[2] = ':';
+        writeTwoDigits(3, minutes);
+        buffer[5] = ':';
+        writeTwoDigits(6, seconds);
+
+        cachedSecond = second;
+        cachedText = new String(buffer);
+        return cachedText;
+    }
+
+    private void writeTwoDigits(int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+}
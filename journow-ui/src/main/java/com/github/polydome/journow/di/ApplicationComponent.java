@@ -1,13 +1,34 @@
 package com.github.polydome.journow.di;
 
-import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.ui.background.BackgroundArchiving;
+import com.github.polydome.journow.ui.background.BackgroundBackup;
+import com.github.polydome.journow.ui.background.BackgroundCompaction;
+import com.github.polydome.journow.ui.background.BackgroundSync;
+import com.github.polydome.journow.ui.background.LocalApi;
+import com.github.polydome.journow.ui.startup.DataPreloader;
 import dagger.Component;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 @Singleton
 @Component(modules = ApplicationModule.class)
 public interface ApplicationComponent {
     PresentationComponent createPresentationComponent();
-    Database database();
+    Tracker tracker();
+    DataPreloader dataPreloader();
+    BackgroundSync backgroundSync();
+    LocalApi localApi();
+    BackgroundCompaction backgroundCompaction();
+    BackgroundArchiving backgroundArchiving();
+    BackgroundBackup backgroundBackup();
+
+    @Named("DatabaseReady")
+    Completable databaseReady();
+
+    @Named("UiScheduler")
+    Scheduler uiScheduler();
 }
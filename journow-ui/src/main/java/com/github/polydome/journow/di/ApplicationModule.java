@@ -1,25 +1,100 @@
 package com.github.polydome.journow.di;
 
+import com.github.polydome.journow.api.ApiServer;
+import com.github.polydome.journow.api.ApiToken;
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.backup.BackupService;
 import com.github.polydome.journow.data.database.LocalDatabase;
+import com.github.polydome.journow.data.database.SessionArchiver;
+import com.github.polydome.journow.data.database.TaskCompactor;
 import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.data.metrics.Instrumentation;
+import com.github.polydome.journow.data.metrics.InstrumentedDatabase;
+import com.github.polydome.journow.data.metrics.RepositoryMetrics;
+import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
+import com.github.polydome.journow.data.sync.HttpSyncTransport;
+import com.github.polydome.journow.data.sync.SyncEngine;
+import com.github.polydome.journow.data.sync.SyncStore;
 import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
 import com.github.polydome.journow.domain.repository.SessionRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import com.github.polydome.journow.ui.background.BackgroundBackup;
+import com.github.polydome.journow.ui.background.BackgroundSync;
+import com.github.polydome.journow.ui.background.LocalApi;
 import com.github.polydome.journow.ui.preview.PreviewModel;
 import dagger.Module;
 import dagger.Provides;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.Clock;
+import java.util.concurrent.Executors;
 
 @Module(includes = DomainModule.class)
 public class ApplicationModule {
     @Provides
     @Singleton
-    Database database() {
-        return new LocalDatabase();
+    Database database(RepositoryMetrics repositoryMetrics) {
+        return new InstrumentedDatabase(new LocalDatabase(), repositoryMetrics);
+    }
+
+    // Application-wide, unlike the other repositories, so the panes and the project combos share its cached summaries
+    @Provides
+    @Singleton
+    ProjectRepository projectRepository(Database database, DataEventBus dataEventBus, RepositoryMetrics repositoryMetrics) {
+        return Instrumentation.instrument(ProjectRepository.class, new ProjectRepositoryImpl(database, dataEventBus), repositoryMetrics);
+    }
+
+    @Provides
+    @Singleton
+    RepositoryMetrics repositoryMetrics() {
+        return new RepositoryMetrics(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    @Provides
+    @Singleton
+    @Named("DatabaseReady")
+    Completable databaseReady(Database database, @Named("DatabaseScheduler") Scheduler databaseScheduler) {
+        return Completable.fromAction(database::init)
+                .subscribeOn(databaseScheduler)
+                .cache();
+    }
+
+    @Provides
+    @Singleton
+    @Named("DatabaseScheduler")
+    Scheduler databaseScheduler() {
+        return Schedulers.from(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journow-database");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // For blocking network calls, which must not hold up the database thread
+    @Provides
+    @Singleton
+    @Named("IoScheduler")
+    Scheduler ioScheduler() {
+        return Schedulers.io();
+    }
+
+    @Provides
+    @Singleton
+    @Named("UiScheduler")
+    Scheduler uiScheduler() {
+        return Schedulers.from(SwingUtilities::invokeLater);
     }
 
     @Provides
@@ -36,6 +111,46 @@ public class ApplicationModule {
         );
     }
 
+    @Provides
+    @Singleton
+    SyncEngine syncEngine(Database database, DataEventBus dataEventBus) {
+        return new SyncEngine(
+                new SyncStore(database, dataEventBus),
+                new HttpSyncTransport(URI.create(System.getProperty(BackgroundSync.URL_PROPERTY)))
+        );
+    }
+
+    @Provides
+    @Singleton
+    TaskCompactor taskCompactor(Database database) {
+        return new TaskCompactor(database);
+    }
+
+    @Provides
+    @Singleton
+    SessionArchiver sessionArchiver(Database database) {
+        return new SessionArchiver(database);
+    }
+
+    @Provides
+    @Singleton
+    BackupService backupService() {
+        return new BackupService(LocalDatabase.PATH, Path.of(System.getProperty(BackgroundBackup.DIR_PROPERTY)), BackgroundBackup.KEEP);
+    }
+
+    @Provides
+    @Singleton
+    ApiServer apiServer(Tracker tracker, TaskRepository taskRepository, ProjectRepository projectRepository,
+                        SessionRepository sessionRepository, @Named("DatabaseScheduler") Scheduler databaseScheduler) {
+        try {
+            return new ApiServer(Integer.parseInt(System.getProperty(LocalApi.PORT_PROPERTY)),
+                    ApiToken.readOrCreate(ApiToken.DEFAULT_PATH), tracker, taskRepository, projectRepository,
+                    sessionRepository, databaseScheduler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Provides
     @Singleton
     PreviewModel previewModel() {
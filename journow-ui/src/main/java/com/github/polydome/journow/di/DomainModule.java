@@ -1,16 +1,17 @@
 package com.github.polydome.journow.di;
 
 import com.github.polydome.journow.data.Database;
+import com.github.polydome.journow.data.metrics.Instrumentation;
+import com.github.polydome.journow.data.metrics.RepositoryMetrics;
 import com.github.polydome.journow.data.preferences.PreferencesTrackerDataStorage;
-import com.github.polydome.journow.data.repository.ProjectRepositoryImpl;
 import com.github.polydome.journow.data.repository.SessionRepositoryImpl;
 import com.github.polydome.journow.data.repository.TaskRepositoryImpl;
 import com.github.polydome.journow.data.event.DataEventBus;
 import com.github.polydome.journow.domain.model.TrackerData;
-import com.github.polydome.journow.domain.repository.ProjectRepository;
 import com.github.polydome.journow.domain.repository.SessionRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.domain.service.TrackerDataStorage;
+import com.github.polydome.journow.domain.usecase.DeleteTaskUseCase;
 import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
 import dagger.Module;
 import dagger.Provides;
@@ -21,23 +22,23 @@ import java.util.Optional;
 @Module
 public class DomainModule {
     @Provides
-    TaskRepository taskRepository(Database database, DataEventBus dataEventBus) {
-        return new TaskRepositoryImpl(database, dataEventBus);
+    TaskRepository taskRepository(Database database, DataEventBus dataEventBus, RepositoryMetrics repositoryMetrics) {
+        return Instrumentation.instrument(TaskRepository.class, new TaskRepositoryImpl(database, dataEventBus), repositoryMetrics);
     }
 
     @Provides
-    SessionRepository sessionRepository(Database database, DataEventBus dataEventBus) {
-        return new SessionRepositoryImpl(database, dataEventBus);
+    SessionRepository sessionRepository(Database database, DataEventBus dataEventBus, RepositoryMetrics repositoryMetrics) {
+        return Instrumentation.instrument(SessionRepository.class, new SessionRepositoryImpl(database, dataEventBus), repositoryMetrics);
     }
 
     @Provides
-    ProjectRepository projectRepository(Database database, DataEventBus dataEventBus) {
-        return new ProjectRepositoryImpl(database, dataEventBus);
+    LogSessionUseCase logSessionUseCase(TaskRepository taskRepository, SessionRepository sessionRepository) {
+        return new LogSessionUseCase(taskRepository, sessionRepository);
     }
 
     @Provides
-    LogSessionUseCase logSessionUseCase(TaskRepository taskRepository, SessionRepository sessionRepository) {
-        return new LogSessionUseCase(taskRepository, sessionRepository);
+    DeleteTaskUseCase deleteTaskUseCase(TaskRepository taskRepository, TrackerDataStorage trackerDataStorage) {
+        return new DeleteTaskUseCase(taskRepository, trackerDataStorage);
     }
 
     @Provides
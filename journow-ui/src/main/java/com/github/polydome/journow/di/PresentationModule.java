@@ -2,19 +2,19 @@ package com.github.polydome.journow.di;
 
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.ui.ticker.UiTicker;
 import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Observable;
 
 import javax.inject.Named;
-import java.util.concurrent.TimeUnit;
 
 @Module(includes = {DomainModule.class})
 public class PresentationModule {
     @Provides
     @Named("TimerUpdateInterval")
-    Observable<Long> timerUpdateInterval() {
-        return Observable.interval(100, TimeUnit.MILLISECONDS);
+    Observable<Long> timerUpdateInterval(UiTicker ticker) {
+        return ticker.seconds();
     }
 
     @Provides
@@ -4,6 +4,10 @@ import com.alee.laf.WebLookAndFeel;
 import com.alee.skin.dark.WebDarkSkin;
 import com.alee.skin.light.WebLightSkin;
 import com.github.polydome.journow.di.ApplicationComponent;
+import com.github.polydome.journow.domain.controller.Tracker;
+import com.github.polydome.journow.ui.diagnostics.EdtWatchdog;
+import com.github.polydome.journow.ui.startup.StartupTrace;
+import io.reactivex.rxjava3.core.Completable;
 
 import javax.swing.*;
 
@@ -15,15 +19,35 @@ public class App {
     }
 
     public void run() {
-        applicationComponent.database().init();
+        StartupTrace.mark("startup");
+        EdtWatchdog.install();
+
+        // Database init and data preloading run on the database thread while the EDT installs the LAF
+        Completable databaseReady = applicationComponent.databaseReady();
+        databaseReady.subscribe(() -> StartupTrace.mark("database ready"), Throwable::printStackTrace);
+        applicationComponent.dataPreloader().start();
 
         // Enable Anti-aliasing
         System.setProperty("awt.useSystemAAFontSettings", "lcd");
 
-        WebLookAndFeel.install();
-
-        applicationComponent.createPresentationComponent()
-                .trackerWindow()
-                .showWindow();
+        SwingUtilities.invokeLater(() -> {
+            WebLookAndFeel.install();
+            StartupTrace.mark("look and feel installed");
+
+            applicationComponent.createPresentationComponent()
+                    .trackerWindow()
+                    .showWindow();
+            StartupTrace.mark("window shown");
+        });
+
+        Tracker tracker = applicationComponent.tracker();
+        // Completes on the database thread, where the tracker reads its stored state
+        databaseReady.subscribe(tracker::refresh, Throwable::printStackTrace);
+
+        applicationComponent.backgroundSync().start();
+        applicationComponent.localApi().start();
+        applicationComponent.backgroundCompaction().start();
+        applicationComponent.backgroundArchiving().start();
+        applicationComponent.backgroundBackup().start();
     }
 }
@@ -0,0 +1,55 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.data.database.SessionArchiver;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves sessions older than {@code -Djournow.archive.days} to the archive once the database is ready and every hour
+ * after that. Every batch is a separate task on the database thread, so queries queued meanwhile run between batches.
+ * Without the property nothing is scheduled.
+ */
+@Singleton
+public class BackgroundArchiving {
+    public static final String DAYS_PROPERTY = "journow.archive.days";
+    private static final long PERIOD_MINUTES = 60;
+    static final long BATCH_PERIOD_MILLIS = 100;
+    static final int BATCH_ROWS = 500;
+
+    private final Completable databaseReady;
+    private final Scheduler databaseScheduler;
+    private final SessionArchiver sessionArchiver;
+    private final Clock clock;
+
+    @Inject
+    public BackgroundArchiving(@Named("DatabaseReady") Completable databaseReady,
+                               @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                               SessionArchiver sessionArchiver,
+                               Clock clock) {
+        this.databaseReady = databaseReady;
+        this.databaseScheduler = databaseScheduler;
+        this.sessionArchiver = sessionArchiver;
+        this.clock = clock;
+    }
+
+    public void start() {
+        if (System.getProperty(DAYS_PROPERTY) == null)
+            return;
+
+        Duration age = Duration.ofDays(Long.parseLong(System.getProperty(DAYS_PROPERTY)));
+
+        databaseReady.andThen(Observable.interval(0, PERIOD_MINUTES, TimeUnit.MINUTES, databaseScheduler))
+                .concatMap(tick -> Observable.interval(0, BATCH_PERIOD_MILLIS, TimeUnit.MILLISECONDS, databaseScheduler)
+                        .map(batch -> sessionArchiver.archive(clock.instant().minus(age), BATCH_ROWS))
+                        .takeWhile(moved -> moved > 0))
+                .subscribe(moved -> {}, Throwable::printStackTrace);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.data.backup.BackupService;
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Completable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+
+/**
+ * Backs the database up to the directory given by {@code -Djournow.backup.dir} once it is ready and every hour after
+ * that, keeping the last day of backups. The backups run on their own thread and only briefly hold up the database
+ * thread. Without the property nothing is scheduled.
+ */
+@Singleton
+public class BackgroundBackup {
+    public static final String DIR_PROPERTY = "journow.backup.dir";
+    public static final int KEEP = 24;
+    private static final Duration PERIOD = Duration.ofHours(1);
+
+    private final Completable databaseReady;
+    private final Lazy<BackupService> backupService;
+
+    @Inject
+    public BackgroundBackup(@Named("DatabaseReady") Completable databaseReady, Lazy<BackupService> backupService) {
+        this.databaseReady = databaseReady;
+        this.backupService = backupService;
+    }
+
+    public void start() {
+        if (System.getProperty(DIR_PROPERTY) == null)
+            return;
+
+        databaseReady.subscribe(() -> backupService.get().schedule(PERIOD), Throwable::printStackTrace);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.data.database.TaskCompactor;
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.data.event.DataEventBus;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purges deleted tasks and their sessions once the data has been left alone for a few seconds. Every batch is a
+ * separate task on the database thread, so queries queued meanwhile run between batches, and any change stops the
+ * run until the data is idle again.
+ */
+@Singleton
+public class BackgroundCompaction {
+    static final long IDLE_MILLIS = 3000;
+    static final long BATCH_PERIOD_MILLIS = 100;
+    static final int BATCH_ROWS = 500;
+
+    private final Completable databaseReady;
+    private final Scheduler databaseScheduler;
+    private final DataEventBus dataEventBus;
+    private final TaskCompactor taskCompactor;
+
+    @Inject
+    public BackgroundCompaction(@Named("DatabaseReady") Completable databaseReady,
+                                @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                                DataEventBus dataEventBus,
+                                TaskCompactor taskCompactor) {
+        this.databaseReady = databaseReady;
+        this.databaseScheduler = databaseScheduler;
+        this.dataEventBus = dataEventBus;
+        this.taskCompactor = taskCompactor;
+    }
+
+    public void start() {
+        // Opening counts as a change, so tasks deleted in the last run are purged once the application settles
+        databaseReady.andThen(Observable.merge(dataEventBus.taskEvents(), dataEventBus.sessionEvents(), dataEventBus.projectEvents())
+                .map(DataEvent::getType)
+                .startWithItem(DataEvent.Type.CHANGE))
+                .switchMap(change -> Observable.interval(IDLE_MILLIS, BATCH_PERIOD_MILLIS, TimeUnit.MILLISECONDS, databaseScheduler)
+                        .map(tick -> taskCompactor.compact(BATCH_ROWS))
+                        .takeWhile(deleted -> deleted > 0))
+                .subscribe(deleted -> {}, Throwable::printStackTrace);
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.data.sync.SyncEngine;
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syncs with the server given by {@code -Djournow.sync.url} once the database is ready and every few minutes
+ * after that. The rows are read and written on the database thread, but the server is waited on from the I/O
+ * scheduler, so an unreachable server never holds up the repositories. Without the property nothing is scheduled.
+ */
+@Singleton
+public class BackgroundSync {
+    public static final String URL_PROPERTY = "journow.sync.url";
+    private static final long PERIOD_MINUTES = 5;
+
+    private final Completable databaseReady;
+    private final Scheduler databaseScheduler;
+    private final Scheduler ioScheduler;
+    private final Lazy<SyncEngine> syncEngine;
+
+    @Inject
+    public BackgroundSync(@Named("DatabaseReady") Completable databaseReady,
+                          @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                          @Named("IoScheduler") Scheduler ioScheduler,
+                          Lazy<SyncEngine> syncEngine) {
+        this.databaseReady = databaseReady;
+        this.databaseScheduler = databaseScheduler;
+        this.ioScheduler = ioScheduler;
+        this.syncEngine = syncEngine;
+    }
+
+    public void start() {
+        if (System.getProperty(URL_PROPERTY) == null)
+            return;
+
+        // A failed round is retried on the next tick; the watermarks only move on success
+        databaseReady.andThen(Observable.interval(0, PERIOD_MINUTES, TimeUnit.MINUTES, databaseScheduler))
+                .concatMapMaybe(tick -> round()
+                        .doOnError(Throwable::printStackTrace)
+                        .onErrorComplete())
+                .subscribe(result -> {}, Throwable::printStackTrace);
+    }
+
+    Single<SyncEngine.Result> round() {
+        return Single.fromCallable(() -> syncEngine.get().begin())
+                .subscribeOn(databaseScheduler)
+                .observeOn(ioScheduler)
+                .map(round -> syncEngine.get().exchange(round))
+                .observeOn(databaseScheduler)
+                .map(round -> syncEngine.get().finish(round));
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.api.ApiServer;
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Completable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * Serves the local HTTP API on the port given by {@code -Djournow.api.port} once the database is ready. Without the
+ * property no server is created.
+ */
+@Singleton
+public class LocalApi {
+    public static final String PORT_PROPERTY = "journow.api.port";
+
+    private final Completable databaseReady;
+    private final Lazy<ApiServer> apiServer;
+
+    @Inject
+    public LocalApi(@Named("DatabaseReady") Completable databaseReady, Lazy<ApiServer> apiServer) {
+        this.databaseReady = databaseReady;
+        this.apiServer = apiServer;
+    }
+
+    public void start() {
+        if (System.getProperty(PORT_PROPERTY) == null)
+            return;
+
+        databaseReady.subscribe(() -> apiServer.get().start(), Throwable::printStackTrace);
+    }
+}
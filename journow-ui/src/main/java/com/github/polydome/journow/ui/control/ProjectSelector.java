@@ -1,10 +1,15 @@
 package com.github.polydome.journow.ui.control;
 
+import com.github.polydome.journow.common.FormatUtils;
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
 import com.github.polydome.journow.ui.listmodel.ProjectListModel;
 
 import javax.inject.Inject;
 import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import java.awt.*;
 
 public class ProjectSelector extends JComboBox<String> {
     private final ProjectListModel model;
@@ -15,6 +20,21 @@ public class ProjectSelector extends JComboBox<String> {
         setModel(model);
         setEditable(true);
         setToolTipText("Project name");
+        setRenderer(new SummaryRenderer(model));
+        addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                model.refreshSummaries();
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
     }
 
     public boolean hasCustomProject() {
@@ -38,4 +58,35 @@ public class ProjectSelector extends JComboBox<String> {
 
         return project;
     }
+
+    // Shows the project's tracked time and session count next to its name in the popup
+    private static class SummaryRenderer extends JPanel implements ListCellRenderer<String> {
+        private final ProjectListModel model;
+        private final DefaultListCellRenderer name = new DefaultListCellRenderer();
+        private final JLabel stats = new JLabel();
+
+        SummaryRenderer(ProjectListModel model) {
+            super(new BorderLayout());
+            this.model = model;
+            stats.setBorder(BorderFactory.createEmptyBorder(0, 12, 0, 4));
+            add(name, BorderLayout.CENTER);
+            add(stats, BorderLayout.EAST);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends String> list, String value, int index, boolean isSelected, boolean cellHasFocus) {
+            name.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+
+            // The closed combo renders its selection with index -1; only the popup rows get stats
+            ProjectSummary summary = index >= 0 ? model.getSummaryAt(index) : null;
+            if (summary == null)
+                return name;
+
+            stats.setText(FormatUtils.millisToReadableDuration(summary.getTotalMillis()) + "  " + summary.getSessionCount() + " sessions");
+            stats.setForeground(isSelected ? list.getSelectionForeground() : Color.GRAY);
+            stats.setFont(list.getFont());
+            setBackground(name.getBackground());
+            return this;
+        }
+    }
 }
@@ -0,0 +1,188 @@
+package com.github.polydome.journow.ui.diagnostics;
+
+import java.awt.*;
+import java.awt.event.InvocationEvent;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Event queue that times every dispatch on the EDT. When a dispatch runs past the threshold, a watcher thread samples
+ * the EDT stack until it finishes and logs the stall, attributed to the repository method found most often on the
+ * sampled stacks. The watcher stays parked while the EDT is idle.
+ */
+public class EdtWatchdog extends EventQueue {
+    private static final String REPOSITORY_SUFFIX = "RepositoryImpl";
+    private static final int MAX_LOGGED_FRAMES = 40;
+
+    private final long thresholdNanos;
+    private final long sampleIntervalNanos;
+    private final Logger logger;
+    private final LongSupplier nanoClock;
+    private final Function<Thread, StackTraceElement[]> stacks;
+    private final Thread watcher;
+
+    private volatile Thread dispatchThread;
+    private volatile long dispatchStart = 0;
+    private volatile long dispatchSequence = 0;
+    private volatile AWTEvent dispatchedEvent;
+    private volatile boolean watcherParked = false;
+
+    public EdtWatchdog(Duration threshold, Duration sampleInterval, Logger logger) {
+        this(threshold, sampleInterval, logger, System::nanoTime, Thread::getStackTrace);
+    }
+
+    EdtWatchdog(Duration threshold, Duration sampleInterval, Logger logger,
+                LongSupplier nanoClock, Function<Thread, StackTraceElement[]> stacks) {
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleIntervalNanos = sampleInterval.toNanos();
+        this.logger = logger;
+        this.nanoClock = nanoClock;
+        this.stacks = stacks;
+
+        watcher = new Thread(this::watch, "journow-edt-watchdog");
+        watcher.setDaemon(true);
+    }
+
+    public static EdtWatchdog install() {
+        var threshold = Duration.ofMillis(Long.getLong("journow.edtWatchdog.thresholdMillis", 200));
+        var watchdog = new EdtWatchdog(threshold, Duration.ofMillis(20), diagnosticsLogger());
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        watchdog.startWatching();
+        return watchdog;
+    }
+
+    void startWatching() {
+        watcher.start();
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        // A modal dialog dispatches nested events; the outer dispatch is no longer watched once they start,
+        // since waiting for the dialog to close is not a stall
+        dispatchThread = Thread.currentThread();
+        dispatchedEvent = event;
+        dispatchSequence++;
+        dispatchStart = nanoClock.getAsLong();
+        if (watcherParked)
+            LockSupport.unpark(watcher);
+
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            dispatchStart = 0;
+            dispatchedEvent = null;
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            long start = dispatchStart;
+            if (start == 0) {
+                watcherParked = true;
+                if (dispatchStart == 0)
+                    LockSupport.park(this);
+                watcherParked = false;
+                continue;
+            }
+
+            long sequence = dispatchSequence;
+            long untilThreshold = start + thresholdNanos - nanoClock.getAsLong();
+            if (untilThreshold > 0)
+                LockSupport.parkNanos(this, untilThreshold);
+
+            if (dispatchStart == start && dispatchSequence == sequence)
+                sampleStall(start, sequence);
+        }
+    }
+
+    private void sampleStall(long start, long sequence) {
+        var event = dispatchedEvent;
+        var samples = new ArrayList<StackTraceElement[]>();
+
+        while (dispatchStart == start && dispatchSequence == sequence) {
+            samples.add(stacks.apply(dispatchThread));
+            LockSupport.parkNanos(this, sampleIntervalNanos);
+        }
+
+        long stallNanos = nanoClock.getAsLong() - start;
+        logger.warning(report(event, Duration.ofNanos(stallNanos), samples));
+    }
+
+    static String report(AWTEvent event, Duration stall, List<StackTraceElement[]> samples) {
+        var culprits = new HashMap<String, Integer>();
+        StackTraceElement[] representative = samples.isEmpty() ? new StackTraceElement[0] : samples.get(0);
+
+        for (var sample : samples) {
+            var repositoryFrame = repositoryFrame(sample);
+            if (repositoryFrame != null) {
+                culprits.merge(repositoryFrame, 1, Integer::sum);
+                if (repositoryFrame(representative) == null)
+                    representative = sample;
+            }
+        }
+
+        var culprit = culprits.entrySet().stream().max(Map.Entry.comparingByValue());
+
+        var report = new StringBuilder("EDT stall of ").append(stall.toMillis()).append(" ms");
+        if (culprit.isPresent())
+            report.append(" in ").append(culprit.get().getKey())
+                    .append(" (").append(culprit.get().getValue()).append('/').append(samples.size()).append(" samples)");
+        else
+            report.append(" outside repositories (").append(samples.size()).append(" samples)");
+
+        report.append(" while dispatching ").append(describe(event, stall));
+
+        for (int i = 0; i < Math.min(representative.length, MAX_LOGGED_FRAMES); i++)
+            report.append(System.lineSeparator()).append("\tat ").append(representative[i]);
+        if (representative.length > MAX_LOGGED_FRAMES)
+            report.append(System.lineSeparator()).append("\t...");
+
+        return report.toString();
+    }
+
+    static String repositoryFrame(StackTraceElement[] stack) {
+        for (var frame : stack) {
+            var className = frame.getClassName();
+            if (className.endsWith(REPOSITORY_SUFFIX))
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+        }
+
+        return null;
+    }
+
+    private static String describe(AWTEvent event, Duration stall) {
+        if (event == null)
+            return "unknown event";
+        else if (event instanceof InvocationEvent)
+            return "invocation that waited " + (System.currentTimeMillis() - stall.toMillis() - ((InvocationEvent) event).getWhen()) + " ms in the queue";
+        else
+            return event.getClass().getSimpleName() + " " + event.paramString();
+    }
+
+    private static Logger diagnosticsLogger() {
+        var logger = Logger.getLogger("com.github.polydome.journow.diagnostics");
+
+        try {
+            var handler = new FileHandler("journow-diagnostics.%g.log", 1024 * 1024, 5, true);
+            handler.setFormatter(new SimpleFormatter());
+            logger.addHandler(handler);
+            logger.setUseParentHandlers(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        logger.setLevel(Level.INFO);
+        return logger;
+    }
+}
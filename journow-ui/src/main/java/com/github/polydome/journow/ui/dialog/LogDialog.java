@@ -8,6 +8,8 @@ import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
 import com.github.polydome.journow.ui.control.ProjectSelector;
 import com.github.polydome.journow.ui.listmodel.ProjectListModel;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.swing.*;
 import java.awt.*;
@@ -19,6 +21,8 @@ public class LogDialog extends JDialog {
     private final ProjectRepository projectRepository;
     private final TaskRepository taskRepository;
     private final LogSessionUseCase logSessionUseCase;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
 
     private final JTextField titleField = new JTextField();
     private final ProjectSelector projectField;
@@ -31,8 +35,10 @@ public class LogDialog extends JDialog {
                      TaskRepository taskRepository,
                      LogSessionUseCase logSessionUseCase,
                      ProjectListModel projectListModel,
+                     Scheduler databaseScheduler,
+                     Scheduler uiScheduler,
                      Task task) {
-        this(projectRepository, taskRepository, logSessionUseCase, projectListModel);
+        this(projectRepository, taskRepository, logSessionUseCase, projectListModel, databaseScheduler, uiScheduler);
         lockedTask = Optional.of(task);
 
         titleField.setText(task.getTitle());
@@ -46,8 +52,12 @@ public class LogDialog extends JDialog {
     public LogDialog(ProjectRepository projectRepository,
                      TaskRepository taskRepository,
                      LogSessionUseCase logSessionUseCase,
-                     ProjectListModel projectListModel) {
+                     ProjectListModel projectListModel,
+                     Scheduler databaseScheduler,
+                     Scheduler uiScheduler) {
         this.logSessionUseCase = logSessionUseCase;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
         this.projectRepository = projectRepository;
         this.taskRepository = taskRepository;
         this.projectField = new ProjectSelector(projectListModel);
@@ -104,23 +114,26 @@ public class LogDialog extends JDialog {
     }
 
     private void submit() {
-        Project project = projectField.getSelectedProject();
-        if (projectField.hasCustomProject() && project != null)
-            project = projectRepository.insert(project);
-
-        Task task;
-        if (lockedTask.isPresent() && lockedTask.get().getId() > 0)
-            task = lockedTask.get();
-        else
-            task = taskRepository.insert(new Task(0, titleField.getText(), project));
-
-        logSessionUseCase.execute(
-                getDateTimeInstant(startDatePicker),
-                getDateTimeInstant(endDatePicker),
-                task.getId()
-        );
-
-        dispose();
+        Project selectedProject = projectField.getSelectedProject();
+        boolean insertProject = projectField.hasCustomProject() && selectedProject != null;
+        Optional<Task> existingTask = lockedTask.filter(task -> task.getId() > 0);
+        String title = titleField.getText();
+        Instant startDate = getDateTimeInstant(startDatePicker);
+        Instant endDate = getDateTimeInstant(endDatePicker);
+
+        Completable.fromAction(() -> {
+            Project project = insertProject ? projectRepository.insert(selectedProject) : selectedProject;
+
+            Task task;
+            if (existingTask.isPresent())
+                task = existingTask.get();
+            else
+                task = taskRepository.insert(new Task(0, title, project));
+
+            logSessionUseCase.execute(startDate, endDate, task.getId());
+        }).subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(this::dispose, Throwable::printStackTrace);
     }
 
     private Instant getDateTimeInstant(DateTimePicker picker) {
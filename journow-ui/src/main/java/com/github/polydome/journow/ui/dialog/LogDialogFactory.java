@@ -7,8 +7,10 @@ import com.github.polydome.journow.domain.repository.SessionRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.domain.usecase.LogSessionUseCase;
 import com.github.polydome.journow.ui.listmodel.ProjectListModel;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 
 public class LogDialogFactory {
@@ -16,16 +18,22 @@ public class LogDialogFactory {
     private final Provider<TaskRepository> taskRepositoryProvider;
     private final Provider<LogSessionUseCase> logSessionUseCaseProvider;
     private final Provider<ProjectListModel> projectListModelProvider;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
 
     @Inject
     public LogDialogFactory(Provider<ProjectRepository> projectRepositoryProvider,
                             Provider<TaskRepository> taskRepositoryProvider,
                             Provider<LogSessionUseCase> logSessionUseCaseProvider,
-                            Provider<ProjectListModel> projectListModelProvider) {
+                            Provider<ProjectListModel> projectListModelProvider,
+                            @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                            @Named("UiScheduler") Scheduler uiScheduler) {
         this.projectRepositoryProvider = projectRepositoryProvider;
         this.taskRepositoryProvider = taskRepositoryProvider;
         this.logSessionUseCaseProvider = logSessionUseCaseProvider;
         this.projectListModelProvider = projectListModelProvider;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
     }
 
     public LogDialog createLinked(Task task) {
@@ -34,6 +42,8 @@ public class LogDialogFactory {
                 taskRepositoryProvider.get(),
                 logSessionUseCaseProvider.get(),
                 projectListModelProvider.get(),
+                databaseScheduler,
+                uiScheduler,
                 task
         );
     }
@@ -43,7 +53,9 @@ public class LogDialogFactory {
                 projectRepositoryProvider.get(),
                 taskRepositoryProvider.get(),
                 logSessionUseCaseProvider.get(),
-                projectListModelProvider.get()
+                projectListModelProvider.get(),
+                databaseScheduler,
+                uiScheduler
         );
     }
 }
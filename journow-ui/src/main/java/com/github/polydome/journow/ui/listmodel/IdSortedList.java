@@ -0,0 +1,146 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Model rows kept in ascending id order, which is the order repositories return them in. A data event only names a
+ * range of ids, so applying it means re-fetching that range and reconciling it against the rows already held,
+ * reporting every change as an interval for the model to fire.
+ */
+class IdSortedList<T> {
+    private final ArrayList<T> items = new ArrayList<>();
+    private final ToLongFunction<T> idOf;
+    private final Listener listener;
+
+    private int runKind = NONE;
+    private int runFrom;
+    private int runTo;
+
+    private static final int NONE = 0;
+    private static final int ADDED = 1;
+    private static final int CHANGED = 2;
+    private static final int REMOVED = 3;
+
+    IdSortedList(ToLongFunction<T> idOf, Listener listener) {
+        this.idOf = idOf;
+        this.listener = listener;
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    T get(int index) {
+        return items.get(index);
+    }
+
+    void addAll(List<T> sortedItems) {
+        int from = items.size();
+        items.addAll(sortedItems);
+
+        if (!sortedItems.isEmpty())
+            listener.added(from, items.size() - 1);
+    }
+
+    void clear() {
+        int size = items.size();
+        items.clear();
+
+        if (size > 0)
+            listener.removed(0, size - 1);
+    }
+
+    /**
+     * Makes the rows with ids between idStart and idStop match the given rows, which must be all rows in that range
+     * sorted by id.
+     */
+    void reconcile(long idStart, long idStop, List<T> current) {
+        int index = lowerBound(idStart);
+        int next = 0;
+
+        while (true) {
+            boolean hasExisting = index < items.size() && idOf.applyAsLong(items.get(index)) <= idStop;
+            boolean hasCurrent = next < current.size();
+            if (!hasExisting && !hasCurrent)
+                break;
+
+            long existingId = hasExisting ? idOf.applyAsLong(items.get(index)) : Long.MAX_VALUE;
+            long currentId = hasCurrent ? idOf.applyAsLong(current.get(next)) : Long.MAX_VALUE;
+
+            // Runs are extended before each mutation, so a finished run is reported while the rows still match it
+            if (existingId == currentId) {
+                extendRun(CHANGED, index);
+                items.set(index++, current.get(next++));
+            } else if (currentId < existingId) {
+                extendRun(ADDED, index);
+                items.add(index++, current.get(next++));
+            } else {
+                extendRun(REMOVED, index);
+                items.remove(index);
+            }
+        }
+
+        flushRun();
+    }
+
+    int indexOf(long id) {
+        int index = lowerBound(id);
+        return index < items.size() && idOf.applyAsLong(items.get(index)) == id ? index : -1;
+    }
+
+    private int lowerBound(long id) {
+        int low = 0;
+        int high = items.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idOf.applyAsLong(items.get(mid)) < id)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private void extendRun(int kind, int index) {
+        if (runKind == kind) {
+            if (kind == REMOVED && index == runFrom) {
+                runTo++;
+                return;
+            } else if (kind != REMOVED && index == runTo + 1) {
+                runTo = index;
+                return;
+            }
+        }
+
+        flushRun();
+        runKind = kind;
+        runFrom = index;
+        runTo = index;
+    }
+
+    private void flushRun() {
+        switch (runKind) {
+            case ADDED:
+                listener.added(runFrom, runTo);
+                break;
+            case CHANGED:
+                listener.changed(runFrom, runTo);
+                break;
+            case REMOVED:
+                listener.removed(runFrom, runTo);
+                break;
+        }
+
+        runKind = NONE;
+    }
+
+    interface Listener {
+        void added(int from, int to);
+        void changed(int from, int to);
+        void removed(int from, int to);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import jdk.jfr.*;
+
+@Name("com.github.polydome.journow.ModelRefresh")
+@Label("Model Refresh")
+@Category({"Journow", "UI"})
+@Description("Reload of a list, table or tree model, including the change events it fires")
+@StackTrace(false)
+public class ModelRefreshEvent extends Event {
+    @Label("Model")
+    public String model;
+
+    @Label("Trigger")
+    @Description("PRELOAD for the initial load, otherwise the type of the data event that caused the refresh")
+    public String trigger;
+
+    @Label("Rows")
+    public int rows;
+
+    static ModelRefreshEvent begin(Object model, String trigger) {
+        var event = new ModelRefreshEvent();
+        if (event.isEnabled()) {
+            event.model = model.getClass().getSimpleName();
+            event.trigger = trigger;
+            event.begin();
+        }
+        return event;
+    }
+
+    void commit(int rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+}
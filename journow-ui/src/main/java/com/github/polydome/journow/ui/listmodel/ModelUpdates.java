@@ -0,0 +1,28 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.data.event.DataEvent;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
+import java.util.function.Function;
+
+/**
+ * How the models follow data events. Each event is queried on the database thread, one at a time and in order, into
+ * an update that then runs on the EDT, so repositories are never called on the EDT and models are only mutated on it.
+ * A model's {@code loaded} flag is written by its updates on the EDT and read by its queries on the database thread,
+ * to choose between the event's id range and a full load; it is volatile for that reason.
+ */
+final class ModelUpdates {
+    private ModelUpdates() {
+    }
+
+    static void follow(Observable<DataEvent> events,
+                       Function<DataEvent, Runnable> query,
+                       Scheduler databaseScheduler,
+                       Scheduler uiScheduler) {
+        events.concatMapSingle(event -> Single.fromCallable(() -> query.apply(event)).subscribeOn(databaseScheduler))
+                .observeOn(uiScheduler)
+                .subscribe(Runnable::run, Throwable::printStackTrace);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.polydome.journow.ui.listmodel;
+
+/**
+ * A small least recently used cache of pages keyed by page index. Lookups scan a handful of slots and neither box
+ * the index nor allocate, so they are safe to do for every painted cell.
+ */
+class PageCache<P> {
+    private final int[] indices;
+    private final Object[] pages;
+    private final long[] lastUsed;
+    private long clock = 0;
+
+    PageCache(int capacity) {
+        indices = new int[capacity];
+        pages = new Object[capacity];
+        lastUsed = new long[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    P get(int index) {
+        for (int slot = 0; slot < pages.length; slot++) {
+            if (pages[slot] != null && indices[slot] == index) {
+                lastUsed[slot] = ++clock;
+                return (P) pages[slot];
+            }
+        }
+
+        return null;
+    }
+
+    void put(int index, P page) {
+        int target = 0;
+        for (int slot = 0; slot < pages.length; slot++) {
+            if (pages[slot] != null && indices[slot] == index) {
+                target = slot;
+                break;
+            }
+            if (pages[slot] == null || (pages[target] != null && lastUsed[slot] < lastUsed[target]))
+                target = slot;
+        }
+
+        indices[target] = index;
+        pages[target] = page;
+        lastUsed[target] = ++clock;
+    }
+
+    void removeFrom(int firstIndex) {
+        for (int slot = 0; slot < pages.length; slot++)
+            if (pages[slot] != null && indices[slot] >= firstIndex)
+                pages[slot] = null;
+    }
+}
@@ -2,47 +2,71 @@ package com.github.polydome.journow.ui.listmodel;
 
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
 import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.ui.startup.DataPreloader;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.swing.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class ProjectListModel extends DefaultComboBoxModel<String> {
-    private final List<Project> projects;
+public class ProjectListModel extends DefaultComboBoxModel<String> implements IdSortedList.Listener {
+    private final ProjectRepository projectRepository;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
+    private final IdSortedList<Project> projects = new IdSortedList<>(Project::getId, this);
+    private volatile boolean loaded = false;
+    // Keyed by project id; filled when the combo opens, so a closed combo never asks for stats
+    private Map<Long, ProjectSummary> summaries = Map.of();
 
     @Inject
-    public ProjectListModel(ProjectRepository projectRepository, @Named("ProjectDataEvents") Observable<DataEvent> events) {
-        projects = projectRepository.findAll();
-
-        events.subscribe(ev -> {
-            List<Project> freshTasks = projectRepository.findAll();
-            projects.clear();
-            projects.addAll(freshTasks);
-
-            switch (ev.getType()) {
-                case INSERT:
-                    var insertedProject = projects.stream().filter(proj -> proj.getId() == ev.getIdStart()).findFirst();
-                    if (insertedProject.isPresent()) {
-                        var index = projects.indexOf(insertedProject.get());
-                        fireIntervalAdded(this, index, index);
-                    } else {
-                        System.err.println("Inserted project not found");
-                    }
-                    break;
-                case CHANGE:
-                    var updatedProject = projects.stream().filter(task -> task.getId() == ev.getIdStart()).findFirst();
-                    if (updatedProject.isPresent()) {
-                        var index = projects.indexOf(updatedProject.get());
-                        fireContentsChanged(this, index, index);
-                    } else {
-                        System.err.println("Updated project not found");
-                    }
-                    break;
-            }
-        });
+    public ProjectListModel(ProjectRepository projectRepository,
+                            DataPreloader dataPreloader,
+                            @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                            @Named("UiScheduler") Scheduler uiScheduler,
+                            @Named("ProjectDataEvents") Observable<DataEvent> events) {
+        this.projectRepository = projectRepository;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
+
+        dataPreloader.projects()
+                .observeOn(uiScheduler)
+                .subscribe(this::load, Throwable::printStackTrace);
+
+        ModelUpdates.follow(events, this::query, databaseScheduler, uiScheduler);
+    }
+
+    private void load(List<Project> initialProjects) {
+        if (loaded)
+            return;
+
+        var refresh = ModelRefreshEvent.begin(this, "PRELOAD");
+        projects.addAll(initialProjects);
+        loaded = true;
+        refresh.commit(projects.size());
+    }
+
+    private Runnable query(DataEvent event) {
+        if (loaded) {
+            List<Project> current = projectRepository.findByIdRange(event.getIdStart(), event.getIdStop());
+            return () -> apply(event, event.getIdStart(), event.getIdStop(), current);
+        } else {
+            List<Project> all = projectRepository.findAll();
+            return () -> apply(event, Long.MIN_VALUE, Long.MAX_VALUE, all);
+        }
+    }
+
+    private void apply(DataEvent event, long idStart, long idStop, List<Project> current) {
+        var refresh = ModelRefreshEvent.begin(this, event.getType().name());
+        projects.reconcile(idStart, idStop, current);
+        loaded = true;
+        refresh.commit(projects.size());
     }
 
     @Override
@@ -58,10 +82,54 @@ public class ProjectListModel extends DefaultComboBoxModel<String> {
             return projects.get(i - 1).getName();
     }
 
+    /**
+     * Reloads the project stats and repaints the rows once they arrive. Cheap to call on every popup: the repository
+     * serves them from cache until data changes.
+     */
+    public void refreshSummaries() {
+        Single.fromCallable(projectRepository::findAllWithSummaries)
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(this::applySummaries, Throwable::printStackTrace);
+    }
+
+    private void applySummaries(List<ProjectSummary> current) {
+        Map<Long, ProjectSummary> byId = new HashMap<>(current.size() * 2);
+        for (ProjectSummary summary : current)
+            byId.put(summary.getProject().getId(), summary);
+
+        summaries = byId;
+        if (projects.size() > 0)
+            fireContentsChanged(this, 1, projects.size());
+    }
+
+    public ProjectSummary getSummaryAt(int i) {
+        if (i <= 0 || i > projects.size())
+            return null;
+        else
+            return summaries.get(projects.get(i - 1).getId());
+    }
+
     public Project getProjectAt(int i) {
         if (i == 0)
             return null;
         else
             return projects.get(i - 1);
     }
+
+    // Row 0 is the empty choice, so project indices are shifted by one
+    @Override
+    public void added(int from, int to) {
+        fireIntervalAdded(this, from + 1, to + 1);
+    }
+
+    @Override
+    public void changed(int from, int to) {
+        fireContentsChanged(this, from + 1, to + 1);
+    }
+
+    @Override
+    public void removed(int from, int to) {
+        fireIntervalRemoved(this, from + 1, to + 1);
+    }
 }
@@ -0,0 +1,44 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.domain.model.Project;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * Tree node of a project whose tasks are only loaded once it is first expanded. Until then it has no children and
+ * the cached task count decides whether the tree draws an expand handle.
+ */
+class ProjectNode extends DefaultMutableTreeNode {
+    private int taskCount;
+    private boolean loaded = false;
+
+    ProjectNode(Project project, int taskCount) {
+        super(project);
+        this.taskCount = taskCount;
+    }
+
+    Project getProject() {
+        return (Project) getUserObject();
+    }
+
+    int getTaskCount() {
+        return taskCount;
+    }
+
+    void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void setLoaded() {
+        loaded = true;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return loaded ? getChildCount() == 0 : taskCount == 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.common.FormatUtils;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * The cells of one session table row, formatted once when the row is loaded so painting only hands out strings.
+ */
+final class SessionRow {
+    static final String DELETED_TASK = "<deleted task>";
+
+    private final String startedAt;
+    private final String endedAt;
+    private final String duration;
+    private final String taskTitle;
+
+    private SessionRow(String startedAt, String endedAt, String duration, String taskTitle) {
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.duration = duration;
+        this.taskTitle = taskTitle;
+    }
+
+    static SessionRow of(Session session, Format format) {
+        // A session can outlive its task row, e.g. one synced in after the task was deleted here
+        Task task = session.getTask();
+
+        return new SessionRow(
+                format.dateTimeFormatter.format(session.getStartedAt()),
+                format.dateTimeFormatter.format(session.getEndedAt()),
+                FormatUtils.formatDuration(Duration.between(session.getStartedAt(), session.getEndedAt())),
+                task != null && task.getTitle() != null ? task.getTitle() : DELETED_TASK
+        );
+    }
+
+    String cell(int column) {
+        switch (column) {
+            case 0:
+                return startedAt;
+            case 1:
+                return endedAt;
+            case 2:
+                return duration;
+            case 3:
+                return taskTitle;
+        }
+
+        return "";
+    }
+
+    /**
+     * Locale and time zone the rows were formatted for. Rows of an outdated format are formatted again.
+     */
+    static final class Format {
+        private final Locale locale;
+        private final ZoneId zone;
+        private final DateTimeFormatter dateTimeFormatter;
+
+        private Format(Locale locale, ZoneId zone) {
+            this.locale = locale;
+            this.zone = zone;
+            this.dateTimeFormatter = DateTimeFormatter
+                    .ofPattern("dd-MM-yyyy HH:mm")
+                    .withLocale(locale)
+                    .withZone(zone);
+        }
+
+        static Format current() {
+            return new Format(Locale.getDefault(Locale.Category.FORMAT), ZoneId.systemDefault());
+        }
+
+        boolean isCurrent() {
+            return locale.equals(Locale.getDefault(Locale.Category.FORMAT)) && zone.equals(ZoneId.systemDefault());
+        }
+    }
+}
@@ -3,47 +3,186 @@ package com.github.polydome.journow.ui.listmodel;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.domain.model.Session;
 import com.github.polydome.journow.domain.repository.SessionRepository;
-import com.github.polydome.journow.common.FormatUtils;
+import com.github.polydome.journow.ui.startup.StartupTrace;
+import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.swing.table.AbstractTableModel;
-import java.time.Duration;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Optional;
 
+/**
+ * Sessions in id order, loaded a page at a time as the table asks for rows. Only the row count and the first id of
+ * every page are known up front; pages are fetched by id and formatted into {@link SessionRow}s on the database
+ * thread, then kept in a bounded LRU cache. Rows of a page that is still loading render empty until it arrives.
+ */
 public class SessionTableModel extends AbstractTableModel {
-    private final List<Session> sessions;
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter
-            .ofPattern("dd-MM-yyyy HH:mm")
-            .withLocale( Locale.getDefault() )
-            .withZone( ZoneId.systemDefault() );
+    static final int PAGE_SIZE = 100;
+    static final int CACHED_PAGES = 12;
+
+    private final SessionRepository sessionRepository;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
+
+    // Directory as last loaded on the database thread; only touched from the serialized loading chain
+    private long[] loadedPageStartIds = new long[0];
+
+    private int rowCount = 0;
+    private long[] pageStartIds = new long[0];
+    private int generation = 0;
+    private final BitSet pendingPages = new BitSet();
+    private final PageCache<Page> pages = new PageCache<>(CACHED_PAGES);
+    private SessionRow.Format format = SessionRow.Format.current();
 
     @Inject
-    public SessionTableModel(SessionRepository sessionRepository, @Named("SessionDataEvents") Observable<DataEvent> events) {
-        sessions = sessionRepository.findAll();
-        events.subscribe(ev -> {
-            if (ev.getType() == DataEvent.Type.INSERT) {
-                List<Session> freshTasks = sessionRepository.findAll();
-                sessions.clear();
-                sessions.addAll(freshTasks);
-                var insertedTask = sessions.stream().filter(task -> task.getId() == ev.getIdStart()).findFirst();
-                if (insertedTask.isPresent()) {
-                    var index = sessions.indexOf(insertedTask.get());
-                    fireTableRowsInserted(index, index);
-                } else {
-                    System.err.println("Inserted session not found");
-                }
-            }
-        });
+    public SessionTableModel(SessionRepository sessionRepository,
+                             @Named("DatabaseReady") Completable databaseReady,
+                             @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                             @Named("UiScheduler") Scheduler uiScheduler,
+                             @Named("SessionDataEvents") Observable<DataEvent> events) {
+        this.sessionRepository = sessionRepository;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
+
+        databaseReady.andThen(events.map(Optional::of).startWithItem(Optional.empty()))
+                .concatMapSingle(this::loadStructure)
+                .observeOn(uiScheduler)
+                .subscribe(this::applyStructure, Throwable::printStackTrace);
+    }
+
+    /**
+     * Pages before the one holding the first changed id keep their rows, so only the directory from that page on is
+     * queried again. An append costs one page instead of a scan of the whole table.
+     */
+    private Single<Structure> loadStructure(Optional<DataEvent> event) {
+        return Single.fromCallable(() -> {
+            long[] previous = loadedPageStartIds;
+            int firstStalePage = event.map(ev -> pageOf(previous, ev.getIdStart())).orElse(0);
+            long firstId = firstStalePage < previous.length ? previous[firstStalePage] : Long.MIN_VALUE;
+
+            long[] tail = sessionRepository.findPageStartIds(firstId, PAGE_SIZE);
+            long[] pageStartIds = Arrays.copyOf(previous, firstStalePage + tail.length);
+            System.arraycopy(tail, 0, pageStartIds, firstStalePage, tail.length);
+            int rowCount = firstStalePage * PAGE_SIZE + sessionRepository.countFrom(firstId);
+
+            loadedPageStartIds = pageStartIds;
+            return new Structure(event.orElse(null), rowCount, pageStartIds, firstStalePage);
+        }).subscribeOn(databaseScheduler);
+    }
+
+    private void applyStructure(Structure structure) {
+        DataEvent event = structure.event;
+        var refresh = ModelRefreshEvent.begin(this, event == null ? "PRELOAD" : event.getType().name());
+        int oldRowCount = rowCount;
+
+        pages.removeFrom(structure.firstStalePage);
+        pendingPages.clear();
+        generation++;
+
+        rowCount = structure.rowCount;
+        pageStartIds = structure.pageStartIds;
+
+        int firstStaleRow = structure.firstStalePage * PAGE_SIZE;
+        if (event == null || event.getType() == DataEvent.Type.REMOVE || rowCount < oldRowCount)
+            fireTableDataChanged();
+        else {
+            if (rowCount > oldRowCount)
+                fireTableRowsInserted(oldRowCount, rowCount - 1);
+            if (firstStaleRow < oldRowCount)
+                fireTableRowsUpdated(firstStaleRow, oldRowCount - 1);
+        }
+
+        refresh.commit(rowCount);
+
+        if (event == null)
+            StartupTrace.mark("session table loaded");
+        else
+            refreshFormat();
+    }
+
+    /**
+     * Reformats the cached rows in the background if the default locale or time zone changed since they were built.
+     * Until the new rows arrive the old ones stay on screen.
+     */
+    public void refreshFormat() {
+        if (format.isCurrent())
+            return;
+
+        format = SessionRow.Format.current();
+        pendingPages.clear();
+        generation++;
+
+        if (rowCount > 0)
+            fireTableRowsUpdated(0, rowCount - 1);
+    }
+
+    private static int pageOf(long[] pageStartIds, long sessionId) {
+        int index = Arrays.binarySearch(pageStartIds, sessionId);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    private SessionRow rowAt(int row) {
+        int page = row / PAGE_SIZE;
+        Page cached = pages.get(page);
+
+        if (cached == null) {
+            requestPage(page);
+            return null;
+        }
+
+        // Rows of an outdated format stay visible while they are formatted again
+        if (cached.format != format)
+            requestPage(page);
+
+        // Prefetch the neighbour the user is scrolling towards before it is needed
+        int offset = row % PAGE_SIZE;
+        if (offset >= PAGE_SIZE * 3 / 4)
+            requestPage(page + 1);
+        else if (offset < PAGE_SIZE / 4)
+            requestPage(page - 1);
+
+        return offset < cached.rows.length ? cached.rows[offset] : null;
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page >= pageStartIds.length || pendingPages.get(page))
+            return;
+
+        Page cached = pages.get(page);
+        if (cached != null && cached.format == format)
+            return;
+
+        pendingPages.set(page);
+        int requestGeneration = generation;
+        long firstId = pageStartIds[page];
+        SessionRow.Format pageFormat = format;
+
+        Single.fromCallable(() -> new Page(sessionRepository.findPage(firstId, PAGE_SIZE), pageFormat))
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(loaded -> {
+                    if (requestGeneration != generation)
+                        return;
+
+                    pendingPages.clear(page);
+                    pages.put(page, loaded);
+
+                    int firstRow = page * PAGE_SIZE;
+                    int lastRow = Math.min(rowCount, firstRow + PAGE_SIZE) - 1;
+                    if (lastRow >= firstRow)
+                        fireTableRowsUpdated(firstRow, lastRow);
+                }, Throwable::printStackTrace);
     }
 
     @Override
     public int getRowCount() {
-        return sessions.size();
+        return rowCount;
     }
 
     @Override
@@ -53,19 +192,8 @@ public class SessionTableModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int row, int col) {
-        Session session = sessions.get(row);
-        switch (col) {
-            case 0:
-                return dateTimeFormatter.format(session.getStartedAt());
-            case 1:
-                return dateTimeFormatter.format(session.getEndedAt());
-            case 2:
-                return FormatUtils.formatDuration(Duration.between(session.getStartedAt(), session.getEndedAt()));
-            case 3:
-                return session.getTask().getTitle();
-        }
-
-        return "";
+        SessionRow sessionRow = rowAt(row);
+        return sessionRow != null ? sessionRow.cell(col) : "";
     }
 
     @Override
@@ -83,4 +211,31 @@ public class SessionTableModel extends AbstractTableModel {
 
         return "";
     }
+
+    private static class Page {
+        final SessionRow[] rows;
+        final SessionRow.Format format;
+
+        Page(List<Session> sessions, SessionRow.Format format) {
+            this.rows = new SessionRow[sessions.size()];
+            this.format = format;
+
+            for (int i = 0; i < rows.length; i++)
+                rows[i] = SessionRow.of(sessions.get(i), format);
+        }
+    }
+
+    private static class Structure {
+        final DataEvent event;
+        final int rowCount;
+        final long[] pageStartIds;
+        final int firstStalePage;
+
+        Structure(DataEvent event, int rowCount, long[] pageStartIds, int firstStalePage) {
+            this.event = event;
+            this.rowCount = rowCount;
+            this.pageStartIds = pageStartIds;
+            this.firstStalePage = firstStalePage;
+        }
+    }
 }
@@ -3,48 +3,60 @@ package com.github.polydome.journow.ui.listmodel;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.startup.DataPreloader;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.swing.*;
 import java.util.List;
 
-public class TaskListModel extends AbstractListModel<Task> {
+public class TaskListModel extends AbstractListModel<Task> implements IdSortedList.Listener {
     private final TaskRepository taskRepository;
-    private final List<Task> tasks;
+    private final IdSortedList<Task> tasks = new IdSortedList<>(Task::getId, this);
+    private volatile boolean loaded = false;
 
     @Inject
-    public TaskListModel(TaskRepository taskRepository, @Named("TaskDataEvents") Observable<DataEvent> events) {
+    public TaskListModel(TaskRepository taskRepository,
+                         DataPreloader dataPreloader,
+                         @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                         @Named("UiScheduler") Scheduler uiScheduler,
+                         @Named("TaskDataEvents") Observable<DataEvent> events) {
         this.taskRepository = taskRepository;
-        tasks = taskRepository.findAll();
-
-        events.subscribe(ev -> {
-            List<Task> freshTasks = taskRepository.findAll();
-            tasks.clear();
-            tasks.addAll(freshTasks);
-
-            switch (ev.getType()) {
-                case INSERT:
-                    var insertedTask = tasks.stream().filter(task -> task.getId() == ev.getIdStart()).findFirst();
-                    if (insertedTask.isPresent()) {
-                        var index = tasks.indexOf(insertedTask.get());
-                        fireIntervalAdded(this, index, index);
-                    } else {
-                        System.err.println("Inserted task not found");
-                    }
-                    break;
-                case CHANGE:
-                    var updatedTask = tasks.stream().filter(task -> task.getId() == ev.getIdStart()).findFirst();
-                    if (updatedTask.isPresent()) {
-                        var index = tasks.indexOf(updatedTask.get());
-                        fireContentsChanged(this, index, index);
-                    } else {
-                        System.err.println("Updated task not found");
-                    }
-                    break;
-            }
-        });
+
+        dataPreloader.tasks()
+                .observeOn(uiScheduler)
+                .subscribe(this::load, Throwable::printStackTrace);
+
+        ModelUpdates.follow(events, this::query, databaseScheduler, uiScheduler);
+    }
+
+    private void load(List<Task> initialTasks) {
+        if (loaded)
+            return;
+
+        var refresh = ModelRefreshEvent.begin(this, "PRELOAD");
+        tasks.addAll(initialTasks);
+        loaded = true;
+        refresh.commit(tasks.size());
+    }
+
+    private Runnable query(DataEvent event) {
+        if (loaded) {
+            List<Task> current = taskRepository.findByIdRange(event.getIdStart(), event.getIdStop());
+            return () -> apply(event, event.getIdStart(), event.getIdStop(), current);
+        } else {
+            List<Task> all = taskRepository.findAll();
+            return () -> apply(event, Long.MIN_VALUE, Long.MAX_VALUE, all);
+        }
+    }
+
+    private void apply(DataEvent event, long idStart, long idStop, List<Task> current) {
+        var refresh = ModelRefreshEvent.begin(this, event.getType().name());
+        tasks.reconcile(idStart, idStop, current);
+        loaded = true;
+        refresh.commit(tasks.size());
     }
 
     @Override
@@ -56,4 +68,19 @@ public class TaskListModel extends AbstractListModel<Task> {
     public Task getElementAt(int i) {
         return tasks.get(i);
     }
+
+    @Override
+    public void added(int from, int to) {
+        fireIntervalAdded(this, from, to);
+    }
+
+    @Override
+    public void changed(int from, int to) {
+        fireContentsChanged(this, from, to);
+    }
+
+    @Override
+    public void removed(int from, int to) {
+        fireIntervalRemoved(this, from, to);
+    }
 }
@@ -3,76 +3,229 @@ package com.github.polydome.journow.ui.listmodel;
 import com.github.polydome.journow.data.event.DataEvent;
 import com.github.polydome.journow.domain.model.Project;
 import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.startup.StartupTrace;
+import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.PublishSubject;
 import io.reactivex.rxjava3.subjects.Subject;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Projects with their tasks, followed by tasks without a project. Only projects, their task counts and tasks without
+ * a project are loaded up front; the tasks of a project are queried when its node is first expanded.
+ */
 public class TaskTreeModel extends DefaultTreeModel {
 
     private final TaskRepository taskRepository;
+    private final ProjectRepository projectRepository;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
+    private final TaskTreeReconciler reconciler;
+    // The project (0 for none) of every task the database thread has queried, confined to it. Tells which projects a
+    // removed or moved task leaves, so an event only recounts the projects it touched
+    private final NavigableMap<Long, Long> taskProjects = new TreeMap<>();
+    private volatile boolean loaded = false;
 
-    private final Subject<Boolean> _reloads = BehaviorSubject.create();
+    private final Subject<TreePath> _addedProjects = PublishSubject.create();
 
     @Inject
-    public TaskTreeModel(TaskRepository taskRepository, @Named("TaskDataEvents") Observable<DataEvent> taskEvents, @Named("ProjectDataEvents") Observable<DataEvent> projectEvents) {
+    public TaskTreeModel(TaskRepository taskRepository,
+                         ProjectRepository projectRepository,
+                         @Named("DatabaseReady") Completable databaseReady,
+                         @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                         @Named("UiScheduler") Scheduler uiScheduler,
+                         @Named("TaskDataEvents") Observable<DataEvent> taskEvents,
+                         @Named("ProjectDataEvents") Observable<DataEvent> projectEvents) {
         super(new DefaultMutableTreeNode());
         this.taskRepository = taskRepository;
-        populate();
-        _reloads.onNext(true);
+        this.projectRepository = projectRepository;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
+        this.reconciler = new TaskTreeReconciler(this);
+
+        databaseReady.andThen(Single.fromCallable(this::queryTopLevel))
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(this::load, Throwable::printStackTrace);
+
+        ModelUpdates.follow(taskEvents, this::queryTasks, databaseScheduler, uiScheduler);
+        ModelUpdates.follow(projectEvents, this::queryProjects, databaseScheduler, uiScheduler);
+    }
 
-        taskEvents.subscribe(ev -> repopulate());
-        projectEvents.subscribe(ev -> repopulate());
+    /**
+     * Paths of project nodes added after the initial load.
+     */
+    public Observable<TreePath> addedProjects() {
+        return _addedProjects.toSerialized();
     }
 
-    public Observable<Boolean> reloads() {
-        return _reloads.toSerialized();
+    public boolean isLoaded(TreePath path) {
+        Object node = path.getLastPathComponent();
+        return !(node instanceof ProjectNode) || ((ProjectNode) node).isLoaded();
     }
 
-    private void populate() {
-        DefaultMutableTreeNode root = (DefaultMutableTreeNode) getRoot();
-        Map<Project, List<Task>> projectTaskMap = new HashMap<>();
-        List<Task> tasks = taskRepository.findAll();
+    /**
+     * Queries the tasks of the project at the given path on the database thread and adds them to the tree on the
+     * EDT. Completes once the project node can be expanded.
+     */
+    public Completable loadChildren(TreePath path) {
+        if (isLoaded(path))
+            return Completable.complete();
+
+        var projectNode = (ProjectNode) path.getLastPathComponent();
+        long projectId = projectNode.getProject().getId();
+
+        return Single.fromCallable(() -> remember(taskRepository.findByProject(projectId)))
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .doOnSuccess(tasks -> {
+                    // The project may have left the tree while its tasks were queried
+                    if (projectNode.getParent() == null)
+                        return;
+
+                    var refresh = ModelRefreshEvent.begin(this, "EXPAND");
+                    reconciler.loadProject(projectNode, tasks);
+                    refresh.commit(projectNode.getChildCount());
+                })
+                .ignoreElement();
+    }
 
-        for (var task : tasks) {
-            if (!projectTaskMap.containsKey(task.getProject()))
-                projectTaskMap.put(task.getProject(), new LinkedList<>());
+    private TopLevel queryTopLevel() {
+        return new TopLevel(projectRepository.findAll(), taskRepository.countByProject(), remember(taskRepository.findWithoutProject()));
+    }
 
-            projectTaskMap.get(task.getProject()).add(task);
+    private Runnable queryTasks(DataEvent event) {
+        if (!loaded) {
+            TopLevel topLevel = queryTopLevel();
+            return () -> load(topLevel);
         }
 
-        var orphanTasks = projectTaskMap.remove(null);
+        long idStart = event.getIdStart();
+        long idStop = event.getIdStop();
+        List<Task> tasks = taskRepository.findByIdRange(idStart, idStop);
+
+        Set<Long> affected = affectedProjects(event, tasks);
+        taskProjects.subMap(idStart, true, idStop, true).clear();
+        remember(tasks);
+
+        Map<Long, Integer> taskCounts;
+        LongPredicate counted;
+        if (affected != null) {
+            taskCounts = new HashMap<>();
+            for (long projectId : affected)
+                taskCounts.putAll(taskRepository.countByProjectRange(projectId, projectId));
+            counted = affected::contains;
+        } else {
+            taskCounts = taskRepository.countByProject();
+            counted = id -> true;
+        }
 
-        for (var project : projectTaskMap.keySet()) {
-            DefaultMutableTreeNode node = new DefaultMutableTreeNode(project);
+        return () -> {
+            var refresh = ModelRefreshEvent.begin(this, "TASK_" + event.getType());
+            reconciler.reconcileTasks(tasks, id -> idStart <= id && id <= idStop);
 
-            for (var task : projectTaskMap.get(project)) {
-                node.add(new DefaultMutableTreeNode(task));
-            }
+            // Only a task in the range can have brought a project into the tree
+            List<Project> projects = new ArrayList<>();
+            for (Task task : tasks)
+                if (task.getProject() != null)
+                    projects.add(task.getProject());
+            publishAdded(reconciler.reconcileProjects(projects, taskCounts, counted));
 
-            root.add(node);
-        }
+            refresh.commit(tasks.size());
+        };
+    }
 
-        if (orphanTasks != null) {
-            for (var task : orphanTasks) {
-                root.add(new DefaultMutableTreeNode(task));
-            }
+    private Runnable queryProjects(DataEvent event) {
+        if (!loaded) {
+            TopLevel topLevel = queryTopLevel();
+            return () -> load(topLevel);
         }
+
+        long idStart = event.getIdStart();
+        long idStop = event.getIdStop();
+        List<Project> projects = projectRepository.findByIdRange(idStart, idStop);
+        Map<Long, Integer> taskCounts = taskRepository.countByProjectRange(idStart, idStop);
+
+        return () -> {
+            var refresh = ModelRefreshEvent.begin(this, "PROJECT_" + event.getType());
+            publishAdded(reconciler.reconcileProjects(projects, taskCounts, id -> idStart <= id && id <= idStop));
+            refresh.commit(projects.size());
+        };
+    }
+
+    private void load(TopLevel topLevel) {
+        if (loaded)
+            return;
+
+        var refresh = ModelRefreshEvent.begin(this, "PRELOAD");
+        loaded = true;
+
+        reconciler.reconcileProjects(topLevel.projects, topLevel.taskCounts, id -> true);
+        reconciler.reconcileTasks(topLevel.tasksWithoutProject, id -> false);
+
+        refresh.commit(topLevel.projects.size() + topLevel.tasksWithoutProject.size());
+        StartupTrace.mark("task tree loaded");
     }
 
-    private void repopulate() {
-        ((DefaultMutableTreeNode) getRoot()).removeAllChildren();
-        populate();
-        reload();
-        _reloads.onNext(true);
+    // Runs on the database thread. The projects the tasks of the event are in now and were in before, or null when a
+    // task was removed or changed that was never queried, so its former project is unknown
+    private Set<Long> affectedProjects(DataEvent event, List<Task> tasks) {
+        long idStart = event.getIdStart();
+        long idStop = event.getIdStop();
+        var known = taskProjects.subMap(idStart, true, idStop, true);
+
+        if (event.getType() == DataEvent.Type.REMOVE && known.size() < idStop - idStart + 1)
+            return null;
+        if (event.getType() == DataEvent.Type.CHANGE)
+            for (Task task : tasks)
+                if (!known.containsKey(task.getId()))
+                    return null;
+
+        Set<Long> affected = new HashSet<>(known.values());
+        for (Task task : tasks)
+            affected.add(task.getProject() != null ? task.getProject().getId() : 0);
+        affected.remove(0L);
+        return affected;
+    }
+
+    private List<Task> remember(List<Task> tasks) {
+        for (Task task : tasks)
+            taskProjects.put(task.getId(), task.getProject() != null ? task.getProject().getId() : 0);
+        return tasks;
+    }
+
+    private void publishAdded(List<ProjectNode> addedProjects) {
+        for (var node : addedProjects)
+            _addedProjects.onNext(new TreePath(node.getPath()));
+    }
+
+    private static class TopLevel {
+        final List<Project> projects;
+        final Map<Long, Integer> taskCounts;
+        final List<Task> tasksWithoutProject;
+
+        TopLevel(List<Project> projects, Map<Long, Integer> taskCounts, List<Task> tasksWithoutProject) {
+            this.projects = projects;
+            this.taskCounts = taskCounts;
+            this.tasksWithoutProject = tasksWithoutProject;
+        }
     }
 }
@@ -0,0 +1,239 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.*;
+import java.util.function.LongPredicate;
+
+/**
+ * Brings the project/task tree in line with fresh data by editing the existing nodes in place and firing only the
+ * matching inserted, removed and changed events, so untouched nodes keep their selection and expansion. Project nodes
+ * come first in project id order, followed by tasks without a project; tasks are kept in id order. Projects are
+ * driven by their task counts and only hold task nodes once they have been loaded.
+ */
+class TaskTreeReconciler {
+    private final DefaultTreeModel model;
+    private final DefaultMutableTreeNode root;
+    private final Map<Long, ProjectNode> projectNodes = new HashMap<>();
+    private final Map<Long, DefaultMutableTreeNode> taskNodes = new HashMap<>();
+
+    TaskTreeReconciler(DefaultTreeModel model) {
+        this.model = model;
+        this.root = (DefaultMutableTreeNode) model.getRoot();
+    }
+
+    /**
+     * Tasks belonging to a project that is not in the tree or not loaded yet are skipped; they are accounted for by
+     * the task counts passed to {@link #reconcileProjects}.
+     *
+     * @param tasks   every task whose id is in scope
+     * @param inScope ids covered by the given tasks; nodes of tasks in scope but missing from the list are removed
+     */
+    void reconcileTasks(Collection<Task> tasks, LongPredicate inScope) {
+        Map<Long, Task> current = new HashMap<>();
+        for (Task task : tasks)
+            current.put(task.getId(), task);
+
+        removeStale(current, inScope);
+        updateChanged(current);
+        insertNew(current);
+    }
+
+    /**
+     * @param projects   projects to add or rename; nodes of other projects are only recounted
+     * @param taskCounts number of tasks of every counted project that has any; projects without tasks are not shown
+     * @param counted    ids of the projects the counts cover; the nodes of other projects keep their count
+     * @return project nodes that were added to the tree
+     */
+    List<ProjectNode> reconcileProjects(Collection<Project> projects, Map<Long, Integer> taskCounts, LongPredicate counted) {
+        List<DefaultMutableTreeNode> emptyProjects = new ArrayList<>();
+        for (var node : projectNodes.values()) {
+            if (!counted.test(node.getProject().getId()))
+                continue;
+
+            int taskCount = taskCounts.getOrDefault(node.getProject().getId(), 0);
+            if (taskCount == 0)
+                emptyProjects.add(node);
+            else
+                node.setTaskCount(taskCount);
+        }
+
+        for (var node : emptyProjects) {
+            projectNodes.remove(((Project) node.getUserObject()).getId());
+            for (int i = 0; i < node.getChildCount(); i++)
+                taskNodes.remove(((Task) ((DefaultMutableTreeNode) node.getChildAt(i)).getUserObject()).getId());
+        }
+        removeChildren(root, emptyProjects);
+
+        List<ProjectNode> addedProjects = new ArrayList<>();
+        for (Project project : projects) {
+            var node = projectNodes.get(project.getId());
+            if (node != null) {
+                if (!node.getProject().equals(project)) {
+                    node.setUserObject(project);
+                    model.nodeChanged(node);
+                }
+            } else if (taskCounts.getOrDefault(project.getId(), 0) > 0) {
+                node = new ProjectNode(project, taskCounts.get(project.getId()));
+                projectNodes.put(project.getId(), node);
+                addedProjects.add(node);
+            }
+        }
+
+        insertChildren(root, new ArrayList<>(addedProjects));
+        return addedProjects;
+    }
+
+    /**
+     * Fills a project node that was not loaded yet with the project's tasks.
+     */
+    void loadProject(ProjectNode projectNode, List<Task> tasks) {
+        if (projectNode.isLoaded())
+            return;
+
+        projectNode.setLoaded();
+
+        List<DefaultMutableTreeNode> children = new ArrayList<>();
+        for (Task task : tasks) {
+            if (taskNodes.containsKey(task.getId()))
+                continue;
+
+            var node = new DefaultMutableTreeNode(task);
+            taskNodes.put(task.getId(), node);
+            children.add(node);
+        }
+
+        insertChildren(projectNode, children);
+        projectNode.setTaskCount(projectNode.getChildCount());
+    }
+
+    private void removeStale(Map<Long, Task> current, LongPredicate inScope) {
+        Map<DefaultMutableTreeNode, List<DefaultMutableTreeNode>> removals = new HashMap<>();
+
+        for (var node : taskNodes.values()) {
+            Task existing = (Task) node.getUserObject();
+            if (!inScope.test(existing.getId()))
+                continue;
+
+            Task task = current.get(existing.getId());
+            if (task == null || projectId(task) != projectId(existing))
+                removals.computeIfAbsent((DefaultMutableTreeNode) node.getParent(), parent -> new ArrayList<>()).add(node);
+        }
+
+        for (var removal : removals.entrySet()) {
+            for (var node : removal.getValue())
+                taskNodes.remove(((Task) node.getUserObject()).getId());
+            removeChildren(removal.getKey(), removal.getValue());
+        }
+    }
+
+    private void updateChanged(Map<Long, Task> current) {
+        for (Task task : current.values()) {
+            var node = taskNodes.get(task.getId());
+            if (node == null)
+                continue;
+
+            Task existing = (Task) node.getUserObject();
+            node.setUserObject(task);
+            if (!existing.getTitle().equals(task.getTitle()))
+                model.nodeChanged(node);
+
+            var projectNode = task.getProject() != null ? projectNodes.get(task.getProject().getId()) : null;
+            if (projectNode != null && !projectNode.getUserObject().equals(task.getProject())) {
+                projectNode.setUserObject(task.getProject());
+                model.nodeChanged(projectNode);
+            }
+        }
+    }
+
+    private void insertNew(Map<Long, Task> current) {
+        List<Task> added = new ArrayList<>();
+        for (Task task : current.values())
+            if (!taskNodes.containsKey(task.getId()))
+                added.add(task);
+        added.sort(Comparator.comparingLong(Task::getId));
+
+        Map<DefaultMutableTreeNode, List<DefaultMutableTreeNode>> insertions = new LinkedHashMap<>();
+
+        for (Task task : added) {
+            DefaultMutableTreeNode parent = root;
+            if (task.getProject() != null) {
+                ProjectNode projectNode = projectNodes.get(task.getProject().getId());
+                if (projectNode == null || !projectNode.isLoaded())
+                    continue;
+                parent = projectNode;
+            }
+
+            var node = new DefaultMutableTreeNode(task);
+            taskNodes.put(task.getId(), node);
+            insertions.computeIfAbsent(parent, key -> new ArrayList<>()).add(node);
+        }
+
+        for (var insertion : insertions.entrySet())
+            insertChildren(insertion.getKey(), insertion.getValue());
+    }
+
+    private void removeChildren(DefaultMutableTreeNode parent, List<DefaultMutableTreeNode> children) {
+        if (children.isEmpty())
+            return;
+
+        int[] indices = new int[children.size()];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = parent.getIndex(children.get(i));
+        Arrays.sort(indices);
+
+        Object[] removed = new Object[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            removed[i] = parent.getChildAt(indices[i]);
+            parent.remove(indices[i]);
+        }
+
+        model.nodesWereRemoved(parent, indices, removed);
+    }
+
+    private void insertChildren(DefaultMutableTreeNode parent, List<DefaultMutableTreeNode> children) {
+        if (children.isEmpty())
+            return;
+
+        for (var child : children)
+            parent.insert(child, insertionIndex(parent, sortKey(child)));
+
+        int[] indices = new int[children.size()];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = parent.getIndex(children.get(i));
+        Arrays.sort(indices);
+
+        model.nodesWereInserted(parent, indices);
+    }
+
+    private static int insertionIndex(DefaultMutableTreeNode parent, long key) {
+        int low = 0;
+        int high = parent.getChildCount();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortKey((DefaultMutableTreeNode) parent.getChildAt(mid)) < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    // Projects sort before tasks among the root's children; ids stay far below 2^62
+    private static long sortKey(DefaultMutableTreeNode node) {
+        Object item = node.getUserObject();
+        if (item instanceof Project)
+            return ((Project) item).getId();
+        else
+            return (1L << 62) + ((Task) item).getId();
+    }
+
+    private static long projectId(Task task) {
+        return task.getProject() != null ? task.getProject().getId() : 0;
+    }
+}
@@ -2,27 +2,46 @@ package com.github.polydome.journow.ui.popup;
 
 import com.github.polydome.journow.domain.controller.Tracker;
 import com.github.polydome.journow.domain.model.Task;
-import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.domain.model.TrackerData;
+import com.github.polydome.journow.domain.usecase.DeleteTaskUseCase;
 import com.github.polydome.journow.ui.dialog.LogDialogFactory;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.swing.*;
 import java.awt.*;
 
 public class TaskPopupMenu extends JPopupMenu {
+    private final Tracker tracker;
+    private final JMenuItem deleteItem = new JMenuItem("Delete");
     private Task selectedTask;
 
     @Inject
-    public TaskPopupMenu(Tracker tracker, LogDialogFactory logDialogFactory, TaskRepository taskRepository) {
+    public TaskPopupMenu(Tracker tracker,
+                         LogDialogFactory logDialogFactory,
+                         DeleteTaskUseCase deleteTaskUseCase,
+                         @Named("DatabaseScheduler") Scheduler databaseScheduler) {
         super("Task");
+        this.tracker = tracker;
 
         JMenuItem startTrackingItem = new JMenuItem("Start tracking");
         JMenuItem logItem = new JMenuItem("Log work");
-        JMenuItem deleteItem = new JMenuItem("Delete");
 
-        startTrackingItem.addActionListener(a -> tracker.start(selectedTask.getId()));
+        startTrackingItem.addActionListener(a -> {
+            long taskId = selectedTask.getId();
+            Completable.fromAction(() -> tracker.start(taskId))
+                    .subscribeOn(databaseScheduler)
+                    .subscribe(() -> {}, Throwable::printStackTrace);
+        });
         logItem.addActionListener(a -> logDialogFactory.createLinked(selectedTask));
-        deleteItem.addActionListener(a -> taskRepository.delete(selectedTask));
+        deleteItem.addActionListener(a -> {
+            Task task = selectedTask;
+            Completable.fromAction(() -> deleteTaskUseCase.execute(task))
+                    .subscribeOn(databaseScheduler)
+                    .subscribe(() -> {}, Throwable::printStackTrace);
+        });
 
         add(startTrackingItem);
         add(logItem);
@@ -31,6 +50,10 @@ public class TaskPopupMenu extends JPopupMenu {
 
     public void show(Component invoker, int x, int y, Task task) {
         selectedTask = task;
+        // The use case refuses anyway; this only spares a click, from what this window last saw of the tracker
+        TrackerData tracked = tracker.getData().orElse(null);
+        deleteItem.setEnabled(tracked == null || tracked.getTaskId() != task.getId());
+        deleteItem.setToolTipText(deleteItem.isEnabled() ? null : "Stop tracking the task to delete it");
         super.show(invoker, x, y);
     }
 }
@@ -2,22 +2,44 @@ package com.github.polydome.journow.ui.preview;
 
 import com.github.polydome.journow.common.FormatUtils;
 import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.ProjectSummary;
 import com.github.polydome.journow.domain.repository.ProjectRepository;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.swing.*;
 import java.awt.*;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
 
 public class ProjectPreviewPane extends JPanel implements EntityEditorForm {
     private final JTextField nameField = new JTextField();
     private final JLabel timeTrackedField = new JLabel();
+    private final JLabel sessionCountField = new JLabel();
+    private final JLabel taskCountField = new JLabel();
+    private final JLabel averageSessionField = new JLabel();
+    private final JLabel firstActivityField = new JLabel();
+    private final JLabel lastActivityField = new JLabel();
+    private final DateTimeFormatter activityFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM, FormatStyle.SHORT);
     private final ProjectRepository projectRepository;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
 
     private long previewedProjectId = -1;
 
     @Inject
-    public ProjectPreviewPane(PreviewModel model, ProjectRepository projectRepository) {
+    public ProjectPreviewPane(PreviewModel model,
+                              ProjectRepository projectRepository,
+                              @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                              @Named("UiScheduler") Scheduler uiScheduler) {
         this.projectRepository = projectRepository;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
         JLabel nameLabel = new JLabel("Name");
 
         GridBagLayout layout = new GridBagLayout();
@@ -42,12 +64,12 @@ public class ProjectPreviewPane extends JPanel implements EntityEditorForm {
         add(separator, constraints);
 
         constraints.gridwidth = 1;
-        constraints.gridy = 2;
-        constraints.weightx = 0.2;
-        add(new JLabel("Total tracked time"), constraints);
-
-        constraints.weightx = 0.8;
-        add(timeTrackedField, constraints);
+        addStat(constraints, 2, "Total tracked time", timeTrackedField);
+        addStat(constraints, 3, "Sessions", sessionCountField);
+        addStat(constraints, 4, "Tasks", taskCountField);
+        addStat(constraints, 5, "Average session", averageSessionField);
+        addStat(constraints, 6, "First activity", firstActivityField);
+        addStat(constraints, 7, "Last activity", lastActivityField);
 
         model.previewObjects().subscribe(obj -> {
             if (obj instanceof Project) {
@@ -56,16 +78,60 @@ public class ProjectPreviewPane extends JPanel implements EntityEditorForm {
         });
     }
 
+    private void addStat(GridBagConstraints constraints, int row, String label, JLabel field) {
+        constraints.gridy = row;
+        constraints.weightx = 0.2;
+        add(new JLabel(label), constraints);
+
+        constraints.weightx = 0.8;
+        add(field, constraints);
+    }
+
     public void setProject(Project project) {
         previewedProjectId = project.getId();
         nameField.setText(project.getName());
 
-        long totalDurationMillis = projectRepository.findTotalTrackedMillis(project.getId());
-        timeTrackedField.setText(FormatUtils.millisToReadableDuration(totalDurationMillis));
+        long projectId = project.getId();
+        showSummary(null);
+        // The summaries are cached by the repository, so clicking through projects costs no query until data changes
+        Maybe.fromCallable(() -> findSummary(projectId))
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(summary -> {
+                    if (previewedProjectId == projectId)
+                        showSummary(summary);
+                }, Throwable::printStackTrace);
+    }
+
+    private ProjectSummary findSummary(long projectId) {
+        for (ProjectSummary summary : projectRepository.findAllWithSummaries())
+            if (summary.getProject().getId() == projectId)
+                return summary;
+        return null;
+    }
+
+    private void showSummary(ProjectSummary summary) {
+        if (summary == null) {
+            for (JLabel field : List.of(timeTrackedField, sessionCountField, taskCountField, averageSessionField, firstActivityField, lastActivityField))
+                field.setText("");
+            return;
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        timeTrackedField.setText(FormatUtils.millisToReadableDuration(summary.getTotalMillis()));
+        sessionCountField.setText(String.valueOf(summary.getSessionCount()));
+        taskCountField.setText(String.valueOf(summary.getTaskCount()));
+        averageSessionField.setText(FormatUtils.millisToReadableDuration(summary.getAverageSessionMillis()));
+        firstActivityField.setText(summary.getFirstActivity() != null ? activityFormatter.format(summary.getFirstActivity().atZone(zone)) : "-");
+        lastActivityField.setText(summary.getLastActivity() != null ? activityFormatter.format(summary.getLastActivity().atZone(zone)) : "-");
     }
 
     @Override
     public void submit() {
-        projectRepository.update(new Project(previewedProjectId, nameField.getText()));
+        Project project = new Project(previewedProjectId, nameField.getText());
+
+        Completable.fromAction(() -> projectRepository.update(project))
+                .subscribeOn(databaseScheduler)
+                .subscribe(() -> {}, Throwable::printStackTrace);
     }
 }
@@ -7,8 +7,12 @@ import com.github.polydome.journow.domain.repository.ProjectRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
 import com.github.polydome.journow.ui.control.ProjectSelector;
 import com.github.polydome.journow.ui.listmodel.ProjectListModel;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.swing.*;
 import java.awt.*;
 
@@ -18,12 +22,22 @@ public class TaskPreviewPane extends JPanel implements EntityEditorForm {
     private final TaskRepository taskRepository;
     private final ProjectRepository projectRepository;
     private final ProjectSelector projectSelector;
+    private final Scheduler databaseScheduler;
+    private final Scheduler uiScheduler;
 
     private long previewedTaskId = -1;
 
     @Inject
-    public TaskPreviewPane(PreviewModel model, TaskRepository taskRepository, ProjectSelector projectSelector, ProjectListModel projectListModel, ProjectRepository projectRepository) {
+    public TaskPreviewPane(PreviewModel model,
+                           TaskRepository taskRepository,
+                           ProjectSelector projectSelector,
+                           ProjectListModel projectListModel,
+                           ProjectRepository projectRepository,
+                           @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                           @Named("UiScheduler") Scheduler uiScheduler) {
         this.taskRepository = taskRepository;
+        this.databaseScheduler = databaseScheduler;
+        this.uiScheduler = uiScheduler;
         this.projectSelector = projectSelector;
         this.projectRepository = projectRepository;
         JLabel titleLabel = new JLabel("Title");
@@ -83,15 +97,28 @@ public class TaskPreviewPane extends JPanel implements EntityEditorForm {
         else
             projectSelector.setSelectedItem(project.getName());
 
-        long totalDurationMillis = taskRepository.findTotalTrackedMillis(previewedTaskId);
-        totalTrackedTimeField.setText(FormatUtils.millisToReadableDuration(totalDurationMillis));
+        long taskId = task.getId();
+        totalTrackedTimeField.setText("");
+        Single.fromCallable(() -> taskRepository.findTotalTrackedMillis(taskId))
+                .subscribeOn(databaseScheduler)
+                .observeOn(uiScheduler)
+                .subscribe(totalDurationMillis -> {
+                    if (previewedTaskId == taskId)
+                        totalTrackedTimeField.setText(FormatUtils.millisToReadableDuration(totalDurationMillis));
+                }, Throwable::printStackTrace);
     }
 
     @Override
     public void submit() {
-        if (projectSelector.hasProjectSelected())
-            if (projectSelector.hasCustomProject())
-                projectRepository.insert(projectSelector.getSelectedProject());
-        taskRepository.update(new Task(previewedTaskId, titleField.getText(), projectSelector.getSelectedProject()));
+        boolean insertProject = projectSelector.hasProjectSelected() && projectSelector.hasCustomProject();
+        long taskId = previewedTaskId;
+        String title = titleField.getText();
+        Project selectedProject = projectSelector.getSelectedProject();
+
+        Completable.fromAction(() -> {
+            // A typed name is stored, or matched to the project already named so, before the task can point at it
+            Project project = insertProject ? projectRepository.insert(selectedProject) : selectedProject;
+            taskRepository.update(new Task(taskId, title, project));
+        }).subscribeOn(databaseScheduler).subscribe(() -> {}, Throwable::printStackTrace);
     }
 }
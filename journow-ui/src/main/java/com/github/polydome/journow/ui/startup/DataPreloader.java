@@ -0,0 +1,65 @@
+package com.github.polydome.journow.ui.startup;
+
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Singleton
+public class DataPreloader {
+    private final Completable databaseReady;
+    private final Scheduler databaseScheduler;
+
+    private volatile Single<List<Task>> tasks;
+    private volatile Single<List<Project>> projects;
+
+    @Inject
+    public DataPreloader(@Named("DatabaseReady") Completable databaseReady,
+                         @Named("DatabaseScheduler") Scheduler databaseScheduler,
+                         TaskRepository taskRepository,
+                         ProjectRepository projectRepository,
+                         DataEventBus dataEventBus) {
+        this.databaseReady = databaseReady;
+        this.databaseScheduler = databaseScheduler;
+
+        tasks = load(taskRepository::findAll);
+        projects = load(projectRepository::findAll);
+
+        // A snapshot taken before a change must not be handed to models created after it
+        dataEventBus.taskEvents().subscribe(ev -> tasks = load(taskRepository::findAll));
+        dataEventBus.projectEvents().subscribe(ev -> projects = load(projectRepository::findAll));
+    }
+
+    /**
+     * Warms projects for the project combo. The task tree loads its own top level and the session table pages the
+     * history in, so tasks are only loaded here when something asks for them.
+     */
+    public void start() {
+        projects.subscribe(p -> StartupTrace.mark("data preloaded"), Throwable::printStackTrace);
+    }
+
+    public Single<List<Task>> tasks() {
+        return tasks;
+    }
+
+    public Single<List<Project>> projects() {
+        return projects;
+    }
+
+    private <T> Single<List<T>> load(Callable<List<T>> query) {
+        return databaseReady
+                .andThen(Single.fromCallable(query))
+                .subscribeOn(databaseScheduler)
+                .cache();
+    }
+}
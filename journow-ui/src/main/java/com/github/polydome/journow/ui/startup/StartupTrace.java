@@ -0,0 +1,32 @@
+package com.github.polydome.journow.ui.startup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports startup milestones relative to JVM start when run with {@code -Djournow.startupTrace}.
+ * With {@code -Djournow.startupTrace=exit} the application quits right after the first paint,
+ * so consecutive runs can be timed from a script.
+ */
+public class StartupTrace {
+    private static final String MODE = System.getProperty("journow.startupTrace");
+    private static final AtomicBoolean painted = new AtomicBoolean(false);
+
+    public static void mark(String milestone) {
+        if (MODE == null)
+            return;
+
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.err.printf("[startup] %5d ms  %s (%s)%n", uptime, milestone, Thread.currentThread().getName());
+    }
+
+    public static void firstPaint() {
+        if (MODE == null || !painted.compareAndSet(false, true))
+            return;
+
+        mark("first paint");
+
+        if (MODE.equals("exit"))
+            System.exit(0);
+    }
+}
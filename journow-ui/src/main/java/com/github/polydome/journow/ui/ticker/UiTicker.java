@@ -0,0 +1,112 @@
+package com.github.polydome.journow.ui.ticker;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Clock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single timer shared by every periodically refreshed UI element. It ticks once per second, on wall-clock second
+ * boundaries, and only while something is subscribed and the window is visible; otherwise no wakeup is scheduled.
+ */
+@Singleton
+public class UiTicker {
+    private static final long EARLY_WAKEUP_MILLIS = 50;
+
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final Subject<Long> ticks = PublishSubject.<Long>create().toSerialized();
+    private final Observable<Long> seconds;
+
+    private int subscribers = 0;
+    private boolean paused = false;
+    private ScheduledFuture<?> nextTick;
+
+    @Inject
+    public UiTicker(Clock clock) {
+        this(clock, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journow-ticker");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public UiTicker(Clock clock, ScheduledExecutorService executor) {
+        this.clock = clock;
+        this.executor = executor;
+        this.seconds = ticks
+                .doOnSubscribe(disposable -> changeSubscribers(1))
+                .doFinally(() -> changeSubscribers(-1));
+    }
+
+    /**
+     * Emits the current epoch second on every tick. A subscriber that arrives while the ticker is running is
+     * refreshed on the next boundary, and resuming from a pause ticks immediately.
+     */
+    public Observable<Long> seconds() {
+        return seconds;
+    }
+
+    public synchronized void pause() {
+        paused = true;
+        reschedule(false);
+    }
+
+    public synchronized void resume() {
+        if (!paused)
+            return;
+
+        paused = false;
+        reschedule(true);
+    }
+
+    private synchronized void changeSubscribers(int change) {
+        boolean wasRunning = isRunning();
+        subscribers += change;
+        reschedule(!wasRunning);
+    }
+
+    private boolean isRunning() {
+        return subscribers > 0 && !paused;
+    }
+
+    private void reschedule(boolean immediately) {
+        if (!isRunning()) {
+            if (nextTick != null) {
+                nextTick.cancel(false);
+                nextTick = null;
+            }
+        } else if (nextTick == null || immediately) {
+            if (nextTick != null)
+                nextTick.cancel(false);
+
+            long delay = immediately ? 0 : untilNextSecond();
+            nextTick = executor.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long untilNextSecond() {
+        long delay = 1000 - clock.millis() % 1000;
+        // A tick that woke up just before its boundary must not schedule a second one right after it
+        return delay < EARLY_WAKEUP_MILLIS ? delay + 1000 : delay;
+    }
+
+    private void tick() {
+        synchronized (this) {
+            nextTick = null;
+            if (!isRunning())
+                return;
+            reschedule(false);
+        }
+
+        // The executor may wake up marginally before the boundary
+        ticks.onNext((clock.millis() + EARLY_WAKEUP_MILLIS) / 1000);
+    }
+}
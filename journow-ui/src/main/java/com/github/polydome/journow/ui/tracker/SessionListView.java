@@ -8,6 +8,7 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
 
 public class SessionListView extends JPanel {
     private static final int[] COLUMN_WIDTHS = {100, 100, 20, 300};
@@ -23,6 +24,11 @@ public class SessionListView extends JPanel {
         JTable table = new JTable(model);
 
         table.setRowHeight(30);
+        // Pick up a locale or time zone change whenever the table comes back into view
+        table.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && table.isShowing())
+                model.refreshFormat();
+        });
 
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
         centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
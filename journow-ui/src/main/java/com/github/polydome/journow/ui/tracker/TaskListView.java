@@ -8,7 +8,10 @@ import com.github.polydome.journow.ui.preview.PreviewModel;
 
 import javax.inject.Inject;
 import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.ExpandVetoException;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
@@ -37,11 +40,23 @@ public class TaskListView extends JPanel {
             }
         });
 
-        model.reloads().subscribe(e -> {
-            for (int i = 0; i < tree.getRowCount(); i++) {
-                tree.expandRow(i);
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) throws ExpandVetoException {
+                TreePath path = event.getPath();
+                if (model.isLoaded(path))
+                    return;
+
+                // Expand again once the project's tasks are in the tree
+                model.loadChildren(path).subscribe(() -> tree.expandPath(path), Throwable::printStackTrace);
+                throw new ExpandVetoException(event);
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
             }
         });
+        model.addedProjects().subscribe(tree::expandPath);
 
         JScrollPane scrollPane = new JScrollPane(tree);
         setLayout(new BorderLayout());
@@ -5,8 +5,10 @@ import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.ui.control.ProjectSelector;
 import com.github.polydome.journow.ui.dialog.LogDialogFactory;
 import com.github.polydome.journow.viewmodel.TrackerViewModel;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -25,7 +27,10 @@ public class TrackerBar extends JPanel {
     private final JButton logButton = new JButton("Log");
 
     @Inject
-    public TrackerBar(TrackerViewModel viewModel, ProjectSelector projectSelector, LogDialogFactory logDialogFactory) {
+    public TrackerBar(TrackerViewModel viewModel,
+                      ProjectSelector projectSelector,
+                      LogDialogFactory logDialogFactory,
+                      @Named("UiScheduler") Scheduler uiScheduler) {
         super();
         this.viewModel = viewModel;
         this.projectSelector = projectSelector;
@@ -47,12 +52,15 @@ public class TrackerBar extends JPanel {
         setupKeys();
 
         viewModel.getTimer()
+                .observeOn(uiScheduler)
                 .subscribe(elapsedTimeCounter::setText);
 
         viewModel.getTaskTitle()
+                .observeOn(uiScheduler)
                 .subscribe(taskTitleLabel::setText);
 
         viewModel.hasOngoingSession()
+                .observeOn(uiScheduler)
                 .subscribe(it -> {
                     taskTitleLabel.setVisible(it);
                     elapsedTimeCounter.setVisible(it);
@@ -1,15 +1,23 @@
 package com.github.polydome.journow.ui.tracker;
 
+import com.github.polydome.journow.ui.startup.StartupTrace;
+import com.github.polydome.journow.ui.ticker.UiTicker;
+
 import javax.inject.Inject;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class TrackerWindow extends JFrame {
     private final BorderLayout layout = new BorderLayout();
 
     @Inject
-    public TrackerWindow(ListsPager listsPager, TrackerBar trackerBar) {
+    public TrackerWindow(ListsPager listsPager, TrackerBar trackerBar, UiTicker ticker) {
         createWindow();
+        pauseTickerWhileHidden(ticker);
 
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BorderLayout());
@@ -42,8 +50,40 @@ public class TrackerWindow extends JFrame {
         setSize(800, 400);
     }
 
+    private void pauseTickerWhileHidden(UiTicker ticker) {
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                ticker.pause();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                ticker.resume();
+            }
+        });
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                ticker.pause();
+            }
+
+            @Override
+            public void componentShown(ComponentEvent e) {
+                ticker.resume();
+            }
+        });
+    }
+
     public void showWindow() {
         setVisible(true);
     }
 
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        StartupTrace.firstPaint();
+    }
+
 }
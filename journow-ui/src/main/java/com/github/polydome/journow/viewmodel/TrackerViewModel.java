@@ -5,8 +5,10 @@ import com.github.polydome.journow.domain.model.Project;
 import com.github.polydome.journow.domain.model.Task;
 import com.github.polydome.journow.domain.repository.ProjectRepository;
 import com.github.polydome.journow.domain.repository.TaskRepository;
-import com.github.polydome.journow.common.FormatUtils;
+import com.github.polydome.journow.common.ElapsedTimeFormatter;
+import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -17,13 +19,19 @@ public class TrackerViewModel {
     private final Observable<Long> updateInterval;
     private final TaskRepository taskRepository;
     private final ProjectRepository projectRepository;
+    private final Scheduler databaseScheduler;
 
     @Inject
-    public TrackerViewModel(Tracker tracker, @Named("TimerUpdateInterval") Observable<Long> updateInterval, TaskRepository taskRepository, ProjectRepository projectRepository) {
+    public TrackerViewModel(Tracker tracker,
+                            @Named("TimerUpdateInterval") Observable<Long> updateInterval,
+                            TaskRepository taskRepository,
+                            ProjectRepository projectRepository,
+                            @Named("DatabaseScheduler") Scheduler databaseScheduler) {
         this.tracker = tracker;
         this.updateInterval = updateInterval;
         this.taskRepository = taskRepository;
         this.projectRepository = projectRepository;
+        this.databaseScheduler = databaseScheduler;
     }
 
     public Observable<Boolean> hasOngoingSession() {
@@ -31,12 +39,16 @@ public class TrackerViewModel {
     }
 
     public Observable<String> getTimer() {
-        return hasOngoingSession().switchMap(ongoingSession -> {
-            if (ongoingSession)
-                return tracker.timeElapsed(updateInterval);
-            else
-                return Observable.just(0L);
-        }).map(FormatUtils::millisToReadableDuration);
+        return Observable.defer(() -> {
+            ElapsedTimeFormatter formatter = new ElapsedTimeFormatter();
+
+            return hasOngoingSession().switchMap(ongoingSession -> {
+                if (ongoingSession)
+                    return updateInterval.map(tick -> formatter.format(tracker.millisElapsed()));
+                else
+                    return Observable.just(formatter.format(0));
+            });
+        });
     }
 
     public Observable<String> getTaskTitle() {
@@ -50,15 +62,20 @@ public class TrackerViewModel {
     }
 
     public void startSession(String title, Project project, boolean isNewProject) {
-        if (project != null && isNewProject)
-            project = projectRepository.insert(project);
+        Completable.fromAction(() -> {
+            Project taskProject = project;
+            if (taskProject != null && isNewProject)
+                taskProject = projectRepository.insert(taskProject);
 
-        Task task = taskRepository.insert(new Task(0, title, project));
+            Task task = taskRepository.insert(new Task(0, title, taskProject));
 
-        tracker.start(task.getId());
+            tracker.start(task.getId());
+        }).subscribeOn(databaseScheduler).subscribe(() -> {}, Throwable::printStackTrace);
     }
 
     public void endSession() {
-        tracker.stop();
+        Completable.fromAction(tracker::stop)
+                .subscribeOn(databaseScheduler)
+                .subscribe(() -> {}, Throwable::printStackTrace);
     }
 }
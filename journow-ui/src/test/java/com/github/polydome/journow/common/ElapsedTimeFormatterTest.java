@@ -0,0 +1,54 @@
+package com.github.polydome.journow.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class ElapsedTimeFormatterTest {
+    static final long SECOND = 1000;
+    static final long MINUTE = 60 * SECOND;
+    static final long HOUR = 60 * MINUTE;
+    static final long DAY = 24 * HOUR;
+
+    ElapsedTimeFormatter SUT = new ElapsedTimeFormatter();
+
+    @Test
+    void format_zero_isAllZeros() {
+        assertThat(SUT.format(0), equalTo("00:00:00"));
+    }
+
+    @Test
+    void format_underAMinute_showsWholeSeconds() {
+        assertThat(SUT.format(59 * SECOND + 999), equalTo("00:00:59"));
+    }
+
+    @Test
+    void format_overAnHour_showsHoursMinutesAndSeconds() {
+        assertThat(SUT.format(13 * HOUR + 7 * MINUTE + 5 * SECOND), equalTo("13:07:05"));
+    }
+
+    @Test
+    void format_overADay_wrapsHoursLikeFormatUtils() {
+        long millis = DAY + 2 * HOUR + 30 * MINUTE;
+
+        assertThat(SUT.format(millis), equalTo("02:30:00"));
+        assertThat(SUT.format(millis), equalTo(FormatUtils.millisToReadableDuration(millis)));
+    }
+
+    @Test
+    void format_sameSecond_returnsCachedString() {
+        String first = SUT.format(5 * SECOND + 100);
+
+        assertThat(SUT.format(5 * SECOND + 900), sameInstance(first));
+        assertThat(SUT.format(6 * SECOND), equalTo("00:00:06"));
+    }
+
+    @Test
+    void format_anySecond_matchesFormatUtils() {
+        for (long millis = 0; millis < 2 * DAY; millis += 7 * MINUTE + 13 * SECOND + 1)
+            assertThat(SUT.format(millis), equalTo(FormatUtils.millisToReadableDuration(millis)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.polydome.journow.ui.background;
+
+import com.github.polydome.journow.data.sync.ChangeBatch;
+import com.github.polydome.journow.data.sync.SyncEngine;
+import com.github.polydome.journow.data.sync.SyncStore;
+import com.github.polydome.journow.data.sync.SyncTransport;
+import com.github.polydome.journow.ui.test.ThreadConfinement;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class BackgroundSyncTest {
+    ThreadConfinement threads = new ThreadConfinement();
+    SyncStore store = mock(SyncStore.class);
+    CountDownLatch pulling = new CountDownLatch(1);
+    CountDownLatch serverAnswers = new CountDownLatch(1);
+
+    // A server that takes as long as the test wants to answer
+    SyncTransport transport = new SyncTransport() {
+        @Override
+        public void push(byte[] batch) {
+        }
+
+        @Override
+        public byte[] pull(long watermark, long replicaId) {
+            pulling.countDown();
+            try {
+                serverAnswers.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ChangeBatch(0, 7, List.of()).encode();
+        }
+    };
+
+    SyncEngine engine = new SyncEngine(store, transport);
+    BackgroundSync SUT = new BackgroundSync(Completable.complete(), threads.databaseScheduler, Schedulers.io(), () -> engine);
+
+    @AfterEach
+    void closeThreads() {
+        serverAnswers.countDown();
+        threads.close();
+    }
+
+    @Test
+    void round_serverNotAnswering_databaseThreadKeepsRunningQueuedWork() throws Exception {
+        when(store.changesSince(anyLong())).thenReturn(List.of());
+        var result = SUT.round().subscribeOn(Schedulers.single()).toFuture();
+        assertThat(pulling.await(5, TimeUnit.SECONDS), equalTo(true));
+
+        String ranOn = Single.fromCallable(() -> Thread.currentThread().getName())
+                .subscribeOn(threads.databaseScheduler)
+                .timeout(1, TimeUnit.SECONDS)
+                .blockingGet();
+
+        assertThat(ranOn, equalTo("test-database"));
+        assertThat(result.isDone(), equalTo(false));
+        verify(store, never()).apply(any(), anyLong());
+
+        serverAnswers.countDown();
+        result.get(5, TimeUnit.SECONDS);
+        verify(store).apply(List.of(), 7);
+    }
+
+    @Test
+    void round_readsAndWritesOnDatabaseThreadOnly() throws Exception {
+        when(store.currentSeq()).thenReturn(12L);
+        when(store.changesSince(anyLong())).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName(), equalTo("test-database"));
+            return List.of();
+        });
+        when(store.apply(any(), anyLong())).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName(), equalTo("test-database"));
+            return 0;
+        });
+        serverAnswers.countDown();
+
+        SUT.round().blockingGet();
+
+        verify(store).markPushed(12);
+        verify(store).apply(List.of(), 7);
+    }
+}
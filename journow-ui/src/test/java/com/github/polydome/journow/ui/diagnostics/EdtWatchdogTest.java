@@ -0,0 +1,107 @@
+package com.github.polydome.journow.ui.diagnostics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.awt.*;
+import java.awt.event.InvocationEvent;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class EdtWatchdogTest {
+    static final long MILLIS = 1_000_000;
+    static final StackTraceElement[] REPOSITORY_STACK = {
+            new StackTraceElement("org.sqlite.core.NativeDB", "step", null, -2),
+            new StackTraceElement("com.github.polydome.journow.data.repository.SessionRepositoryImpl", "findAll", null, 80),
+            new StackTraceElement("com.github.polydome.journow.ui.listmodel.TaskListModel", "refresh", null, 40),
+    };
+
+    AtomicLong clock = new AtomicLong(1000 * MILLIS);
+    CountDownLatch sampled = new CountDownLatch(3);
+    List<String> reports = new CopyOnWriteArrayList<>();
+    CountDownLatch reported = new CountDownLatch(1);
+    EdtWatchdog SUT = new EdtWatchdog(Duration.ofMillis(200), Duration.ofMillis(1), logger(), clock::get, thread -> {
+        sampled.countDown();
+        return REPOSITORY_STACK;
+    });
+
+    EdtWatchdogTest() {
+        SUT.startWatching();
+    }
+
+    @Test
+    void dispatch_belowThreshold_reportsNothing() throws InterruptedException {
+        dispatch(() -> clock.addAndGet(199 * MILLIS));
+        // The watcher handles dispatches in order, so a report for the next stall means the first one was passed over
+        dispatch(this::stall);
+
+        assertThat(reported.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(reports, contains(startsWith("EDT stall of 300 ms")));
+        assertThat(sampled.getCount(), equalTo(0L));
+    }
+
+    @Test
+    void dispatch_aboveThreshold_reportsRepositoryFrame() throws InterruptedException {
+        dispatch(this::stall);
+
+        assertThat(reported.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(reports, contains(allOf(
+                startsWith("EDT stall of 300 ms in SessionRepositoryImpl.findAll ("),
+                containsString("\tat com.github.polydome.journow.data.repository.SessionRepositoryImpl.findAll"))));
+    }
+
+    @Test
+    void report_noRepositoryOnStack_reportsOutsideRepositories() {
+        StackTraceElement[] stack = {new StackTraceElement("javax.swing.JTable", "paint", null, 10)};
+
+        String report = EdtWatchdog.report(null, Duration.ofMillis(250), List.of(stack, stack));
+
+        assertThat(report, startsWith("EDT stall of 250 ms outside repositories (2 samples) while dispatching unknown event"));
+    }
+
+    // Moves the clock past the threshold and holds the dispatch until the watcher has sampled it a few times
+    private void stall() {
+        clock.addAndGet(300 * MILLIS);
+        try {
+            sampled.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(Runnable runnable) {
+        SUT.dispatchEvent(new InvocationEvent(this, runnable));
+    }
+
+    private Logger logger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                reports.add(record.getMessage());
+                reported.countDown();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+}
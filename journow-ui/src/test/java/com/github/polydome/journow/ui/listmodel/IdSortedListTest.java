@@ -0,0 +1,150 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.domain.model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.swing.event.ListDataEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class IdSortedListTest {
+    // The ListDataEvents a model firing the listener's intervals sends, as "<type> <index0>-<index1>"
+    List<String> events = new ArrayList<>();
+    IdSortedList<Task> SUT = new IdSortedList<>(Task::getId, new IdSortedList.Listener() {
+        @Override
+        public void added(int from, int to) {
+            record(new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, from, to));
+        }
+
+        @Override
+        public void changed(int from, int to) {
+            record(new ListDataEvent(this, ListDataEvent.CONTENTS_CHANGED, from, to));
+        }
+
+        @Override
+        public void removed(int from, int to) {
+            record(new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, from, to));
+        }
+    });
+
+    @Test
+    void reconcile_adjacentInserts_firesOneAddedInterval() {
+        fill(1, 4);
+
+        SUT.reconcile(2, 3, tasks(2, 3));
+
+        assertThat(events, contains("added 1-2"));
+        assertThat(ids(), contains(1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    void reconcile_insertsAroundExistingRow_firesSeparateIntervals() {
+        fill(1, 3, 5);
+
+        SUT.reconcile(2, 4, tasks(2, 3, 4));
+
+        assertThat(events, contains("added 1-1", "changed 2-2", "added 3-3"));
+        assertThat(ids(), contains(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    void reconcile_rangeBeyondBothEnds_insertsFirstAndLast() {
+        fill(5);
+
+        SUT.reconcile(1, 9, tasks(1, 5, 9));
+
+        assertThat(events, contains("added 0-0", "changed 1-1", "added 2-2"));
+        assertThat(ids(), contains(1L, 5L, 9L));
+    }
+
+    @Test
+    void reconcile_removalsAtStart_firesOneRemovedInterval() {
+        fill(1, 2, 3, 4, 5);
+
+        SUT.reconcile(1, 2, List.of());
+
+        assertThat(events, contains("removed 0-1"));
+        assertThat(ids(), contains(3L, 4L, 5L));
+    }
+
+    @Test
+    void reconcile_removalsAtEnd_firesOneRemovedInterval() {
+        fill(1, 2, 3, 4, 5);
+
+        SUT.reconcile(4, 5, List.of());
+
+        assertThat(events, contains("removed 3-4"));
+        assertThat(ids(), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    void reconcile_removalsWithGaps_firesIntervalPerRun() {
+        fill(1, 2, 3, 4, 5);
+
+        SUT.reconcile(1, 5, tasks(3));
+
+        assertThat(events, contains("removed 0-1", "changed 0-0", "removed 1-2"));
+        assertThat(ids(), contains(3L));
+    }
+
+    @Test
+    void reconcile_unchangedInput_firesOneChangedIntervalAndKeepsRows() {
+        fill(1, 2, 3);
+
+        SUT.reconcile(1, 3, tasks(1, 2, 3));
+
+        assertThat(events, contains("changed 0-2"));
+        assertThat(ids(), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    void reconcile_updatedRows_replacesThemInPlace() {
+        fill(1, 2, 3);
+
+        SUT.reconcile(2, 2, List.of(new Task(2, "renamed", null)));
+
+        assertThat(events, contains("changed 1-1"));
+        assertThat(SUT.get(1).getTitle(), equalTo("renamed"));
+        assertThat(SUT.size(), equalTo(3));
+    }
+
+    @Test
+    void reconcile_rangeWithNothingBeforeOrAfter_firesNothing() {
+        fill(1, 5);
+
+        SUT.reconcile(2, 4, List.of());
+
+        assertThat(events, empty());
+        assertThat(ids(), contains(1L, 5L));
+    }
+
+    private void fill(long... ids) {
+        SUT.addAll(tasks(ids));
+        events.clear();
+    }
+
+    private static List<Task> tasks(long... ids) {
+        List<Task> tasks = new ArrayList<>();
+        for (long id : ids)
+            tasks.add(new Task(id, "task " + id, null));
+        return tasks;
+    }
+
+    private List<Long> ids() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < SUT.size(); i++)
+            ids.add(SUT.get(i).getId());
+        return ids;
+    }
+
+    private void record(ListDataEvent event) {
+        String type = event.getType() == ListDataEvent.INTERVAL_ADDED ? "added"
+                : event.getType() == ListDataEvent.INTERVAL_REMOVED ? "removed" : "changed";
+        events.add(type + " " + event.getIndex0() + "-" + event.getIndex1());
+    }
+}
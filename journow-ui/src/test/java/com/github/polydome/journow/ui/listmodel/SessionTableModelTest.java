@@ -0,0 +1,155 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.domain.model.Session;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.SessionRepository;
+import com.github.polydome.journow.ui.test.ThreadConfinement;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class SessionTableModelTest {
+    ThreadConfinement threads = new ThreadConfinement();
+    SessionRepository sessionRepository = mock(SessionRepository.class);
+    Subject<DataEvent> events = PublishSubject.create();
+    SessionTableModel SUT;
+
+    @AfterEach
+    void closeThreads() {
+        threads.close();
+    }
+
+    @Test
+    void getValueAt_pageNotLoaded_loadsPageOffEdtAndUpdatesRowsOnEdt() throws Exception {
+        createModel(250);
+        AtomicReference<Object> pending = new AtomicReference<>();
+        AtomicReference<Object> loaded = new AtomicReference<>();
+
+        threads.onEdt(() -> pending.set(SUT.getValueAt(150, 3)));
+        threads.settle();
+        threads.onEdt(() -> loaded.set(SUT.getValueAt(150, 3)));
+
+        assertThat(SUT.getRowCount(), equalTo(250));
+        assertThat(pending.get(), equalTo(""));
+        assertThat(loaded.get(), equalTo("task 151"));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    @Test
+    void dataEvent_sessionAppended_countsOffEdtAndInsertsRowOnEdt() throws Exception {
+        createModel(250);
+        createRepository(251);
+        threads.queriedOnEdt.clear();
+        threads.mutatedOnEdt.clear();
+
+        events.onNext(DataEvent.insertOne(251));
+        threads.settle();
+
+        assertThat(SUT.getRowCount(), equalTo(251));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    @Test
+    void getValueAt_sessionWithoutTask_showsDeletedTask() throws Exception {
+        createModel(1);
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+        when(sessionRepository.findPage(anyLong(), eq(SessionTableModel.PAGE_SIZE)))
+                .thenReturn(List.of(new Session(1, start, start.plusSeconds(30), null)));
+        AtomicReference<Object> title = new AtomicReference<>();
+
+        threads.onEdt(() -> SUT.getValueAt(0, 3));
+        threads.settle();
+        threads.onEdt(() -> title.set(SUT.getValueAt(0, 3)));
+
+        assertThat(title.get(), equalTo(SessionRow.DELETED_TASK));
+    }
+
+    @Test
+    void refreshFormat_timeZoneChanged_reformatsLoadedRowsOffEdt() throws Exception {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            createModel(250);
+            AtomicReference<Object> before = new AtomicReference<>();
+            AtomicReference<Object> after = new AtomicReference<>();
+
+            threads.onEdt(() -> SUT.getValueAt(0, 0));
+            threads.settle();
+            threads.onEdt(() -> before.set(SUT.getValueAt(0, 0)));
+
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+            threads.queriedOnEdt.clear();
+            threads.onEdt(() -> {
+                SUT.refreshFormat();
+                SUT.getValueAt(0, 0);
+            });
+            threads.settle();
+            threads.onEdt(() -> after.set(SUT.getValueAt(0, 0)));
+
+            assertThat(before.get(), equalTo("13-09-2020 12:27"));
+            assertThat(after.get(), equalTo("13-09-2020 14:27"));
+            assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private void createModel(int sessions) throws Exception {
+        createRepository(sessions);
+
+        SUT = new SessionTableModel(sessionRepository, Completable.complete(),
+                threads.databaseScheduler, threads.uiScheduler, events);
+        SUT.addTableModelListener(e -> threads.mutated());
+        threads.settle();
+    }
+
+    // Sessions 1..count, so the n-th row holds session n + 1
+    private void createRepository(int count) {
+        when(sessionRepository.countFrom(anyLong())).thenAnswer(invocation -> {
+            threads.queried();
+            long firstId = invocation.getArgument(0);
+            return (int) (count - Math.max(1, firstId) + 1);
+        });
+        when(sessionRepository.findPageStartIds(anyLong(), eq(SessionTableModel.PAGE_SIZE))).thenAnswer(invocation -> {
+            threads.queried();
+            long firstId = Math.max(1, invocation.<Long>getArgument(0));
+            List<Long> starts = new ArrayList<>();
+            for (long id = firstId; id <= count; id += SessionTableModel.PAGE_SIZE)
+                starts.add(id);
+            return starts.stream().mapToLong(Long::longValue).toArray();
+        });
+        when(sessionRepository.findPage(anyLong(), eq(SessionTableModel.PAGE_SIZE))).thenAnswer(invocation -> {
+            threads.queried();
+            long firstId = invocation.getArgument(0);
+            List<Session> page = new ArrayList<>();
+            for (long id = firstId; id < firstId + SessionTableModel.PAGE_SIZE && id <= count; id++)
+                page.add(createSession(id));
+            return page;
+        });
+    }
+
+    private Session createSession(long id) {
+        Instant start = Instant.ofEpochMilli(1_600_000_000_000L + id * 60_000);
+        return new Session(id, start, start.plusSeconds(30), new Task(id, "task " + id, null));
+    }
+}
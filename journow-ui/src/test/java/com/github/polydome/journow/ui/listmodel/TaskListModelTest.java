@@ -0,0 +1,90 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.startup.DataPreloader;
+import com.github.polydome.journow.ui.test.ThreadConfinement;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class TaskListModelTest {
+    ThreadConfinement threads = new ThreadConfinement();
+    TaskRepository taskRepository = mock(TaskRepository.class);
+    Subject<DataEvent> events = PublishSubject.create();
+    TaskListModel SUT;
+
+    @AfterEach
+    void closeThreads() {
+        threads.close();
+    }
+
+    @Test
+    void preload_queriesOffEdtAndFillsModelOnEdt() throws Exception {
+        when(taskRepository.findAll()).thenAnswer(threads.query(List.of(new Task(1, "first", null))));
+
+        createModel();
+        threads.settle();
+
+        assertThat(SUT.getSize(), equalTo(1));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    @Test
+    void dataEvent_queriesOffEdtAndUpdatesModelOnEdt() throws Exception {
+        when(taskRepository.findAll()).thenAnswer(threads.query(List.of(new Task(1, "first", null))));
+        when(taskRepository.findByIdRange(2, 2)).thenAnswer(threads.query(List.of(new Task(2, "second", null))));
+
+        createModel();
+        threads.settle();
+        threads.mutatedOnEdt.clear();
+
+        events.onNext(DataEvent.insertOne(2));
+        threads.settle();
+
+        assertThat(SUT.getSize(), equalTo(2));
+        assertThat(SUT.getElementAt(1).getTitle(), equalTo("second"));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    private void createModel() {
+        var dataPreloader = new DataPreloader(Completable.complete(), threads.databaseScheduler, taskRepository,
+                mock(ProjectRepository.class), new DataEventBus());
+
+        SUT = new TaskListModel(taskRepository, dataPreloader, threads.databaseScheduler, threads.uiScheduler, events);
+        SUT.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                threads.mutated();
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                threads.mutated();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                threads.mutated();
+            }
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.github.polydome.journow.ui.listmodel;
+
+import com.github.polydome.journow.data.event.DataEvent;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.test.ThreadConfinement;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class TaskTreeModelTest {
+    ThreadConfinement threads = new ThreadConfinement();
+    TaskRepository taskRepository = mock(TaskRepository.class);
+    ProjectRepository projectRepository = mock(ProjectRepository.class);
+    Subject<DataEvent> taskEvents = PublishSubject.create();
+    Subject<DataEvent> projectEvents = PublishSubject.create();
+    TaskTreeModel SUT;
+
+    Project project = new Project(1, "project");
+    List<String> events = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void closeThreads() {
+        threads.close();
+    }
+
+    @Test
+    void load_projectsNotExpanded_loadsProjectsWithoutTheirTasks() throws Exception {
+        createModel();
+
+        var root = (DefaultMutableTreeNode) SUT.getRoot();
+        assertThat(root.getChildCount(), equalTo(1));
+
+        var projectNode = (ProjectNode) root.getChildAt(0);
+        assertThat(projectNode.getChildCount(), equalTo(0));
+        assertThat(projectNode.isLeaf(), equalTo(false));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+    }
+
+    @Test
+    void loadChildren_queriesTasksOffEdtAndInsertsThemOnEdt() throws Exception {
+        when(taskRepository.findByProject(1)).thenAnswer(threads.query(List.of(new Task(1, "task", project))));
+        createModel();
+        threads.queriedOnEdt.clear();
+        threads.mutatedOnEdt.clear();
+
+        var projectNode = (ProjectNode) ((DefaultMutableTreeNode) SUT.getRoot()).getChildAt(0);
+        SUT.loadChildren(new TreePath(projectNode.getPath())).blockingAwait();
+        threads.settle();
+
+        assertThat(projectNode.getChildCount(), equalTo(1));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    @Test
+    void taskEvent_queriesOffEdtAndUpdatesTreeOnEdt() throws Exception {
+        when(taskRepository.findByIdRange(2, 2)).thenAnswer(threads.query(List.of(new Task(2, "task without project", null))));
+        createModel();
+        threads.queriedOnEdt.clear();
+        threads.mutatedOnEdt.clear();
+
+        taskEvents.onNext(DataEvent.insertOne(2));
+        threads.settle();
+
+        assertThat(((DefaultMutableTreeNode) SUT.getRoot()).getChildCount(), equalTo(2));
+        assertThat(threads.queriedOnEdt, both(not(empty())).and(everyItem(equalTo(false))));
+        assertThat(threads.mutatedOnEdt, both(not(empty())).and(everyItem(equalTo(true))));
+    }
+
+    @Test
+    void insertEvent_taskInLoadedProject_insertsNodeInIdOrderAndRecountsOnlyThatProject() throws Exception {
+        Project other = new Project(2, "other");
+        when(taskRepository.findByProject(1)).thenReturn(List.of(new Task(1, "first", project), new Task(3, "third", project)));
+        when(taskRepository.findByIdRange(2, 2)).thenReturn(List.of(new Task(2, "second", project)));
+        when(taskRepository.countByProjectRange(1, 1)).thenReturn(Map.of(1L, 3));
+        createModel(List.of(project, other), Map.of(1L, 2, 2L, 5));
+        ProjectNode projectNode = expand(0);
+        events.clear();
+
+        taskEvents.onNext(DataEvent.insertOne(2));
+        threads.settle();
+
+        assertThat(titles(projectNode), contains("first", "second", "third"));
+        assertThat(events, contains("inserted project[1]"));
+        assertThat(projectNode.getTaskCount(), equalTo(3));
+        assertThat(((ProjectNode) root().getChildAt(1)).getTaskCount(), equalTo(5));
+        verify(taskRepository, times(1)).countByProject();
+    }
+
+    @Test
+    void removeEvent_lastTaskOfProject_removesTaskAndProjectNodes() throws Exception {
+        when(taskRepository.findByProject(1)).thenReturn(List.of(new Task(1, "only", project)));
+        when(taskRepository.findByIdRange(1, 1)).thenReturn(List.of());
+        when(taskRepository.countByProjectRange(1, 1)).thenReturn(Map.of());
+        createModel(List.of(project), Map.of(1L, 1), List.of(new Task(7, "loose", null)));
+        expand(0);
+        events.clear();
+
+        taskEvents.onNext(DataEvent.deleteOne(1));
+        threads.settle();
+
+        assertThat(titles(root()), contains("loose"));
+        assertThat(events, contains("removed project[0]", "removed root[0]"));
+        verify(taskRepository, times(1)).countByProject();
+    }
+
+    @Test
+    void changeEvent_taskMovedToOtherProject_movesNodeAndRecountsBoth() throws Exception {
+        Project other = new Project(2, "other");
+        when(taskRepository.findByProject(1)).thenReturn(List.of(new Task(1, "moving", project), new Task(3, "staying", project)));
+        when(taskRepository.findByProject(2)).thenReturn(List.of(new Task(2, "resident", other)));
+        when(taskRepository.findByIdRange(1, 1)).thenReturn(List.of(new Task(1, "moving", other)));
+        when(taskRepository.countByProjectRange(1, 1)).thenReturn(Map.of(1L, 1));
+        when(taskRepository.countByProjectRange(2, 2)).thenReturn(Map.of(2L, 2));
+        createModel(List.of(project, other), Map.of(1L, 2, 2L, 1));
+        ProjectNode first = expand(0);
+        ProjectNode second = expand(1);
+        events.clear();
+
+        taskEvents.onNext(DataEvent.updateOne(1));
+        threads.settle();
+
+        assertThat(titles(first), contains("staying"));
+        assertThat(titles(second), contains("moving", "resident"));
+        assertThat(events, contains("removed project[0]", "inserted other[0]"));
+        assertThat(first.getTaskCount(), equalTo(1));
+        assertThat(second.getTaskCount(), equalTo(2));
+        verify(taskRepository, times(1)).countByProject();
+    }
+
+    @Test
+    void removeEvent_taskNeverQueried_recountsEveryProject() throws Exception {
+        when(taskRepository.findByIdRange(9, 9)).thenReturn(List.of());
+        createModel();
+        when(taskRepository.countByProject()).thenReturn(Map.of());
+
+        taskEvents.onNext(DataEvent.deleteOne(9));
+        threads.settle();
+
+        verify(taskRepository, times(2)).countByProject();
+        assertThat(root().getChildCount(), equalTo(0));
+    }
+
+    @Test
+    void events_selectedAndExpandedNodesUntouched_keepSelectionAndExpansion() throws Exception {
+        Project other = new Project(2, "other");
+        when(taskRepository.findByProject(1)).thenReturn(List.of(new Task(1, "first", project), new Task(4, "fourth", project)));
+        when(taskRepository.findByIdRange(2, 2)).thenReturn(List.of(new Task(2, "second", project)));
+        when(taskRepository.findByIdRange(1, 1)).thenReturn(List.of(new Task(1, "renamed", project)));
+        when(taskRepository.findByIdRange(3, 3)).thenReturn(List.of(new Task(3, "third", other)));
+        when(taskRepository.countByProjectRange(1, 1)).thenReturn(Map.of(1L, 3));
+        when(taskRepository.countByProjectRange(2, 2)).thenReturn(Map.of(2L, 1));
+        createModel(List.of(project, other), Map.of(1L, 2));
+        ProjectNode projectNode = expand(0);
+        TreePath selected = new TreePath(((DefaultMutableTreeNode) projectNode.getChildAt(1)).getPath());
+        JTree[] tree = new JTree[1];
+        threads.onEdt(() -> {
+            tree[0] = new JTree(SUT);
+            tree[0].expandPath(new TreePath(projectNode.getPath()));
+            tree[0].setSelectionPath(selected);
+        });
+
+        taskEvents.onNext(DataEvent.insertOne(2));
+        taskEvents.onNext(DataEvent.updateOne(1));
+        projectEvents.onNext(DataEvent.insertOne(2));
+        taskEvents.onNext(DataEvent.insertOne(3));
+        threads.settle();
+
+        threads.onEdt(() -> {
+            assertThat(tree[0].getSelectionPath(), equalTo(selected));
+            assertThat(tree[0].isExpanded(new TreePath(projectNode.getPath())), equalTo(true));
+        });
+        assertThat(titles(projectNode), contains("renamed", "second", "fourth"));
+        assertThat(titles(root()), contains("project", "other"));
+    }
+
+    private ProjectNode expand(int index) throws Exception {
+        var projectNode = (ProjectNode) root().getChildAt(index);
+        SUT.loadChildren(new TreePath(projectNode.getPath())).blockingAwait();
+        threads.settle();
+        return projectNode;
+    }
+
+    private DefaultMutableTreeNode root() {
+        return (DefaultMutableTreeNode) SUT.getRoot();
+    }
+
+    private static List<String> titles(DefaultMutableTreeNode parent) {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            Object item = ((DefaultMutableTreeNode) parent.getChildAt(i)).getUserObject();
+            titles.add(item instanceof Task ? ((Task) item).getTitle() : ((Project) item).getName());
+        }
+        return titles;
+    }
+
+    // Tree events as "<kind> <parent>[<child indices>]"
+    private static String describe(String kind, TreeModelEvent e) {
+        Object parent = ((DefaultMutableTreeNode) e.getTreePath().getLastPathComponent()).getUserObject();
+        return kind + " " + (parent instanceof Project ? ((Project) parent).getName() : "root") + Arrays.toString(e.getChildIndices());
+    }
+
+    private void createModel() throws Exception {
+        createModel(List.of(project), Map.of(1L, 1));
+    }
+
+    private void createModel(List<Project> projects, Map<Long, Integer> taskCounts) throws Exception {
+        createModel(projects, taskCounts, List.of());
+    }
+
+    private void createModel(List<Project> projects, Map<Long, Integer> taskCounts, List<Task> tasksWithoutProject) throws Exception {
+        when(projectRepository.findAll()).thenAnswer(threads.query(projects));
+        when(taskRepository.countByProject()).thenAnswer(threads.query(taskCounts));
+        when(taskRepository.findWithoutProject()).thenAnswer(threads.query(tasksWithoutProject));
+
+        SUT = new TaskTreeModel(taskRepository, projectRepository, Completable.complete(),
+                threads.databaseScheduler, threads.uiScheduler, taskEvents, projectEvents);
+        SUT.addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                threads.mutated();
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                threads.mutated();
+                events.add(describe("inserted", e));
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                threads.mutated();
+                events.add(describe("removed", e));
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                threads.mutated();
+            }
+        });
+        threads.settle();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.polydome.journow.ui.preview;
+
+import com.github.polydome.journow.data.event.DataEventBus;
+import com.github.polydome.journow.domain.model.Project;
+import com.github.polydome.journow.domain.model.Task;
+import com.github.polydome.journow.domain.repository.ProjectRepository;
+import com.github.polydome.journow.domain.repository.TaskRepository;
+import com.github.polydome.journow.ui.control.ProjectSelector;
+import com.github.polydome.journow.ui.listmodel.ProjectListModel;
+import com.github.polydome.journow.ui.startup.DataPreloader;
+import com.github.polydome.journow.ui.test.ThreadConfinement;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class TaskPreviewPaneTest {
+    ThreadConfinement threads = new ThreadConfinement();
+    TaskRepository taskRepository = mock(TaskRepository.class);
+    ProjectRepository projectRepository = mock(ProjectRepository.class);
+    ProjectSelector projectSelector;
+    TaskPreviewPane SUT;
+
+    @AfterEach
+    void closeThreads() {
+        threads.close();
+    }
+
+    @Test
+    void submit_typedProjectName_updatesTaskWithStoredProject() throws Exception {
+        Project stored = new Project(7, "Journow");
+        when(projectRepository.findAll()).thenReturn(List.of());
+        when(projectRepository.insert(any())).thenReturn(stored);
+        createPane();
+
+        threads.onEdt(() -> {
+            SUT.setTask(new Task(3, "Review", null));
+            projectSelector.setSelectedItem("journow");
+            SUT.submit();
+        });
+        threads.settle();
+
+        ArgumentCaptor<Project> inserted = ArgumentCaptor.forClass(Project.class);
+        verify(projectRepository).insert(inserted.capture());
+        assertThat(inserted.getValue().getName(), equalTo("journow"));
+        ArgumentCaptor<Task> updated = ArgumentCaptor.forClass(Task.class);
+        verify(taskRepository).update(updated.capture());
+        assertThat(updated.getValue().getId(), equalTo(3L));
+        assertThat(updated.getValue().getProject(), sameInstance(stored));
+    }
+
+    private void createPane() throws Exception {
+        var dataPreloader = new DataPreloader(Completable.complete(), threads.databaseScheduler, taskRepository,
+                projectRepository, new DataEventBus());
+        threads.onEdt(() -> {
+            var projectListModel = new ProjectListModel(projectRepository, dataPreloader, threads.databaseScheduler,
+                    threads.uiScheduler, PublishSubject.create());
+            projectSelector = new ProjectSelector(projectListModel);
+            SUT = new TaskPreviewPane(new PreviewModel(), taskRepository, projectSelector, projectListModel,
+                    projectRepository, threads.databaseScheduler, threads.uiScheduler);
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.polydome.journow.ui.test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.*;
+
+/**
+ * Scheduled executor on a manual clock: nothing runs until {@link #advance} moves the time past a task's due time,
+ * and then it runs on the calling thread. The clock reads the same time.
+ */
+public class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<Task<?>> queue = new PriorityQueue<>();
+    private long now;
+    private long sequence = 0;
+    private boolean shutdown = false;
+
+    public final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    };
+
+    public ManualScheduler(long startMillis) {
+        this.now = startMillis;
+    }
+
+    /**
+     * Runs every task due up to the given time from now, in due order, each with the clock at its due time.
+     */
+    public void advance(long millis) {
+        long until = now + millis;
+        Task<?> next;
+        while ((next = queue.peek()) != null && next.due <= until) {
+            queue.poll();
+            now = next.due;
+            next.run();
+        }
+        now = until;
+    }
+
+    /**
+     * The tasks scheduled and neither run nor cancelled.
+     */
+    public List<ScheduledFuture<?>> pending() {
+        List<ScheduledFuture<?>> pending = new ArrayList<>();
+        for (Task<?> task : queue)
+            if (!task.isCancelled())
+                pending.add(task);
+        return pending;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(Executors.callable(command), unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(callable, unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return enqueue(new Task<>(Executors.callable(command), unit.toMillis(initialDelay), unit.toMillis(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        // Tasks take no time on the manual clock, so a fixed delay is a fixed rate
+        return scheduleAtFixedRate(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> tasks = new ArrayList<>(queue);
+        queue.clear();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private <V> Task<V> enqueue(Task<V> task) {
+        if (shutdown)
+            throw new RejectedExecutionException("The scheduler is shut down");
+        queue.add(task);
+        return task;
+    }
+
+    private class Task<V> extends FutureTask<V> implements ScheduledFuture<V> {
+        private final long period;
+        private final long order = sequence++;
+        private long due;
+
+        Task(Callable<V> callable, long delay, long period) {
+            super(callable);
+            this.due = now + delay;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            if (period == 0) {
+                super.run();
+            } else if (runAndReset()) {
+                due += period;
+                queue.add(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            queue.remove(this);
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            return due != task.due ? Long.compare(due, task.due) : Long.compare(order, task.order);
+        }
+    }
+}
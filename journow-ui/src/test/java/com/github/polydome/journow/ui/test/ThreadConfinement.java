@@ -0,0 +1,60 @@
+package com.github.polydome.journow.ui.test;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.mockito.stubbing.Answer;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application's two schedulers, a single database thread and the EDT, along with a record of which thread
+ * queried the repositories and which thread touched the models.
+ */
+public class ThreadConfinement implements AutoCloseable {
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-database"));
+
+    public final Scheduler databaseScheduler = Schedulers.from(databaseExecutor);
+    public final Scheduler uiScheduler = Schedulers.from(SwingUtilities::invokeLater);
+
+    public final List<Boolean> queriedOnEdt = new CopyOnWriteArrayList<>();
+    public final List<Boolean> mutatedOnEdt = new CopyOnWriteArrayList<>();
+
+    public <T> Answer<T> query(T result) {
+        return invocation -> {
+            queried();
+            return result;
+        };
+    }
+
+    public void queried() {
+        queriedOnEdt.add(SwingUtilities.isEventDispatchThread());
+    }
+
+    public void mutated() {
+        mutatedOnEdt.add(SwingUtilities.isEventDispatchThread());
+    }
+
+    /**
+     * Waits until work queued on either thread, including work the other thread queued in the meantime, has run.
+     */
+    public void settle() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            databaseExecutor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+            SwingUtilities.invokeAndWait(() -> {});
+        }
+    }
+
+    public void onEdt(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    @Override
+    public void close() {
+        databaseExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.polydome.journow.ui.ticker;
+
+import com.github.polydome.journow.ui.test.ManualScheduler;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_METHOD)
+class UiTickerTest {
+    static final long SECOND = 1_600_000_000L;
+
+    // 300 ms past a second boundary
+    ManualScheduler scheduler = new ManualScheduler(SECOND * 1000 + 300);
+    UiTicker SUT = new UiTicker(scheduler.clock, scheduler);
+
+    @Test
+    void seconds_noSubscriber_schedulesNothing() {
+        SUT.seconds();
+
+        assertThat(scheduler.pending(), empty());
+    }
+
+    @Test
+    void seconds_subscribed_ticksAtOnceThenOnSecondBoundaries() {
+        TestObserver<Long> observer = SUT.seconds().test();
+
+        scheduler.advance(0);
+        scheduler.advance(699);
+        observer.assertValues(SECOND);
+
+        scheduler.advance(1);
+        scheduler.advance(2000);
+        observer.assertValues(SECOND, SECOND + 1, SECOND + 2, SECOND + 3);
+        assertThat(scheduler.pending(), hasSize(1));
+    }
+
+    @Test
+    void seconds_secondSubscriber_sharesTheScheduledTick() {
+        TestObserver<Long> first = SUT.seconds().test();
+        scheduler.advance(0);
+        TestObserver<Long> second = SUT.seconds().test();
+
+        assertThat(scheduler.pending(), hasSize(1));
+        scheduler.advance(700);
+        first.assertValues(SECOND, SECOND + 1);
+        second.assertValues(SECOND + 1);
+        assertThat(scheduler.pending(), hasSize(1));
+    }
+
+    @Test
+    void seconds_lastSubscriberDisposed_stopsTicking() {
+        TestObserver<Long> first = SUT.seconds().test();
+        TestObserver<Long> second = SUT.seconds().test();
+        scheduler.advance(0);
+
+        first.dispose();
+        assertThat(scheduler.pending(), hasSize(1));
+        second.dispose();
+        scheduler.advance(5000);
+
+        assertThat(scheduler.pending(), empty());
+        second.assertValues(SECOND);
+    }
+
+    @Test
+    void seconds_resubscribedAfterStop_schedulesOneTick() {
+        SUT.seconds().test().dispose();
+        TestObserver<Long> observer = SUT.seconds().test();
+
+        assertThat(scheduler.pending(), hasSize(1));
+        scheduler.advance(700);
+        observer.assertValues(SECOND, SECOND + 1);
+    }
+
+    @Test
+    void pause_running_stopsTicksUntilResumed() {
+        TestObserver<Long> observer = SUT.seconds().test();
+        scheduler.advance(0);
+
+        SUT.pause();
+        scheduler.advance(3000);
+        observer.assertValues(SECOND);
+        assertThat(scheduler.pending(), empty());
+
+        SUT.resume();
+        scheduler.advance(0);
+        observer.assertValues(SECOND, SECOND + 3);
+        assertThat(scheduler.pending(), hasSize(1));
+    }
+
+    @Test
+    void resume_notPaused_keepsTheScheduledTick() {
+        SUT.seconds().test();
+        scheduler.advance(0);
+
+        SUT.resume();
+
+        assertThat(scheduler.pending(), hasSize(1));
+        assertThat(scheduler.pending().get(0).getDelay(TimeUnit.MILLISECONDS), equalTo(700L));
+    }
+}